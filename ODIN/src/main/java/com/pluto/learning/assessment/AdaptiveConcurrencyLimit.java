@@ -0,0 +1,82 @@
+package com.pluto.learning.assessment;
+
+/**
+ * Límite de concurrencia adaptativo por gradiente de latencia.
+ *
+ * Compara la latencia reciente (media móvil corta) con la de referencia (media móvil
+ * larga): mientras la reciente no supera la referencia × {@code tolerance} el límite
+ * crece en √límite, y cuando la supera se reduce en proporción al gradiente
+ * (nunca por debajo de la mitad de una vez). Así la concurrencia sube hasta que la
+ * máquina empieza a encolar trabajo y baja antes de que se disparen las colas de la
+ * latencia, sin fijar un tamaño de pool por host.
+ */
+final class AdaptiveConcurrencyLimit {
+
+    private static final double SHORT_WINDOW = 10;
+    private static final double LONG_WINDOW = 100;
+    private static final double SMOOTHING = 0.2;
+    private static final double MIN_GRADIENT = 0.5;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private double limit;
+    private double shortLatency;
+    private double longLatency;
+
+    AdaptiveConcurrencyLimit(int initialLimit, int minLimit, int maxLimit, double tolerance) {
+        if (minLimit < 1 || maxLimit < minLimit || tolerance < 1.0) {
+            throw new IllegalArgumentException("Límites de concurrencia inválidos: min=" + minLimit + ", max=" + maxLimit);
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.tolerance = tolerance;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+    }
+
+    /**
+     * Límite fijo, sin adaptación
+     */
+    static AdaptiveConcurrencyLimit fixed(int limit) {
+        return new AdaptiveConcurrencyLimit(limit, limit, limit, 1.0);
+    }
+
+    synchronized int limit() {
+        return (int) limit;
+    }
+
+    int maxLimit() {
+        return maxLimit;
+    }
+
+    /**
+     * Registra la latencia de una ejecución que terminó con {@code inFlight} ejecuciones
+     * en curso (incluida ella)
+     */
+    synchronized void onSample(long latencyNanos, int inFlight) {
+        if (latencyNanos <= 0) {
+            return;
+        }
+        if (longLatency == 0) {
+            shortLatency = latencyNanos;
+            longLatency = latencyNanos;
+            return;
+        }
+        shortLatency += (latencyNanos - shortLatency) / SHORT_WINDOW;
+        longLatency += (latencyNanos - longLatency) / LONG_WINDOW;
+
+        // Tras una bajada sostenida de latencia la referencia se acerca más deprisa
+        if (longLatency / shortLatency > 2) {
+            longLatency *= 0.95;
+        }
+
+        // Con menos de medio límite ocupado la latencia no dice nada sobre el límite
+        if (inFlight < limit / 2) {
+            return;
+        }
+
+        double gradient = Math.max(MIN_GRADIENT, Math.min(1.0, tolerance * longLatency / shortLatency));
+        double target = gradient < 1.0 ? limit * gradient : limit + Math.sqrt(limit);
+        limit = Math.max(minLimit, Math.min(maxLimit, limit * (1 - SMOOTHING) + target * SMOOTHING));
+    }
+}
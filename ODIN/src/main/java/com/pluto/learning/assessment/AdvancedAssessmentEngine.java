@@ -3,12 +3,24 @@ package com.pluto.learning.assessment;
 import com.pluto.learning.auth.User;
 import com.pluto.learning.assessments.Quiz;
 import com.pluto.learning.submissions.LabSubmission;
+import jakarta.annotation.PreDestroy;
+import org.springframework.core.env.Environment;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Assessment Engine Avanzado para evaluación automática multi-dimensional
@@ -18,72 +30,273 @@ import java.util.Map;
  * - Detección de plagio
  * - Análisis de performance en tiempo real
  * - Generación de feedback inteligente
+ *
+ * Las dimensiones de una submission se evalúan como un grafo de etapas: todas
+ * dependen solo de la copia del repositorio, así que se ejecutan en paralelo en
+ * un executor acotado (hilos virtuales si el runtime es Java 21+). Cada etapa
+ * tiene su propio timeout ({@code assessment.evaluation.timeout-seconds.<etapa>});
+ * si vence una etapa no crítica el resultado queda parcial y pendiente de revisión.
  */
 @Service
-@Transactional
 public class AdvancedAssessmentEngine {
     
+    static final String STAGE_SNAPSHOT = "snapshot";
+    static final String STAGE_FUNCTIONALITY = "functionality";
+    static final String STAGE_CODE_QUALITY = "code-quality";
+    static final String STAGE_ARCHITECTURE = "architecture";
+    static final String STAGE_RESILIENCE = "resilience";
+    static final String STAGE_OPERABILITY = "operability";
+    static final String STAGE_PLAGIARISM = "plagiarism";
+    static final String STAGE_PERFORMANCE = "performance";
+    static final String STAGE_BENCHMARK = "benchmark";
+    
+    private static final Map<String, Long> DEFAULT_TIMEOUT_SECONDS = Map.of(
+        STAGE_SNAPSHOT, 300L,
+        STAGE_FUNCTIONALITY, 600L,
+        STAGE_CODE_QUALITY, 120L,
+        STAGE_ARCHITECTURE, 60L,
+        STAGE_RESILIENCE, 60L,
+        STAGE_OPERABILITY, 60L,
+        STAGE_PLAGIARISM, 180L,
+        STAGE_PERFORMANCE, 900L,
+        STAGE_BENCHMARK, 1800L);
+    
+    private final ExecutorService executor;
+    private final Semaphore stagePermits;
+    private final Environment environment;
+    private final RepositorySnapshotLoader snapshotLoader;
     private final CodeAnalysisService codeAnalysisService;
     private final PlagiarismDetectionService plagiarismService;
     private final PerformanceAnalyzer performanceAnalyzer;
+    private final LoadTestGrader loadTestGrader;
+    private final BenchmarkGrader benchmarkGrader;
+    private final QuizAnswerKeyCache answerKeys;
     private final FeedbackGenerator feedbackGenerator;
+    private final EvaluationResultCache resultCache;
     
-    public AdvancedAssessmentEngine(CodeAnalysisService codeAnalysisService,
+    public AdvancedAssessmentEngine(RepositorySnapshotLoader snapshotLoader,
+                                  CodeAnalysisService codeAnalysisService,
                                   PlagiarismDetectionService plagiarismService,
                                   PerformanceAnalyzer performanceAnalyzer,
-                                  FeedbackGenerator feedbackGenerator) {
+                                  LoadTestGrader loadTestGrader,
+                                  BenchmarkGrader benchmarkGrader,
+                                  QuizAnswerKeyCache answerKeys,
+                                  FeedbackGenerator feedbackGenerator,
+                                  EvaluationResultCache resultCache,
+                                  Environment environment) {
+        int parallelism = environment.getProperty("assessment.evaluation.parallelism", Integer.class, 0);
+        this.stagePermits = new Semaphore(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+        this.executor = newStageExecutor(stagePermits.availablePermits());
+        this.environment = environment;
+        this.snapshotLoader = snapshotLoader;
         this.codeAnalysisService = codeAnalysisService;
         this.plagiarismService = plagiarismService;
         this.performanceAnalyzer = performanceAnalyzer;
+        this.loadTestGrader = loadTestGrader;
+        this.benchmarkGrader = benchmarkGrader;
+        this.answerKeys = answerKeys;
         this.feedbackGenerator = feedbackGenerator;
+        this.resultCache = resultCache;
     }
     
     /**
-     * Evaluación automática completa de una submission
+     * Evaluación automática completa de una submission.
+     *
+     * La latencia total es la de la etapa más lenta y no la suma de todas. Si falla
+     * o vence una etapa crítica (copia del repositorio o tests) se lanza
+     * {@link IllegalStateException}; las demás se registran como incompletas.
      */
     public AssessmentResult evaluateSubmission(LabSubmission submission) {
+        return evaluateSubmission(submission, (stage, error) -> { });
+    }
+    
+    /**
+     * Igual que {@link #evaluateSubmission(LabSubmission)}, notificando a
+     * {@code listener} cada etapa en cuanto termina. Si el mismo commit ya se evaluó
+     * (o se está evaluando) con la rúbrica actual se reutiliza ese resultado.
+     */
+    public AssessmentResult evaluateSubmission(LabSubmission submission, StageListener listener) {
+        return resultCache.getOrEvaluate(submission, listener, this::evaluateStages);
+    }
+    
+    private AssessmentResult evaluateStages(LabSubmission submission, StageListener listener) {
         AssessmentResult result = new AssessmentResult(submission);
         
-        // 1. Análisis funcional (40%)
-        FunctionalityScore functionality = evaluateFunctionality(submission);
-        result.setFunctionalityScore(functionality);
+        // El repositorio se descarga y analiza una sola vez para todas las dimensiones
+        CompletableFuture<RepositorySnapshot> snapshot =
+            runStage(STAGE_SNAPSHOT, listener, () -> snapshotLoader.load(submission));
         
+        // 1. Análisis funcional (40%)
+        CompletableFuture<FunctionalityScore> functionality = snapshot.thenCompose(s ->
+            runStage(STAGE_FUNCTIONALITY, listener, () -> evaluateFunctionality(submission, s)));
         // 2. Análisis de calidad de código (25%)
-        CodeQualityScore codeQuality = evaluateCodeQuality(submission);
-        result.setCodeQualityScore(codeQuality);
-        
+        CompletableFuture<CodeQualityScore> codeQuality = snapshot.thenCompose(s ->
+            runStage(STAGE_CODE_QUALITY, listener, () -> evaluateCodeQuality(s)));
         // 3. Análisis de arquitectura (15%)
-        ArchitectureScore architecture = evaluateArchitecture(submission);
-        result.setArchitectureScore(architecture);
-        
+        CompletableFuture<ArchitectureScore> architecture = snapshot.thenCompose(s ->
+            runStage(STAGE_ARCHITECTURE, listener, () -> evaluateArchitecture(s)));
         // 4. Análisis de resiliencia (15%)
-        ResilienceScore resilience = evaluateResilience(submission);
-        result.setResilienceScore(resilience);
-        
+        CompletableFuture<ResilienceScore> resilience = snapshot.thenCompose(s ->
+            runStage(STAGE_RESILIENCE, listener, () -> evaluateResilience(s)));
         // 5. Análisis de operabilidad (5%)
-        OperabilityScore operability = evaluateOperability(submission);
-        result.setOperabilityScore(operability);
-        
+        CompletableFuture<OperabilityScore> operability = snapshot.thenCompose(s ->
+            runStage(STAGE_OPERABILITY, listener, () -> evaluateOperability(s)));
         // 6. Detección de plagio
-        PlagiarismAnalysis plagiarism = plagiarismService.analyzeSubmission(submission);
-        result.setPlagiarismAnalysis(plagiarism);
+        CompletableFuture<PlagiarismAnalysis> plagiarism = snapshot.thenCompose(s ->
+            runStage(STAGE_PLAGIARISM, listener, () -> plagiarismService.analyzeSubmission(submission, s)));
+        // 7. Prueba de carga (solo laboratorios que la definen)
+        CompletableFuture<PerformanceScore> performance = snapshot.thenCompose(s ->
+            runStage(STAGE_PERFORMANCE, listener, () -> loadTestGrader.grade(submission)));
+        // 8. Microbenchmark frente a la referencia (solo laboratorios que lo definen)
+        CompletableFuture<BenchmarkScore> benchmark = snapshot.thenCompose(s ->
+            runStage(STAGE_BENCHMARK, listener, () -> benchmarkGrader.grade(submission)));
         
-        // 7. Cálculo de score final
+        CompletableFuture.allOf(functionality, codeQuality, architecture, resilience, operability, plagiarism,
+                performance, benchmark)
+            .exceptionally(e -> null)
+            .join();
+        
+        // Etapas críticas: sin ellas no hay evaluación
+        awaitCritical(STAGE_SNAPSHOT, snapshot);
+        result.setFunctionalityScore(awaitCritical(STAGE_FUNCTIONALITY, functionality));
+        
+        result.setCodeQualityScore(awaitOptional(STAGE_CODE_QUALITY, codeQuality, result));
+        result.setArchitectureScore(awaitOptional(STAGE_ARCHITECTURE, architecture, result));
+        result.setResilienceScore(awaitOptional(STAGE_RESILIENCE, resilience, result));
+        result.setOperabilityScore(awaitOptional(STAGE_OPERABILITY, operability, result));
+        result.setPlagiarismAnalysis(awaitOptional(STAGE_PLAGIARISM, plagiarism, result));
+        result.setPerformanceScore(awaitOptional(STAGE_PERFORMANCE, performance, result));
+        result.setBenchmarkScore(awaitOptional(STAGE_BENCHMARK, benchmark, result));
+        
+        // 9. Cálculo de score final
         result.calculateFinalScore();
         
-        // 8. Generación de feedback
+        // 10. Generación de feedback
         String feedback = feedbackGenerator.generateFeedback(result);
         result.setFeedback(feedback);
         
         return result;
     }
     
+    /**
+     * Ejecuta una etapa en el executor; si supera su timeout se interrumpe y el
+     * future termina con {@link TimeoutException}. El timeout empieza a contar cuando
+     * la etapa obtiene su permiso, no mientras espera en cola.
+     */
+    private <T> CompletableFuture<T> runStage(String stage, StageListener listener, Callable<T> task) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        long timeout = timeoutSeconds(stage);
+        Future<?> running = executor.submit(() -> {
+            stagePermits.acquireUninterruptibly();
+            future.orTimeout(timeout, TimeUnit.SECONDS);
+            try {
+                future.complete(task.call());
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            } finally {
+                stagePermits.release();
+            }
+        });
+        return future
+            .whenComplete((value, error) -> {
+                if (error instanceof TimeoutException) {
+                    running.cancel(true);
+                }
+                try {
+                    listener.stageCompleted(stage, error != null ? unwrap(error) : null);
+                } catch (RuntimeException ignored) {
+                    // Un listener defectuoso no debe invalidar el resultado de la etapa
+                }
+            });
+    }
+    
+    /**
+     * Recibe la terminación de cada etapa; {@code error} es null si la etapa tuvo éxito.
+     * Se invoca desde los hilos de etapa, así que debe ser rápido y thread-safe.
+     */
+    @FunctionalInterface
+    public interface StageListener {
+        void stageCompleted(String stage, Throwable error);
+    }
+    
+    /**
+     * Timeout de la etapa; el de funcionalidad se suma a los límites del sandbox
+     * (build, PIT y siembra de la caché) para que una ejecución lenta pero válida no
+     * tumbe una etapa crítica
+     */
+    long timeoutSeconds(String stage) {
+        long timeout = environment.getProperty("assessment.evaluation.timeout-seconds." + stage, Long.class,
+            DEFAULT_TIMEOUT_SECONDS.get(stage));
+        return STAGE_FUNCTIONALITY.equals(stage) ? timeout + codeAnalysisService.testExecutionBudgetSeconds() : timeout;
+    }
+    
+    private <T> T awaitCritical(String stage, CompletableFuture<T> future) {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = unwrap(e);
+            throw new IllegalStateException("La etapa " + stage + " no se completó: " + describe(cause), cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Evaluación interrumpida", e);
+        }
+    }
+    
+    private <T> T awaitOptional(String stage, CompletableFuture<T> future, AssessmentResult result) {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            result.addIncompleteStage(stage, describe(unwrap(e)));
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Evaluación interrumpida", e);
+        }
+    }
+    
+    private static Throwable unwrap(Throwable error) {
+        while ((error instanceof ExecutionException || error instanceof CompletionException)
+                && error.getCause() != null) {
+            error = error.getCause();
+        }
+        return error;
+    }
+    
+    static String describe(Throwable error) {
+        if (error instanceof TimeoutException) {
+            return "timeout";
+        }
+        return error.getMessage() != null ? error.getMessage() : error.getClass().getSimpleName();
+    }
+    
+    /**
+     * Hilos virtuales en Java 21+ (el proyecto compila con Java 17, por eso se
+     * buscan por reflexión); en otro caso un pool fijo del tamaño del límite
+     */
+    private static ExecutorService newStageExecutor(int parallelism) {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            AtomicInteger counter = new AtomicInteger();
+            return Executors.newFixedThreadPool(parallelism, runnable -> {
+                Thread thread = new Thread(runnable, "assessment-stage-" + counter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+    
     /**
      * Evaluación de funcionalidad mediante tests automatizados
      */
-    private FunctionalityScore evaluateFunctionality(LabSubmission submission) {
+    private FunctionalityScore evaluateFunctionality(LabSubmission submission, RepositorySnapshot snapshot) {
         // Ejecutar tests automatizados
-        TestExecutionResult testResult = codeAnalysisService.runAutomatedTests(submission);
+        TestExecutionResult testResult = codeAnalysisService.runAutomatedTests(submission, snapshot);
         
         FunctionalityScore score = new FunctionalityScore();
         score.setTestsPassed(testResult.getPassedTests());
@@ -91,26 +304,50 @@ public class AdvancedAssessmentEngine {
         score.setTestCoverage(testResult.getCoverage());
         score.setEndpointsWorking(testResult.getWorkingEndpoints());
         score.setEndpointsTotal(testResult.getTotalEndpoints());
+        score.setMutationScore(testResult.getMutationScore());
+        score.setMutantsKilled(testResult.getMutantsKilled());
+        score.setMutantsTotal(testResult.getMutantsTotal());
         
-        // Cálculo del score (0-100)
-        double testScore = (double) testResult.getPassedTests() / testResult.getTotalTests() * 70;
-        double coverageScore = testResult.getCoverage() * 20;
-        double endpointScore = (double) testResult.getWorkingEndpoints() / testResult.getTotalEndpoints() * 10;
-        
-        score.setScore((int) (testScore + coverageScore + endpointScore));
+        score.setScore(functionalityScore(testResult));
         return score;
     }
     
+    /**
+     * Score de funcionalidad (0-100). Con análisis de mutación, parte del peso de los
+     * tests pasa a medir si esos tests detectan fallos de verdad; sin endpoints REST
+     * su peso se reparte entre el resto. Sin tests ejecutados esa parte vale 0.
+     */
+    static int functionalityScore(TestExecutionResult testResult) {
+        boolean mutation = testResult.getMutationScore() >= 0;
+        boolean endpoints = testResult.getTotalEndpoints() > 0;
+        double testWeight = mutation ? 50 : 70;
+        double mutationWeight = mutation ? 20 : 0;
+        double coverageWeight = 20;
+        double endpointWeight = endpoints ? 10 : 0;
+        
+        double earned = ratio(testResult.getPassedTests(), testResult.getTotalTests()) * testWeight
+            + (mutation ? testResult.getMutationScore() * mutationWeight : 0)
+            + testResult.getCoverage() * coverageWeight
+            + ratio(testResult.getWorkingEndpoints(), testResult.getTotalEndpoints()) * endpointWeight;
+        double total = testWeight + mutationWeight + coverageWeight + endpointWeight;
+        return (int) (earned / total * 100);
+    }
+    
+    private static double ratio(int part, int total) {
+        return total > 0 ? (double) part / total : 0.0;
+    }
+    
     /**
      * Evaluación de calidad de código
      */
-    private CodeQualityScore evaluateCodeQuality(LabSubmission submission) {
-        CodeAnalysisReport analysis = codeAnalysisService.analyzeCode(submission);
+    private CodeQualityScore evaluateCodeQuality(RepositorySnapshot snapshot) {
+        CodeAnalysisReport analysis = codeAnalysisService.analyzeCode(snapshot);
         
         CodeQualityScore score = new CodeQualityScore();
         score.setCodeCoverage(analysis.getTestCoverage());
         score.setComplexity(analysis.getCyclomaticComplexity());
         score.setDuplication(analysis.getCodeDuplication());
+        score.setClones(analysis.getCodeClones());
         score.setBugs(analysis.getBugCount());
         score.setVulnerabilities(analysis.getVulnerabilityCount());
         score.setCodeSmells(analysis.getCodeSmellCount());
@@ -129,8 +366,8 @@ public class AdvancedAssessmentEngine {
     /**
      * Evaluación de arquitectura y patrones de diseño
      */
-    private ArchitectureScore evaluateArchitecture(LabSubmission submission) {
-        ArchitectureAnalysis analysis = codeAnalysisService.analyzeArchitecture(submission);
+    private ArchitectureScore evaluateArchitecture(RepositorySnapshot snapshot) {
+        ArchitectureAnalysis analysis = codeAnalysisService.analyzeArchitecture(snapshot);
         
         ArchitectureScore score = new ArchitectureScore();
         score.setDesignPatternsUsed(analysis.getDesignPatterns());
@@ -152,8 +389,8 @@ public class AdvancedAssessmentEngine {
     /**
      * Evaluación de patrones de resiliencia
      */
-    private ResilienceScore evaluateResilience(LabSubmission submission) {
-        ResilienceAnalysis analysis = codeAnalysisService.analyzeResilience(submission);
+    private ResilienceScore evaluateResilience(RepositorySnapshot snapshot) {
+        ResilienceAnalysis analysis = codeAnalysisService.analyzeResilience(snapshot);
         
         ResilienceScore score = new ResilienceScore();
         score.setCircuitBreakerImplemented(analysis.hasCircuitBreaker());
@@ -177,8 +414,8 @@ public class AdvancedAssessmentEngine {
     /**
      * Evaluación de operabilidad (métricas, health checks, logs)
      */
-    private OperabilityScore evaluateOperability(LabSubmission submission) {
-        OperabilityAnalysis analysis = codeAnalysisService.analyzeOperability(submission);
+    private OperabilityScore evaluateOperability(RepositorySnapshot snapshot) {
+        OperabilityAnalysis analysis = codeAnalysisService.analyzeOperability(snapshot);
         
         OperabilityScore score = new OperabilityScore();
         score.setMetricsExposed(analysis.hasMetrics());
@@ -198,10 +435,13 @@ public class AdvancedAssessmentEngine {
     }
     
     /**
-     * Evaluación de quiz con análisis de patrones de respuesta
+     * Evaluación de quiz con análisis de patrones de respuesta. Las claves de respuesta
+     * se compilan una vez por versión del quiz ({@link QuizAnswerKeyCache}).
      */
+    @Transactional
     public QuizAssessmentResult evaluateQuiz(User user, Quiz quiz, Map<Long, String> answers) {
         QuizAssessmentResult result = new QuizAssessmentResult(user, quiz);
+        QuizAnswerKeyCache.CompiledQuiz keys = answerKeys.get(quiz);
         
         // Análisis de respuestas
         int correctAnswers = 0;
@@ -209,7 +449,7 @@ public class AdvancedAssessmentEngine {
         
         for (var question : quiz.getQuestions()) {
             String userAnswer = answers.get(question.getId());
-            boolean isCorrect = question.isAnswerCorrect(userAnswer);
+            boolean isCorrect = keys.isCorrect(question.getId(), userAnswer);
             
             result.addQuestionResult(question.getId(), userAnswer, isCorrect);
             if (isCorrect) correctAnswers++;
@@ -0,0 +1,155 @@
+package com.pluto.learning.assessment;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.TreeSet;
+
+/**
+ * Autómata Aho–Corasick para buscar muchos patrones literales en una sola pasada.
+ *
+ * Las transiciones se precalculan como un DFA completo sobre el alfabeto reducido
+ * de los caracteres que aparecen en los patrones (cualquier otro carácter vuelve a
+ * la raíz), de modo que cada carácter del texto cuesta un acceso a array más las
+ * salidas del estado alcanzado, sea cual sea el número de patrones.
+ */
+final class AhoCorasickMatcher {
+
+    private static final int ASCII = 128;
+
+    private final int patternCount;
+    private final int alphabetSize;
+    private final int[] asciiClasses = new int[ASCII];
+    private final char[] otherChars;
+    private final int[] transitions;
+    private final int[][] outputs;
+
+    AhoCorasickMatcher(List<String> patterns) {
+        for (String pattern : patterns) {
+            if (pattern == null || pattern.isEmpty()) {
+                throw new IllegalArgumentException("Los patrones no pueden estar vacíos");
+            }
+        }
+        this.patternCount = patterns.size();
+
+        // Alfabeto reducido: la clase 0 agrupa los caracteres que no aparecen en ningún patrón
+        TreeSet<Character> chars = new TreeSet<>();
+        for (String pattern : patterns) {
+            for (int i = 0; i < pattern.length(); i++) {
+                chars.add(pattern.charAt(i));
+            }
+        }
+        List<Character> others = new ArrayList<>();
+        int classes = 1;
+        for (char c : chars) {
+            if (c < ASCII) {
+                asciiClasses[c] = classes++;
+            } else {
+                others.add(c);
+            }
+        }
+        this.otherChars = new char[others.size()];
+        for (int i = 0; i < otherChars.length; i++) {
+            otherChars[i] = others.get(i);
+        }
+        this.alphabetSize = classes + otherChars.length;
+
+        // Trie
+        List<int[]> trie = new ArrayList<>();
+        List<List<Integer>> trieOutputs = new ArrayList<>();
+        trie.add(newState());
+        trieOutputs.add(new ArrayList<>());
+        for (int p = 0; p < patterns.size(); p++) {
+            String pattern = patterns.get(p);
+            int state = 0;
+            for (int i = 0; i < pattern.length(); i++) {
+                int symbol = classOf(pattern.charAt(i));
+                if (trie.get(state)[symbol] == -1) {
+                    trie.get(state)[symbol] = trie.size();
+                    trie.add(newState());
+                    trieOutputs.add(new ArrayList<>());
+                }
+                state = trie.get(state)[symbol];
+            }
+            trieOutputs.get(state).add(p);
+        }
+
+        // Enlaces de fallo en anchura y DFA completo
+        int states = trie.size();
+        this.transitions = new int[states * alphabetSize];
+        this.outputs = new int[states][];
+        int[] failure = new int[states];
+        Queue<Integer> queue = new ArrayDeque<>();
+
+        for (int symbol = 0; symbol < alphabetSize; symbol++) {
+            int child = trie.get(0)[symbol];
+            if (child == -1) {
+                transitions[symbol] = 0;
+            } else {
+                transitions[symbol] = child;
+                failure[child] = 0;
+                queue.add(child);
+            }
+        }
+        outputs[0] = toArray(trieOutputs.get(0));
+
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            List<Integer> merged = new ArrayList<>(trieOutputs.get(state));
+            for (int inherited : outputs[failure[state]]) {
+                merged.add(inherited);
+            }
+            outputs[state] = toArray(merged);
+
+            for (int symbol = 0; symbol < alphabetSize; symbol++) {
+                int child = trie.get(state)[symbol];
+                if (child == -1) {
+                    transitions[state * alphabetSize + symbol] = transitions[failure[state] * alphabetSize + symbol];
+                } else {
+                    transitions[state * alphabetSize + symbol] = child;
+                    failure[child] = transitions[failure[state] * alphabetSize + symbol];
+                    queue.add(child);
+                }
+            }
+        }
+    }
+
+    int patternCount() {
+        return patternCount;
+    }
+
+    /**
+     * Suma a {@code counts[p]} el número de apariciones (solapadas) del patrón p en el texto
+     */
+    void scan(CharSequence text, int[] counts) {
+        int state = 0;
+        int length = text.length();
+        for (int i = 0; i < length; i++) {
+            state = transitions[state * alphabetSize + classOf(text.charAt(i))];
+            int[] matched = outputs[state];
+            for (int p = 0; p < matched.length; p++) {
+                counts[matched[p]]++;
+            }
+        }
+    }
+
+    private int classOf(char c) {
+        if (c < ASCII) {
+            return asciiClasses[c];
+        }
+        int index = Arrays.binarySearch(otherChars, c);
+        return index >= 0 ? alphabetSize - otherChars.length + index : 0;
+    }
+
+    private int[] newState() {
+        int[] state = new int[alphabetSize];
+        Arrays.fill(state, -1);
+        return state;
+    }
+
+    private static int[] toArray(List<Integer> values) {
+        return values.stream().mapToInt(Integer::intValue).toArray();
+    }
+}
@@ -6,10 +6,17 @@ import java.util.Map;
 
 
 class PlagiarismMatch {
+    private String file;
     private String sourceFile;
     private int startLine;
     private int endLine;
     private double similarity;
+    private Long matchedSubmissionId;
+    private int matchedStartLine;
+    private int matchedEndLine;
+    
+    public String getFile() { return file; }
+    public void setFile(String file) { this.file = file; }
     
     public String getSourceFile() { return sourceFile; }
     public void setSourceFile(String sourceFile) { this.sourceFile = sourceFile; }
@@ -22,6 +29,49 @@ class PlagiarismMatch {
     
     public double getSimilarity() { return similarity; }
     public void setSimilarity(double similarity) { this.similarity = similarity; }
+    
+    public Long getMatchedSubmissionId() { return matchedSubmissionId; }
+    public void setMatchedSubmissionId(Long matchedSubmissionId) { this.matchedSubmissionId = matchedSubmissionId; }
+    
+    public int getMatchedStartLine() { return matchedStartLine; }
+    public void setMatchedStartLine(int matchedStartLine) { this.matchedStartLine = matchedStartLine; }
+    
+    public int getMatchedEndLine() { return matchedEndLine; }
+    public void setMatchedEndLine(int matchedEndLine) { this.matchedEndLine = matchedEndLine; }
+}
+
+/**
+ * Fragmento duplicado dentro de un repositorio y el fragmento del que es copia
+ */
+class CodeClone {
+    private String file;
+    private int startLine;
+    private int endLine;
+    private String originalFile;
+    private int originalStartLine;
+    private int originalEndLine;
+    private int tokens;
+    
+    public String getFile() { return file; }
+    public void setFile(String file) { this.file = file; }
+    
+    public int getStartLine() { return startLine; }
+    public void setStartLine(int startLine) { this.startLine = startLine; }
+    
+    public int getEndLine() { return endLine; }
+    public void setEndLine(int endLine) { this.endLine = endLine; }
+    
+    public String getOriginalFile() { return originalFile; }
+    public void setOriginalFile(String originalFile) { this.originalFile = originalFile; }
+    
+    public int getOriginalStartLine() { return originalStartLine; }
+    public void setOriginalStartLine(int originalStartLine) { this.originalStartLine = originalStartLine; }
+    
+    public int getOriginalEndLine() { return originalEndLine; }
+    public void setOriginalEndLine(int originalEndLine) { this.originalEndLine = originalEndLine; }
+    
+    public int getTokens() { return tokens; }
+    public void setTokens(int tokens) { this.tokens = tokens; }
 }
 
 /**
@@ -35,6 +85,10 @@ class TestExecutionResult {
     private int totalEndpoints;
     private List<String> failedTests;
     private Map<String, Object> testDetails;
+    // -1 si no se ha hecho análisis de mutación
+    private double mutationScore = -1;
+    private int mutantsKilled;
+    private int mutantsTotal;
     
     public int getPassedTests() { return passedTests; }
     public void setPassedTests(int passedTests) { this.passedTests = passedTests; }
@@ -56,6 +110,15 @@ class TestExecutionResult {
     
     public Map<String, Object> getTestDetails() { return testDetails; }
     public void setTestDetails(Map<String, Object> testDetails) { this.testDetails = testDetails; }
+    
+    public double getMutationScore() { return mutationScore; }
+    public void setMutationScore(double mutationScore) { this.mutationScore = mutationScore; }
+    
+    public int getMutantsKilled() { return mutantsKilled; }
+    public void setMutantsKilled(int mutantsKilled) { this.mutantsKilled = mutantsKilled; }
+    
+    public int getMutantsTotal() { return mutantsTotal; }
+    public void setMutantsTotal(int mutantsTotal) { this.mutantsTotal = mutantsTotal; }
 }
 
 /**
@@ -68,6 +131,7 @@ class CodeAnalysisReport {
     private int bugCount;
     private int vulnerabilityCount;
     private int codeSmellCount;
+    private List<CodeClone> codeClones = List.of();
     private Map<String, Object> details;
     
     public double getTestCoverage() { return testCoverage; }
@@ -92,6 +156,9 @@ class CodeAnalysisReport {
     public int getCodeSmellCount() { return codeSmellCount; }
     public void setCodeSmellCount(int codeSmellCount) { this.codeSmellCount = codeSmellCount; }
     
+    public List<CodeClone> getCodeClones() { return codeClones; }
+    public void setCodeClones(List<CodeClone> codeClones) { this.codeClones = codeClones; }
+    
     public Map<String, Object> getDetails() { return details; }
     public void setDetails(Map<String, Object> details) { this.details = details; }
 }
@@ -0,0 +1,199 @@
+package com.pluto.learning.assessment;
+
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Catálogo de reglas textuales de las heurísticas de análisis.
+ *
+ * Cada regla agrupa uno o varios patrones literales. Todos los patrones de todas
+ * las reglas se compilan al arrancar en un único {@link AhoCorasickMatcher}, así
+ * que cada fichero se recorre una sola vez sea cual sea el número de reglas. Las
+ * reglas se pueden ampliar o redefinir con {@code assessment.analysis.rules.<regla>},
+ * una lista de patrones separados por comas (vacía para desactivar la regla).
+ */
+@Component
+public class AnalysisRuleCatalog {
+
+    static final String NULL_DEREFERENCE = "null-dereference";
+    static final String NULL_COMPARISON = "null-comparison";
+    static final String NULL_CHECK = "null-check";
+    static final String SQL = "sql";
+    static final String PREPARED_STATEMENT = "prepared-statement";
+    static final String EVAL = "eval";
+    static final String SERVICE = "service";
+    static final String REPOSITORY = "repository";
+    static final String CONTROLLER = "controller";
+    static final String FACTORY = "factory";
+    static final String BUILDER = "builder";
+    static final String DEPENDENCY_INJECTION = "dependency-injection";
+    static final String REST_CONTROLLER = "rest-controller";
+    static final String REQUEST_MAPPING = "request-mapping";
+    static final String RESPONSE_ENTITY = "response-entity";
+    static final String VALIDATION = "validation";
+    static final String CIRCUIT_BREAKER = "circuit-breaker";
+    static final String RETRY = "retry";
+    static final String TIMEOUT = "timeout";
+    static final String FALLBACK = "fallback";
+    static final String TRY_CATCH = "try-catch";
+    static final String CONTROLLER_ADVICE = "controller-advice";
+    static final String EXCEPTION_HANDLER = "exception-handler";
+    static final String THROW = "throw";
+    static final String METRICS = "metrics";
+    static final String HEALTH_CHECKS = "health-checks";
+    static final String LOGGER = "logger";
+    static final String LOG_INFO = "log-info";
+    static final String LOG_ERROR = "log-error";
+    static final String LOG_DEBUG = "log-debug";
+    static final String JAVADOC = "javadoc";
+    static final String API_DOCS = "api-docs";
+    static final String README = "readme";
+    static final String SPACE_INDENTATION = "space-indentation";
+    static final String TAB = "tab";
+    static final String TEMPLATE_LOOPS = "template-loops";
+
+    private final List<String> rules;
+    private final int[] ruleOfPattern;
+    private final AhoCorasickMatcher matcher;
+
+    public AnalysisRuleCatalog(Environment environment) {
+        this(Binder.get(environment)
+            .bind("assessment.analysis.rules", Bindable.mapOf(String.class, String[].class))
+            .orElse(Map.of()));
+    }
+
+    AnalysisRuleCatalog(Map<String, String[]> overrides) {
+        Map<String, List<String>> definitions = defaultRules();
+        overrides.forEach((rule, patterns) -> {
+            List<String> values = new ArrayList<>();
+            for (String pattern : patterns) {
+                if (!pattern.isEmpty()) {
+                    values.add(pattern);
+                }
+            }
+            definitions.put(rule, values);
+        });
+
+        List<String> patterns = new ArrayList<>();
+        List<Integer> owners = new ArrayList<>();
+        this.rules = List.copyOf(definitions.keySet());
+        for (int rule = 0; rule < rules.size(); rule++) {
+            for (String pattern : definitions.get(rules.get(rule))) {
+                patterns.add(pattern);
+                owners.add(rule);
+            }
+        }
+        this.ruleOfPattern = owners.stream().mapToInt(Integer::intValue).toArray();
+        this.matcher = new AhoCorasickMatcher(patterns);
+    }
+
+    /**
+     * Apariciones de cada regla en el repositorio; se calcula una vez por snapshot
+     */
+    RuleMatches scan(RepositorySnapshot snapshot) {
+        return snapshot.ruleMatches(this);
+    }
+
+    RuleMatches compute(List<RepositorySnapshot.SourceFile> files) {
+        int[] patternCounts = new int[matcher.patternCount()];
+        for (RepositorySnapshot.SourceFile file : files) {
+            // Los ficheros sin cambios respecto al intento anterior ya traen sus conteos
+            int[] fileCounts = file.derived(matcher, unchanged -> {
+                int[] counts = new int[matcher.patternCount()];
+                matcher.scan(unchanged.getContent(), counts);
+                return counts;
+            });
+            for (int pattern = 0; pattern < patternCounts.length; pattern++) {
+                patternCounts[pattern] += fileCounts[pattern];
+            }
+        }
+        int[] ruleCounts = new int[rules.size()];
+        for (int pattern = 0; pattern < patternCounts.length; pattern++) {
+            ruleCounts[ruleOfPattern[pattern]] += patternCounts[pattern];
+        }
+        return new RuleMatches(rules, ruleCounts);
+    }
+
+    private static Map<String, List<String>> defaultRules() {
+        Map<String, List<String>> rules = new LinkedHashMap<>();
+        rules.put(NULL_DEREFERENCE, List.of("null."));
+        rules.put(NULL_COMPARISON, List.of("== null"));
+        rules.put(NULL_CHECK, List.of("!= null"));
+        rules.put(SQL, List.of("SQL"));
+        rules.put(PREPARED_STATEMENT, List.of("PreparedStatement"));
+        rules.put(EVAL, List.of("eval("));
+        rules.put(SERVICE, List.of("@Service"));
+        rules.put(REPOSITORY, List.of("@Repository"));
+        rules.put(CONTROLLER, List.of("@Controller"));
+        rules.put(FACTORY, List.of("Factory"));
+        rules.put(BUILDER, List.of("Builder"));
+        rules.put(DEPENDENCY_INJECTION, List.of("@Autowired", "@Inject", "constructor injection"));
+        rules.put(REST_CONTROLLER, List.of("@RestController"));
+        rules.put(REQUEST_MAPPING, List.of("@RequestMapping"));
+        rules.put(RESPONSE_ENTITY, List.of("ResponseEntity"));
+        rules.put(VALIDATION, List.of("@Valid"));
+        // "@CircuitBreaker", "@Timeout"... ya están cubiertos por el patrón sin '@'
+        rules.put(CIRCUIT_BREAKER, List.of("CircuitBreaker"));
+        rules.put(RETRY, List.of("@Retry", "retry"));
+        rules.put(TIMEOUT, List.of("timeout", "@Timeout"));
+        rules.put(FALLBACK, List.of("fallback", "@Fallback"));
+        rules.put(TRY_CATCH, List.of("try-catch"));
+        rules.put(CONTROLLER_ADVICE, List.of("@ControllerAdvice"));
+        rules.put(EXCEPTION_HANDLER, List.of("@ExceptionHandler"));
+        rules.put(THROW, List.of("throw new"));
+        rules.put(METRICS, List.of("@Timed", "micrometer", "metrics"));
+        rules.put(HEALTH_CHECKS, List.of("@HealthCheck", "actuator", "health"));
+        rules.put(LOGGER, List.of("Logger"));
+        rules.put(LOG_INFO, List.of("log.info"));
+        rules.put(LOG_ERROR, List.of("log.error"));
+        rules.put(LOG_DEBUG, List.of("log.debug"));
+        rules.put(JAVADOC, List.of("/**"));
+        rules.put(API_DOCS, List.of("@Api"));
+        rules.put(README, List.of("README"));
+        rules.put(SPACE_INDENTATION, List.of("    "));
+        rules.put(TAB, List.of("\t"));
+        rules.put(TEMPLATE_LOOPS, List.of("for (int i = 0; i < arr.length; i++)", "while (condition == true)"));
+        return rules;
+    }
+
+    /**
+     * Número de apariciones de cada regla en un repositorio
+     */
+    static final class RuleMatches {
+        private final List<String> rules;
+        private final int[] counts;
+
+        RuleMatches(List<String> rules, int[] counts) {
+            this.rules = rules;
+            this.counts = counts;
+        }
+
+        int count(String rule) {
+            int index = rules.indexOf(rule);
+            if (index < 0) {
+                throw new IllegalArgumentException("Regla de análisis desconocida: " + rule);
+            }
+            return counts[index];
+        }
+
+        boolean has(String rule) {
+            return count(rule) > 0;
+        }
+
+        Map<String, Integer> asMap() {
+            Map<String, Integer> map = new LinkedHashMap<>();
+            for (int i = 0; i < rules.size(); i++) {
+                map.put(rules.get(i), counts[i]);
+            }
+            return Collections.unmodifiableMap(map);
+        }
+    }
+}
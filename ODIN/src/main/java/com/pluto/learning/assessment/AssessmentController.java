@@ -7,12 +7,18 @@ import com.pluto.learning.assessments.QuizRepository;
 import com.pluto.learning.submissions.LabSubmission;
 import com.pluto.learning.submissions.SubmissionRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.net.URI;
 import java.security.Principal;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * Controlador REST para el Assessment Engine
@@ -34,8 +40,12 @@ public class AssessmentController {
     @Autowired
     private QuizRepository quizRepository;
     
+    @Autowired
+    private AsyncEvaluationService asyncEvaluationService;
+    
     /**
-     * Evalúa una submission de código
+     * Encola la evaluación de una submission de código y responde 202 con el
+     * identificador de la evaluación; el progreso se sigue en {@code /evaluations/{id}/stream}
      */
     @PostMapping("/evaluate-submission/{submissionId}")
     public ResponseEntity<?> evaluateSubmission(@PathVariable Long submissionId, Principal principal) {
@@ -55,33 +65,60 @@ public class AssessmentController {
                 return ResponseEntity.status(403).build();
             }
             
-            // Evaluar la submission
-            AssessmentResult result = assessmentEngine.evaluateSubmission(submission);
-            
-            // Actualizar la submission con los resultados
-            submission.setAutomatedScore(result.getFinalScore());
-            submission.setFinalScore(result.getFinalScore());
-            submission.setInstructorFeedback(result.getFeedback());
-            submission.setEvaluatedAt(result.getEvaluationDate());
-            submission.setStatus(result.isPassed() ? 
-                LabSubmission.SubmissionStatus.EVALUATED : 
-                LabSubmission.SubmissionStatus.REVIEW_PENDING);
+            AsyncEvaluationService.Evaluation evaluation = asyncEvaluationService.submit(submission);
+            String location = "/api/assessment/evaluations/" + evaluation.getId();
             
-            submissionRepository.save(submission);
-            
-            return ResponseEntity.ok(new AssessmentResponse(
-                result.getFinalScore(),
-                result.isPassed(),
-                result.getFeedback(),
-                createDetailedBreakdown(result)
-            ));
+            return ResponseEntity.accepted()
+                .location(URI.create(location))
+                .body(Map.of(
+                    "evaluationId", evaluation.getId(),
+                    "status", evaluation.getStatus().name(),
+                    "statusUrl", location,
+                    "streamUrl", location + "/stream"
+                ));
             
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "30")
+                .body(Map.of("error", "Assessment queue is full, try again later"));
         } catch (Exception e) {
             return ResponseEntity.internalServerError()
                 .body(Map.of("error", "Assessment failed: " + e.getMessage()));
         }
     }
     
+    /**
+     * Estado actual de una evaluación encolada
+     */
+    @GetMapping("/evaluations/{evaluationId}")
+    public ResponseEntity<?> getEvaluation(@PathVariable String evaluationId) {
+        Optional<AsyncEvaluationService.Evaluation> evaluationOpt = findOwnEvaluation(evaluationId);
+        if (evaluationOpt.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        
+        AsyncEvaluationService.Evaluation evaluation = evaluationOpt.get();
+        Map<String, Object> body = new java.util.LinkedHashMap<>();
+        body.put("evaluationId", evaluation.getId());
+        body.put("submissionId", evaluation.getSubmissionId());
+        body.put("status", evaluation.getStatus().name());
+        body.put("stages", evaluation.getStages());
+        if (evaluation.getResult() != null) {
+            body.put("result", evaluation.getResult());
+        }
+        return ResponseEntity.ok(body);
+    }
+    
+    /**
+     * Stream Server-Sent Events con cada etapa terminada y el resultado final
+     */
+    @GetMapping(value = "/evaluations/{evaluationId}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamEvaluation(@PathVariable String evaluationId) {
+        return findOwnEvaluation(evaluationId)
+            .map(evaluation -> ResponseEntity.ok(asyncEvaluationService.stream(evaluation)))
+            .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+    
     /**
      * Evalúa un quiz completado
      */
@@ -170,18 +207,79 @@ public class AssessmentController {
         }
     }
     
-    private Map<String, Object> createDetailedBreakdown(AssessmentResult result) {
+    /**
+     * Evaluación encolada por el usuario actual; las ajenas se tratan como inexistentes
+     */
+    private Optional<AsyncEvaluationService.Evaluation> findOwnEvaluation(String evaluationId) {
+        User currentUser = userService.getCurrentUser(
+            org.springframework.security.core.context.SecurityContextHolder.getContext().getAuthentication()
+        );
+        return asyncEvaluationService.find(evaluationId)
+            .filter(evaluation -> currentUser.getId().equals(evaluation.getUserId()));
+    }
+}
+
+/**
+ * Response DTOs
+ */
+class AssessmentResponse {
+    private final int finalScore;
+    private final boolean passed;
+    private final String feedback;
+    private final Map<String, Object> breakdown;
+    
+    public AssessmentResponse(int finalScore, boolean passed, String feedback, Map<String, Object> breakdown) {
+        this.finalScore = finalScore;
+        this.passed = passed;
+        this.feedback = feedback;
+        this.breakdown = breakdown;
+    }
+    
+    static AssessmentResponse from(AssessmentResult result) {
+        return new AssessmentResponse(
+            result.getFinalScore(),
+            result.isPassed(),
+            result.getFeedback(),
+            createDetailedBreakdown(result)
+        );
+    }
+    
+    public int getFinalScore() { return finalScore; }
+    public boolean isPassed() { return passed; }
+    public String getFeedback() { return feedback; }
+    public Map<String, Object> getBreakdown() { return breakdown; }
+    
+    private static Map<String, Object> createDetailedBreakdown(AssessmentResult result) {
         Map<String, Object> breakdown = new java.util.HashMap<>();
         
         if (result.getFunctionalityScore() != null) {
             breakdown.put("functionality", Map.of(
                 "score", result.getFunctionalityScore().getScore(),
-                "weight", "40%",
+                "weight", Math.round(result.getFunctionalityWeight() * 100) + "%",
                 "testsPassed", result.getFunctionalityScore().getTestsPassed(),
                 "testsTotal", result.getFunctionalityScore().getTestsTotal()
             ));
         }
         
+        if (result.getPerformanceScore() != null) {
+            breakdown.put("performance", Map.of(
+                "score", result.getPerformanceScore().getScore(),
+                "weight", "10%",
+                "p99Millis", result.getPerformanceScore().getP99Millis(),
+                "throughput", result.getPerformanceScore().getThroughput(),
+                "errorRate", result.getPerformanceScore().getErrorRate()
+            ));
+        }
+        
+        if (result.getBenchmarkScore() != null) {
+            breakdown.put("benchmark", Map.of(
+                "score", result.getBenchmarkScore().getScore(),
+                "weight", "10%",
+                "relativeThroughput", result.getBenchmarkScore().getRelativeThroughput(),
+                "opsPerSecond", result.getBenchmarkScore().getOpsPerSecond()
+            ));
+        }
+        
         if (result.getCodeQualityScore() != null) {
             breakdown.put("codeQuality", Map.of(
                 "score", result.getCodeQualityScore().getScore(),
@@ -213,32 +311,14 @@ public class AssessmentController {
             ));
         }
         
+        if (result.isPartial()) {
+            breakdown.put("incompleteStages", result.getIncompleteStages());
+        }
+        
         return breakdown;
     }
 }
 
-/**
- * Response DTOs
- */
-class AssessmentResponse {
-    private final int finalScore;
-    private final boolean passed;
-    private final String feedback;
-    private final Map<String, Object> breakdown;
-    
-    public AssessmentResponse(int finalScore, boolean passed, String feedback, Map<String, Object> breakdown) {
-        this.finalScore = finalScore;
-        this.passed = passed;
-        this.feedback = feedback;
-        this.breakdown = breakdown;
-    }
-    
-    public int getFinalScore() { return finalScore; }
-    public boolean isPassed() { return passed; }
-    public String getFeedback() { return feedback; }
-    public Map<String, Object> getBreakdown() { return breakdown; }
-}
-
 class QuizAssessmentResponse {
     private final int score;
     private final boolean passed;
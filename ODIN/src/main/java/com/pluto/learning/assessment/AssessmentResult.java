@@ -4,6 +4,7 @@ import com.pluto.learning.submissions.LabSubmission;
 import java.time.LocalDateTime;
 import java.util.Map;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 
 /**
  * Resultado completo de evaluación de una submission
@@ -20,11 +21,18 @@ public class AssessmentResult {
     private ArchitectureScore architectureScore;
     private ResilienceScore resilienceScore;
     private OperabilityScore operabilityScore;
+    // Solo en laboratorios con prueba de carga
+    private PerformanceScore performanceScore;
+    // Solo en laboratorios con benchmark JMH
+    private BenchmarkScore benchmarkScore;
     
     // Análisis adicionales
     private PlagiarismAnalysis plagiarismAnalysis;
     private String feedback;
     
+    // Etapas no críticas que no terminaron (etapa -> motivo)
+    private final Map<String, String> incompleteStages = new LinkedHashMap<>();
+    
     // Score final
     private int finalScore;
     private boolean passed;
@@ -36,13 +44,21 @@ public class AssessmentResult {
     }
     
     /**
-     * Calcula el score final basado en los weights de cada categoría
+     * Calcula el score final basado en los weights de cada categoría. La prueba de
+     * carga y el benchmark, si el laboratorio los tiene, toman 10 puntos cada uno del
+     * peso de funcionalidad.
      */
     public void calculateFinalScore() {
         int total = 0;
         
         if (functionalityScore != null) {
-            total += functionalityScore.getScore() * 0.40; // 40%
+            total += functionalityScore.getScore() * getFunctionalityWeight(); // 40% (30% o 20%)
+        }
+        if (performanceScore != null) {
+            total += performanceScore.getScore() * 0.10; // 10%
+        }
+        if (benchmarkScore != null) {
+            total += benchmarkScore.getScore() * 0.10; // 10%
         }
         if (codeQualityScore != null) {
             total += codeQualityScore.getScore() * 0.25; // 25%
@@ -58,7 +74,7 @@ public class AssessmentResult {
         }
         
         this.finalScore = total;
-        this.passed = total >= 75; // 75% para aprobar
+        this.passed = total >= 75 && !isPartial(); // 75% para aprobar; los parciales van a revisión
         
         // Penalty por plagio
         if (plagiarismAnalysis != null && plagiarismAnalysis.isPlagiarismDetected()) {
@@ -67,6 +83,31 @@ public class AssessmentResult {
         }
     }
     
+    /**
+     * Copia del resultado para otra submission con el mismo código (caché por commit).
+     * Las puntuaciones se comparten porque no se modifican tras la evaluación.
+     */
+    AssessmentResult copyFor(LabSubmission other) {
+        AssessmentResult copy = new AssessmentResult(other);
+        copy.functionalityScore = functionalityScore;
+        copy.codeQualityScore = codeQualityScore;
+        copy.architectureScore = architectureScore;
+        copy.resilienceScore = resilienceScore;
+        copy.operabilityScore = operabilityScore;
+        copy.performanceScore = performanceScore;
+        copy.benchmarkScore = benchmarkScore;
+        copy.plagiarismAnalysis = plagiarismAnalysis;
+        copy.feedback = feedback;
+        copy.incompleteStages.putAll(incompleteStages);
+        copy.metrics.putAll(metrics);
+        copy.finalScore = finalScore;
+        copy.passed = passed;
+        if (submission != null && submission.getId() != null) {
+            copy.metrics.put("cachedFromSubmission", submission.getId());
+        }
+        return copy;
+    }
+    
     // Getters and Setters
     public LabSubmission getSubmission() { return submission; }
     public LocalDateTime getEvaluationDate() { return evaluationDate; }
@@ -96,6 +137,23 @@ public class AssessmentResult {
         this.operabilityScore = operabilityScore; 
     }
     
+    public PerformanceScore getPerformanceScore() { return performanceScore; }
+    public void setPerformanceScore(PerformanceScore performanceScore) { 
+        this.performanceScore = performanceScore; 
+    }
+    
+    public BenchmarkScore getBenchmarkScore() { return benchmarkScore; }
+    public void setBenchmarkScore(BenchmarkScore benchmarkScore) { 
+        this.benchmarkScore = benchmarkScore; 
+    }
+    
+    /**
+     * Peso de funcionalidad en el score final, según las dimensiones opcionales presentes
+     */
+    public double getFunctionalityWeight() {
+        return 0.40 - (performanceScore != null ? 0.10 : 0) - (benchmarkScore != null ? 0.10 : 0);
+    }
+    
     public PlagiarismAnalysis getPlagiarismAnalysis() { return plagiarismAnalysis; }
     public void setPlagiarismAnalysis(PlagiarismAnalysis plagiarismAnalysis) { 
         this.plagiarismAnalysis = plagiarismAnalysis; 
@@ -107,6 +165,10 @@ public class AssessmentResult {
     public int getFinalScore() { return finalScore; }
     public boolean isPassed() { return passed; }
     
+    public Map<String, String> getIncompleteStages() { return incompleteStages; }
+    public void addIncompleteStage(String stage, String reason) { this.incompleteStages.put(stage, reason); }
+    public boolean isPartial() { return !incompleteStages.isEmpty(); }
+    
     public Map<String, Object> getMetrics() { return metrics; }
     public void addMetric(String key, Object value) { this.metrics.put(key, value); }
 }
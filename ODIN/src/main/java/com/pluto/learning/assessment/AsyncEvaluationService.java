@@ -0,0 +1,315 @@
+package com.pluto.learning.assessment;
+
+import com.pluto.learning.submissions.LabSubmission;
+import com.pluto.learning.submissions.SubmissionRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Evaluaciones de submissions fuera del hilo HTTP.
+ *
+ * {@link #submit} encola la evaluación en el {@link FairEvaluationScheduler} y devuelve enseguida su
+ * identificador; los clientes siguen el progreso con {@link #stream}, que emite un
+ * evento Server-Sent Events por cada etapa terminada y uno final con el resultado.
+ * Las evaluaciones terminadas se conservan en memoria durante
+ * {@code retention-minutes} para que un cliente que se conecte tarde reciba el
+ * historial completo.
+ */
+@Service
+public class AsyncEvaluationService {
+
+    static final String EVENT_STATUS = "status";
+    static final String EVENT_STAGE = "stage";
+    static final String EVENT_COMPLETED = "completed";
+    static final String EVENT_FAILED = "failed";
+
+    private final AdvancedAssessmentEngine assessmentEngine;
+    private final SubmissionRepository submissionRepository;
+    private final FairEvaluationScheduler scheduler;
+    private final long retentionMillis;
+    private final long streamTimeoutMillis;
+    private final Map<String, Evaluation> evaluations = new ConcurrentHashMap<>();
+    // Evaluación pendiente o en curso de cada submission, para no duplicar trabajo
+    private final Map<Long, Evaluation> activeBySubmission = new ConcurrentHashMap<>();
+
+    public AsyncEvaluationService(AdvancedAssessmentEngine assessmentEngine,
+                                  SubmissionRepository submissionRepository,
+                                  FairEvaluationScheduler scheduler,
+                                  @Value("${assessment.evaluation.async.retention-minutes:30}") long retentionMinutes,
+                                  @Value("${assessment.evaluation.async.stream-timeout-seconds:900}") long streamTimeoutSeconds) {
+        this.assessmentEngine = assessmentEngine;
+        this.submissionRepository = submissionRepository;
+        this.scheduler = scheduler;
+        this.retentionMillis = TimeUnit.MINUTES.toMillis(retentionMinutes);
+        this.streamTimeoutMillis = TimeUnit.SECONDS.toMillis(streamTimeoutSeconds);
+    }
+
+    /**
+     * Encola la evaluación de la submission, o devuelve la que ya está pendiente o en
+     * curso para ella.
+     *
+     * @throws RejectedExecutionException si la cola de evaluaciones está llena
+     */
+    public Evaluation submit(LabSubmission submission) {
+        purgeExpired();
+        Long submissionId = submission.getId();
+        Long userId = submission.getUser() != null ? submission.getUser().getId() : null;
+        Evaluation created = new Evaluation(UUID.randomUUID().toString(), submissionId, userId);
+        Evaluation active = activeBySubmission.putIfAbsent(submissionId, created);
+        if (active != null) {
+            return active;
+        }
+        evaluations.put(created.id, created);
+        try {
+            scheduler.execute(submission, () -> run(created));
+        } catch (RejectedExecutionException e) {
+            evaluations.remove(created.id);
+            activeBySubmission.remove(submissionId, created);
+            throw e;
+        }
+        return created;
+    }
+
+    public Optional<Evaluation> find(String evaluationId) {
+        return Optional.ofNullable(evaluations.get(evaluationId));
+    }
+
+    /**
+     * Emisor SSE que reenvía el historial de la evaluación y después sus eventos en
+     * vivo; se cierra tras el evento final
+     */
+    public SseEmitter stream(Evaluation evaluation) {
+        SseEmitter emitter = new SseEmitter(streamTimeoutMillis);
+        evaluation.subscribe(emitter);
+        return emitter;
+    }
+
+    /**
+     * Evaluaciones esperando un hilo libre
+     */
+    public int queued() {
+        return scheduler.queued();
+    }
+
+    private void run(Evaluation evaluation) {
+        try {
+            evaluation.publish(EVENT_STATUS, Map.of("status", Status.RUNNING.name()), Status.RUNNING);
+            LabSubmission submission = submissionRepository.findById(evaluation.submissionId)
+                .orElseThrow(() -> new IllegalStateException("La submission " + evaluation.submissionId + " ya no existe"));
+
+            AssessmentResult result = assessmentEngine.evaluateSubmission(submission, (stage, error) -> {
+                Map<String, Object> event = new LinkedHashMap<>();
+                event.put("stage", stage);
+                event.put("status", error == null ? "completed" : "failed");
+                if (error != null) {
+                    event.put("error", AdvancedAssessmentEngine.describe(error));
+                }
+                evaluation.publish(EVENT_STAGE, event, null);
+            });
+
+            submission.setAutomatedScore(result.getFinalScore());
+            submission.setFinalScore(result.getFinalScore());
+            submission.setInstructorFeedback(result.getFeedback());
+            submission.setEvaluatedAt(result.getEvaluationDate());
+            submission.setStatus(result.isPassed() ?
+                LabSubmission.SubmissionStatus.EVALUATED :
+                LabSubmission.SubmissionStatus.REVIEW_PENDING);
+            submissionRepository.save(submission);
+
+            evaluation.publish(EVENT_COMPLETED, AssessmentResponse.from(result), Status.COMPLETED);
+        } catch (RuntimeException e) {
+            evaluation.publish(EVENT_FAILED,
+                Map.of("error", "Assessment failed: " + AdvancedAssessmentEngine.describe(e)), Status.FAILED);
+        } finally {
+            activeBySubmission.remove(evaluation.submissionId, evaluation);
+        }
+    }
+
+    private void purgeExpired() {
+        long now = System.currentTimeMillis();
+        evaluations.values().removeIf(evaluation -> evaluation.isExpired(now, retentionMillis));
+    }
+
+    public enum Status {
+        QUEUED, RUNNING, COMPLETED, FAILED;
+
+        boolean isFinished() {
+            return this == COMPLETED || this == FAILED;
+        }
+    }
+
+    /**
+     * Estado de una evaluación encolada: historial de eventos y suscriptores SSE
+     */
+    public static final class Evaluation {
+        private final String id;
+        private final Long submissionId;
+        private final Long userId;
+        private final Instant createdAt = Instant.now();
+        private final List<Event> history = new ArrayList<>();
+        private final List<Subscriber> emitters = new CopyOnWriteArrayList<>();
+        private volatile Status status = Status.QUEUED;
+        private volatile Object result;
+        private volatile long finishedAt;
+
+        Evaluation(String id, Long submissionId, Long userId) {
+            this.id = id;
+            this.submissionId = submissionId;
+            this.userId = userId;
+        }
+
+        public String getId() { return id; }
+        public Long getSubmissionId() { return submissionId; }
+        public Long getUserId() { return userId; }
+        public Instant getCreatedAt() { return createdAt; }
+        public Status getStatus() { return status; }
+
+        /**
+         * {@link AssessmentResponse} si terminó bien, o el error si falló
+         */
+        public Object getResult() { return result; }
+
+        /**
+         * Etapas terminadas hasta ahora, en orden de terminación
+         */
+        public synchronized List<Object> getStages() {
+            List<Object> stages = new ArrayList<>();
+            for (Event event : history) {
+                if (EVENT_STAGE.equals(event.name)) {
+                    stages.add(event.data);
+                }
+            }
+            return stages;
+        }
+
+        boolean isExpired(long now, long retentionMillis) {
+            return status.isFinished() && now - finishedAt > retentionMillis;
+        }
+
+        /**
+         * Añade el suscriptor y le reenvía el historial; los envíos se hacen fuera del
+         * monitor para que un cliente lento no bloquee la evaluación ni a otros clientes
+         */
+        void subscribe(SseEmitter emitter) {
+            Subscriber subscriber = new Subscriber(emitter);
+            emitters.add(subscriber);
+            emitter.onCompletion(() -> emitters.remove(subscriber));
+            emitter.onTimeout(() -> emitters.remove(subscriber));
+            emitter.onError(error -> emitters.remove(subscriber));
+            deliver(subscriber);
+        }
+
+        /**
+         * Registra el evento y lo envía a los suscriptores; {@code next} cambia el estado
+         * si no es null, y un estado final cierra todos los streams
+         */
+        void publish(String name, Object data, Status next) {
+            synchronized (this) {
+                history.add(new Event(history.size(), name, data));
+                if (next != null) {
+                    if (next.isFinished()) {
+                        result = data;
+                        finishedAt = System.currentTimeMillis();
+                    }
+                    status = next;
+                }
+            }
+            for (Subscriber subscriber : emitters) {
+                deliver(subscriber);
+            }
+        }
+
+        /**
+         * Envía al suscriptor los eventos que aún no ha recibido, en orden. Solo un hilo
+         * entrega a cada suscriptor a la vez; si otro publica mientras tanto, el hilo que
+         * está entregando recoge también ese evento antes de soltar el turno.
+         */
+        private void deliver(Subscriber subscriber) {
+            synchronized (this) {
+                if (subscriber.delivering || subscriber.closed) {
+                    return;
+                }
+                subscriber.delivering = true;
+            }
+            while (true) {
+                Event event;
+                synchronized (this) {
+                    if (subscriber.sent < history.size()) {
+                        event = history.get(subscriber.sent++);
+                    } else {
+                        subscriber.delivering = false;
+                        if (!status.isFinished()) {
+                            return;
+                        }
+                        subscriber.closed = true;
+                        event = null;
+                    }
+                }
+                if (event == null) {
+                    emitters.remove(subscriber);
+                    subscriber.emitter.complete();
+                    return;
+                }
+                if (!send(subscriber.emitter, event)) {
+                    synchronized (this) {
+                        subscriber.closed = true;
+                        subscriber.delivering = false;
+                    }
+                    emitters.remove(subscriber);
+                    return;
+                }
+            }
+        }
+
+        private boolean send(SseEmitter emitter, Event event) {
+            try {
+                emitter.send(SseEmitter.event().id(Integer.toString(event.id)).name(event.name).data(event.data));
+                return true;
+            } catch (IOException | IllegalStateException e) {
+                // Cliente desconectado o emisor ya cerrado
+                emitter.completeWithError(e);
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Emisor SSE con la posición del siguiente evento del historial que debe recibir
+     */
+    private static final class Subscriber {
+        private final SseEmitter emitter;
+        private int sent;
+        private boolean delivering;
+        private boolean closed;
+
+        Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+    }
+
+    private static final class Event {
+        private final int id;
+        private final String name;
+        private final Object data;
+
+        Event(int id, String name, Object data) {
+            this.id = id;
+            this.name = name;
+            this.data = data;
+        }
+    }
+}
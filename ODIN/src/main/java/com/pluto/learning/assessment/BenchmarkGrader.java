@@ -0,0 +1,174 @@
+package com.pluto.learning.assessment;
+
+import com.pluto.learning.assessments.Lab;
+import com.pluto.learning.assessments.LabRepository;
+import com.pluto.learning.submissions.LabSubmission;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Etapa de evaluación por microbenchmark para laboratorios de optimización.
+ *
+ * El laboratorio declara un harness JMH y el commit de su solución de referencia en
+ * el repositorio plantilla. Cada submission se mide con el mismo harness y la misma
+ * configuración fija (forks, calentamiento e iteraciones) y se puntúa por su
+ * throughput relativo al de la referencia: igualarla da 100.
+ *
+ * Las medidas se serializan por conjunto de CPUs ({@code assessment.benchmark.cpu-sets},
+ * separados por {@code ;}): en cada conjunto corre un único benchmark a la vez, fijado
+ * con {@code taskset}, para que las evaluaciones concurrentes no se roben ciclos. Sin
+ * conjuntos configurados hay un único carril sin fijar. Salvo que los conjuntos estén
+ * aislados de las builds ({@code isolated-cpu-sets}, p. ej. con {@code isolcpus}), la
+ * medida toma además todos los huecos del sandbox. La referencia se vuelve a medir en
+ * cada evaluación, justo antes que el alumno y en el mismo carril, para que ambas
+ * medidas compartan las condiciones de la máquina.
+ */
+@Component
+public class BenchmarkGrader {
+
+    private final TestSandboxPool sandbox;
+    private final LabRepository labRepository;
+    private final boolean enabled;
+    private final int forks;
+    private final int warmupIterations;
+    private final int iterations;
+    private final BlockingQueue<String> cpuSets;
+    private final boolean isolatedCpuSets;
+    private final AtomicInteger waiting = new AtomicInteger();
+
+    public BenchmarkGrader(TestSandboxPool sandbox, LabRepository labRepository, MeterRegistry meterRegistry,
+                           @Value("${assessment.benchmark.enabled:true}") boolean enabled,
+                           @Value("${assessment.benchmark.cpu-sets:}") String cpuSets,
+                           @Value("${assessment.benchmark.isolated-cpu-sets:false}") boolean isolatedCpuSets,
+                           @Value("${assessment.benchmark.forks:1}") int forks,
+                           @Value("${assessment.benchmark.warmup-iterations:3}") int warmupIterations,
+                           @Value("${assessment.benchmark.iterations:5}") int iterations) {
+        this.sandbox = sandbox;
+        this.labRepository = labRepository;
+        this.enabled = enabled;
+        this.forks = forks;
+        this.warmupIterations = warmupIterations;
+        this.iterations = iterations;
+        this.cpuSets = new LinkedBlockingQueue<>(parseCpuSets(cpuSets));
+        this.isolatedCpuSets = isolatedCpuSets;
+
+        Gauge.builder("assessment.benchmark.waiting", waiting, AtomicInteger::get)
+            .description("Benchmarks esperando un conjunto de CPUs libre").register(meterRegistry);
+    }
+
+    /**
+     * Mide la submission frente a la referencia del laboratorio; null si el laboratorio
+     * no define benchmark o el sandbox está deshabilitado. Si la implementación del
+     * alumno no compila o no se puede medir el score es 0 con el motivo; si falla la
+     * referencia se lanza {@link IllegalStateException} (error del laboratorio).
+     */
+    public BenchmarkScore grade(LabSubmission submission) {
+        if (!enabled || !sandbox.isEnabled() || submission.getLab() == null || submission.getLab().getId() == null) {
+            return null;
+        }
+        Lab lab = labRepository.findById(submission.getLab().getId()).orElse(null);
+        if (lab == null || lab.getBenchmarkHarness() == null || lab.getBenchmarkHarness().isBlank()
+                || lab.getBenchmarkReferenceCommit() == null || lab.getBenchmarkReferenceCommit().isBlank()) {
+            return null;
+        }
+        BenchmarkHarness harness = new BenchmarkHarness(lab.getBenchmarkHarness(), forks, warmupIterations, iterations);
+
+        String cpuSet = acquire();
+        try {
+            if (isolatedCpuSets && !cpuSet.isEmpty()) {
+                return measure(submission, lab, harness, cpuSet);
+            }
+            return sandbox.exclusively(() -> measure(submission, lab, harness, cpuSet));
+        } finally {
+            cpuSets.add(cpuSet);
+        }
+    }
+
+    private BenchmarkScore measure(LabSubmission submission, Lab lab, BenchmarkHarness harness, String cpuSet) {
+        BenchmarkScore score = new BenchmarkScore();
+        score.setCpuSet(cpuSet.isEmpty() ? null : cpuSet);
+        score.setReferenceOpsPerSecond(reference(lab, harness, cpuSet));
+        try {
+            score.setOpsPerSecond(sandbox.runBenchmark(submission, harness, cpuSet));
+        } catch (IllegalStateException e) {
+            if (Thread.currentThread().isInterrupted()) {
+                throw e;
+            }
+            score.setError(e.getMessage());
+            return score;
+        }
+        double relative = relativeThroughput(score.getOpsPerSecond(), score.getReferenceOpsPerSecond());
+        score.setRelativeThroughput(relative);
+        score.setScore((int) Math.min(100, Math.round(relative * 100)));
+        return score;
+    }
+
+    private Map<String, Double> reference(Lab lab, BenchmarkHarness harness, String cpuSet) {
+        LabSubmission reference = new LabSubmission();
+        reference.setLab(lab);
+        reference.setGithubRepoUrl(lab.getGithubTemplateUrl());
+        reference.setCommitHash(lab.getBenchmarkReferenceCommit());
+        try {
+            return Map.copyOf(sandbox.runBenchmark(reference, harness, cpuSet));
+        } catch (IllegalStateException e) {
+            if (Thread.currentThread().isInterrupted()) {
+                throw e;
+            }
+            throw new IllegalStateException("Falló el benchmark de referencia del laboratorio " + lab.getId()
+                + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Media geométrica de la razón alumno/referencia de cada benchmark de la
+     * referencia; un benchmark que falta en el alumno cuenta como 0
+     */
+    static double relativeThroughput(Map<String, Double> measured, Map<String, Double> reference) {
+        if (reference.isEmpty()) {
+            return 0.0;
+        }
+        double logSum = 0.0;
+        for (Map.Entry<String, Double> entry : reference.entrySet()) {
+            double ratio = measured.getOrDefault(entry.getKey(), 0.0) / entry.getValue();
+            if (!(ratio > 0)) {
+                return 0.0;
+            }
+            logSum += Math.log(ratio);
+        }
+        return Math.exp(logSum / reference.size());
+    }
+
+    private String acquire() {
+        waiting.incrementAndGet();
+        try {
+            return cpuSets.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Espera de benchmark interrumpida", e);
+        } finally {
+            waiting.decrementAndGet();
+        }
+    }
+
+    private static List<String> parseCpuSets(String cpuSets) {
+        List<String> parsed = new ArrayList<>();
+        for (String cpuSet : cpuSets.split(";")) {
+            if (!cpuSet.isBlank()) {
+                parsed.add(cpuSet.strip());
+            }
+        }
+        if (parsed.isEmpty()) {
+            parsed.add("");
+        }
+        return parsed;
+    }
+}
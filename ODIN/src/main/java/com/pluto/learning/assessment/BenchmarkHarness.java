@@ -0,0 +1,71 @@
+package com.pluto.learning.assessment;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Harness JMH declarado por un laboratorio y la configuración fija con que se ejecuta.
+ *
+ * El fuente es una clase con métodos {@code @Benchmark} que llama a la implementación
+ * del alumno; el sandbox lo escribe sobre la copia del repositorio (sustituyendo la
+ * versión que pudiera haber) para que todos los intentos y la solución de referencia
+ * se midan con el mismo código.
+ */
+final class BenchmarkHarness {
+
+    private static final Pattern PACKAGE = Pattern.compile("^\\s*package\\s+([\\w.]+)\\s*;", Pattern.MULTILINE);
+    private static final Pattern CLASS = Pattern.compile("\\bpublic\\s+(?:final\\s+|abstract\\s+)*class\\s+(\\w+)");
+
+    private final String source;
+    private final String className;
+    private final int forks;
+    private final int warmupIterations;
+    private final int iterations;
+
+    BenchmarkHarness(String source, int forks, int warmupIterations, int iterations) {
+        Matcher type = CLASS.matcher(source);
+        if (!type.find()) {
+            throw new IllegalArgumentException("El harness de benchmark no declara ninguna clase pública");
+        }
+        if (forks < 1 || warmupIterations < 0 || iterations < 1) {
+            throw new IllegalArgumentException("Configuración de JMH inválida: forks=" + forks
+                + ", warmup=" + warmupIterations + ", iterations=" + iterations);
+        }
+        Matcher pkg = PACKAGE.matcher(source);
+        this.source = source;
+        this.className = pkg.find() ? pkg.group(1) + "." + type.group(1) : type.group(1);
+        this.forks = forks;
+        this.warmupIterations = warmupIterations;
+        this.iterations = iterations;
+    }
+
+    String source() {
+        return source;
+    }
+
+    /**
+     * Ruta del fuente relativa a la raíz de fuentes ({@code com/example/SortBenchmark.java})
+     */
+    String relativePath() {
+        return className.replace('.', '/') + ".java";
+    }
+
+    /**
+     * Expresión de JMH que selecciona solo los benchmarks del harness
+     */
+    String include() {
+        return "^" + Pattern.quote(className) + "\\.";
+    }
+
+    int forks() {
+        return forks;
+    }
+
+    int warmupIterations() {
+        return warmupIterations;
+    }
+
+    int iterations() {
+        return iterations;
+    }
+}
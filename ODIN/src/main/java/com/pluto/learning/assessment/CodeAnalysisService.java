@@ -3,62 +3,107 @@ package com.pluto.learning.assessment;
 import com.pluto.learning.submissions.LabSubmission;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.pluto.learning.assessment.AnalysisRuleCatalog.*;
+
 /**
- * Servicio de análisis de código
+ * Servicio de análisis de código.
+ *
+ * Todos los análisis trabajan sobre el mismo {@link RepositorySnapshot}, que se
+ * descarga y tokeniza una sola vez por evaluación. Las heurísticas textuales
+ * consultan las reglas del {@link AnalysisRuleCatalog}, que se evalúan todas en
+ * una única pasada por fichero.
  */
 @Service
 public class CodeAnalysisService {
     
+    private static final int MAX_REPORTED_CLONES = 100;
+    
+    private final AnalysisRuleCatalog rules;
+    private final JavaMetricsAnalyzer metricsAnalyzer;
+    private final TestSandboxPool testSandbox;
+    private final DuplicationDetector duplicationDetector = new DuplicationDetector();
+    
+    public CodeAnalysisService(AnalysisRuleCatalog rules, JavaMetricsAnalyzer metricsAnalyzer,
+                               TestSandboxPool testSandbox) {
+        this.rules = rules;
+        this.metricsAnalyzer = metricsAnalyzer;
+        this.testSandbox = testSandbox;
+    }
+    
     /**
-     * Ejecuta tests automatizados en la submission
+     * Ejecuta los tests de la submission en el {@link TestSandboxPool}. Con el sandbox
+     * deshabilitado (entornos sin Maven/Gradle) se estima a partir del código.
      */
-    public TestExecutionResult runAutomatedTests(LabSubmission submission) {
-        TestExecutionResult result = new TestExecutionResult();
+    public TestExecutionResult runAutomatedTests(LabSubmission submission, RepositorySnapshot snapshot) {
+        TestExecutionResult result = testSandbox.isEnabled()
+            ? testSandbox.run(submission)
+            : estimateTests(snapshot);
         
-        // Mock implementation - en producción integraría con Docker + test runners
-        try {
-            // Para LabSubmission, el código está en GitHub
-            String githubUrl = submission.getGithubRepoUrl();
-            String code = fetchCodeFromGitHub(githubUrl); // Mock method
-            
-            // Análisis básico del código
-            int totalTests = countTestMethods(code);
-            int passedTests = (int) (totalTests * 0.8); // 80% pass rate mock
-            
-            result.setTotalTests(totalTests);
-            result.setPassedTests(passedTests);
-            result.setCoverage(0.75); // 75% coverage mock
-            result.setTotalEndpoints(countEndpoints(code));
-            result.setWorkingEndpoints((int) (result.getTotalEndpoints() * 0.9));
-            
-        } catch (Exception e) {
-            // Error en ejecución
-            result.setTotalTests(0);
-            result.setPassedTests(0);
-            result.setCoverage(0.0);
-        }
+        // Los endpoints aún no se prueban en ejecución
+        result.setTotalEndpoints(countEndpoints(snapshot));
+        result.setWorkingEndpoints((int) (result.getTotalEndpoints() * 0.9));
+        return result;
+    }
+    
+    /**
+     * Tiempo máximo que puede tardar {@link #runAutomatedTests} en el sandbox una vez
+     * que obtiene hueco; 0 si se estima sin ejecutar
+     */
+    public long testExecutionBudgetSeconds() {
+        return testSandbox.isEnabled() ? testSandbox.maxRunSeconds() : 0;
+    }
+    
+    private TestExecutionResult estimateTests(RepositorySnapshot snapshot) {
+        TestExecutionResult result = new TestExecutionResult();
         
+        // Mock implementation - estimación sin ejecutar la build
+        int totalTests = countTestMethods(snapshot);
+        result.setTotalTests(totalTests);
+        result.setPassedTests((int) (totalTests * 0.8)); // 80% pass rate mock
+        result.setCoverage(0.75); // 75% coverage mock
+        result.setTestDetails(Map.of("estimated", true));
         return result;
     }
     
     /**
      * Analiza la calidad del código usando métricas estáticas
      */
-    public CodeAnalysisReport analyzeCode(LabSubmission submission) {
+    public CodeAnalysisReport analyzeCode(RepositorySnapshot snapshot) {
         CodeAnalysisReport report = new CodeAnalysisReport();
         
-        String code = fetchCodeFromGitHub(submission.getGithubRepoUrl());
-        if (code == null || code.isEmpty()) {
+        if (snapshot.isEmpty()) {
             return report;
         }
         
-        // Análisis de métricas básicas (mock)
-        report.setTestCoverage(calculateTestCoverage(code));
-        report.setCyclomaticComplexity(calculateComplexity(code));
-        report.setCodeDuplication(calculateDuplication(code));
-        report.setBugCount(detectBugs(code));
-        report.setVulnerabilityCount(detectVulnerabilities(code));
-        report.setCodeSmellCount(detectCodeSmells(code));
+        JavaMetricsAnalyzer.RepositoryMetrics metrics = metricsAnalyzer.analyze(snapshot);
+        List<String> codeSmells = metrics.codeSmells();
+        DuplicationDetector.Result duplication = duplicationDetector.detect(snapshot);
+        
+        report.setTestCoverage(calculateTestCoverage(snapshot));
+        report.setCyclomaticComplexity(metrics.totalComplexity());
+        report.setCodeDuplication(duplication.percentage());
+        report.setCodeClones(duplication.clones().subList(0, Math.min(MAX_REPORTED_CLONES, duplication.clones().size())));
+        report.setBugCount(detectBugs(snapshot));
+        report.setVulnerabilityCount(detectVulnerabilities(snapshot));
+        report.setCodeSmellCount(codeSmells.size());
+        
+        Map<String, Object> details = new LinkedHashMap<>();
+        details.put("methodCount", metrics.methodCount());
+        details.put("averageComplexity", metrics.averageComplexity());
+        details.put("maxComplexity", metrics.maxComplexity());
+        details.put("maxNestingDepth", metrics.maxNestingDepth());
+        details.put("maxMethodLength", metrics.maxMethodLength());
+        details.put("codeSmells", codeSmells);
+        details.put("duplicatedLines", duplication.duplicatedLines());
+        details.put("cloneCount", duplication.clones().size());
+        details.put("ruleMatches", rules.scan(snapshot).asMap());
+        details.put("reusedFiles", snapshot.getReusedFileCount());
+        report.setDetails(details);
         
         return report;
     }
@@ -66,16 +111,14 @@ public class CodeAnalysisService {
     /**
      * Analiza la arquitectura del código
      */
-    public ArchitectureAnalysis analyzeArchitecture(LabSubmission submission) {
+    public ArchitectureAnalysis analyzeArchitecture(RepositorySnapshot snapshot) {
         ArchitectureAnalysis analysis = new ArchitectureAnalysis();
         
-        String code = fetchCodeFromGitHub(submission.getGithubRepoUrl());
-        
         // Detectar patrones de diseño (mock)
-        analysis.setDesignPatterns(detectDesignPatterns(code));
-        analysis.setProperLayering(hasLayeredArchitecture(code));
-        analysis.setManagedDependencies(hasDependencyInjection(code));
-        analysis.setApiDesignScore(evaluateApiDesign(code));
+        analysis.setDesignPatterns(detectDesignPatterns(snapshot));
+        analysis.setProperLayering(hasLayeredArchitecture(snapshot));
+        analysis.setManagedDependencies(hasDependencyInjection(snapshot));
+        analysis.setApiDesignScore(evaluateApiDesign(snapshot));
         
         return analysis;
     }
@@ -83,17 +126,15 @@ public class CodeAnalysisService {
     /**
      * Analiza patrones de resiliencia
      */
-    public ResilienceAnalysis analyzeResilience(LabSubmission submission) {
+    public ResilienceAnalysis analyzeResilience(RepositorySnapshot snapshot) {
         ResilienceAnalysis analysis = new ResilienceAnalysis();
         
-        String code = fetchCodeFromGitHub(submission.getGithubRepoUrl());
-        
         // Detectar patrones de resiliencia
-        analysis.setCircuitBreaker(hasCircuitBreakerPattern(code));
-        analysis.setRetryLogic(hasRetryPattern(code));
-        analysis.setTimeoutHandling(hasTimeoutHandling(code));
-        analysis.setFallbackMechanisms(hasFallbackMechanisms(code));
-        analysis.setErrorHandlingQuality(evaluateErrorHandling(code));
+        analysis.setCircuitBreaker(hasCircuitBreakerPattern(snapshot));
+        analysis.setRetryLogic(hasRetryPattern(snapshot));
+        analysis.setTimeoutHandling(hasTimeoutHandling(snapshot));
+        analysis.setFallbackMechanisms(hasFallbackMechanisms(snapshot));
+        analysis.setErrorHandlingQuality(evaluateErrorHandling(snapshot));
         
         return analysis;
     }
@@ -101,195 +142,139 @@ public class CodeAnalysisService {
     /**
      * Analiza aspectos de operabilidad
      */
-    public OperabilityAnalysis analyzeOperability(LabSubmission submission) {
+    public OperabilityAnalysis analyzeOperability(RepositorySnapshot snapshot) {
         OperabilityAnalysis analysis = new OperabilityAnalysis();
         
-        String code = fetchCodeFromGitHub(submission.getGithubRepoUrl());
-        
         // Detectar aspectos operacionales
-        analysis.setMetrics(hasMetricsExposed(code));
-        analysis.setHealthChecks(hasHealthChecks(code));
-        analysis.setLoggingQuality(evaluateLogging(code));
-        analysis.setDocumentationScore(evaluateDocumentation(code));
+        analysis.setMetrics(hasMetricsExposed(snapshot));
+        analysis.setHealthChecks(hasHealthChecks(snapshot));
+        analysis.setLoggingQuality(evaluateLogging(snapshot));
+        analysis.setDocumentationScore(evaluateDocumentation(snapshot));
         
         return analysis;
     }
     
-    /**
-     * Mock method para obtener código desde GitHub
-     * En producción usaría GitHub API o git clone
-     */
-    private String fetchCodeFromGitHub(String githubUrl) {
-        // Mock implementation
-        return """
-            @RestController
-            public class UserController {
-                @Autowired
-                private UserService userService;
-                
-                @Test
-                public void testUser() {
-                    // test implementation
-                }
-                
-                @GetMapping("/users")
-                public ResponseEntity<List<User>> getUsers() {
-                    return ResponseEntity.ok(userService.getAllUsers());
-                }
-            }
-            """;
-    }
-    
     // Métodos auxiliares de análisis (implementaciones mock)
-    private int countTestMethods(String code) {
-        if (code == null) return 0;
-        return (int) code.lines()
-            .filter(line -> line.contains("@Test") || line.contains("test"))
-            .count();
+    private int countTestMethods(RepositorySnapshot snapshot) {
+        return snapshot.annotationCount("Test") +
+               snapshot.annotationCount("ParameterizedTest");
     }
     
-    private int countEndpoints(String code) {
-        if (code == null) return 0;
-        return (int) code.lines()
-            .filter(line -> line.contains("@GetMapping") || 
-                           line.contains("@PostMapping") ||
-                           line.contains("@PutMapping") ||
-                           line.contains("@DeleteMapping"))
-            .count();
+    private int countEndpoints(RepositorySnapshot snapshot) {
+        return snapshot.annotationCount("GetMapping") +
+               snapshot.annotationCount("PostMapping") +
+               snapshot.annotationCount("PutMapping") +
+               snapshot.annotationCount("DeleteMapping");
     }
     
-    private double calculateTestCoverage(String code) {
+    private double calculateTestCoverage(RepositorySnapshot snapshot) {
         // Mock: analizar ratio de tests vs código
-        long totalLines = code.lines().count();
-        long testLines = code.lines()
-            .filter(line -> line.contains("@Test") || line.contains("test"))
-            .count();
+        int totalLines = snapshot.getTotalLines();
+        int testMethods = countTestMethods(snapshot);
         
-        return totalLines > 0 ? Math.min(1.0, testLines * 10.0 / totalLines) : 0.0;
-    }
-    
-    private int calculateComplexity(String code) {
-        // Mock: contar if, for, while, switch
-        return (int) code.lines()
-            .filter(line -> line.contains("if ") || 
-                           line.contains("for ") || 
-                           line.contains("while ") ||
-                           line.contains("switch"))
-            .count();
+        return totalLines > 0 ? Math.min(1.0, testMethods * 10.0 / totalLines) : 0.0;
     }
     
-    private double calculateDuplication(String code) {
-        // Mock: porcentaje de duplicación
-        return Math.random() * 20; // 0-20% duplicación
-    }
-    
-    private int detectBugs(String code) {
+    private int detectBugs(RepositorySnapshot snapshot) {
+        AnalysisRuleCatalog.RuleMatches matches = rules.scan(snapshot);
         // Mock: detectar bugs comunes
         int bugs = 0;
-        if (code.contains("null.")) bugs++;
-        if (code.contains("== null") && !code.contains("!= null")) bugs++;
+        if (matches.has(NULL_DEREFERENCE)) bugs++;
+        if (matches.has(NULL_COMPARISON) && !matches.has(NULL_CHECK)) bugs++;
         return bugs;
     }
     
-    private int detectVulnerabilities(String code) {
+    private int detectVulnerabilities(RepositorySnapshot snapshot) {
+        AnalysisRuleCatalog.RuleMatches matches = rules.scan(snapshot);
         // Mock: detectar vulnerabilidades
         int vulns = 0;
-        if (code.contains("SQL") && !code.contains("PreparedStatement")) vulns++;
-        if (code.contains("eval(")) vulns++;
+        if (matches.has(SQL) && !matches.has(PREPARED_STATEMENT)) vulns++;
+        if (matches.has(EVAL)) vulns++;
         return vulns;
     }
     
-    private int detectCodeSmells(String code) {
-        // Mock: detectar code smells
-        return (int) (Math.random() * 10);
-    }
-    
-    private java.util.List<String> detectDesignPatterns(String code) {
-        java.util.List<String> patterns = new java.util.ArrayList<>();
-        if (code.contains("@Service")) patterns.add("Service Layer");
-        if (code.contains("@Repository")) patterns.add("Repository");
-        if (code.contains("@Controller")) patterns.add("MVC");
-        if (code.contains("Factory")) patterns.add("Factory");
-        if (code.contains("Builder")) patterns.add("Builder");
+    private List<String> detectDesignPatterns(RepositorySnapshot snapshot) {
+        AnalysisRuleCatalog.RuleMatches matches = rules.scan(snapshot);
+        List<String> patterns = new ArrayList<>();
+        if (matches.has(SERVICE)) patterns.add("Service Layer");
+        if (matches.has(REPOSITORY)) patterns.add("Repository");
+        if (matches.has(CONTROLLER)) patterns.add("MVC");
+        if (matches.has(FACTORY)) patterns.add("Factory");
+        if (matches.has(BUILDER)) patterns.add("Builder");
         return patterns;
     }
     
-    private boolean hasLayeredArchitecture(String code) {
-        return code.contains("@Controller") && 
-               code.contains("@Service") && 
-               code.contains("@Repository");
+    private boolean hasLayeredArchitecture(RepositorySnapshot snapshot) {
+        AnalysisRuleCatalog.RuleMatches matches = rules.scan(snapshot);
+        return matches.has(CONTROLLER) && 
+               matches.has(SERVICE) && 
+               matches.has(REPOSITORY);
     }
     
-    private boolean hasDependencyInjection(String code) {
-        return code.contains("@Autowired") || 
-               code.contains("@Inject") || 
-               code.contains("constructor injection");
+    private boolean hasDependencyInjection(RepositorySnapshot snapshot) {
+        return rules.scan(snapshot).has(DEPENDENCY_INJECTION);
     }
     
-    private int evaluateApiDesign(String code) {
+    private int evaluateApiDesign(RepositorySnapshot snapshot) {
+        AnalysisRuleCatalog.RuleMatches matches = rules.scan(snapshot);
         int score = 0;
-        if (code.contains("@RestController")) score += 25;
-        if (code.contains("@RequestMapping")) score += 25;
-        if (code.contains("ResponseEntity")) score += 25;
-        if (code.contains("@Valid")) score += 25;
+        if (matches.has(REST_CONTROLLER)) score += 25;
+        if (matches.has(REQUEST_MAPPING)) score += 25;
+        if (matches.has(RESPONSE_ENTITY)) score += 25;
+        if (matches.has(VALIDATION)) score += 25;
         return score;
     }
     
-    private boolean hasCircuitBreakerPattern(String code) {
-        return code.contains("CircuitBreaker") || 
-               code.contains("@CircuitBreaker");
+    private boolean hasCircuitBreakerPattern(RepositorySnapshot snapshot) {
+        return rules.scan(snapshot).has(CIRCUIT_BREAKER);
     }
     
-    private boolean hasRetryPattern(String code) {
-        return code.contains("@Retry") || 
-               code.contains("retry");
+    private boolean hasRetryPattern(RepositorySnapshot snapshot) {
+        return rules.scan(snapshot).has(RETRY);
     }
     
-    private boolean hasTimeoutHandling(String code) {
-        return code.contains("timeout") || 
-               code.contains("@Timeout");
+    private boolean hasTimeoutHandling(RepositorySnapshot snapshot) {
+        return rules.scan(snapshot).has(TIMEOUT);
     }
     
-    private boolean hasFallbackMechanisms(String code) {
-        return code.contains("fallback") || 
-               code.contains("@Fallback");
+    private boolean hasFallbackMechanisms(RepositorySnapshot snapshot) {
+        return rules.scan(snapshot).has(FALLBACK);
     }
     
-    private int evaluateErrorHandling(String code) {
+    private int evaluateErrorHandling(RepositorySnapshot snapshot) {
+        AnalysisRuleCatalog.RuleMatches matches = rules.scan(snapshot);
         int score = 0;
-        if (code.contains("try-catch")) score += 25;
-        if (code.contains("@ControllerAdvice")) score += 25;
-        if (code.contains("@ExceptionHandler")) score += 25;
-        if (code.contains("throw new")) score += 25;
+        if (matches.has(TRY_CATCH)) score += 25;
+        if (matches.has(CONTROLLER_ADVICE)) score += 25;
+        if (matches.has(EXCEPTION_HANDLER)) score += 25;
+        if (matches.has(THROW)) score += 25;
         return score;
     }
     
-    private boolean hasMetricsExposed(String code) {
-        return code.contains("@Timed") || 
-               code.contains("micrometer") ||
-               code.contains("metrics");
+    private boolean hasMetricsExposed(RepositorySnapshot snapshot) {
+        return rules.scan(snapshot).has(METRICS);
     }
     
-    private boolean hasHealthChecks(String code) {
-        return code.contains("@HealthCheck") || 
-               code.contains("actuator") ||
-               code.contains("health");
+    private boolean hasHealthChecks(RepositorySnapshot snapshot) {
+        return rules.scan(snapshot).has(HEALTH_CHECKS);
     }
     
-    private int evaluateLogging(String code) {
+    private int evaluateLogging(RepositorySnapshot snapshot) {
+        AnalysisRuleCatalog.RuleMatches matches = rules.scan(snapshot);
         int score = 0;
-        if (code.contains("Logger")) score += 30;
-        if (code.contains("log.info")) score += 20;
-        if (code.contains("log.error")) score += 25;
-        if (code.contains("log.debug")) score += 25;
+        if (matches.has(LOGGER)) score += 30;
+        if (matches.has(LOG_INFO)) score += 20;
+        if (matches.has(LOG_ERROR)) score += 25;
+        if (matches.has(LOG_DEBUG)) score += 25;
         return Math.min(100, score);
     }
     
-    private int evaluateDocumentation(String code) {
+    private int evaluateDocumentation(RepositorySnapshot snapshot) {
+        AnalysisRuleCatalog.RuleMatches matches = rules.scan(snapshot);
         int score = 0;
-        if (code.contains("/**")) score += 40; // JavaDoc
-        if (code.contains("@Api")) score += 30; // Swagger
-        if (code.contains("README")) score += 30;
+        if (matches.has(JAVADOC)) score += 40; // JavaDoc
+        if (matches.has(API_DOCS)) score += 30; // Swagger
+        if (matches.has(README)) score += 30;
         return Math.min(100, score);
     }
 }
@@ -0,0 +1,207 @@
+package com.pluto.learning.assessment;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Detector de código duplicado dentro de un repositorio con hashes Rabin–Karp.
+ *
+ * Recorre el flujo normalizado del {@link RepositorySnapshot} (los identificadores y
+ * literales ya están colapsados, así que renombrar variables no oculta un clon)
+ * calculando el hash rodante de cada ventana de {@code windowSize} tokens. Las
+ * ventanas se indexan en una tabla de hash abierta sobre arrays primitivos, con
+ * encadenamiento por posición, de modo que memoria y tiempo son lineales en el
+ * tamaño del repositorio. Las ventanas consecutivas que coinciden con ventanas
+ * consecutivas anteriores se fusionan en un solo clon.
+ */
+final class DuplicationDetector {
+
+    // Mismo umbral por defecto que PMD CPD
+    static final int DEFAULT_WINDOW_SIZE = 100;
+    private static final long BASE = 1_000_003L;
+    private static final int EMPTY = -1;
+    // Candidatos comprobados por ventana, para acotar el coste con hashes muy repetidos
+    private static final int MAX_CHAIN = 8;
+
+    private final int windowSize;
+
+    DuplicationDetector() {
+        this(DEFAULT_WINDOW_SIZE);
+    }
+
+    DuplicationDetector(int windowSize) {
+        if (windowSize < 1) {
+            throw new IllegalArgumentException("windowSize debe ser positivo");
+        }
+        this.windowSize = windowSize;
+    }
+
+    Result detect(RepositorySnapshot snapshot) {
+        int[] tokens = snapshot.normalized();
+        int n = snapshot.normalizedSize();
+        List<RepositorySnapshot.SourceFile> files = snapshot.getJavaFiles();
+        int totalLines = 0;
+        for (RepositorySnapshot.SourceFile file : files) {
+            totalLines += file.getLineCount();
+        }
+        if (n < windowSize) {
+            return new Result(0, totalLines, List.of());
+        }
+
+        int windows = n - windowSize + 1;
+        int[] table = new int[Integer.highestOneBit(Math.max(16, windows)) << 1];
+        Arrays.fill(table, EMPTY);
+        int mask = table.length - 1;
+        int[] chain = new int[windows];
+        long[] hashes = new long[windows];
+        // Posición de la ventana anterior igual a la ventana p, o EMPTY
+        int[] matchedWith = new int[windows];
+        // Cobertura de tokens duplicados como array de diferencias
+        int[] coverage = new int[n + 1];
+        List<int[]> clones = new ArrayList<>();  // {inicio, inicio del original, longitud}
+
+        long power = 1;
+        for (int i = 1; i < windowSize; i++) {
+            power *= BASE;
+        }
+        long hash = 0;
+        for (int i = 0; i < windowSize; i++) {
+            hash = hash * BASE + tokens[i];
+        }
+
+        for (int p = 0; p < windows; p++) {
+            if (p > 0) {
+                hash = (hash - tokens[p - 1] * power) * BASE + tokens[p + windowSize - 1];
+            }
+            hashes[p] = hash;
+            matchedWith[p] = EMPTY;
+            if (snapshot.fileIndexAt(p) != snapshot.fileIndexAt(p + windowSize - 1)) {
+                // Ventana que cruza dos ficheros: no se indexa
+                chain[p] = EMPTY;
+                continue;
+            }
+
+            int slot = (int) (hash ^ (hash >>> 32)) & mask;
+            // Se intenta primero continuar el clon de la ventana anterior
+            int previous = p > 0 && matchedWith[p - 1] != EMPTY
+                && equalWindows(snapshot, tokens, hashes, matchedWith[p - 1] + 1, p)
+                ? matchedWith[p - 1] + 1
+                : findEqual(snapshot, tokens, hashes, table[slot], chain, p);
+            if (previous != EMPTY) {
+                matchedWith[p] = previous;
+                coverage[p]++;
+                coverage[p + windowSize]--;
+                coverage[previous]++;
+                coverage[previous + windowSize]--;
+                int[] last = clones.isEmpty() ? null : clones.get(clones.size() - 1);
+                if (p > 0 && matchedWith[p - 1] == previous - 1 && last != null
+                        && last[0] + last[2] - windowSize == p - 1) {
+                    last[2]++;
+                } else {
+                    clones.add(new int[] {p, previous, windowSize});
+                }
+            }
+            chain[p] = table[slot];
+            table[slot] = p;
+        }
+
+        return new Result(duplicatedLines(snapshot, coverage, n), totalLines, toClones(snapshot, clones));
+    }
+
+    /**
+     * Ventana más antigua de las visitadas en la cadena (que va de la más reciente a la
+     * más antigua) con el mismo hash y los mismos tokens: el original del clon
+     */
+    private int findEqual(RepositorySnapshot snapshot, int[] tokens, long[] hashes, int head, int[] chain, int p) {
+        int checked = 0;
+        int match = EMPTY;
+        for (int q = head; q != EMPTY && checked < MAX_CHAIN; q = chain[q], checked++) {
+            if (equalWindows(snapshot, tokens, hashes, q, p)) {
+                match = q;
+            }
+        }
+        return match;
+    }
+
+    private boolean equalWindows(RepositorySnapshot snapshot, int[] tokens, long[] hashes, int q, int p) {
+        // Las ventanas solapadas consigo mismas (p. ej. secuencias repetitivas) no cuentan,
+        // ni un original que cruce dos ficheros al extender un clon
+        return q + windowSize <= p && hashes[q] == hashes[p]
+            && snapshot.fileIndexAt(q) == snapshot.fileIndexAt(q + windowSize - 1)
+            && Arrays.equals(tokens, q, q + windowSize, tokens, p, p + windowSize);
+    }
+
+    /**
+     * Líneas distintas (por fichero) que contienen algún token duplicado
+     */
+    private static int duplicatedLines(RepositorySnapshot snapshot, int[] coverage, int n) {
+        List<RepositorySnapshot.SourceFile> files = snapshot.getJavaFiles();
+        BitSet[] lines = new BitSet[files.size()];
+        int covered = 0;
+        for (int i = 0; i < n; i++) {
+            covered += coverage[i];
+            if (covered > 0) {
+                int file = snapshot.fileIndexAt(i);
+                if (lines[file] == null) {
+                    lines[file] = new BitSet(files.get(file).getLineCount() + 1);
+                }
+                lines[file].set(snapshot.lineAt(i));
+            }
+        }
+        int total = 0;
+        for (BitSet fileLines : lines) {
+            if (fileLines != null) {
+                total += fileLines.cardinality();
+            }
+        }
+        return total;
+    }
+
+    private static List<CodeClone> toClones(RepositorySnapshot snapshot, List<int[]> raw) {
+        List<CodeClone> clones = new ArrayList<>(raw.size());
+        for (int[] clone : raw) {
+            int start = clone[0];
+            int original = clone[1];
+            int length = clone[2];
+            CodeClone result = new CodeClone();
+            result.setFile(snapshot.fileAt(start).getPath());
+            result.setStartLine(snapshot.lineAt(start));
+            result.setEndLine(snapshot.lineAt(start + length - 1));
+            result.setOriginalFile(snapshot.fileAt(original).getPath());
+            result.setOriginalStartLine(snapshot.lineAt(original));
+            result.setOriginalEndLine(snapshot.lineAt(original + length - 1));
+            result.setTokens(length);
+            clones.add(result);
+        }
+        // Los clones más largos primero
+        clones.sort((a, b) -> Integer.compare(b.getTokens(), a.getTokens()));
+        return clones;
+    }
+
+    /**
+     * Líneas duplicadas sobre el total de líneas Java y los clones encontrados
+     */
+    static final class Result {
+        private final int duplicatedLines;
+        private final int totalLines;
+        private final List<CodeClone> clones;
+
+        Result(int duplicatedLines, int totalLines, List<CodeClone> clones) {
+            this.duplicatedLines = duplicatedLines;
+            this.totalLines = totalLines;
+            this.clones = clones;
+        }
+
+        int duplicatedLines() { return duplicatedLines; }
+        List<CodeClone> clones() { return clones; }
+
+        /**
+         * Porcentaje (0-100) de líneas Java que forman parte de algún clon
+         */
+        double percentage() {
+            return totalLines > 0 ? duplicatedLines * 100.0 / totalLines : 0.0;
+        }
+    }
+}
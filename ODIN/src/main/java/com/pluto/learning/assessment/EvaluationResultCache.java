@@ -0,0 +1,231 @@
+package com.pluto.learning.assessment;
+
+import com.pluto.learning.assessments.LabRepository;
+import com.pluto.learning.submissions.LabSubmission;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiFunction;
+import java.util.regex.Pattern;
+
+/**
+ * Resultados de evaluación direccionados por contenido.
+ *
+ * La clave es el SHA-256 de (repositorio normalizado, commit, laboratorio, fecha de
+ * modificación del laboratorio, versión de rúbrica, usuario): reenviar el mismo
+ * commit o relanzar una evaluación devuelve el resultado ya calculado. El usuario
+ * forma parte de la clave para que dos alumnos con el mismo repositorio no se
+ * salten la detección de plagio entre ellos. Solo se cachean commits explícitos
+ * (una rama puede moverse) y resultados completos (un timeout es transitorio).
+ *
+ * Las evaluaciones concurrentes de una misma clave se agrupan (single-flight): la
+ * primera evalúa y las demás esperan su resultado, recibiendo también los eventos
+ * de etapa.
+ */
+@Component
+public class EvaluationResultCache {
+
+    private static final Pattern COMMIT_HASH = Pattern.compile("[0-9a-fA-F]{7,64}");
+    private static final Pattern REPOSITORY_SUFFIX = Pattern.compile("(\\.git)?/*$");
+
+    private final LabRepository labRepository;
+    private final boolean enabled;
+    private final String rubricVersion;
+    private final int maxEntries;
+    private final long ttlMillis;
+    private final Map<String, Entry> results = new LinkedHashMap<>(256, 0.75f, true);
+    private final Map<String, Flight> flights = new ConcurrentHashMap<>();
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter coalesced;
+
+    public EvaluationResultCache(LabRepository labRepository,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${assessment.evaluation.cache.enabled:true}") boolean enabled,
+                                 @Value("${assessment.evaluation.cache.rubric-version:1}") String rubricVersion,
+                                 @Value("${assessment.evaluation.cache.max-entries:10000}") int maxEntries,
+                                 @Value("${assessment.evaluation.cache.ttl-minutes:1440}") long ttlMinutes) {
+        this.labRepository = labRepository;
+        this.enabled = enabled;
+        this.rubricVersion = rubricVersion;
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttlMinutes * 60_000L;
+        this.hits = counter(meterRegistry, "hit");
+        this.misses = counter(meterRegistry, "miss");
+        this.coalesced = counter(meterRegistry, "coalesced");
+    }
+
+    /**
+     * Resultado cacheado para la submission, el de una evaluación en curso de la
+     * misma clave, o el de {@code evaluator} si no hay ninguno
+     */
+    AssessmentResult getOrEvaluate(LabSubmission submission,
+                                   AdvancedAssessmentEngine.StageListener listener,
+                                   BiFunction<LabSubmission, AdvancedAssessmentEngine.StageListener, AssessmentResult> evaluator) {
+        String key = enabled ? key(submission) : null;
+        if (key == null) {
+            return evaluator.apply(submission, listener);
+        }
+        AssessmentResult cached = cached(key);
+        if (cached != null) {
+            hits.increment();
+            return cached.copyFor(submission);
+        }
+
+        Flight flight = new Flight();
+        Flight running = flights.putIfAbsent(key, flight);
+        if (running != null) {
+            coalesced.increment();
+            running.join(listener);
+            return await(running).copyFor(submission);
+        }
+        try {
+            // Otra evaluación pudo terminar entre la consulta y el registro del vuelo
+            cached = cached(key);
+            if (cached != null) {
+                hits.increment();
+                flight.result.complete(cached);
+                return cached.copyFor(submission);
+            }
+            misses.increment();
+            flight.join(listener);
+            AssessmentResult result = evaluator.apply(submission, flight);
+            if (!result.isPartial()) {
+                store(key, result);
+            }
+            flight.result.complete(result);
+            return result;
+        } catch (RuntimeException e) {
+            flight.result.completeExceptionally(e);
+            throw e;
+        } finally {
+            flights.remove(key, flight);
+        }
+    }
+
+    public synchronized int size() {
+        return results.size();
+    }
+
+    public synchronized void clear() {
+        results.clear();
+    }
+
+    /**
+     * Clave de la submission, o null si su resultado no es cacheable
+     */
+    String key(LabSubmission submission) {
+        String commit = submission.getCommitHash();
+        String repository = submission.getGithubRepoUrl();
+        if (commit == null || !COMMIT_HASH.matcher(commit).matches() || repository == null
+                || submission.getLab() == null || submission.getUser() == null) {
+            return null;
+        }
+        Long labId = submission.getLab().getId();
+        LocalDateTime labUpdatedAt = labRepository.findUpdatedAtById(labId).orElse(null);
+        String material = String.join("\n",
+            REPOSITORY_SUFFIX.matcher(repository.trim()).replaceAll("").toLowerCase(Locale.ROOT),
+            commit.toLowerCase(Locale.ROOT),
+            String.valueOf(labId),
+            String.valueOf(labUpdatedAt),
+            rubricVersion,
+            String.valueOf(submission.getUser().getId()));
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(material.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private synchronized AssessmentResult cached(String key) {
+        Entry entry = results.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (System.currentTimeMillis() - entry.storedAt > ttlMillis) {
+            results.remove(key);
+            return null;
+        }
+        return entry.result;
+    }
+
+    private synchronized void store(String key, AssessmentResult result) {
+        results.put(key, new Entry(result, System.currentTimeMillis()));
+        if (results.size() > maxEntries) {
+            results.remove(results.keySet().iterator().next());
+        }
+    }
+
+    private static AssessmentResult await(Flight flight) {
+        try {
+            return flight.result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("assessment.evaluation.cache")
+            .tag("result", result)
+            .description("Evaluaciones servidas desde la caché por commit, agrupadas o calculadas")
+            .register(meterRegistry);
+    }
+
+    private static final class Entry {
+        private final AssessmentResult result;
+        private final long storedAt;
+
+        Entry(AssessmentResult result, long storedAt) {
+            this.result = result;
+            this.storedAt = storedAt;
+        }
+    }
+
+    /**
+     * Evaluación en curso de una clave: reparte los eventos de etapa entre todos los
+     * que la esperan, reenviando los ya ocurridos a los que llegan tarde
+     */
+    private static final class Flight implements AdvancedAssessmentEngine.StageListener {
+        private final CompletableFuture<AssessmentResult> result = new CompletableFuture<>();
+        private final List<AdvancedAssessmentEngine.StageListener> listeners = new ArrayList<>();
+        private final List<Object[]> history = new ArrayList<>();
+
+        synchronized void join(AdvancedAssessmentEngine.StageListener listener) {
+            for (Object[] event : history) {
+                listener.stageCompleted((String) event[0], (Throwable) event[1]);
+            }
+            listeners.add(listener);
+        }
+
+        @Override
+        public synchronized void stageCompleted(String stage, Throwable error) {
+            history.add(new Object[] {stage, error});
+            for (AdvancedAssessmentEngine.StageListener listener : listeners) {
+                try {
+                    listener.stageCompleted(stage, error);
+                } catch (RuntimeException ignored) {
+                    // Cada listener es independiente
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,338 @@
+package com.pluto.learning.assessment;
+
+import com.pluto.learning.assessments.LabRepository;
+import com.pluto.learning.submissions.LabSubmission;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Planificador de evaluaciones delante del {@link AdvancedAssessmentEngine}.
+ *
+ * En lugar de una cola FIFO reparte los hilos evaluadores con colas justas ponderadas
+ * (start-time fair queueing) en dos niveles: entre laboratorios y, dentro de cada
+ * laboratorio, entre usuarios. Cada cola lleva un tiempo virtual que avanza 1/peso por
+ * evaluación despachada y siempre se despacha la de menor tiempo virtual, así que un
+ * alumno con 30 intentos o una cohorte grande solo consume su parte.
+ *
+ * El peso de un laboratorio crece a medida que se acerca su fecha límite (dentro de
+ * {@code deadline-horizon-hours}), y un usuario no tiene más de
+ * {@code max-concurrent-per-user} evaluaciones a la vez: sus envíos restantes esperan
+ * sin bloquear a los demás.
+ *
+ * El número de evaluaciones simultáneas no es fijo: lo ajusta un
+ * {@link AdaptiveConcurrencyLimit} entre {@code min-concurrency} y
+ * {@code max-concurrency} según la latencia observada de las evaluaciones.
+ */
+@Component
+public class FairEvaluationScheduler {
+
+    static final String CLASS_DEADLINE = "deadline";
+    static final String CLASS_REGULAR = "regular";
+
+    private final LabRepository labRepository;
+    private final Clock clock;
+    private final int queueCapacity;
+    private final int maxConcurrentPerUser;
+    private final Duration deadlineHorizon;
+    private final double deadlineBoost;
+    private final AdaptiveConcurrencyLimit limit;
+    private final Counter rejected;
+    private final List<Thread> workers = new ArrayList<>();
+    private final Map<String, Timer> waitTimers = new HashMap<>();
+
+    // Estado protegido por el monitor de this
+    private final Map<Long, LabQueue> labs = new LinkedHashMap<>();
+    private final Map<Long, Integer> runningByUser = new HashMap<>();
+    private double virtualTime;
+    private int queued;
+    private int running;
+    private boolean stopped;
+
+    public FairEvaluationScheduler(LabRepository labRepository,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${assessment.scheduler.initial-concurrency:4}") int initialConcurrency,
+                                   @Value("${assessment.scheduler.min-concurrency:1}") int minConcurrency,
+                                   @Value("${assessment.scheduler.max-concurrency:16}") int maxConcurrency,
+                                   @Value("${assessment.scheduler.latency-tolerance:1.5}") double latencyTolerance,
+                                   @Value("${assessment.scheduler.queue-capacity:200}") int queueCapacity,
+                                   @Value("${assessment.scheduler.max-concurrent-per-user:2}") int maxConcurrentPerUser,
+                                   @Value("${assessment.scheduler.deadline-horizon-hours:24}") long deadlineHorizonHours,
+                                   @Value("${assessment.scheduler.deadline-boost:3.0}") double deadlineBoost) {
+        this(labRepository, meterRegistry, Clock.systemDefaultZone(),
+            new AdaptiveConcurrencyLimit(initialConcurrency, minConcurrency, maxConcurrency, latencyTolerance),
+            queueCapacity, maxConcurrentPerUser,
+            Duration.ofHours(deadlineHorizonHours), deadlineBoost);
+    }
+
+    FairEvaluationScheduler(LabRepository labRepository, MeterRegistry meterRegistry, Clock clock,
+                            AdaptiveConcurrencyLimit limit, int queueCapacity, int maxConcurrentPerUser,
+                            Duration deadlineHorizon, double deadlineBoost) {
+        if (queueCapacity < 1 || maxConcurrentPerUser < 1
+                || deadlineHorizon.isNegative() || deadlineBoost < 0) {
+            throw new IllegalArgumentException("La configuración de assessment.scheduler debe ser positiva");
+        }
+        this.labRepository = labRepository;
+        this.clock = clock;
+        this.queueCapacity = queueCapacity;
+        this.maxConcurrentPerUser = maxConcurrentPerUser;
+        this.deadlineHorizon = deadlineHorizon;
+        this.deadlineBoost = deadlineBoost;
+        this.limit = limit;
+
+        for (String priorityClass : List.of(CLASS_DEADLINE, CLASS_REGULAR)) {
+            waitTimers.put(priorityClass, Timer.builder("assessment.scheduler.wait")
+                .tag("class", priorityClass)
+                .description("Tiempo en cola hasta empezar la evaluación")
+                .publishPercentileHistogram()
+                .register(meterRegistry));
+        }
+        Gauge.builder("assessment.scheduler.queue.depth", this, FairEvaluationScheduler::queued)
+            .description("Evaluaciones esperando en el planificador")
+            .register(meterRegistry);
+        Gauge.builder("assessment.scheduler.active", this, FairEvaluationScheduler::running)
+            .description("Evaluaciones en curso")
+            .register(meterRegistry);
+        Gauge.builder("assessment.scheduler.concurrency.limit", limit, AdaptiveConcurrencyLimit::limit)
+            .description("Límite actual de evaluaciones simultáneas")
+            .register(meterRegistry);
+        this.rejected = Counter.builder("assessment.scheduler.rejected")
+            .description("Evaluaciones rechazadas con el planificador lleno o detenido")
+            .register(meterRegistry);
+
+        // Un hilo por evaluación posible; el límite decide cuántos trabajan a la vez
+        for (int i = 1; i <= limit.maxLimit(); i++) {
+            Thread thread = new Thread(this::work, "evaluation-scheduler-" + i);
+            thread.setDaemon(true);
+            thread.start();
+            this.workers.add(thread);
+        }
+    }
+
+    /**
+     * Encola una tarea de evaluación de la submission en la cola de su (laboratorio, usuario)
+     *
+     * @throws RejectedExecutionException si el planificador está lleno o detenido
+     */
+    public void execute(LabSubmission submission, Runnable task) {
+        Long labId = submission.getLab() != null ? submission.getLab().getId() : null;
+        Long userId = submission.getUser() != null ? submission.getUser().getId() : null;
+
+        // La fecha límite se consulta solo al crear la cola del laboratorio
+        boolean known;
+        synchronized (this) {
+            known = labs.containsKey(labId);
+        }
+        LocalDateTime deadline = known || labId == null ? null
+            : labRepository.findDeadlineById(labId).orElse(null);
+
+        synchronized (this) {
+            if (stopped) {
+                rejected.increment();
+                throw new RejectedExecutionException("El planificador de evaluaciones está detenido");
+            }
+            if (queued >= queueCapacity) {
+                rejected.increment();
+                throw new RejectedExecutionException("Cola de evaluaciones llena (" + queueCapacity + ")");
+            }
+            LabQueue lab = labs.computeIfAbsent(labId, id -> new LabQueue(virtualTime, deadline));
+            UserQueue user = lab.users.computeIfAbsent(userId, id -> new UserQueue(lab.userVirtualTime));
+            String priorityClass = urgency(lab.deadline, LocalDateTime.now(clock)) > 0 ? CLASS_DEADLINE : CLASS_REGULAR;
+            user.tasks.add(new Task(task, userId, priorityClass, System.nanoTime()));
+            queued++;
+            notifyAll();
+        }
+    }
+
+    /**
+     * Evaluaciones esperando un hilo libre
+     */
+    public synchronized int queued() {
+        return queued;
+    }
+
+    public synchronized int running() {
+        return running;
+    }
+
+    private void work() {
+        while (true) {
+            Task task;
+            try {
+                task = next();
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (task == null) {
+                return;
+            }
+            long started = System.nanoTime();
+            waitTimers.get(task.priorityClass).record(started - task.enqueuedNanos, TimeUnit.NANOSECONDS);
+            try {
+                task.runnable.run();
+            } catch (RuntimeException e) {
+                // Las tareas gestionan sus propios errores; un fallo no debe matar el hilo
+            } finally {
+                finished(task, System.nanoTime() - started);
+            }
+        }
+    }
+
+    /**
+     * Espera hasta que haya una tarea despachable y la saca de su cola
+     */
+    private synchronized Task next() throws InterruptedException {
+        while (!stopped) {
+            Task task = dispatch(LocalDateTime.now(clock));
+            if (task != null) {
+                return task;
+            }
+            wait();
+        }
+        return null;
+    }
+
+    private Task dispatch(LocalDateTime now) {
+        if (running >= limit.limit()) {
+            return null;
+        }
+        LabQueue selectedLab = null;
+        UserQueue selectedUser = null;
+        for (LabQueue lab : labs.values()) {
+            if (selectedLab != null && lab.virtualTime >= selectedLab.virtualTime) {
+                continue;
+            }
+            UserQueue user = eligibleUser(lab);
+            if (user != null) {
+                selectedLab = lab;
+                selectedUser = user;
+            }
+        }
+        if (selectedUser == null) {
+            return null;
+        }
+
+        Task task = selectedUser.tasks.poll();
+        virtualTime = Math.max(virtualTime, selectedLab.virtualTime);
+        selectedLab.virtualTime += 1.0 / weight(selectedLab.deadline, now);
+        selectedLab.userVirtualTime = Math.max(selectedLab.userVirtualTime, selectedUser.virtualTime);
+        selectedUser.virtualTime += 1.0;
+
+        // Las colas vacías se descartan: al volver empiezan en el tiempo virtual actual
+        // y no acumulan crédito por el tiempo que estuvieron inactivas
+        if (selectedUser.tasks.isEmpty()) {
+            selectedLab.users.values().remove(selectedUser);
+        }
+        if (selectedLab.users.isEmpty()) {
+            labs.values().remove(selectedLab);
+        }
+
+        queued--;
+        running++;
+        runningByUser.merge(task.userId, 1, Integer::sum);
+        return task;
+    }
+
+    /**
+     * Usuario del laboratorio con menor tiempo virtual que no ha alcanzado su límite
+     */
+    private UserQueue eligibleUser(LabQueue lab) {
+        UserQueue selected = null;
+        for (Map.Entry<Long, UserQueue> entry : lab.users.entrySet()) {
+            UserQueue user = entry.getValue();
+            boolean limited = entry.getKey() != null
+                && runningByUser.getOrDefault(entry.getKey(), 0) >= maxConcurrentPerUser;
+            if (!limited && (selected == null || user.virtualTime < selected.virtualTime)) {
+                selected = user;
+            }
+        }
+        return selected;
+    }
+
+    private synchronized void finished(Task task, long latencyNanos) {
+        limit.onSample(latencyNanos, running);
+        running--;
+        runningByUser.computeIfPresent(task.userId, (id, count) -> count > 1 ? count - 1 : null);
+        notifyAll();
+    }
+
+    /**
+     * Peso del laboratorio: 1 fuera del horizonte de la fecha límite, hasta
+     * 1 + deadline-boost justo antes de ella
+     */
+    double weight(LocalDateTime deadline, LocalDateTime now) {
+        return 1.0 + deadlineBoost * urgency(deadline, now);
+    }
+
+    /**
+     * Cercanía (0-1) a la fecha límite dentro del horizonte; 0 sin fecha o ya vencida
+     */
+    private double urgency(LocalDateTime deadline, LocalDateTime now) {
+        if (deadline == null || !now.isBefore(deadline) || deadlineHorizon.isZero()) {
+            return 0.0;
+        }
+        double remaining = Duration.between(now, deadline).toMillis();
+        return Math.max(0.0, 1.0 - remaining / deadlineHorizon.toMillis());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        synchronized (this) {
+            stopped = true;
+            notifyAll();
+        }
+        workers.forEach(Thread::interrupt);
+    }
+
+    private static final class LabQueue {
+        private final LocalDateTime deadline;
+        private final Map<Long, UserQueue> users = new LinkedHashMap<>();
+        private double virtualTime;
+        // Tiempo virtual de partida para los usuarios que se incorporan
+        private double userVirtualTime;
+
+        LabQueue(double virtualTime, LocalDateTime deadline) {
+            this.virtualTime = virtualTime;
+            this.deadline = deadline;
+        }
+    }
+
+    private static final class UserQueue {
+        private final ArrayDeque<Task> tasks = new ArrayDeque<>();
+        private double virtualTime;
+
+        UserQueue(double virtualTime) {
+            this.virtualTime = virtualTime;
+        }
+    }
+
+    private static final class Task {
+        private final Runnable runnable;
+        private final Long userId;
+        private final String priorityClass;
+        private final long enqueuedNanos;
+
+        Task(Runnable runnable, Long userId, String priorityClass, long enqueuedNanos) {
+            this.runnable = runnable;
+            this.userId = userId;
+            this.priorityClass = priorityClass;
+            this.enqueuedNanos = enqueuedNanos;
+        }
+    }
+}
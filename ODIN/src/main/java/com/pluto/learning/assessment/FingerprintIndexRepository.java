@@ -0,0 +1,133 @@
+package com.pluto.learning.assessment;
+
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Índice invertido persistente de huellas winnowing (fingerprint -> submissions).
+ *
+ * Las consultas recorren solo las huellas de la submission analizada, por lo que
+ * su coste depende del tamaño de la submission y no del histórico del laboratorio.
+ */
+@Repository
+public class FingerprintIndexRepository {
+
+    private static final int QUERY_CHUNK_SIZE = 1000;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public FingerprintIndexRepository(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Reemplaza las huellas indexadas de una submission. Borrado e inserción van en
+     * la misma transacción: si la inserción falla se conservan las huellas anteriores
+     * y las consultas concurrentes nunca ven la submission sin huellas.
+     */
+    @Transactional
+    public void index(long submissionId, long labId, long userId, long[] fingerprints) {
+        jdbcTemplate.update(
+            "DELETE FROM submission_fingerprints WHERE submission_id = :submissionId",
+            Map.of("submissionId", submissionId));
+
+        MapSqlParameterSource[] batch = new MapSqlParameterSource[fingerprints.length];
+        for (int i = 0; i < fingerprints.length; i++) {
+            batch[i] = new MapSqlParameterSource()
+                .addValue("fingerprint", fingerprints[i])
+                .addValue("submissionId", submissionId)
+                .addValue("labId", labId)
+                .addValue("userId", userId);
+        }
+        jdbcTemplate.batchUpdate(
+            "INSERT INTO submission_fingerprints (fingerprint, submission_id, lab_id, user_id) " +
+            "VALUES (:fingerprint, :submissionId, :labId, :userId)", batch);
+    }
+
+    /**
+     * Busca submissions del laboratorio (de otros usuarios) que comparten huellas,
+     * ordenadas por número de huellas compartidas descendente
+     */
+    public List<FingerprintCandidate> findCandidates(long labId, long userId, long[] fingerprints, int limit) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+            .addValue("labId", labId)
+            .addValue("userId", userId);
+
+        return countShared(
+            "SELECT submission_id, COUNT(*) AS shared FROM submission_fingerprints " +
+            "WHERE lab_id = :labId AND user_id <> :userId AND fingerprint IN (:fingerprints) " +
+            "GROUP BY submission_id",
+            params, fingerprints, limit);
+    }
+
+    /**
+     * Comparación exacta contra un conjunto reducido de submissions candidatas
+     * (p. ej. las preseleccionadas por LSH en otras cohortes)
+     */
+    public List<FingerprintCandidate> compareWith(Collection<Long> submissionIds, long[] fingerprints) {
+        if (submissionIds.isEmpty()) {
+            return List.of();
+        }
+        MapSqlParameterSource params = new MapSqlParameterSource()
+            .addValue("submissionIds", submissionIds);
+
+        return countShared(
+            "SELECT submission_id, COUNT(*) AS shared FROM submission_fingerprints " +
+            "WHERE submission_id IN (:submissionIds) AND fingerprint IN (:fingerprints) " +
+            "GROUP BY submission_id",
+            params, fingerprints, submissionIds.size());
+    }
+
+    private List<FingerprintCandidate> countShared(String sql, MapSqlParameterSource params,
+                                                   long[] fingerprints, int limit) {
+        Map<Long, Integer> sharedBySubmission = new HashMap<>();
+
+        for (int from = 0; from < fingerprints.length; from += QUERY_CHUNK_SIZE) {
+            int to = Math.min(fingerprints.length, from + QUERY_CHUNK_SIZE);
+            List<Long> chunk = new ArrayList<>(to - from);
+            for (int i = from; i < to; i++) {
+                chunk.add(fingerprints[i]);
+            }
+            params.addValue("fingerprints", chunk);
+
+            jdbcTemplate.query(sql, params, rs -> {
+                sharedBySubmission.merge(rs.getLong("submission_id"), rs.getInt("shared"), Integer::sum);
+            });
+        }
+
+        List<FingerprintCandidate> candidates = new ArrayList<>(sharedBySubmission.size());
+        sharedBySubmission.forEach((submissionId, shared) -> candidates.add(
+            new FingerprintCandidate(submissionId, shared, (double) shared / fingerprints.length)));
+        candidates.sort(Comparator.comparingInt(FingerprintCandidate::getSharedFingerprints).reversed());
+
+        return candidates.size() > limit ? candidates.subList(0, limit) : candidates;
+    }
+}
+
+/**
+ * Submission previa que comparte huellas con la analizada
+ */
+class FingerprintCandidate {
+    private final long submissionId;
+    private final int sharedFingerprints;
+    private final double similarity;
+
+    FingerprintCandidate(long submissionId, int sharedFingerprints, double similarity) {
+        this.submissionId = submissionId;
+        this.sharedFingerprints = sharedFingerprints;
+        this.similarity = similarity;
+    }
+
+    public long getSubmissionId() { return submissionId; }
+    public int getSharedFingerprints() { return sharedFingerprints; }
+    public double getSimilarity() { return similarity; }
+}
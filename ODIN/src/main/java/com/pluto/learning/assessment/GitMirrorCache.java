@@ -0,0 +1,382 @@
+package com.pluto.learning.assessment;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Caché local de repositorios git de las submissions.
+ *
+ * Cada {@code githubRepoUrl} tiene un mirror bare ({@code git clone --mirror}) que
+ * se actualiza con un fetch incremental solo cuando el commit pedido no está aún en
+ * él; cada commit se materializa como un worktree separado que comparte los
+ * packfiles del mirror. Como los alumnos envían varios intentos del mismo
+ * repositorio, a partir del segundo intento solo se descargan los objetos nuevos.
+ *
+ * El tamaño total en disco está acotado: al superarse se eliminan primero los
+ * worktrees y después los mirrors menos usados recientemente, salvo los que estén
+ * leyéndose en ese momento.
+ *
+ * Las URLs las escribe el alumno, así que solo se aceptan repositorios {@code https://}
+ * ({@code file://} únicamente si {@code assessment.git.allow-file-urls} está activo, para
+ * los tests), la URL va siempre tras {@code --} y cada llamada a git restringe los
+ * protocolos de transporte con {@code protocol.allow}.
+ */
+@Component
+public class GitMirrorCache {
+
+    private static final Pattern COMMIT_HASH = Pattern.compile("[0-9a-fA-F]{7,40}");
+
+    private final Path mirrorsDir;
+    private final Path worktreesDir;
+    private final long maxCacheBytes;
+    private final long timeoutSeconds;
+    private final boolean allowFileUrls;
+
+    private final Map<String, ReentrantLock> locks = new ConcurrentHashMap<>();
+    // Entradas de la caché (mirror o worktree) -> tamaño en bytes, en orden de acceso
+    private final LinkedHashMap<Path, Long> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<Path, Integer> leases = new HashMap<>();
+    private long totalBytes;
+
+    public GitMirrorCache(@Value("${assessment.git.cache-dir:${java.io.tmpdir}/odin-git-cache}") String cacheDir,
+                          @Value("${assessment.git.max-cache-bytes:10737418240}") long maxCacheBytes,
+                          @Value("${assessment.git.timeout-seconds:300}") long timeoutSeconds,
+                          @Value("${assessment.git.allow-file-urls:false}") boolean allowFileUrls) {
+        this.mirrorsDir = Path.of(cacheDir, "mirrors");
+        this.worktreesDir = Path.of(cacheDir, "worktrees");
+        this.maxCacheBytes = maxCacheBytes;
+        this.timeoutSeconds = timeoutSeconds;
+        this.allowFileUrls = allowFileUrls;
+        loadExistingEntries();
+    }
+
+    /**
+     * Materializa el commit del repositorio (o la cabeza de la rama por defecto si
+     * {@code commitHash} es null) y ejecuta {@code reader} sobre su directorio. El
+     * worktree no se desaloja mientras {@code reader} se está ejecutando.
+     */
+    public <T> T withCheckout(String repositoryUrl, String commitHash, Function<Path, T> reader) {
+        if (commitHash != null && !COMMIT_HASH.matcher(commitHash).matches()) {
+            throw new IllegalArgumentException("Commit hash inválido: " + commitHash);
+        }
+        validateUrl(repositoryUrl);
+        Path worktree = checkout(repositoryUrl, commitHash);
+        try {
+            return reader.apply(worktree);
+        } finally {
+            release(worktree);
+        }
+    }
+
+    /**
+     * Bytes ocupados actualmente por la caché
+     */
+    public synchronized long size() {
+        return totalBytes;
+    }
+
+    /**
+     * Rechaza URLs que no sean https (o file, si está permitido), incluidas las que
+     * git interpretaría como opciones o rutas locales
+     */
+    void validateUrl(String repositoryUrl) {
+        if (repositoryUrl == null || repositoryUrl.isBlank()) {
+            throw new IllegalArgumentException("Repository URL is required");
+        }
+        URI uri;
+        try {
+            uri = new URI(repositoryUrl);
+        } catch (URISyntaxException e) {
+            throw new IllegalArgumentException("Invalid repository URL: " + repositoryUrl, e);
+        }
+        String scheme = uri.getScheme() != null ? uri.getScheme().toLowerCase(Locale.ROOT) : "";
+        boolean valid = switch (scheme) {
+            case "https" -> uri.getHost() != null;
+            case "file" -> allowFileUrls;
+            default -> false;
+        };
+        if (!valid) {
+            throw new IllegalArgumentException("Only https repository URLs are accepted: " + repositoryUrl);
+        }
+    }
+
+    private Path checkout(String repositoryUrl, String commitHash) {
+        String key = hash(repositoryUrl);
+        Path mirror = mirrorsDir.resolve(key + ".git");
+        ReentrantLock lock = locks.computeIfAbsent(key, k -> new ReentrantLock());
+
+        lock.lock();
+        // El mirror no se desaloja mientras se usa, aunque aún no tenga worktrees
+        lease(mirror);
+        try {
+            boolean fetched = false;
+            if (!Files.isDirectory(mirror)) {
+                Files.createDirectories(mirrorsDir);
+                git(null, "clone", "--mirror", "--quiet", "--", repositoryUrl, mirror.toString());
+                fetched = true;
+            } else if (commitHash == null || !hasCommit(mirror, commitHash)) {
+                git(mirror, "fetch", "--prune", "--quiet", "origin");
+                fetched = true;
+            }
+
+            String commit = git(mirror, "rev-parse", "--verify", "--quiet",
+                (commitHash != null ? commitHash : "HEAD") + "^{commit}").trim();
+            if (commit.isEmpty()) {
+                throw new IllegalStateException("El commit " + commitHash + " no existe en " + repositoryUrl);
+            }
+
+            Path worktree = worktreesDir.resolve(key).resolve(commit);
+            if (!acquire(worktree)) {
+                delete(worktree);
+                Files.createDirectories(worktree.getParent());
+                git(mirror, "worktree", "prune");
+                git(mirror, "worktree", "add", "--detach", "--quiet", worktree.toString(), commit);
+                lease(worktree);
+                track(worktree);
+            }
+            if (fetched) {
+                track(mirror);
+            } else {
+                touch(mirror);
+            }
+            evict();
+            return worktree;
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo preparar el repositorio " + repositoryUrl, e);
+        } finally {
+            release(mirror);
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Reserva un worktree ya materializado; false si hay que crearlo
+     */
+    private synchronized boolean acquire(Path worktree) {
+        if (entries.get(worktree) == null || !Files.isDirectory(worktree)) {
+            return false;
+        }
+        lease(worktree);
+        return true;
+    }
+
+    private boolean hasCommit(Path mirror, String commitHash) throws IOException {
+        return run(mirror, List.of("cat-file", "-e", commitHash + "^{commit}")).exitCode == 0;
+    }
+
+    private synchronized void lease(Path worktree) {
+        leases.merge(worktree, 1, Integer::sum);
+    }
+
+    private synchronized void release(Path worktree) {
+        leases.computeIfPresent(worktree, (path, count) -> count > 1 ? count - 1 : null);
+    }
+
+    private synchronized void track(Path path) throws IOException {
+        long size = directorySize(path);
+        Long previous = entries.put(path, size);
+        totalBytes += size - (previous != null ? previous : 0L);
+    }
+
+    private synchronized void touch(Path path) {
+        entries.get(path);
+    }
+
+    /**
+     * Desaloja entradas LRU hasta volver por debajo del límite: primero worktrees y
+     * después mirrors sin worktrees
+     */
+    private synchronized void evict() throws IOException {
+        if (totalBytes <= maxCacheBytes) {
+            return;
+        }
+        for (boolean mirrors : new boolean[] {false, true}) {
+            Iterator<Map.Entry<Path, Long>> iterator = entries.entrySet().iterator();
+            while (totalBytes > maxCacheBytes && iterator.hasNext()) {
+                Map.Entry<Path, Long> entry = iterator.next();
+                Path path = entry.getKey();
+                if (isMirror(path) != mirrors || leases.containsKey(path) || (mirrors && hasWorktrees(path))) {
+                    continue;
+                }
+                iterator.remove();
+                totalBytes -= entry.getValue();
+                delete(path);
+                if (!mirrors) {
+                    Path mirror = mirrorsDir.resolve(path.getParent().getFileName() + ".git");
+                    if (Files.isDirectory(mirror)) {
+                        run(mirror, List.of("worktree", "prune"));
+                    }
+                }
+            }
+        }
+    }
+
+    private boolean isMirror(Path path) {
+        return path.startsWith(mirrorsDir);
+    }
+
+    private boolean hasWorktrees(Path mirror) throws IOException {
+        String name = mirror.getFileName().toString();
+        Path worktrees = worktreesDir.resolve(name.substring(0, name.length() - ".git".length()));
+        if (!Files.isDirectory(worktrees)) {
+            return false;
+        }
+        try (Stream<Path> children = Files.list(worktrees)) {
+            return children.findAny().isPresent();
+        }
+    }
+
+    /**
+     * Registra lo que ya había en disco, ordenado por última modificación
+     */
+    private void loadExistingEntries() {
+        try {
+            List<Path> found = new ArrayList<>();
+            if (Files.isDirectory(mirrorsDir)) {
+                try (Stream<Path> mirrors = Files.list(mirrorsDir)) {
+                    mirrors.filter(Files::isDirectory).forEach(found::add);
+                }
+            }
+            if (Files.isDirectory(worktreesDir)) {
+                try (Stream<Path> repositories = Files.list(worktreesDir)) {
+                    for (Path repository : repositories.filter(Files::isDirectory).toList()) {
+                        try (Stream<Path> commits = Files.list(repository)) {
+                            commits.filter(Files::isDirectory).forEach(found::add);
+                        }
+                    }
+                }
+            }
+            found.sort(Comparator.comparingLong(path -> path.toFile().lastModified()));
+            for (Path path : found) {
+                track(path);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo leer la caché de repositorios", e);
+        }
+    }
+
+    private String git(Path directory, String... args) throws IOException {
+        GitResult result = run(directory, List.of(args));
+        if (result.exitCode != 0 && !(args[0].equals("rev-parse") && result.exitCode == 1)) {
+            throw new IllegalStateException("git " + args[0] + " falló (" + result.exitCode + "): " + result.output.trim());
+        }
+        return result.output;
+    }
+
+    private GitResult run(Path directory, List<String> args) throws IOException {
+        List<String> command = new ArrayList<>();
+        command.add("git");
+        // Solo los transportes permitidos, también para submódulos y redirecciones
+        command.add("-c");
+        command.add("protocol.allow=never");
+        command.add("-c");
+        command.add("protocol.https.allow=always");
+        if (allowFileUrls) {
+            command.add("-c");
+            command.add("protocol.file.allow=always");
+        }
+        if (directory != null) {
+            command.add("-C");
+            command.add(directory.toString());
+        }
+        command.addAll(args);
+
+        // La salida va a un fichero para que el timeout se aplique aunque git no cierre stdout
+        Path output = Files.createTempFile("odin-git", ".log");
+        ProcessBuilder builder = new ProcessBuilder(command)
+            .redirectErrorStream(true)
+            .redirectOutput(output.toFile());
+        // Nunca pedir credenciales de forma interactiva
+        builder.environment().put("GIT_TERMINAL_PROMPT", "0");
+        builder.environment().put("GIT_ALLOW_PROTOCOL", allowFileUrls ? "https:file" : "https");
+        Process process = builder.start();
+        try {
+            if (!process.waitFor(timeoutSeconds, TimeUnit.SECONDS)) {
+                destroyTree(process);
+                throw new IllegalStateException("git " + args.get(0) + " superó " + timeoutSeconds + " s");
+            }
+            return new GitResult(process.exitValue(), new String(Files.readAllBytes(output), StandardCharsets.UTF_8));
+        } catch (InterruptedException e) {
+            destroyTree(process);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("git " + args.get(0) + " interrumpido", e);
+        } finally {
+            Files.deleteIfExists(output);
+        }
+    }
+
+    // git lanza procesos hijo (remote-https, index-pack) que también hay que parar
+    private static void destroyTree(Process process) {
+        process.descendants().forEach(ProcessHandle::destroyForcibly);
+        process.destroyForcibly();
+    }
+
+    private static long directorySize(Path directory) throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            return files.mapToLong(path -> {
+                try {
+                    BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+                    return attributes.isRegularFile() ? attributes.size() : 0L;
+                } catch (IOException e) {
+                    return 0L;
+                }
+            }).sum();
+        }
+    }
+
+    private static void delete(Path directory) throws IOException {
+        if (!Files.exists(directory)) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path path : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    private static String hash(String repositoryUrl) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(repositoryUrl.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest, 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static final class GitResult {
+        private final int exitCode;
+        private final String output;
+
+        GitResult(int exitCode, String output) {
+            this.exitCode = exitCode;
+            this.output = output;
+        }
+    }
+}
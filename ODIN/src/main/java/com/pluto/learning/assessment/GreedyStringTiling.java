@@ -0,0 +1,211 @@
+package com.pluto.learning.assessment;
+
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Greedy String Tiling con Karp-Rabin (RKR-GST, estilo JPlag) sobre flujos de tokens.
+ *
+ * Busca coincidencias máximas no solapadas entre dos secuencias empezando por una
+ * longitud de búsqueda grande que se reduce a la mitad en cada iteración hasta
+ * {@code minimumMatchLength}. Cada iteración indexa por hash las ventanas libres de
+ * una secuencia y recorre la otra, por lo que en entradas típicas el coste es
+ * prácticamente lineal. Las secuencias se leen como {@link IntBuffer} para poder
+ * comparar directamente contra los tokens mapeados del corpus en disco.
+ */
+final class GreedyStringTiling {
+
+    static final int DEFAULT_MINIMUM_MATCH_LENGTH = 9;
+    private static final int INITIAL_SEARCH_LENGTH = 32;
+    private static final long BASE = 1_000_003L;
+    private static final int EMPTY = -1;
+
+    private final int minimumMatchLength;
+
+    GreedyStringTiling() {
+        this(DEFAULT_MINIMUM_MATCH_LENGTH);
+    }
+
+    GreedyStringTiling(int minimumMatchLength) {
+        if (minimumMatchLength < 1) {
+            throw new IllegalArgumentException("minimumMatchLength debe ser positivo");
+        }
+        this.minimumMatchLength = minimumMatchLength;
+    }
+
+    /**
+     * Calcula los tiles entre {@code a[0, lengthA)} y {@code b[0, lengthB)},
+     * ordenados por longitud descendente
+     */
+    List<Tile> compare(int[] a, int lengthA, int[] b, int lengthB) {
+        return compare(IntBuffer.wrap(a, 0, lengthA).slice(), IntBuffer.wrap(b, 0, lengthB).slice());
+    }
+
+    /**
+     * Igual que {@link #compare(int[], int, int[], int)} sobre {@code a[0, a.limit())}
+     * y {@code b[0, b.limit())}, con acceso absoluto (no modifica las posiciones)
+     */
+    List<Tile> compare(IntBuffer a, IntBuffer b) {
+        int lengthA = a.limit();
+        int lengthB = b.limit();
+        List<Tile> tiles = new ArrayList<>();
+        if (lengthA < minimumMatchLength || lengthB < minimumMatchLength) {
+            return tiles;
+        }
+
+        boolean[] markedA = new boolean[lengthA];
+        boolean[] markedB = new boolean[lengthB];
+        int searchLength = Math.max(minimumMatchLength, Math.min(INITIAL_SEARCH_LENGTH, Math.min(lengthA, lengthB)));
+
+        while (true) {
+            List<Tile> matches = new ArrayList<>();
+            int longest = scanPatterns(a, lengthA, markedA, b, lengthB, markedB, searchLength, matches);
+
+            if (longest > 2 * searchLength) {
+                // Hay coincidencias mucho más largas: repetir con una ventana mayor
+                searchLength = longest;
+                continue;
+            }
+
+            markStrings(matches, markedA, markedB, tiles);
+
+            if (searchLength > 2 * minimumMatchLength) {
+                searchLength /= 2;
+            } else if (searchLength > minimumMatchLength) {
+                searchLength = minimumMatchLength;
+            } else {
+                break;
+            }
+        }
+
+        tiles.sort((x, y) -> Integer.compare(y.getLength(), x.getLength()));
+        return tiles;
+    }
+
+    /**
+     * Busca coincidencias de al menos {@code s} tokens no marcados y las extiende al máximo
+     */
+    private int scanPatterns(IntBuffer a, int lengthA, boolean[] markedA,
+                             IntBuffer b, int lengthB, boolean[] markedB,
+                             int s, List<Tile> matches) {
+        int windowsB = lengthB - s + 1;
+        if (windowsB <= 0 || lengthA < s) {
+            return 0;
+        }
+
+        long power = 1;
+        for (int i = 1; i < s; i++) {
+            power *= BASE;
+        }
+
+        // Tabla hash de ventanas libres de b: cabeza por bucket y lista enlazada por posición
+        int capacity = Integer.highestOneBit(Math.max(16, windowsB * 2 - 1)) << 1;
+        long[] keys = new long[capacity];
+        int[] heads = new int[capacity];
+        Arrays.fill(heads, EMPTY);
+        int[] next = new int[windowsB];
+
+        long hash = 0;
+        int freeRun = 0;
+        for (int j = 0; j < lengthB; j++) {
+            hash = j < s ? hash * BASE + b.get(j) : (hash - b.get(j - s) * power) * BASE + b.get(j);
+            freeRun = markedB[j] ? 0 : freeRun + 1;
+            if (j >= s - 1 && freeRun >= s) {
+                int start = j - s + 1;
+                int bucket = bucketFor(keys, heads, hash);
+                keys[bucket] = hash;
+                next[start] = heads[bucket];
+                heads[bucket] = start;
+            }
+        }
+
+        int longest = 0;
+        hash = 0;
+        freeRun = 0;
+        for (int i = 0; i < lengthA; i++) {
+            hash = i < s ? hash * BASE + a.get(i) : (hash - a.get(i - s) * power) * BASE + a.get(i);
+            freeRun = markedA[i] ? 0 : freeRun + 1;
+            if (i < s - 1 || freeRun < s) {
+                continue;
+            }
+            int startA = i - s + 1;
+            int bucket = bucketFor(keys, heads, hash);
+            for (int startB = heads[bucket]; startB != EMPTY; startB = next[startB]) {
+                int length = 0;
+                while (startA + length < lengthA && startB + length < lengthB
+                        && a.get(startA + length) == b.get(startB + length)
+                        && !markedA[startA + length] && !markedB[startB + length]) {
+                    length++;
+                }
+                if (length >= s) {
+                    matches.add(new Tile(startA, startB, length));
+                    if (length > longest) {
+                        longest = length;
+                    }
+                    if (longest > 2 * s) {
+                        return longest;
+                    }
+                }
+            }
+        }
+        return longest;
+    }
+
+    /**
+     * Convierte en tiles las coincidencias no ocluidas, de la más larga a la más corta
+     */
+    private void markStrings(List<Tile> matches, boolean[] markedA, boolean[] markedB, List<Tile> tiles) {
+        matches.sort((x, y) -> Integer.compare(y.getLength(), x.getLength()));
+        for (Tile match : matches) {
+            if (isOccluded(match, markedA, markedB)) {
+                continue;
+            }
+            for (int k = 0; k < match.getLength(); k++) {
+                markedA[match.getStartA() + k] = true;
+                markedB[match.getStartB() + k] = true;
+            }
+            if (match.getLength() >= minimumMatchLength) {
+                tiles.add(match);
+            }
+        }
+    }
+
+    private boolean isOccluded(Tile match, boolean[] markedA, boolean[] markedB) {
+        for (int k = 0; k < match.getLength(); k++) {
+            if (markedA[match.getStartA() + k] || markedB[match.getStartB() + k]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int bucketFor(long[] keys, int[] heads, long hash) {
+        int mask = keys.length - 1;
+        int bucket = (int) (hash ^ (hash >>> 32)) & mask;
+        while (heads[bucket] != EMPTY && keys[bucket] != hash) {
+            bucket = (bucket + 1) & mask;
+        }
+        return bucket;
+    }
+
+    /**
+     * Coincidencia entre a[startA, startA + length) y b[startB, startB + length)
+     */
+    static final class Tile {
+        private final int startA;
+        private final int startB;
+        private final int length;
+
+        Tile(int startA, int startB, int length) {
+            this.startA = startA;
+            this.startB = startB;
+            this.length = length;
+        }
+
+        int getStartA() { return startA; }
+        int getStartB() { return startB; }
+        int getLength() { return length; }
+    }
+}
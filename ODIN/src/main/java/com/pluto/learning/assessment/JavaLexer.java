@@ -0,0 +1,278 @@
+package com.pluto.learning.assessment;
+
+/**
+ * Analizador léxico de Java en una sola pasada, compartido por el análisis de
+ * código y la detección de plagio.
+ *
+ * No crea Strings por token: escribe tipo, valor y posición de cada token en un
+ * {@link TokenBuffer} reutilizable. Las palabras clave se identifican por su
+ * ordinal y los identificadores por un id secuencial asignado por el buffer.
+ */
+final class JavaLexer {
+
+    // Tipos de token
+    static final int KEYWORD = 1;
+    static final int IDENTIFIER = 2;
+    static final int NUMBER = 3;
+    static final int STRING = 4;
+    static final int CHAR = 5;
+    static final int OPERATOR = 6;
+    static final int COMMENT = 7;
+    static final int ANNOTATION = 8;
+
+    // Valores de COMMENT
+    static final int LINE_COMMENT = 0;
+    static final int BLOCK_COMMENT = 1;
+    static final int JAVADOC_COMMENT = 2;
+
+    // Códigos del flujo normalizado
+    static final int SKIP = Integer.MIN_VALUE;
+    static final int NORMALIZED_IDENTIFIER = -1;
+    static final int NORMALIZED_LITERAL = -2;
+    static final int NORMALIZED_ANNOTATION = -3;
+    private static final int NORMALIZED_KEYWORD_BASE = 1 << 20;
+
+    static final String[] KEYWORDS = {
+        "abstract", "assert", "boolean", "break", "byte", "case", "catch", "char", "class",
+        "const", "continue", "default", "do", "double", "else", "enum", "extends", "false",
+        "final", "finally", "float", "for", "goto", "if", "implements", "import", "instanceof",
+        "int", "interface", "long", "native", "new", "null", "package", "private", "protected",
+        "public", "return", "short", "static", "strictfp", "super", "switch",
+        "synchronized", "this", "throw", "throws", "transient", "true", "try", "void",
+        "volatile", "while"
+    };
+
+    static final int KW_CASE = keyword("case");
+    static final int KW_CATCH = keyword("catch");
+    static final int KW_CLASS = keyword("class");
+    static final int KW_DO = keyword("do");
+    static final int KW_ELSE = keyword("else");
+    static final int KW_ENUM = keyword("enum");
+    static final int KW_EXTENDS = keyword("extends");
+    static final int KW_FOR = keyword("for");
+    static final int KW_IF = keyword("if");
+    static final int KW_INTERFACE = keyword("interface");
+    static final int KW_NEW = keyword("new");
+    static final int KW_SUPER = keyword("super");
+    static final int KW_SWITCH = keyword("switch");
+    static final int KW_THROWS = keyword("throws");
+    static final int KW_WHILE = keyword("while");
+
+    private static final String TWO_CHAR_OPERATORS =
+        "== != <= >= && || ++ -- -> :: += -= *= /= %= &= |= ^= << ";
+
+    private JavaLexer() {
+    }
+
+    /**
+     * Tokeniza el código completo sobre el buffer (que se reinicia)
+     */
+    static TokenBuffer tokenize(String source, TokenBuffer out) {
+        out.reset(source);
+        int length = source.length();
+        int line = 1;
+        int i = 0;
+
+        while (i < length) {
+            char c = source.charAt(i);
+
+            if (c == '\n') {
+                line++;
+                i++;
+            } else if (Character.isWhitespace(c)) {
+                i++;
+            } else if (c == '/' && i + 1 < length && source.charAt(i + 1) == '/') {
+                int end = source.indexOf('\n', i);
+                end = end == -1 ? length : end;
+                out.add(COMMENT, LINE_COMMENT, i + 2, end, line);
+                i = end;
+            } else if (c == '/' && i + 1 < length && source.charAt(i + 1) == '*') {
+                int end = source.indexOf("*/", i + 2);
+                end = end == -1 ? length : end;
+                boolean javadoc = i + 2 < end && source.charAt(i + 2) == '*';
+                out.add(COMMENT, javadoc ? JAVADOC_COMMENT : BLOCK_COMMENT, i + 2, end, line);
+                line += countNewLines(source, i, end);
+                i = Math.min(length, end + 2);
+            } else if (c == '"') {
+                boolean textBlock = source.startsWith("\"\"\"", i);
+                int end = textBlock ? source.indexOf("\"\"\"", i + 3) : skipQuoted(source, i + 1, '"');
+                end = end == -1 ? length : end;
+                int contentStart = i + (textBlock ? 3 : 1);
+                out.add(STRING, 0, contentStart, end, line);
+                line += countNewLines(source, i, end);
+                i = Math.min(length, end + (textBlock ? 3 : 1));
+            } else if (c == '\'') {
+                int end = skipQuoted(source, i + 1, '\'');
+                out.add(CHAR, 0, i + 1, end, line);
+                i = Math.min(length, end + 1);
+            } else if (c == '@' && i + 1 < length && Character.isJavaIdentifierStart(source.charAt(i + 1))
+                    && !source.startsWith("interface", i + 1)) {
+                int end = skipIdentifier(source, i + 1);
+                out.add(ANNOTATION, out.internIdentifier(i + 1, end), i + 1, end, line);
+                i = end;
+            } else if (Character.isJavaIdentifierStart(c)) {
+                int end = skipIdentifier(source, i);
+                int keyword = keywordAt(source, i, end);
+                if (keyword >= 0) {
+                    out.add(KEYWORD, keyword, i, end, line);
+                } else {
+                    out.add(IDENTIFIER, out.internIdentifier(i, end), i, end, line);
+                }
+                i = end;
+            } else if (Character.isDigit(c) || (c == '.' && i + 1 < length && Character.isDigit(source.charAt(i + 1)))) {
+                int end = skipNumber(source, i);
+                out.add(NUMBER, 0, i, end, line);
+                i = end;
+            } else {
+                int operator = c;
+                int end = i + 1;
+                if (i + 1 < length && isTwoCharOperator(c, source.charAt(i + 1))) {
+                    operator = (c << 16) | source.charAt(i + 1);
+                    end = i + 2;
+                }
+                out.add(OPERATOR, operator, i, end, line);
+                i = end;
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Código de un token dentro del flujo normalizado, o {@link #SKIP} si no participa
+     */
+    static int normalizedCode(int type, int value) {
+        switch (type) {
+            case KEYWORD:
+                return NORMALIZED_KEYWORD_BASE + value;
+            case IDENTIFIER:
+                return NORMALIZED_IDENTIFIER;
+            case NUMBER:
+            case STRING:
+            case CHAR:
+                return NORMALIZED_LITERAL;
+            case ANNOTATION:
+                return NORMALIZED_ANNOTATION;
+            case OPERATOR:
+                return value;
+            default:
+                return SKIP;
+        }
+    }
+
+    static int operator(char c) {
+        return c;
+    }
+
+    static int operator(char first, char second) {
+        return (first << 16) | second;
+    }
+
+    private static int keyword(String word) {
+        for (int i = 0; i < KEYWORDS.length; i++) {
+            if (KEYWORDS[i].equals(word)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Palabra clave desconocida: " + word);
+    }
+
+    /**
+     * Búsqueda binaria sobre la tabla ordenada de palabras clave, sin crear Strings
+     */
+    private static int keywordAt(String source, int start, int end) {
+        int low = 0;
+        int high = KEYWORDS.length - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = compareRegion(source, start, end, KEYWORDS[mid]);
+            if (cmp == 0) {
+                return mid;
+            } else if (cmp < 0) {
+                high = mid - 1;
+            } else {
+                low = mid + 1;
+            }
+        }
+        return -1;
+    }
+
+    private static int compareRegion(String source, int start, int end, String word) {
+        int length = Math.min(end - start, word.length());
+        for (int i = 0; i < length; i++) {
+            int diff = source.charAt(start + i) - word.charAt(i);
+            if (diff != 0) {
+                return diff;
+            }
+        }
+        return (end - start) - word.length();
+    }
+
+    private static boolean isTwoCharOperator(char first, char second) {
+        for (int i = 0; i + 1 < TWO_CHAR_OPERATORS.length(); i += 3) {
+            if (TWO_CHAR_OPERATORS.charAt(i) == first && TWO_CHAR_OPERATORS.charAt(i + 1) == second) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int skipIdentifier(String source, int i) {
+        int length = source.length();
+        while (i < length && Character.isJavaIdentifierPart(source.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * El signo solo forma parte del literal tras el exponente: e/E en decimales y
+     * p/P en hexadecimales (en {@code 0xE+1} la E es un dígito y + es un operador)
+     */
+    private static int skipNumber(String source, int start) {
+        int length = source.length();
+        boolean hex = start + 1 < length && source.charAt(start) == '0'
+            && (source.charAt(start + 1) == 'x' || source.charAt(start + 1) == 'X');
+        int i = start;
+        while (i < length) {
+            char c = source.charAt(i);
+            if (Character.isLetterOrDigit(c) || c == '_' || c == '.') {
+                i++;
+            } else if ((c == '+' || c == '-') && i > start && isExponent(source.charAt(i - 1), hex)) {
+                i++;
+            } else {
+                break;
+            }
+        }
+        return i;
+    }
+
+    private static boolean isExponent(char c, boolean hex) {
+        return hex ? c == 'p' || c == 'P' : c == 'e' || c == 'E';
+    }
+
+    private static int skipQuoted(String source, int i, char quote) {
+        int length = source.length();
+        while (i < length) {
+            char c = source.charAt(i);
+            if (c == '\\') {
+                i += 2;
+            } else if (c == quote || c == '\n') {
+                return i;
+            } else {
+                i++;
+            }
+        }
+        return length;
+    }
+
+    private static int countNewLines(String source, int start, int end) {
+        int count = 0;
+        int limit = Math.min(end, source.length());
+        for (int i = start; i < limit; i++) {
+            if (source.charAt(i) == '\n') {
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,557 @@
+package com.pluto.learning.assessment;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Métricas por método (complejidad ciclomática, anidamiento, longitud y número de
+ * parámetros) calculadas sobre los tokens de {@link JavaLexer}.
+ *
+ * No construye un AST: reconoce la estructura de bloques (tipos, métodos y bloques
+ * internos) a partir de las llaves y de la cabecera que precede a cada una. Los
+ * ficheros de un repositorio se analizan en paralelo en un pool acotado y el
+ * resultado de cada fichero se guarda por hash de su contenido, de modo que los
+ * ficheros que no cambian entre intentos no se vuelven a analizar.
+ */
+@Component
+public class JavaMetricsAnalyzer {
+
+    // Umbrales de code smells
+    static final int MAX_METHOD_COMPLEXITY = 10;
+    static final int MAX_NESTING_DEPTH = 4;
+    static final int MAX_METHOD_LENGTH = 50;
+    static final int MAX_PARAMETERS = 5;
+    static final int MAX_FILE_LINES = 500;
+
+    private static final int BLOCK_TYPE = 0;
+    private static final int BLOCK_METHOD = 1;
+    private static final int BLOCK_OTHER = 2;
+
+    private static final int OPEN_BRACE = JavaLexer.operator('{');
+    private static final int CLOSE_BRACE = JavaLexer.operator('}');
+    private static final int OPEN_PAREN = JavaLexer.operator('(');
+    private static final int CLOSE_PAREN = JavaLexer.operator(')');
+    private static final int SEMICOLON = JavaLexer.operator(';');
+    private static final int COMMA = JavaLexer.operator(',');
+    private static final int DOT = JavaLexer.operator('.');
+    private static final int LESS = JavaLexer.operator('<');
+    private static final int GREATER = JavaLexer.operator('>');
+    private static final int QUESTION = JavaLexer.operator('?');
+    private static final int ASSIGN = JavaLexer.operator('=');
+    private static final int AND = JavaLexer.operator('&', '&');
+    private static final int OR = JavaLexer.operator('|', '|');
+    private static final int ARROW = JavaLexer.operator('-', '>');
+
+    private final ExecutorService pool;
+    private final int cacheSize;
+    private final Map<String, FileMetrics> cache;
+
+    public JavaMetricsAnalyzer(@Value("${assessment.metrics.parallelism:0}") int parallelism,
+                               @Value("${assessment.metrics.cache-size:20000}") int cacheSize) {
+        int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        AtomicInteger counter = new AtomicInteger();
+        this.pool = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "java-metrics-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.cacheSize = cacheSize;
+        this.cache = new LinkedHashMap<>(256, 0.75f, true);
+    }
+
+    /**
+     * Métricas de todos los ficheros Java del repositorio (se calculan una vez por snapshot)
+     */
+    RepositoryMetrics analyze(RepositorySnapshot snapshot) {
+        return snapshot.metrics(this);
+    }
+
+    RepositoryMetrics compute(List<RepositorySnapshot.SourceFile> javaFiles) {
+        List<Future<FileMetrics>> pending = new ArrayList<>(javaFiles.size());
+        for (RepositorySnapshot.SourceFile file : javaFiles) {
+            pending.add(pool.submit(() -> analyzeFile(file)));
+        }
+        List<String> paths = new ArrayList<>(javaFiles.size());
+        List<FileMetrics> results = new ArrayList<>(javaFiles.size());
+        try {
+            for (int i = 0; i < pending.size(); i++) {
+                paths.add(javaFiles.get(i).getPath());
+                results.add(pending.get(i).get());
+            }
+        } catch (InterruptedException e) {
+            pending.forEach(future -> future.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Análisis de métricas interrumpido", e);
+        } catch (ExecutionException e) {
+            pending.forEach(future -> future.cancel(true));
+            throw new IllegalStateException("Error calculando métricas", e.getCause());
+        }
+        return new RepositoryMetrics(paths, results);
+    }
+
+    /**
+     * Número de ficheros cuyas métricas están en caché
+     */
+    public synchronized int cachedFiles() {
+        return cache.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    private FileMetrics analyzeFile(RepositorySnapshot.SourceFile file) {
+        // Un fichero reutilizado del intento anterior ya trae sus métricas, sin rehash
+        return file.derived(this, this::measureFile);
+    }
+
+    private FileMetrics measureFile(RepositorySnapshot.SourceFile file) {
+        String key = contentHash(file.getContent());
+        FileMetrics cached = cached(key);
+        if (cached != null) {
+            return cached;
+        }
+        FileMetrics metrics = measure(file.tokens(), file.getLineCount());
+        synchronized (this) {
+            cache.put(key, metrics);
+            if (cache.size() > cacheSize) {
+                cache.remove(cache.keySet().iterator().next());
+            }
+        }
+        return metrics;
+    }
+
+    private synchronized FileMetrics cached(String key) {
+        return cache.get(key);
+    }
+
+    /**
+     * Recorre los tokens una vez manteniendo la pila de bloques abiertos
+     */
+    static FileMetrics measure(TokenBuffer tokens, int lineCount) {
+        List<MethodMetrics> methods = new ArrayList<>();
+        Deque<Integer> blocks = new ArrayDeque<>();      // tipo de cada bloque abierto
+        Deque<MethodBuilder> open = new ArrayDeque<>();  // métodos en curso, el más interno primero
+        int headerStart = 0;
+
+        for (int i = 0; i < tokens.size(); i++) {
+            int type = tokens.type(i);
+            if (type == JavaLexer.COMMENT) {
+                continue;
+            }
+            MethodBuilder current = currentMethod(blocks, open);
+
+            if (tokens.is(i, JavaLexer.OPERATOR, OPEN_BRACE)) {
+                int enclosing = blocks.isEmpty() ? BLOCK_TYPE : blocks.peek();
+                if (isTypeDeclaration(tokens, headerStart, i) || isAnonymousClassBody(tokens, i)) {
+                    blocks.push(BLOCK_TYPE);
+                } else if (enclosing == BLOCK_TYPE && isMethodHeader(tokens, headerStart, i)) {
+                    int paren = methodParameters(tokens, headerStart, i);
+                    open.push(new MethodBuilder(tokens.text(paren - 1), tokens.line(paren - 1),
+                        countParameters(tokens, paren)));
+                    blocks.push(BLOCK_METHOD);
+                } else {
+                    blocks.push(BLOCK_OTHER);
+                    if (current != null) {
+                        current.enter();
+                    }
+                }
+                headerStart = i + 1;
+            } else if (tokens.is(i, JavaLexer.OPERATOR, CLOSE_BRACE)) {
+                int block = blocks.isEmpty() ? BLOCK_TYPE : blocks.pop();
+                if (block == BLOCK_METHOD) {
+                    methods.add(open.pop().build(tokens.line(i)));
+                } else if (block == BLOCK_OTHER && current != null) {
+                    current.exit();
+                }
+                headerStart = i + 1;
+            } else if (tokens.is(i, JavaLexer.OPERATOR, SEMICOLON)) {
+                headerStart = i + 1;
+            } else if (current != null && isDecisionPoint(tokens, i)) {
+                current.decision();
+            }
+        }
+        // Métodos sin cerrar (fichero truncado o con errores de sintaxis)
+        while (!open.isEmpty()) {
+            methods.add(open.pop().build(tokens.size() > 0 ? tokens.line(tokens.size() - 1) : 1));
+        }
+        return new FileMetrics(methods, lineCount);
+    }
+
+    /**
+     * Método al que pertenece el bloque actual, o null si estamos en el cuerpo de un tipo
+     */
+    private static MethodBuilder currentMethod(Deque<Integer> blocks, Deque<MethodBuilder> open) {
+        for (int block : blocks) {
+            if (block == BLOCK_TYPE) {
+                return null;
+            }
+            if (block == BLOCK_METHOD) {
+                return open.peek();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * if, for, while, case, catch, &&, || y el operador ternario
+     */
+    private static boolean isDecisionPoint(TokenBuffer tokens, int i) {
+        int type = tokens.type(i);
+        int value = tokens.value(i);
+        if (type == JavaLexer.KEYWORD) {
+            return value == JavaLexer.KW_IF || value == JavaLexer.KW_FOR || value == JavaLexer.KW_WHILE
+                || value == JavaLexer.KW_CASE || value == JavaLexer.KW_CATCH;
+        }
+        if (type != JavaLexer.OPERATOR) {
+            return false;
+        }
+        if (value == AND || value == OR) {
+            return true;
+        }
+        if (value == QUESTION) {
+            // '?' de un comodín genérico: <?>, <? extends T>, <? super T>, <?, ?>
+            if (i + 1 >= tokens.size()) {
+                return false;
+            }
+            return !(tokens.is(i + 1, JavaLexer.KEYWORD, JavaLexer.KW_EXTENDS)
+                || tokens.is(i + 1, JavaLexer.KEYWORD, JavaLexer.KW_SUPER)
+                || tokens.is(i + 1, JavaLexer.OPERATOR, GREATER) || tokens.is(i + 1, JavaLexer.OPERATOR, COMMA));
+        }
+        return false;
+    }
+
+    /**
+     * Cabecera con class/interface/enum/record (sin contar expresiones {@code Foo.class})
+     */
+    private static boolean isTypeDeclaration(TokenBuffer tokens, int from, int brace) {
+        for (int i = from; i < brace; i++) {
+            boolean afterDot = i > 0 && tokens.is(i - 1, JavaLexer.OPERATOR, DOT);
+            if (tokens.type(i) == JavaLexer.KEYWORD && !afterDot) {
+                int value = tokens.value(i);
+                if (value == JavaLexer.KW_CLASS || value == JavaLexer.KW_INTERFACE || value == JavaLexer.KW_ENUM) {
+                    return true;
+                }
+            }
+            if (tokens.type(i) == JavaLexer.IDENTIFIER && !afterDot && i + 1 < brace
+                    && tokens.type(i + 1) == JavaLexer.IDENTIFIER && tokens.textEquals(i, "record")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * {@code new Tipo<...>(...) {}}
+     */
+    private static boolean isAnonymousClassBody(TokenBuffer tokens, int brace) {
+        if (brace == 0 || !tokens.is(brace - 1, JavaLexer.OPERATOR, CLOSE_PAREN)) {
+            return false;
+        }
+        int k = matchingOpenParen(tokens, brace - 1);
+        if (k <= 0) {
+            return false;
+        }
+        k--;
+        if (tokens.is(k, JavaLexer.OPERATOR, GREATER)) {
+            int depth = 0;
+            for (; k >= 0; k--) {
+                if (tokens.is(k, JavaLexer.OPERATOR, GREATER)) depth++;
+                else if (tokens.is(k, JavaLexer.OPERATOR, LESS) && --depth == 0) break;
+            }
+            k--;
+        }
+        while (k >= 0 && (tokens.type(k) == JavaLexer.IDENTIFIER || tokens.is(k, JavaLexer.OPERATOR, DOT))) {
+            k--;
+        }
+        return k >= 0 && tokens.is(k, JavaLexer.KEYWORD, JavaLexer.KW_NEW);
+    }
+
+    /**
+     * {@code [modificadores] [tipo] nombre(parámetros) [throws ...]} sin '=' ni '->'
+     * fuera de paréntesis: los argumentos de anotaciones como
+     * {@code @GetMapping(value = "/x")} no cuentan
+     */
+    private static boolean isMethodHeader(TokenBuffer tokens, int from, int brace) {
+        int paren = methodParameters(tokens, from, brace);
+        if (paren <= from || tokens.type(paren - 1) != JavaLexer.IDENTIFIER) {
+            return false;
+        }
+        int depth = 0;
+        for (int i = from; i < paren; i++) {
+            if (tokens.is(i, JavaLexer.OPERATOR, OPEN_PAREN)) {
+                depth++;
+            } else if (tokens.is(i, JavaLexer.OPERATOR, CLOSE_PAREN)) {
+                depth--;
+            } else if (depth == 0 && (tokens.is(i, JavaLexer.OPERATOR, ASSIGN) || tokens.is(i, JavaLexer.OPERATOR, ARROW))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Índice del '(' de la lista de parámetros, o -1 si la cabecera no termina en
+     * {@code ) [throws A, B]}
+     */
+    private static int methodParameters(TokenBuffer tokens, int from, int brace) {
+        int close = brace - 1;
+        while (close >= from && !tokens.is(close, JavaLexer.OPERATOR, CLOSE_PAREN)) {
+            boolean throwsClause = tokens.type(close) == JavaLexer.IDENTIFIER
+                || tokens.is(close, JavaLexer.KEYWORD, JavaLexer.KW_THROWS)
+                || tokens.is(close, JavaLexer.OPERATOR, DOT)
+                || tokens.is(close, JavaLexer.OPERATOR, COMMA)
+                || tokens.type(close) == JavaLexer.COMMENT;
+            if (!throwsClause) {
+                return -1;
+            }
+            close--;
+        }
+        if (close < from) {
+            return -1;
+        }
+        int open = matchingOpenParen(tokens, close);
+        return open >= from ? open : -1;
+    }
+
+    private static int matchingOpenParen(TokenBuffer tokens, int close) {
+        int depth = 0;
+        for (int k = close; k >= 0; k--) {
+            if (tokens.is(k, JavaLexer.OPERATOR, CLOSE_PAREN)) {
+                depth++;
+            } else if (tokens.is(k, JavaLexer.OPERATOR, OPEN_PAREN) && --depth == 0) {
+                return k;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Comas de primer nivel entre los paréntesis (ignorando las de los genéricos)
+     */
+    private static int countParameters(TokenBuffer tokens, int open) {
+        int parens = 0;
+        int generics = 0;
+        int count = 0;
+        boolean empty = true;
+        for (int k = open + 1; k < tokens.size(); k++) {
+            if (tokens.is(k, JavaLexer.OPERATOR, OPEN_PAREN)) {
+                parens++;
+            } else if (tokens.is(k, JavaLexer.OPERATOR, CLOSE_PAREN)) {
+                if (parens-- == 0) {
+                    break;
+                }
+            } else if (tokens.is(k, JavaLexer.OPERATOR, LESS)) {
+                generics++;
+            } else if (tokens.is(k, JavaLexer.OPERATOR, GREATER)) {
+                generics--;
+            } else if (tokens.is(k, JavaLexer.OPERATOR, COMMA) && parens == 0 && generics == 0) {
+                count++;
+            }
+            if (tokens.type(k) != JavaLexer.COMMENT) {
+                empty = false;
+            }
+        }
+        return empty ? 0 : count + 1;
+    }
+
+    private static String contentHash(String content) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(content.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static final class MethodBuilder {
+        private final String name;
+        private final int startLine;
+        private final int parameters;
+        private int complexity = 1;
+        private int depth;
+        private int maxDepth;
+
+        MethodBuilder(String name, int startLine, int parameters) {
+            this.name = name;
+            this.startLine = startLine;
+            this.parameters = parameters;
+        }
+
+        void decision() { complexity++; }
+
+        void enter() {
+            depth++;
+            maxDepth = Math.max(maxDepth, depth);
+        }
+
+        void exit() { depth--; }
+
+        MethodMetrics build(int endLine) {
+            return new MethodMetrics(name, startLine, endLine - startLine + 1, complexity, maxDepth, parameters);
+        }
+    }
+
+    /**
+     * Métricas de un método
+     */
+    public static final class MethodMetrics {
+        private final String name;
+        private final int startLine;
+        private final int length;
+        private final int complexity;
+        private final int nestingDepth;
+        private final int parameters;
+
+        MethodMetrics(String name, int startLine, int length, int complexity, int nestingDepth, int parameters) {
+            this.name = name;
+            this.startLine = startLine;
+            this.length = length;
+            this.complexity = complexity;
+            this.nestingDepth = nestingDepth;
+            this.parameters = parameters;
+        }
+
+        public String getName() { return name; }
+        public int getStartLine() { return startLine; }
+        public int getLength() { return length; }
+        public int getComplexity() { return complexity; }
+        public int getNestingDepth() { return nestingDepth; }
+        public int getParameters() { return parameters; }
+    }
+
+    /**
+     * Métricas de un fichero; no guarda la ruta para poder compartirse entre
+     * ficheros con el mismo contenido
+     */
+    static final class FileMetrics {
+        private final List<MethodMetrics> methods;
+        private final int lineCount;
+
+        FileMetrics(List<MethodMetrics> methods, int lineCount) {
+            this.methods = Collections.unmodifiableList(methods);
+            this.lineCount = lineCount;
+        }
+
+        List<MethodMetrics> methods() { return methods; }
+        int lineCount() { return lineCount; }
+    }
+
+    /**
+     * Métricas agregadas de los ficheros Java de un repositorio
+     */
+    static final class RepositoryMetrics {
+        private final List<String> paths;
+        private final List<FileMetrics> files;
+
+        RepositoryMetrics(List<String> paths, List<FileMetrics> files) {
+            this.paths = paths;
+            this.files = files;
+        }
+
+        int methodCount() {
+            int count = 0;
+            for (FileMetrics file : files) {
+                count += file.methods().size();
+            }
+            return count;
+        }
+
+        /**
+         * Suma de la complejidad ciclomática de todos los métodos
+         */
+        int totalComplexity() {
+            int total = 0;
+            for (FileMetrics file : files) {
+                for (MethodMetrics method : file.methods()) {
+                    total += method.getComplexity();
+                }
+            }
+            return total;
+        }
+
+        int maxComplexity() {
+            int max = 0;
+            for (FileMetrics file : files) {
+                for (MethodMetrics method : file.methods()) {
+                    max = Math.max(max, method.getComplexity());
+                }
+            }
+            return max;
+        }
+
+        int maxNestingDepth() {
+            int max = 0;
+            for (FileMetrics file : files) {
+                for (MethodMetrics method : file.methods()) {
+                    max = Math.max(max, method.getNestingDepth());
+                }
+            }
+            return max;
+        }
+
+        int maxMethodLength() {
+            int max = 0;
+            for (FileMetrics file : files) {
+                for (MethodMetrics method : file.methods()) {
+                    max = Math.max(max, method.getLength());
+                }
+            }
+            return max;
+        }
+
+        double averageComplexity() {
+            int methods = methodCount();
+            return methods > 0 ? (double) totalComplexity() / methods : 0.0;
+        }
+
+        /**
+         * Code smells según los umbrales de la clase, con su ubicación
+         */
+        List<String> codeSmells() {
+            List<String> smells = new ArrayList<>();
+            for (int f = 0; f < files.size(); f++) {
+                String path = paths.get(f);
+                FileMetrics file = files.get(f);
+                if (file.lineCount() > MAX_FILE_LINES) {
+                    smells.add(path + ": fichero demasiado largo (" + file.lineCount() + " líneas)");
+                }
+                for (MethodMetrics method : file.methods()) {
+                    String location = path + ":" + method.getStartLine() + " " + method.getName() + "()";
+                    if (method.getComplexity() > MAX_METHOD_COMPLEXITY) {
+                        smells.add(location + ": complejidad ciclomática " + method.getComplexity());
+                    }
+                    if (method.getNestingDepth() > MAX_NESTING_DEPTH) {
+                        smells.add(location + ": anidamiento " + method.getNestingDepth());
+                    }
+                    if (method.getLength() > MAX_METHOD_LENGTH) {
+                        smells.add(location + ": método de " + method.getLength() + " líneas");
+                    }
+                    if (method.getParameters() > MAX_PARAMETERS) {
+                        smells.add(location + ": " + method.getParameters() + " parámetros");
+                    }
+                }
+            }
+            return smells;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.pluto.learning.assessment;
+
+import com.pluto.learning.assessments.LabRepository;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * Re-evaluación de todas las submissions de un laboratorio tras un cambio de rúbrica
+ */
+@RestController
+@RequestMapping("/api/assessment/labs/{labId}/regrade")
+@Tag(name = "Lab Re-grade", description = "Re-evaluación masiva de los envíos de un laboratorio")
+public class LabRegradeController {
+
+    private final LabRegradeJobService jobService;
+    private final LabRepository labRepository;
+
+    public LabRegradeController(LabRegradeJobService jobService, LabRepository labRepository) {
+        this.jobService = jobService;
+        this.labRepository = labRepository;
+    }
+
+    @PostMapping
+    @Operation(summary = "Re-evaluar (o reanudar la re-evaluación de) las submissions del laboratorio")
+    @ApiResponse(responseCode = "202", description = "Trabajo aceptado")
+    @ApiResponse(responseCode = "404", description = "Laboratorio no encontrado")
+    @PreAuthorize("hasRole('INSTRUCTOR') or hasRole('ADMIN')")
+    public ResponseEntity<LabRegradeJob> start(
+            @Parameter(description = "ID del laboratorio") @PathVariable Long labId,
+            @Parameter(description = "Descartar el trabajo incompleto y empezar de cero")
+            @RequestParam(defaultValue = "false") boolean restart) {
+
+        if (!labRepository.existsById(labId)) {
+            return ResponseEntity.notFound().build();
+        }
+        return new ResponseEntity<>(jobService.start(labId, restart), HttpStatus.ACCEPTED);
+    }
+
+    @GetMapping("/status")
+    @Operation(summary = "Progreso del último trabajo de re-evaluación del laboratorio")
+    @ApiResponse(responseCode = "200", description = "Estado del trabajo")
+    @ApiResponse(responseCode = "404", description = "No hay trabajos para el laboratorio")
+    @PreAuthorize("hasRole('INSTRUCTOR') or hasRole('ADMIN')")
+    public ResponseEntity<LabRegradeJob> status(
+            @Parameter(description = "ID del laboratorio") @PathVariable Long labId) {
+
+        return jobService.findJob(labId)
+            .map(ResponseEntity::ok)
+            .orElse(ResponseEntity.notFound().build());
+    }
+}
@@ -0,0 +1,72 @@
+package com.pluto.learning.assessment;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Estado y progreso de un trabajo de re-evaluación de todas las submissions de un laboratorio
+ */
+public class LabRegradeJob {
+
+    public enum Status {
+        QUEUED, RUNNING, COMPLETED, FAILED, INTERRUPTED
+    }
+
+    private final long id;
+    private final long labId;
+    private final long maxSubmissionId;
+    private final int totalSubmissions;
+    private final AtomicLong lastSubmissionId;
+    private final AtomicInteger processedSubmissions;
+    private final AtomicInteger failedSubmissions;
+    private final AtomicInteger changedScores;
+    private volatile Status status;
+    private volatile String errorMessage;
+
+    LabRegradeJob(long id, long labId, Status status, long maxSubmissionId, int totalSubmissions,
+                  long lastSubmissionId, int processedSubmissions, int failedSubmissions,
+                  int changedScores, String errorMessage) {
+        this.id = id;
+        this.labId = labId;
+        this.status = status;
+        this.maxSubmissionId = maxSubmissionId;
+        this.totalSubmissions = totalSubmissions;
+        this.lastSubmissionId = new AtomicLong(lastSubmissionId);
+        this.processedSubmissions = new AtomicInteger(processedSubmissions);
+        this.failedSubmissions = new AtomicInteger(failedSubmissions);
+        this.changedScores = new AtomicInteger(changedScores);
+        this.errorMessage = errorMessage;
+    }
+
+    /**
+     * Avanza el checkpoint en memoria tras persistir un lote
+     */
+    void batchCompleted(long lastSubmissionId, int processed, int failed, int changed) {
+        this.lastSubmissionId.set(lastSubmissionId);
+        processedSubmissions.addAndGet(processed);
+        failedSubmissions.addAndGet(failed);
+        changedScores.addAndGet(changed);
+    }
+
+    void setStatus(Status status) { this.status = status; }
+    void setErrorMessage(String errorMessage) { this.errorMessage = errorMessage; }
+
+    boolean isFinished() {
+        return status == Status.COMPLETED || status == Status.FAILED || status == Status.INTERRUPTED;
+    }
+
+    public long getId() { return id; }
+    public long getLabId() { return labId; }
+    public Status getStatus() { return status; }
+    public long getMaxSubmissionId() { return maxSubmissionId; }
+    public int getTotalSubmissions() { return totalSubmissions; }
+    public long getLastSubmissionId() { return lastSubmissionId.get(); }
+    public int getProcessedSubmissions() { return processedSubmissions.get(); }
+    public int getFailedSubmissions() { return failedSubmissions.get(); }
+    public int getChangedScores() { return changedScores.get(); }
+    public String getErrorMessage() { return errorMessage; }
+
+    public double getProgress() {
+        return totalSubmissions == 0 ? 1.0 : Math.min(1.0, (double) processedSubmissions.get() / totalSubmissions);
+    }
+}
@@ -0,0 +1,218 @@
+package com.pluto.learning.assessment;
+
+import com.pluto.learning.submissions.LabSubmission;
+import com.pluto.learning.submissions.SubmissionRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Trabajo por lotes que vuelve a puntuar todas las submissions de un laboratorio tras
+ * un cambio de rúbrica o de pesos.
+ *
+ * Recorre las submissions con un cursor por id en páginas de {@code batch-size}, las
+ * evalúa en paralelo con el {@link AdvancedAssessmentEngine} (que reutiliza la caché de
+ * resultados, los snapshots y los mirrors git) y escribe cada página con un batch update
+ * JDBC junto con el checkpoint. Un trabajo interrumpido se reanuda tras el último lote
+ * persistido.
+ */
+@Service
+public class LabRegradeJobService {
+
+    private final LabRegradeRepository repository;
+    private final SubmissionRepository submissionRepository;
+    private final AdvancedAssessmentEngine assessmentEngine;
+    private final MeterRegistry meterRegistry;
+    private final int batchSize;
+    private final ExecutorService workers;
+    private final ExecutorService coordinator = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "lab-regrade-coordinator");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Map<Long, LabRegradeJob> activeJobs = new ConcurrentHashMap<>();
+    private final Map<Long, List<Meter>> gaugesByLab = new ConcurrentHashMap<>();
+
+    public LabRegradeJobService(LabRegradeRepository repository,
+                                SubmissionRepository submissionRepository,
+                                AdvancedAssessmentEngine assessmentEngine,
+                                MeterRegistry meterRegistry,
+                                @Value("${assessment.regrade.batch-size:50}") int batchSize,
+                                @Value("${assessment.regrade.parallelism:4}") int parallelism) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("assessment.regrade.batch-size debe ser positivo");
+        }
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("assessment.regrade.parallelism debe ser positivo");
+        }
+        this.repository = repository;
+        this.submissionRepository = submissionRepository;
+        this.assessmentEngine = assessmentEngine;
+        this.meterRegistry = meterRegistry;
+        this.batchSize = batchSize;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "lab-regrade-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Lanza (o reanuda desde su checkpoint, si el último quedó a medias) la re-evaluación
+     * del laboratorio. Con {@code restart} se descarta el trabajo incompleto.
+     */
+    public synchronized LabRegradeJob start(long labId, boolean restart) {
+        LabRegradeJob running = activeJobs.get(labId);
+        if (running != null && !running.isFinished()) {
+            return running;
+        }
+
+        Optional<LabRegradeJob> latest = repository.findLatestJob(labId);
+        LabRegradeJob job;
+        if (!restart && latest.isPresent() && latest.get().getStatus() != LabRegradeJob.Status.COMPLETED) {
+            job = latest.get();
+            repository.updateStatus(job.getId(), LabRegradeJob.Status.RUNNING, null);
+        } else {
+            if (latest.isPresent() && latest.get().getStatus() == LabRegradeJob.Status.RUNNING) {
+                repository.updateStatus(latest.get().getId(), LabRegradeJob.Status.INTERRUPTED, "Reiniciado");
+            }
+            // Las submissions posteriores ya se evalúan con la rúbrica nueva
+            long maxSubmissionId = repository.findMaxSubmissionId(labId);
+            int total = repository.countRegradable(labId, maxSubmissionId);
+            long jobId = repository.createJob(labId, maxSubmissionId, total);
+            job = new LabRegradeJob(jobId, labId, LabRegradeJob.Status.RUNNING, maxSubmissionId, total,
+                0L, 0, 0, 0, null);
+        }
+        job.setStatus(LabRegradeJob.Status.QUEUED);
+        job.setErrorMessage(null);
+
+        activeJobs.put(labId, job);
+        registerGauges(job);
+        coordinator.execute(() -> run(job));
+        return job;
+    }
+
+    /**
+     * Estado del trabajo en curso o, si no hay ninguno en memoria, del último persistido
+     */
+    public Optional<LabRegradeJob> findJob(long labId) {
+        LabRegradeJob active = activeJobs.get(labId);
+        return active != null ? Optional.of(active) : repository.findLatestJob(labId);
+    }
+
+    private void run(LabRegradeJob job) {
+        job.setStatus(LabRegradeJob.Status.RUNNING);
+        try {
+            List<Long> page = repository.findRegradableIdsAfter(
+                job.getLabId(), job.getLastSubmissionId(), job.getMaxSubmissionId(), batchSize);
+            while (!page.isEmpty()) {
+                if (job.getStatus() == LabRegradeJob.Status.INTERRUPTED) {
+                    // Se queda en RUNNING en base de datos para reanudarlo más tarde
+                    return;
+                }
+                long lastId = page.get(page.size() - 1);
+                regradeBatch(job, page, lastId);
+                page = repository.findRegradableIdsAfter(job.getLabId(), lastId, job.getMaxSubmissionId(), batchSize);
+            }
+
+            job.setStatus(LabRegradeJob.Status.COMPLETED);
+            repository.updateStatus(job.getId(), LabRegradeJob.Status.COMPLETED, null);
+        } catch (RuntimeException e) {
+            job.setStatus(LabRegradeJob.Status.FAILED);
+            job.setErrorMessage(e.getMessage());
+            repository.updateStatus(job.getId(), LabRegradeJob.Status.FAILED, e.getMessage());
+        }
+    }
+
+    /**
+     * Evalúa una página en paralelo y la persiste de una vez. Una submission que falla
+     * conserva su nota anterior y cuenta como fallida, sin detener el trabajo; también
+     * un resultado parcial (alguna etapa agotó su tiempo), que solo sumaría las
+     * dimensiones presentes y bajaría una nota completa por un fallo transitorio.
+     */
+    private void regradeBatch(LabRegradeJob job, List<Long> ids, long lastId) {
+        Map<Long, LabSubmission> submissions = submissionRepository.findAllById(ids).stream()
+            .collect(Collectors.toMap(LabSubmission::getId, Function.identity()));
+
+        List<CompletableFuture<AssessmentResult>> futures = new ArrayList<>(submissions.size());
+        for (LabSubmission submission : submissions.values()) {
+            futures.add(CompletableFuture.supplyAsync(() -> assessmentEngine.evaluateSubmission(submission), workers));
+        }
+
+        List<LabRegradeRepository.RegradedScore> scores = new ArrayList<>(futures.size());
+        int failed = 0;
+        int changed = 0;
+        for (CompletableFuture<AssessmentResult> future : futures) {
+            AssessmentResult result;
+            try {
+                result = future.join();
+            } catch (CompletionException e) {
+                failed++;
+                continue;
+            }
+            if (result.isPartial()) {
+                failed++;
+                continue;
+            }
+            LabSubmission submission = result.getSubmission();
+            scores.add(new LabRegradeRepository.RegradedScore(submission.getId(), result.getFinalScore(),
+                result.isPassed(), result.getFeedback(), result.getEvaluationDate()));
+            if (!Objects.equals(submission.getAutomatedScore(), result.getFinalScore())) {
+                changed++;
+            }
+        }
+
+        repository.saveBatch(job.getId(), scores, lastId, submissions.size(), failed, changed);
+        job.batchCompleted(lastId, submissions.size(), failed, changed);
+    }
+
+    private void registerGauges(LabRegradeJob job) {
+        List<Meter> previous = gaugesByLab.remove(job.getLabId());
+        if (previous != null) {
+            previous.forEach(meterRegistry::remove);
+        }
+        Tags tags = Tags.of("labId", String.valueOf(job.getLabId()));
+        List<Meter> gauges = List.of(
+            Gauge.builder("assessment.regrade.submissions.processed", job, LabRegradeJob::getProcessedSubmissions)
+                .tags(tags).description("Submissions re-evaluadas y persistidas").register(meterRegistry),
+            Gauge.builder("assessment.regrade.submissions.failed", job, LabRegradeJob::getFailedSubmissions)
+                .tags(tags).description("Submissions cuya re-evaluación falló").register(meterRegistry),
+            Gauge.builder("assessment.regrade.submissions.total", job, LabRegradeJob::getTotalSubmissions)
+                .tags(tags).description("Submissions a re-evaluar").register(meterRegistry),
+            Gauge.builder("assessment.regrade.progress", job, LabRegradeJob::getProgress)
+                .tags(tags).description("Fracción completada de la re-evaluación").register(meterRegistry));
+        gaugesByLab.put(job.getLabId(), gauges);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        // Los trabajos en curso quedan en RUNNING y se reanudan desde su checkpoint
+        activeJobs.values().forEach(job -> {
+            if (!job.isFinished()) {
+                job.setStatus(LabRegradeJob.Status.INTERRUPTED);
+            }
+        });
+        coordinator.shutdownNow();
+        workers.shutdownNow();
+    }
+}
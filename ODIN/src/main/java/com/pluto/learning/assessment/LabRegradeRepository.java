@@ -0,0 +1,181 @@
+package com.pluto.learning.assessment;
+
+import com.pluto.learning.submissions.LabSubmission;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Persistencia de los trabajos de re-evaluación: cursor por id sobre las submissions
+ * del laboratorio, escritura de notas por lotes y checkpoint del trabajo.
+ */
+@Repository
+public class LabRegradeRepository {
+
+    // Solo se re-evalúan submissions cuya nota sigue siendo la automática
+    static final List<String> REGRADABLE_STATUSES = List.of(
+        LabSubmission.SubmissionStatus.EVALUATED.name(),
+        LabSubmission.SubmissionStatus.REVIEW_PENDING.name());
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    public LabRegradeRepository(NamedParameterJdbcTemplate jdbcTemplate,
+                                PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public long findMaxSubmissionId(long labId) {
+        Long max = jdbcTemplate.queryForObject(
+            "SELECT COALESCE(MAX(id), 0) FROM lab_submissions WHERE lab_id = :labId",
+            Map.of("labId", labId), Long.class);
+        return max != null ? max : 0L;
+    }
+
+    public int countRegradable(long labId, long maxSubmissionId) {
+        Integer count = jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM lab_submissions " +
+            "WHERE lab_id = :labId AND id <= :maxSubmissionId AND status IN (:statuses)",
+            new MapSqlParameterSource()
+                .addValue("labId", labId)
+                .addValue("maxSubmissionId", maxSubmissionId)
+                .addValue("statuses", REGRADABLE_STATUSES),
+            Integer.class);
+        return count != null ? count : 0;
+    }
+
+    /**
+     * Siguiente página del cursor: ids re-evaluables en (afterId, maxSubmissionId], por id
+     */
+    public List<Long> findRegradableIdsAfter(long labId, long afterId, long maxSubmissionId, int limit) {
+        return jdbcTemplate.queryForList(
+            "SELECT id FROM lab_submissions " +
+            "WHERE lab_id = :labId AND id > :afterId AND id <= :maxSubmissionId AND status IN (:statuses) " +
+            "ORDER BY id LIMIT :limit",
+            new MapSqlParameterSource()
+                .addValue("labId", labId)
+                .addValue("afterId", afterId)
+                .addValue("maxSubmissionId", maxSubmissionId)
+                .addValue("statuses", REGRADABLE_STATUSES)
+                .addValue("limit", limit),
+            Long.class);
+    }
+
+    public long createJob(long labId, long maxSubmissionId, int totalSubmissions) {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.update(
+            "INSERT INTO lab_regrade_jobs (lab_id, status, max_submission_id, total_submissions) " +
+            "VALUES (:labId, :status, :maxSubmissionId, :totalSubmissions)",
+            new MapSqlParameterSource()
+                .addValue("labId", labId)
+                .addValue("status", LabRegradeJob.Status.RUNNING.name())
+                .addValue("maxSubmissionId", maxSubmissionId)
+                .addValue("totalSubmissions", totalSubmissions),
+            keyHolder, new String[] {"id"});
+        return keyHolder.getKey().longValue();
+    }
+
+    /**
+     * Último trabajo del laboratorio, terminado o no
+     */
+    public Optional<LabRegradeJob> findLatestJob(long labId) {
+        List<LabRegradeJob> jobs = jdbcTemplate.query(
+            "SELECT * FROM lab_regrade_jobs WHERE lab_id = :labId ORDER BY id DESC LIMIT 1",
+            Map.of("labId", labId),
+            (rs, rowNum) -> new LabRegradeJob(
+                rs.getLong("id"),
+                rs.getLong("lab_id"),
+                LabRegradeJob.Status.valueOf(rs.getString("status")),
+                rs.getLong("max_submission_id"),
+                rs.getInt("total_submissions"),
+                rs.getLong("last_submission_id"),
+                rs.getInt("processed_submissions"),
+                rs.getInt("failed_submissions"),
+                rs.getInt("changed_scores"),
+                rs.getString("error_message")));
+        return jobs.stream().findFirst();
+    }
+
+    /**
+     * Escribe las notas de un lote con un único batch update y avanza el checkpoint en
+     * la misma transacción, de modo que al reanudar no se repite ni se salta ningún lote.
+     * Si la submission ya tiene nota manual, su nota final no se toca.
+     */
+    public void saveBatch(long jobId, List<RegradedScore> scores, long lastSubmissionId,
+                          int processed, int failed, int changed) {
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!scores.isEmpty()) {
+                MapSqlParameterSource[] batch = new MapSqlParameterSource[scores.size()];
+                for (int i = 0; i < scores.size(); i++) {
+                    RegradedScore score = scores.get(i);
+                    batch[i] = new MapSqlParameterSource()
+                        .addValue("id", score.submissionId)
+                        .addValue("score", score.score)
+                        .addValue("feedback", score.feedback)
+                        .addValue("evaluatedAt", score.evaluatedAt)
+                        .addValue("status", score.passed
+                            ? LabSubmission.SubmissionStatus.EVALUATED.name()
+                            : LabSubmission.SubmissionStatus.REVIEW_PENDING.name())
+                        .addValue("statuses", REGRADABLE_STATUSES);
+                }
+                jdbcTemplate.batchUpdate(
+                    "UPDATE lab_submissions SET automated_score = :score, " +
+                    "final_score = CASE WHEN manual_score IS NULL THEN :score ELSE final_score END, " +
+                    "instructor_feedback = :feedback, evaluated_at = :evaluatedAt, status = :status, " +
+                    "updated_at = CURRENT_TIMESTAMP " +
+                    "WHERE id = :id AND status IN (:statuses)", batch);
+            }
+            jdbcTemplate.update(
+                "UPDATE lab_regrade_jobs SET last_submission_id = :lastSubmissionId, " +
+                "processed_submissions = processed_submissions + :processed, " +
+                "failed_submissions = failed_submissions + :failed, " +
+                "changed_scores = changed_scores + :changed WHERE id = :jobId",
+                new MapSqlParameterSource()
+                    .addValue("jobId", jobId)
+                    .addValue("lastSubmissionId", lastSubmissionId)
+                    .addValue("processed", processed)
+                    .addValue("failed", failed)
+                    .addValue("changed", changed));
+        });
+    }
+
+    public void updateStatus(long jobId, LabRegradeJob.Status status, String errorMessage) {
+        jdbcTemplate.update(
+            "UPDATE lab_regrade_jobs SET status = :status, error_message = :errorMessage, " +
+            "finished_at = CASE WHEN :finished THEN CURRENT_TIMESTAMP ELSE NULL END WHERE id = :jobId",
+            new MapSqlParameterSource()
+                .addValue("jobId", jobId)
+                .addValue("status", status.name())
+                .addValue("errorMessage", errorMessage)
+                .addValue("finished", status != LabRegradeJob.Status.RUNNING));
+    }
+
+    /**
+     * Nueva nota de una submission re-evaluada
+     */
+    static final class RegradedScore {
+        private final long submissionId;
+        private final int score;
+        private final boolean passed;
+        private final String feedback;
+        private final LocalDateTime evaluatedAt;
+
+        RegradedScore(long submissionId, int score, boolean passed, String feedback, LocalDateTime evaluatedAt) {
+            this.submissionId = submissionId;
+            this.score = score;
+            this.passed = passed;
+            this.feedback = feedback;
+            this.evaluatedAt = evaluatedAt;
+        }
+    }
+}
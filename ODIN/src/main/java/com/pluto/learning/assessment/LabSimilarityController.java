@@ -0,0 +1,74 @@
+package com.pluto.learning.assessment;
+
+import com.pluto.learning.assessments.LabRepository;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Matriz de similitud entre todas las submissions de un laboratorio
+ */
+@RestController
+@RequestMapping("/api/assessment/labs/{labId}/similarity-matrix")
+@Tag(name = "Similarity Matrix", description = "Similitud entre todos los pares de envíos de un laboratorio")
+public class LabSimilarityController {
+
+    private static final int MAX_PAIRS = 5000;
+
+    private final LabSimilarityJobService jobService;
+    private final LabRepository labRepository;
+
+    public LabSimilarityController(LabSimilarityJobService jobService, LabRepository labRepository) {
+        this.jobService = jobService;
+        this.labRepository = labRepository;
+    }
+
+    @PostMapping
+    @Operation(summary = "Calcular (o reanudar) la matriz de similitud del laboratorio")
+    @ApiResponse(responseCode = "202", description = "Trabajo aceptado")
+    @ApiResponse(responseCode = "404", description = "Laboratorio no encontrado")
+    @PreAuthorize("hasRole('INSTRUCTOR') or hasRole('ADMIN')")
+    public ResponseEntity<LabSimilarityJob> start(
+            @Parameter(description = "ID del laboratorio") @PathVariable Long labId,
+            @Parameter(description = "Descartar el trabajo incompleto y empezar de cero")
+            @RequestParam(defaultValue = "false") boolean restart) {
+
+        if (!labRepository.existsById(labId)) {
+            return ResponseEntity.notFound().build();
+        }
+        return new ResponseEntity<>(jobService.start(labId, restart), HttpStatus.ACCEPTED);
+    }
+
+    @GetMapping("/status")
+    @Operation(summary = "Progreso del último trabajo de similitud del laboratorio")
+    @ApiResponse(responseCode = "200", description = "Estado del trabajo")
+    @ApiResponse(responseCode = "404", description = "No hay trabajos para el laboratorio")
+    @PreAuthorize("hasRole('INSTRUCTOR') or hasRole('ADMIN')")
+    public ResponseEntity<LabSimilarityJob> status(
+            @Parameter(description = "ID del laboratorio") @PathVariable Long labId) {
+
+        return jobService.findJob(labId)
+            .map(ResponseEntity::ok)
+            .orElse(ResponseEntity.notFound().build());
+    }
+
+    @GetMapping
+    @Operation(summary = "Pares más similares del último trabajo completado")
+    @ApiResponse(responseCode = "200", description = "Pares ordenados por similitud descendente")
+    @PreAuthorize("hasRole('INSTRUCTOR') or hasRole('ADMIN')")
+    public ResponseEntity<List<Map<String, Object>>> pairs(
+            @Parameter(description = "ID del laboratorio") @PathVariable Long labId,
+            @RequestParam(defaultValue = "0.5") double minSimilarity,
+            @RequestParam(defaultValue = "500") int limit) {
+
+        return ResponseEntity.ok(jobService.findPairs(labId, minSimilarity, Math.min(limit, MAX_PAIRS)));
+    }
+}
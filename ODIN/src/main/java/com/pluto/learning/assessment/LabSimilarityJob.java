@@ -0,0 +1,65 @@
+package com.pluto.learning.assessment;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Estado y progreso de un trabajo de matriz de similitud de un laboratorio
+ */
+public class LabSimilarityJob {
+
+    public enum Status {
+        QUEUED, RUNNING, COMPLETED, FAILED, INTERRUPTED
+    }
+
+    private final long id;
+    private final long labId;
+    private final int tileSize;
+    private final long maxSubmissionId;
+    private final int submissionCount;
+    private final int totalTiles;
+    private final AtomicInteger completedTiles;
+    private final AtomicLong persistedPairs = new AtomicLong();
+    private volatile Status status;
+    private volatile String errorMessage;
+
+    LabSimilarityJob(long id, long labId, Status status, int tileSize, long maxSubmissionId,
+                     int submissionCount, int totalTiles, int completedTiles, String errorMessage) {
+        this.id = id;
+        this.labId = labId;
+        this.status = status;
+        this.tileSize = tileSize;
+        this.maxSubmissionId = maxSubmissionId;
+        this.submissionCount = submissionCount;
+        this.totalTiles = totalTiles;
+        this.completedTiles = new AtomicInteger(completedTiles);
+        this.errorMessage = errorMessage;
+    }
+
+    void tileCompleted(int pairs) {
+        completedTiles.incrementAndGet();
+        persistedPairs.addAndGet(pairs);
+    }
+
+    void setStatus(Status status) { this.status = status; }
+    void setErrorMessage(String errorMessage) { this.errorMessage = errorMessage; }
+
+    boolean isFinished() {
+        return status == Status.COMPLETED || status == Status.FAILED || status == Status.INTERRUPTED;
+    }
+
+    public long getId() { return id; }
+    public long getLabId() { return labId; }
+    public Status getStatus() { return status; }
+    public int getTileSize() { return tileSize; }
+    public long getMaxSubmissionId() { return maxSubmissionId; }
+    public int getSubmissionCount() { return submissionCount; }
+    public int getTotalTiles() { return totalTiles; }
+    public int getCompletedTiles() { return completedTiles.get(); }
+    public long getPersistedPairs() { return persistedPairs.get(); }
+    public String getErrorMessage() { return errorMessage; }
+
+    public double getProgress() {
+        return totalTiles == 0 ? 1.0 : (double) completedTiles.get() / totalTiles;
+    }
+}
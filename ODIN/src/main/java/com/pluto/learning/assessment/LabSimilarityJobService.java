@@ -0,0 +1,290 @@
+package com.pluto.learning.assessment;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Trabajo por lotes que calcula la similitud entre todos los pares de submissions de
+ * un laboratorio (la última de cada usuario).
+ *
+ * La matriz triangular de pares se divide en tiles de {@code tileSize} × {@code tileSize}
+ * que se reparten en un {@link ForkJoinPool}. Cada tile intersecta las huellas winnowing
+ * ordenadas de sus submissions y se persiste junto con su marca de completado, de modo
+ * que un trabajo interrumpido se reanuda saltando los tiles ya guardados.
+ */
+@Service
+public class LabSimilarityJobService {
+
+    private final LabSimilarityRepository repository;
+    private final MeterRegistry meterRegistry;
+    private final int tileSize;
+    private final double minPersistedSimilarity;
+    private final ForkJoinPool pool;
+    private final ExecutorService coordinator = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "lab-similarity-coordinator");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Map<Long, LabSimilarityJob> activeJobs = new ConcurrentHashMap<>();
+    private final Map<Long, List<Meter>> gaugesByLab = new ConcurrentHashMap<>();
+
+    public LabSimilarityJobService(LabSimilarityRepository repository,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${assessment.similarity.tile-size:64}") int tileSize,
+                                   @Value("${assessment.similarity.min-persisted-similarity:0.1}") double minPersistedSimilarity,
+                                   @Value("${assessment.similarity.parallelism:0}") int parallelism) {
+        if (tileSize < 1) {
+            throw new IllegalArgumentException("assessment.similarity.tile-size debe ser positivo");
+        }
+        this.repository = repository;
+        this.meterRegistry = meterRegistry;
+        this.tileSize = tileSize;
+        this.minPersistedSimilarity = minPersistedSimilarity;
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Lanza (o reanuda, si el último quedó a medias) el cálculo de la matriz del laboratorio.
+     * Con {@code restart} se descarta el trabajo incompleto y se empieza de cero.
+     */
+    public synchronized LabSimilarityJob start(long labId, boolean restart) {
+        LabSimilarityJob running = activeJobs.get(labId);
+        if (running != null && !running.isFinished()) {
+            return running;
+        }
+
+        Optional<LabSimilarityJob> latest = repository.findLatestJob(labId);
+        LabSimilarityJob job;
+        if (!restart && latest.isPresent() && latest.get().getStatus() != LabSimilarityJob.Status.COMPLETED) {
+            job = latest.get();
+            repository.updateStatus(job.getId(), LabSimilarityJob.Status.RUNNING, null);
+        } else {
+            long maxSubmissionId = repository.findMaxSubmissionId(labId);
+            int submissionCount = repository.findLatestSubmissionIds(labId, maxSubmissionId).length;
+            int tileCount = tileCount(submissionCount, tileSize);
+            int totalTiles = tileCount * (tileCount + 1) / 2;
+            long jobId = repository.createJob(labId, tileSize, maxSubmissionId, submissionCount, totalTiles);
+            job = new LabSimilarityJob(jobId, labId, LabSimilarityJob.Status.RUNNING, tileSize,
+                maxSubmissionId, submissionCount, totalTiles, 0, null);
+        }
+        job.setStatus(LabSimilarityJob.Status.QUEUED);
+        job.setErrorMessage(null);
+
+        activeJobs.put(labId, job);
+        registerGauges(job);
+        coordinator.execute(() -> run(job));
+        return job;
+    }
+
+    /**
+     * Estado del trabajo en curso o, si no hay ninguno en memoria, del último persistido
+     */
+    public Optional<LabSimilarityJob> findJob(long labId) {
+        LabSimilarityJob active = activeJobs.get(labId);
+        return active != null ? Optional.of(active) : repository.findLatestJob(labId);
+    }
+
+    /**
+     * Pares del último trabajo completado del laboratorio
+     */
+    public List<Map<String, Object>> findPairs(long labId, double minSimilarity, int limit) {
+        return repository.findLatestJob(labId)
+            .filter(job -> job.getStatus() == LabSimilarityJob.Status.COMPLETED)
+            .map(job -> repository.findPairs(job.getId(), minSimilarity, limit))
+            .orElse(List.of());
+    }
+
+    private void run(LabSimilarityJob job) {
+        job.setStatus(LabSimilarityJob.Status.RUNNING);
+        try {
+            // Mismo conjunto de submissions en cada reanudación
+            long[] submissionIds = repository.findLatestSubmissionIds(job.getLabId(), job.getMaxSubmissionId());
+            if (submissionIds.length != job.getSubmissionCount()) {
+                throw new IllegalStateException("Las submissions del laboratorio cambiaron desde el inicio del trabajo; reinícielo con restart=true");
+            }
+            long[][] fingerprints = repository.loadFingerprints(submissionIds);
+
+            int tileCount = tileCount(submissionIds.length, job.getTileSize());
+            Set<Integer> completed = repository.findCompletedTiles(job.getId(), tileCount);
+            List<int[]> pending = new ArrayList<>();
+            for (int row = 0; row < tileCount; row++) {
+                for (int col = row; col < tileCount; col++) {
+                    if (!completed.contains(row * tileCount + col)) {
+                        pending.add(new int[] {row, col});
+                    }
+                }
+            }
+
+            pool.invoke(new TileTask(job, submissionIds, fingerprints, pending, 0, pending.size()));
+            if (job.getStatus() == LabSimilarityJob.Status.INTERRUPTED) {
+                // Se queda en RUNNING en base de datos para reanudarlo más tarde
+                return;
+            }
+
+            job.setStatus(LabSimilarityJob.Status.COMPLETED);
+            repository.updateStatus(job.getId(), LabSimilarityJob.Status.COMPLETED, null);
+        } catch (RuntimeException e) {
+            job.setStatus(LabSimilarityJob.Status.FAILED);
+            job.setErrorMessage(e.getMessage());
+            repository.updateStatus(job.getId(), LabSimilarityJob.Status.FAILED, e.getMessage());
+        }
+    }
+
+    /**
+     * Calcula un tile: pares (i, j) con i en la fila y j en la columna, i < j
+     */
+    SimilarityTileResult computeTile(long[] submissionIds, long[][] fingerprints, int row, int col, int size) {
+        SimilarityTileResult result = new SimilarityTileResult();
+        int rowEnd = Math.min(submissionIds.length, (row + 1) * size);
+        int colEnd = Math.min(submissionIds.length, (col + 1) * size);
+
+        for (int i = row * size; i < rowEnd; i++) {
+            for (int j = Math.max(col * size, i + 1); j < colEnd; j++) {
+                int smaller = Math.min(fingerprints[i].length, fingerprints[j].length);
+                if (smaller == 0) {
+                    continue;
+                }
+                int shared = countShared(fingerprints[i], fingerprints[j]);
+                double similarity = (double) shared / smaller;
+                if (similarity >= minPersistedSimilarity) {
+                    result.add(submissionIds[i], submissionIds[j], shared, similarity);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Intersección por mezcla de dos arrays ordenados sin duplicados
+     */
+    static int countShared(long[] a, long[] b) {
+        int i = 0;
+        int j = 0;
+        int shared = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                shared++;
+                i++;
+                j++;
+            }
+        }
+        return shared;
+    }
+
+    private static int tileCount(int submissions, int size) {
+        return (submissions + size - 1) / size;
+    }
+
+    private void registerGauges(LabSimilarityJob job) {
+        List<Meter> previous = gaugesByLab.remove(job.getLabId());
+        if (previous != null) {
+            previous.forEach(meterRegistry::remove);
+        }
+        Tags tags = Tags.of("labId", String.valueOf(job.getLabId()));
+        List<Meter> gauges = List.of(
+            Gauge.builder("assessment.similarity.tiles.completed", job, LabSimilarityJob::getCompletedTiles)
+                .tags(tags).description("Tiles de la matriz de similitud ya persistidos").register(meterRegistry),
+            Gauge.builder("assessment.similarity.tiles.total", job, LabSimilarityJob::getTotalTiles)
+                .tags(tags).description("Tiles totales de la matriz de similitud").register(meterRegistry),
+            Gauge.builder("assessment.similarity.pairs.persisted", job, LabSimilarityJob::getPersistedPairs)
+                .tags(tags).description("Pares persistidos en esta ejecución").register(meterRegistry),
+            Gauge.builder("assessment.similarity.progress", job, LabSimilarityJob::getProgress)
+                .tags(tags).description("Fracción completada del trabajo").register(meterRegistry));
+        gaugesByLab.put(job.getLabId(), gauges);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        // Los trabajos en curso quedan en RUNNING y se reanudan con el siguiente start()
+        activeJobs.values().forEach(job -> {
+            if (!job.isFinished()) {
+                job.setStatus(LabSimilarityJob.Status.INTERRUPTED);
+            }
+        });
+        coordinator.shutdownNow();
+        pool.shutdownNow();
+    }
+
+    /**
+     * Divide la lista de tiles pendientes hasta llegar a tiles individuales
+     */
+    private class TileTask extends RecursiveAction {
+        private final LabSimilarityJob job;
+        private final long[] submissionIds;
+        private final long[][] fingerprints;
+        private final List<int[]> tiles;
+        private final int from;
+        private final int to;
+
+        TileTask(LabSimilarityJob job, long[] submissionIds, long[][] fingerprints,
+                 List<int[]> tiles, int from, int to) {
+            this.job = job;
+            this.submissionIds = submissionIds;
+            this.fingerprints = fingerprints;
+            this.tiles = tiles;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (job.getStatus() == LabSimilarityJob.Status.INTERRUPTED) {
+                return;
+            }
+            if (to - from > 1) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new TileTask(job, submissionIds, fingerprints, tiles, from, middle),
+                          new TileTask(job, submissionIds, fingerprints, tiles, middle, to));
+                return;
+            }
+            if (to == from) {
+                return;
+            }
+            int[] tile = tiles.get(from);
+            SimilarityTileResult result = computeTile(submissionIds, fingerprints, tile[0], tile[1], job.getTileSize());
+            try {
+                // La escritura bloquea: el pool compensa con otro hilo mientras tanto
+                ForkJoinPool.managedBlock(new ForkJoinPool.ManagedBlocker() {
+                    private boolean done;
+
+                    @Override
+                    public boolean block() {
+                        repository.saveTile(job.getId(), tile[0], tile[1], result);
+                        done = true;
+                        return true;
+                    }
+
+                    @Override
+                    public boolean isReleasable() {
+                        return done;
+                    }
+                });
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Trabajo de similitud interrumpido", e);
+            }
+            job.tileCompleted(result.size());
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package com.pluto.learning.assessment;
+
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Persistencia de los trabajos de matriz de similitud de un laboratorio: estado del
+ * trabajo, tiles completados (para reanudar) y pares por encima del umbral.
+ */
+@Repository
+public class LabSimilarityRepository {
+
+    private static final int QUERY_CHUNK_SIZE = 1000;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    public LabSimilarityRepository(NamedParameterJdbcTemplate jdbcTemplate,
+                                   PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Última submission de cada usuario del laboratorio con id <= maxSubmissionId,
+     * ordenadas por id
+     */
+    public long[] findLatestSubmissionIds(long labId, long maxSubmissionId) {
+        List<Long> ids = jdbcTemplate.queryForList(
+            "SELECT MAX(id) AS id FROM lab_submissions " +
+            "WHERE lab_id = :labId AND id <= :maxSubmissionId " +
+            "GROUP BY user_id ORDER BY id",
+            new MapSqlParameterSource()
+                .addValue("labId", labId)
+                .addValue("maxSubmissionId", maxSubmissionId),
+            Long.class);
+        return ids.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    public long findMaxSubmissionId(long labId) {
+        Long max = jdbcTemplate.queryForObject(
+            "SELECT COALESCE(MAX(id), 0) FROM lab_submissions WHERE lab_id = :labId",
+            Map.of("labId", labId), Long.class);
+        return max != null ? max : 0L;
+    }
+
+    /**
+     * Huellas ordenadas de cada submission, alineadas con {@code submissionIds}
+     */
+    public long[][] loadFingerprints(long[] submissionIds) {
+        Map<Long, Integer> positions = new LinkedHashMap<>();
+        for (int i = 0; i < submissionIds.length; i++) {
+            positions.put(submissionIds[i], i);
+        }
+        long[][] fingerprints = new long[submissionIds.length][];
+        int[] sizes = new int[submissionIds.length];
+        for (int i = 0; i < fingerprints.length; i++) {
+            fingerprints[i] = new long[64];
+        }
+
+        for (int from = 0; from < submissionIds.length; from += QUERY_CHUNK_SIZE) {
+            int to = Math.min(submissionIds.length, from + QUERY_CHUNK_SIZE);
+            List<Long> chunk = new ArrayList<>(to - from);
+            for (int i = from; i < to; i++) {
+                chunk.add(submissionIds[i]);
+            }
+            jdbcTemplate.query(
+                "SELECT submission_id, fingerprint FROM submission_fingerprints " +
+                "WHERE submission_id IN (:submissionIds) ORDER BY submission_id, fingerprint",
+                Map.of("submissionIds", chunk),
+                rs -> {
+                    int position = positions.get(rs.getLong("submission_id"));
+                    if (sizes[position] == fingerprints[position].length) {
+                        fingerprints[position] = Arrays.copyOf(fingerprints[position], sizes[position] * 2);
+                    }
+                    fingerprints[position][sizes[position]++] = rs.getLong("fingerprint");
+                });
+        }
+
+        for (int i = 0; i < fingerprints.length; i++) {
+            fingerprints[i] = Arrays.copyOf(fingerprints[i], sizes[i]);
+        }
+        return fingerprints;
+    }
+
+    public long createJob(long labId, int tileSize, long maxSubmissionId, int submissionCount, int totalTiles) {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.update(
+            "INSERT INTO lab_similarity_jobs " +
+            "(lab_id, status, tile_size, max_submission_id, submission_count, total_tiles) " +
+            "VALUES (:labId, :status, :tileSize, :maxSubmissionId, :submissionCount, :totalTiles)",
+            new MapSqlParameterSource()
+                .addValue("labId", labId)
+                .addValue("status", LabSimilarityJob.Status.RUNNING.name())
+                .addValue("tileSize", tileSize)
+                .addValue("maxSubmissionId", maxSubmissionId)
+                .addValue("submissionCount", submissionCount)
+                .addValue("totalTiles", totalTiles),
+            keyHolder, new String[] {"id"});
+        return keyHolder.getKey().longValue();
+    }
+
+    /**
+     * Último trabajo del laboratorio, terminado o no
+     */
+    public Optional<LabSimilarityJob> findLatestJob(long labId) {
+        List<LabSimilarityJob> jobs = jdbcTemplate.query(
+            "SELECT * FROM lab_similarity_jobs WHERE lab_id = :labId ORDER BY id DESC LIMIT 1",
+            Map.of("labId", labId),
+            (rs, rowNum) -> new LabSimilarityJob(
+                rs.getLong("id"),
+                rs.getLong("lab_id"),
+                LabSimilarityJob.Status.valueOf(rs.getString("status")),
+                rs.getInt("tile_size"),
+                rs.getLong("max_submission_id"),
+                rs.getInt("submission_count"),
+                rs.getInt("total_tiles"),
+                rs.getInt("completed_tiles"),
+                rs.getString("error_message")));
+        return jobs.stream().findFirst();
+    }
+
+    /**
+     * Tiles ya persistidos, codificados como fila * tileCount + columna
+     */
+    public Set<Integer> findCompletedTiles(long jobId, int tileCount) {
+        Set<Integer> tiles = new HashSet<>();
+        jdbcTemplate.query(
+            "SELECT tile_row, tile_col FROM lab_similarity_tiles WHERE job_id = :jobId",
+            Map.of("jobId", jobId),
+            rs -> {
+                tiles.add(rs.getInt("tile_row") * tileCount + rs.getInt("tile_col"));
+            });
+        return tiles;
+    }
+
+    /**
+     * Guarda los pares de un tile y lo marca como completado en una misma transacción,
+     * de modo que un tile reanudado nunca se persiste dos veces
+     */
+    public void saveTile(long jobId, int tileRow, int tileCol, SimilarityTileResult result) {
+        transactionTemplate.executeWithoutResult(status -> {
+            if (result.size() > 0) {
+                MapSqlParameterSource[] batch = new MapSqlParameterSource[result.size()];
+                for (int i = 0; i < result.size(); i++) {
+                    batch[i] = new MapSqlParameterSource()
+                        .addValue("jobId", jobId)
+                        .addValue("submissionA", result.submissionA(i))
+                        .addValue("submissionB", result.submissionB(i))
+                        .addValue("shared", result.sharedFingerprints(i))
+                        .addValue("similarity", result.similarity(i));
+                }
+                jdbcTemplate.batchUpdate(
+                    "INSERT INTO lab_similarity_pairs " +
+                    "(job_id, submission_a, submission_b, shared_fingerprints, similarity) " +
+                    "VALUES (:jobId, :submissionA, :submissionB, :shared, :similarity)", batch);
+            }
+            MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("jobId", jobId)
+                .addValue("tileRow", tileRow)
+                .addValue("tileCol", tileCol);
+            jdbcTemplate.update(
+                "INSERT INTO lab_similarity_tiles (job_id, tile_row, tile_col) VALUES (:jobId, :tileRow, :tileCol)",
+                params);
+            jdbcTemplate.update(
+                "UPDATE lab_similarity_jobs SET completed_tiles = completed_tiles + 1 WHERE id = :jobId",
+                params);
+        });
+    }
+
+    public void updateStatus(long jobId, LabSimilarityJob.Status status, String errorMessage) {
+        jdbcTemplate.update(
+            "UPDATE lab_similarity_jobs SET status = :status, error_message = :errorMessage, " +
+            "finished_at = CASE WHEN :finished THEN CURRENT_TIMESTAMP ELSE NULL END WHERE id = :jobId",
+            new MapSqlParameterSource()
+                .addValue("jobId", jobId)
+                .addValue("status", status.name())
+                .addValue("errorMessage", errorMessage)
+                .addValue("finished", status != LabSimilarityJob.Status.RUNNING));
+    }
+
+    /**
+     * Pares de un trabajo con similitud mínima, de mayor a menor
+     */
+    public List<Map<String, Object>> findPairs(long jobId, double minSimilarity, int limit) {
+        return jdbcTemplate.queryForList(
+            "SELECT submission_a, submission_b, shared_fingerprints, similarity FROM lab_similarity_pairs " +
+            "WHERE job_id = :jobId AND similarity >= :minSimilarity " +
+            "ORDER BY similarity DESC LIMIT :limit",
+            new MapSqlParameterSource()
+                .addValue("jobId", jobId)
+                .addValue("minSimilarity", minSimilarity)
+                .addValue("limit", limit));
+    }
+}
@@ -0,0 +1,105 @@
+package com.pluto.learning.assessment;
+
+import com.pluto.learning.assessments.Lab;
+import com.pluto.learning.assessments.LabRepository;
+import com.pluto.learning.submissions.LabSubmission;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Etapa de evaluación de rendimiento para laboratorios con prueba de carga.
+ *
+ * Arranca el servicio del alumno en el {@link TestSandboxPool}, lanza el escenario del
+ * laboratorio con un {@link OpenLoadGenerator} al throughput objetivo y puntúa lo
+ * medido frente a los objetivos del laboratorio: p99 (50 puntos), throughput
+ * (30 puntos) y tasa de errores (20 puntos, cero a partir del 5%).
+ */
+@Component
+public class LoadTestGrader {
+
+    private static final double MAX_ERROR_RATE = 0.05;
+
+    private final TestSandboxPool sandbox;
+    private final LabRepository labRepository;
+    private final boolean enabled;
+    private final Duration warmup;
+    private final Duration duration;
+    private final Duration requestTimeout;
+    private final int maxOutstanding;
+
+    public LoadTestGrader(TestSandboxPool sandbox, LabRepository labRepository,
+                          @Value("${assessment.load-test.enabled:true}") boolean enabled,
+                          @Value("${assessment.load-test.warmup-seconds:5}") long warmupSeconds,
+                          @Value("${assessment.load-test.duration-seconds:30}") long durationSeconds,
+                          @Value("${assessment.load-test.request-timeout-ms:2000}") long requestTimeoutMs,
+                          @Value("${assessment.load-test.max-outstanding:1000}") int maxOutstanding) {
+        if (warmupSeconds < 0 || durationSeconds < 1 || requestTimeoutMs < 1 || maxOutstanding < 1) {
+            throw new IllegalArgumentException("Los parámetros de assessment.load-test deben ser positivos");
+        }
+        this.sandbox = sandbox;
+        this.labRepository = labRepository;
+        this.enabled = enabled;
+        this.warmup = Duration.ofSeconds(warmupSeconds);
+        this.duration = Duration.ofSeconds(durationSeconds);
+        this.requestTimeout = Duration.ofMillis(requestTimeoutMs);
+        this.maxOutstanding = maxOutstanding;
+    }
+
+    /**
+     * Ejecuta la prueba de carga de la submission; null si el laboratorio no la tiene
+     * configurada o el sandbox está deshabilitado. Si el servicio no arranca el score
+     * es 0 con el motivo en {@link PerformanceScore#getError()}.
+     */
+    public PerformanceScore grade(LabSubmission submission) {
+        if (!enabled || !sandbox.isEnabled() || submission.getLab() == null || submission.getLab().getId() == null) {
+            return null;
+        }
+        Lab lab = labRepository.findById(submission.getLab().getId()).orElse(null);
+        if (lab == null || lab.getLoadTestScenario() == null || lab.getLoadTestScenario().isBlank()
+                || lab.getLoadTestTargetRps() == null || lab.getLoadTestP99Ms() == null) {
+            return null;
+        }
+        LoadTestScenario scenario = LoadTestScenario.parse(lab.getLoadTestScenario());
+
+        PerformanceScore score = new PerformanceScore();
+        score.setTargetP99Millis(lab.getLoadTestP99Ms());
+        score.setTargetThroughput(lab.getLoadTestTargetRps());
+        OpenLoadGenerator.Report report;
+        try {
+            report = sandbox.withRunningService(submission, baseUri -> {
+                try {
+                    return new OpenLoadGenerator(requestTimeout, maxOutstanding)
+                        .run(baseUri, scenario, lab.getLoadTestTargetRps(), warmup, duration);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Prueba de carga interrumpida", e);
+                }
+            });
+        } catch (IllegalStateException e) {
+            if (Thread.currentThread().isInterrupted()) {
+                throw e;
+            }
+            score.setError(e.getMessage());
+            return score;
+        }
+
+        score.setRequests(report.requests());
+        score.setP50Millis(report.percentileMillis(50));
+        score.setP99Millis(report.percentileMillis(99));
+        score.setMaxMillis(report.maxMillis());
+        score.setThroughput(report.throughput());
+        score.setErrorRate(report.errorRate());
+        score.setScore(score(score.getP99Millis(), score.getThroughput(), score.getErrorRate(),
+            lab.getLoadTestP99Ms(), lab.getLoadTestTargetRps()));
+        return score;
+    }
+
+    static int score(double p99Millis, double throughput, double errorRate, int targetP99Millis, int targetThroughput) {
+        double latency = p99Millis <= targetP99Millis ? 1.0 : targetP99Millis / p99Millis;
+        double rate = Math.min(1.0, throughput / targetThroughput);
+        double errors = Math.max(0.0, 1.0 - errorRate / MAX_ERROR_RATE);
+        return (int) Math.round(latency * 50 + rate * 30 + errors * 20);
+    }
+}
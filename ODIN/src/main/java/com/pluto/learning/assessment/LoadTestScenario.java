@@ -0,0 +1,80 @@
+package com.pluto.learning.assessment;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Escenario HTTP de la prueba de carga de un laboratorio.
+ *
+ * Una petición por línea con el formato {@code MÉTODO ruta [cuerpo JSON]}; las líneas
+ * vacías y las que empiezan por {@code #} se ignoran. El generador recorre las
+ * peticiones en orden cíclico, así que repetir una línea aumenta su peso en la mezcla.
+ */
+final class LoadTestScenario {
+
+    private static final Set<String> METHODS = Set.of("GET", "POST", "PUT", "PATCH", "DELETE", "HEAD");
+
+    private final List<Request> requests;
+
+    private LoadTestScenario(List<Request> requests) {
+        this.requests = List.copyOf(requests);
+    }
+
+    static LoadTestScenario parse(String script) {
+        List<Request> requests = new ArrayList<>();
+        String[] lines = script == null ? new String[0] : script.split("\\R");
+        for (int i = 0; i < lines.length; i++) {
+            String line = lines[i].strip();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            String[] parts = line.split("\\s+", 3);
+            String method = parts[0].toUpperCase(Locale.ROOT);
+            if (parts.length < 2 || !METHODS.contains(method) || !parts[1].startsWith("/")) {
+                throw new IllegalArgumentException("Línea " + (i + 1) + " del escenario inválida: " + line);
+            }
+            requests.add(new Request(method, parts[1], parts.length > 2 ? parts[2] : null));
+        }
+        if (requests.isEmpty()) {
+            throw new IllegalArgumentException("El escenario de carga no tiene peticiones");
+        }
+        return new LoadTestScenario(requests);
+    }
+
+    /**
+     * Petición que corresponde al envío número {@code sequence}
+     */
+    Request next(long sequence) {
+        return requests.get((int) (sequence % requests.size()));
+    }
+
+    List<Request> requests() {
+        return requests;
+    }
+
+    static final class Request {
+        private final String method;
+        private final String path;
+        private final String body;
+
+        Request(String method, String path, String body) {
+            this.method = method;
+            this.path = path;
+            this.body = body;
+        }
+
+        String method() {
+            return method;
+        }
+
+        String path() {
+            return path;
+        }
+
+        String body() {
+            return body;
+        }
+    }
+}
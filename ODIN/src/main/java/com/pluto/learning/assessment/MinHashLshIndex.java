@@ -0,0 +1,269 @@
+package com.pluto.learning.assessment;
+
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Firmas MinHash y buckets LSH para la preselección de candidatos de plagio.
+ *
+ * Cada submission (identificada por su commit hash) se reduce a una firma de
+ * {@value #NUM_HASHES} valores que se guarda en un único {@code long[]} plano.
+ * La firma se divide en {@value #BANDS} bandas; dos submissions son candidatas si
+ * coinciden en alguna banda, por lo que la búsqueda solo visita los buckets de la
+ * consulta y no el corpus completo. Con 100k submissions el índice ocupa ~100 MB.
+ */
+@Component
+public class MinHashLshIndex {
+
+    static final int NUM_HASHES = 64;
+    static final int BANDS = 16;
+    static final int ROWS = NUM_HASHES / BANDS;
+
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int EMPTY = -1;
+
+    private final long[] seeds = new long[NUM_HASHES];
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Almacenamiento por slot (una entrada por commit)
+    private final Map<String, Integer> slotByKey = new HashMap<>();
+    private long[] signatures = new long[INITIAL_CAPACITY * NUM_HASHES];
+    private long[] submissionIds = new long[INITIAL_CAPACITY];
+    private long[] userIds = new long[INITIAL_CAPACITY];
+    private int size;
+
+    // Multimapa banda -> slots: tabla de direccionamiento abierto con listas enlazadas
+    // sobre el índice de entrada (slot * BANDS + banda)
+    private long[] bucketKeys = new long[INITIAL_CAPACITY * BANDS * 2];
+    private int[] bucketHeads = newFilledArray(INITIAL_CAPACITY * BANDS * 2);
+    private int[] entryNext = new int[INITIAL_CAPACITY * BANDS];
+    private int bucketCount;
+
+    public MinHashLshIndex() {
+        SplittableRandom random = new SplittableRandom(0x5DEECE66DL);
+        for (int i = 0; i < NUM_HASHES; i++) {
+            seeds[i] = random.nextLong();
+        }
+    }
+
+    /**
+     * Calcula la firma MinHash de un conjunto de huellas
+     */
+    public long[] signature(long[] fingerprints) {
+        long[] signature = new long[NUM_HASHES];
+        Arrays.fill(signature, Long.MAX_VALUE);
+        for (long fingerprint : fingerprints) {
+            for (int i = 0; i < NUM_HASHES; i++) {
+                long hash = mix(fingerprint ^ seeds[i]);
+                if (hash < signature[i]) {
+                    signature[i] = hash;
+                }
+            }
+        }
+        return signature;
+    }
+
+    public boolean contains(String key) {
+        lock.readLock().lock();
+        try {
+            return slotByKey.containsKey(key);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Firma ya registrada para el commit, o {@code null} si no está indexado
+     */
+    public long[] findSignature(String key) {
+        lock.readLock().lock();
+        try {
+            Integer slot = slotByKey.get(key);
+            return slot == null ? null
+                : Arrays.copyOfRange(signatures, slot * NUM_HASHES, (slot + 1) * NUM_HASHES);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Registra la firma de una submission; si el commit ya estaba indexado no hace nada
+     */
+    public void register(String key, long submissionId, long userId, long[] signature) {
+        lock.writeLock().lock();
+        try {
+            if (slotByKey.containsKey(key)) {
+                return;
+            }
+            ensureCapacity(size + 1);
+
+            int slot = size++;
+            slotByKey.put(key, slot);
+            System.arraycopy(signature, 0, signatures, slot * NUM_HASHES, NUM_HASHES);
+            submissionIds[slot] = submissionId;
+            userIds[slot] = userId;
+
+            for (int band = 0; band < BANDS; band++) {
+                addToBucket(bandKey(signature, band), slot * BANDS + band);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Devuelve las N submissions previas (de otros usuarios) con mayor similitud
+     * Jaccard estimada que comparten al menos una banda con la firma
+     */
+    public List<LshCandidate> findCandidates(long[] signature, long excludedUserId, int limit) {
+        Map<Integer, Integer> collisions = new HashMap<>();
+
+        lock.readLock().lock();
+        try {
+            for (int band = 0; band < BANDS; band++) {
+                int bucket = findBucket(bandKey(signature, band));
+                if (bucket == EMPTY) {
+                    continue;
+                }
+                for (int entry = bucketHeads[bucket]; entry != EMPTY; entry = entryNext[entry]) {
+                    int slot = entry / BANDS;
+                    if (userIds[slot] != excludedUserId) {
+                        collisions.merge(slot, 1, Integer::sum);
+                    }
+                }
+            }
+
+            List<LshCandidate> candidates = new ArrayList<>(collisions.size());
+            for (int slot : collisions.keySet()) {
+                candidates.add(new LshCandidate(submissionIds[slot], estimateSimilarity(signature, slot)));
+            }
+            candidates.sort((a, b) -> Double.compare(b.getEstimatedSimilarity(), a.getEstimatedSimilarity()));
+            return candidates.size() > limit ? new ArrayList<>(candidates.subList(0, limit)) : candidates;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private double estimateSimilarity(long[] signature, int slot) {
+        int offset = slot * NUM_HASHES;
+        int equal = 0;
+        for (int i = 0; i < NUM_HASHES; i++) {
+            if (signatures[offset + i] == signature[i]) {
+                equal++;
+            }
+        }
+        return (double) equal / NUM_HASHES;
+    }
+
+    private void addToBucket(long key, int entry) {
+        int bucket = findBucket(key);
+        if (bucket == EMPTY) {
+            if ((bucketCount + 1) * 2 > bucketKeys.length) {
+                rehash(bucketKeys.length * 2);
+            }
+            bucket = insertionPoint(key);
+            bucketKeys[bucket] = key;
+            bucketCount++;
+        }
+        entryNext[entry] = bucketHeads[bucket];
+        bucketHeads[bucket] = entry;
+    }
+
+    private int findBucket(long key) {
+        int mask = bucketKeys.length - 1;
+        for (int i = (int) mix(key) & mask; bucketHeads[i] != EMPTY; i = (i + 1) & mask) {
+            if (bucketKeys[i] == key) {
+                return i;
+            }
+        }
+        return EMPTY;
+    }
+
+    private int insertionPoint(long key) {
+        int mask = bucketKeys.length - 1;
+        int i = (int) mix(key) & mask;
+        while (bucketHeads[i] != EMPTY) {
+            i = (i + 1) & mask;
+        }
+        return i;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = bucketKeys;
+        int[] oldHeads = bucketHeads;
+        bucketKeys = new long[capacity];
+        bucketHeads = newFilledArray(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldHeads[i] != EMPTY) {
+                int bucket = insertionPoint(oldKeys[i]);
+                bucketKeys[bucket] = oldKeys[i];
+                bucketHeads[bucket] = oldHeads[i];
+            }
+        }
+    }
+
+    private void ensureCapacity(int slots) {
+        if (slots <= submissionIds.length) {
+            return;
+        }
+        int capacity = submissionIds.length * 2;
+        signatures = Arrays.copyOf(signatures, capacity * NUM_HASHES);
+        submissionIds = Arrays.copyOf(submissionIds, capacity);
+        userIds = Arrays.copyOf(userIds, capacity);
+        entryNext = Arrays.copyOf(entryNext, capacity * BANDS);
+    }
+
+    private static long bandKey(long[] signature, int band) {
+        long key = band;
+        for (int row = 0; row < ROWS; row++) {
+            key = key * 0x100000001B3L + signature[band * ROWS + row];
+        }
+        return key;
+    }
+
+    private static long mix(long value) {
+        long z = value + 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    private static int[] newFilledArray(int length) {
+        int[] array = new int[length];
+        Arrays.fill(array, EMPTY);
+        return array;
+    }
+}
+
+/**
+ * Candidato devuelto por el índice LSH con su similitud Jaccard estimada
+ */
+class LshCandidate {
+    private final long submissionId;
+    private final double estimatedSimilarity;
+
+    LshCandidate(long submissionId, double estimatedSimilarity) {
+        this.submissionId = submissionId;
+        this.estimatedSimilarity = estimatedSimilarity;
+    }
+
+    public long getSubmissionId() { return submissionId; }
+    public double getEstimatedSimilarity() { return estimatedSimilarity; }
+}
@@ -0,0 +1,169 @@
+package com.pluto.learning.assessment;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.SynchronizedHistogram;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Generador de carga de modelo abierto.
+ *
+ * Las peticiones se lanzan a ritmo constante según un calendario fijo, sin esperar a
+ * que terminen las anteriores, como llegan los usuarios reales. La latencia de cada
+ * petición se mide desde el instante en que tocaba enviarla y no desde que se envió:
+ * si el servicio se satura, el retraso acumulado aparece en los percentiles en vez de
+ * ocultarse frenando al generador (omisión coordinada). Las latencias se registran en
+ * un histograma HdrHistogram con 3 cifras significativas.
+ *
+ * Las peticiones del calentamiento se envían pero no se miden. Si hay más de
+ * {@code maxOutstanding} peticiones sin respuesta las siguientes se descartan y
+ * cuentan como errores, para no agotar la memoria con un servicio bloqueado.
+ */
+final class OpenLoadGenerator {
+
+    private final HttpClient client;
+    private final Duration requestTimeout;
+    private final int maxOutstanding;
+
+    OpenLoadGenerator(Duration requestTimeout, int maxOutstanding) {
+        if (requestTimeout.isNegative() || requestTimeout.isZero() || maxOutstanding < 1) {
+            throw new IllegalArgumentException("Parámetros de carga inválidos: timeout=" + requestTimeout
+                + ", maxOutstanding=" + maxOutstanding);
+        }
+        this.client = HttpClient.newBuilder()
+            .connectTimeout(requestTimeout)
+            .version(HttpClient.Version.HTTP_1_1)
+            .build();
+        this.requestTimeout = requestTimeout;
+        this.maxOutstanding = maxOutstanding;
+    }
+
+    /**
+     * Ejecuta el escenario contra {@code baseUri} a {@code ratePerSecond} peticiones por
+     * segundo y devuelve lo medido tras el calentamiento
+     */
+    Report run(URI baseUri, LoadTestScenario scenario, int ratePerSecond, Duration warmup, Duration duration)
+            throws InterruptedException {
+        if (ratePerSecond < 1 || duration.isZero() || duration.isNegative()) {
+            throw new IllegalArgumentException("Ritmo o duración de carga inválidos");
+        }
+        Histogram latencies = new SynchronizedHistogram(3);
+        AtomicInteger outstanding = new AtomicInteger();
+        AtomicLong requests = new AtomicLong();
+        AtomicLong errors = new AtomicLong();
+
+        double intervalNanos = 1_000_000_000.0 / ratePerSecond;
+        long start = System.nanoTime();
+        long measureFrom = start + warmup.toNanos();
+        long end = measureFrom + duration.toNanos();
+        for (long sequence = 0; ; sequence++) {
+            long intended = start + (long) (sequence * intervalNanos);
+            if (intended >= end) {
+                break;
+            }
+            waitUntil(intended);
+            boolean measured = intended >= measureFrom;
+            if (measured) {
+                requests.incrementAndGet();
+            }
+            if (outstanding.get() >= maxOutstanding) {
+                if (measured) {
+                    errors.incrementAndGet();
+                }
+                continue;
+            }
+            outstanding.incrementAndGet();
+            client.sendAsync(request(baseUri, scenario.next(sequence)), HttpResponse.BodyHandlers.discarding())
+                .whenComplete((response, error) -> {
+                    if (measured) {
+                        latencies.recordValue(TimeUnit.NANOSECONDS.toMicros(Math.max(0, System.nanoTime() - intended)));
+                        if (error != null || response.statusCode() >= 400) {
+                            errors.incrementAndGet();
+                        }
+                    }
+                    outstanding.decrementAndGet();
+                });
+        }
+
+        // Las últimas peticiones tienen hasta su timeout para responder
+        long drainDeadline = System.nanoTime() + requestTimeout.toNanos() + TimeUnit.SECONDS.toNanos(1);
+        while (outstanding.get() > 0 && System.nanoTime() < drainDeadline) {
+            Thread.sleep(10);
+        }
+        return new Report(latencies.copy(), requests.get(), errors.get(), duration);
+    }
+
+    private HttpRequest request(URI baseUri, LoadTestScenario.Request request) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(baseUri.resolve(request.path()))
+            .timeout(requestTimeout);
+        if (request.body() != null) {
+            builder.header("Content-Type", "application/json")
+                .method(request.method(), HttpRequest.BodyPublishers.ofString(request.body()));
+        } else {
+            builder.method(request.method(), HttpRequest.BodyPublishers.noBody());
+        }
+        return builder.build();
+    }
+
+    private static void waitUntil(long nanoTime) throws InterruptedException {
+        long remaining;
+        while ((remaining = nanoTime - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+            if (Thread.interrupted()) {
+                throw new InterruptedException("Prueba de carga interrumpida");
+            }
+        }
+    }
+
+    /**
+     * Resultado de una prueba de carga; latencias en microsegundos
+     */
+    static final class Report {
+        private final Histogram latencies;
+        private final long requests;
+        private final long errors;
+        private final Duration duration;
+
+        Report(Histogram latencies, long requests, long errors, Duration duration) {
+            this.latencies = latencies;
+            this.requests = requests;
+            this.errors = errors;
+            this.duration = duration;
+        }
+
+        long requests() {
+            return requests;
+        }
+
+        long errors() {
+            return errors;
+        }
+
+        double percentileMillis(double percentile) {
+            return latencies.getTotalCount() == 0 ? 0.0 : latencies.getValueAtPercentile(percentile) / 1000.0;
+        }
+
+        double maxMillis() {
+            return latencies.getTotalCount() == 0 ? 0.0 : latencies.getMaxValue() / 1000.0;
+        }
+
+        /**
+         * Respuestas correctas por segundo en la ventana medida
+         */
+        double throughput() {
+            return (requests - errors) / (duration.toNanos() / 1_000_000_000.0);
+        }
+
+        double errorRate() {
+            return requests == 0 ? 0.0 : (double) errors / requests;
+        }
+    }
+}
@@ -71,7 +71,16 @@ class FeedbackGenerator {
         
         // Feedback por categoría
         if (result.getFunctionalityScore() != null) {
-            feedback.append(generateFunctionalityFeedback(result.getFunctionalityScore()));
+            feedback.append(generateFunctionalityFeedback(result.getFunctionalityScore(),
+                (int) Math.round(result.getFunctionalityWeight() * 100)));
+        }
+        
+        if (result.getPerformanceScore() != null) {
+            feedback.append(generatePerformanceFeedback(result.getPerformanceScore()));
+        }
+        
+        if (result.getBenchmarkScore() != null) {
+            feedback.append(generateBenchmarkFeedback(result.getBenchmarkScore()));
         }
         
         if (result.getCodeQualityScore() != null) {
@@ -95,20 +104,32 @@ class FeedbackGenerator {
             feedback.append(generatePlagiarismFeedback(result.getPlagiarismAnalysis()));
         }
         
+        // Evaluación parcial
+        if (result.isPartial()) {
+            feedback.append("### Incomplete Evaluation\n");
+            result.getIncompleteStages().forEach((stage, reason) ->
+                feedback.append(String.format("- %s: %s\n", stage, reason)));
+            feedback.append("An instructor will review this submission.\n\n");
+        }
+        
         // Recomendaciones
         feedback.append(generateRecommendations(result));
         
         return feedback.toString();
     }
     
-    private String generateFunctionalityFeedback(FunctionalityScore score) {
+    private String generateFunctionalityFeedback(FunctionalityScore score, int weight) {
         StringBuilder fb = new StringBuilder();
-        fb.append("### Functionality (40% weight)\n");
+        fb.append(String.format("### Functionality (%d%% weight)\n", weight));
         fb.append(String.format("Score: %d/100\n", score.getScore()));
         fb.append(String.format("Tests: %d/%d passed (%.1f%%)\n", 
                 score.getTestsPassed(), score.getTestsTotal(), 
                 score.getTestsTotal() > 0 ? (100.0 * score.getTestsPassed() / score.getTestsTotal()) : 0));
         fb.append(String.format("Test Coverage: %.1f%%\n", score.getTestCoverage() * 100));
+        if (score.getMutationScore() >= 0) {
+            fb.append(String.format("Mutation Score: %.1f%% (%d/%d mutants killed)\n",
+                    score.getMutationScore() * 100, score.getMutantsKilled(), score.getMutantsTotal()));
+        }
         fb.append(String.format("Endpoints: %d/%d working\n\n", 
                 score.getEndpointsWorking(), score.getEndpointsTotal()));
         
@@ -121,6 +142,46 @@ class FeedbackGenerator {
         return fb.toString();
     }
     
+    private String generatePerformanceFeedback(PerformanceScore score) {
+        StringBuilder fb = new StringBuilder();
+        fb.append("### Performance Under Load (10% weight)\n");
+        fb.append(String.format("Score: %d/100\n", score.getScore()));
+        if (score.getError() != null) {
+            fb.append("⚠️ **Load test not run**: the service could not be started.\n");
+            fb.append("```\n").append(score.getError()).append("\n```\n\n");
+            return fb.toString();
+        }
+        fb.append(String.format("Latency: p50 %.1f ms, p99 %.1f ms (target %d ms), max %.1f ms\n",
+                score.getP50Millis(), score.getP99Millis(), score.getTargetP99Millis(), score.getMaxMillis()));
+        fb.append(String.format("Throughput: %.1f req/s (target %d req/s)\n",
+                score.getThroughput(), score.getTargetThroughput()));
+        fb.append(String.format("Errors: %.2f%% of %d requests\n\n", score.getErrorRate() * 100, score.getRequests()));
+        
+        if (score.getP99Millis() > score.getTargetP99Millis()) {
+            fb.append("⚠️ **Tail latency above target**: look for blocking calls, lock contention or undersized pools on the request path.\n\n");
+        }
+        
+        return fb.toString();
+    }
+    
+    private String generateBenchmarkFeedback(BenchmarkScore score) {
+        StringBuilder fb = new StringBuilder();
+        fb.append("### Benchmark (10% weight)\n");
+        fb.append(String.format("Score: %d/100\n", score.getScore()));
+        if (score.getError() != null) {
+            fb.append("⚠️ **Benchmark not run**: your implementation could not be measured with the lab harness.\n");
+            fb.append("```\n").append(score.getError()).append("\n```\n\n");
+            return fb.toString();
+        }
+        fb.append(String.format("Throughput: %.0f%% of the reference solution\n", score.getRelativeThroughput() * 100));
+        score.getReferenceOpsPerSecond().forEach((benchmark, reference) ->
+            fb.append(String.format("- %s: %.1f ops/s (reference %.1f ops/s)\n",
+                benchmark, score.getOpsPerSecond().getOrDefault(benchmark, 0.0), reference)));
+        fb.append("\n");
+        
+        return fb.toString();
+    }
+    
     private String generateCodeQualityFeedback(CodeQualityScore score) {
         StringBuilder fb = new StringBuilder();
         fb.append("### Code Quality (25% weight)\n");
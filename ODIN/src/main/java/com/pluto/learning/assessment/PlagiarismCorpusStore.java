@@ -0,0 +1,500 @@
+package com.pluto.learning.assessment;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Corpus de plagio en disco: huellas winnowing y flujos de tokens normalizados de
+ * cada submission en ficheros de segmento de solo-añadir, leídos mediante
+ * {@link MappedByteBuffer}.
+ *
+ * En el heap solo vive el directorio submissionId -> (segmento, offset); las
+ * lecturas devuelven vistas sobre el mapeo sin copiar datos. Al arrancar, el
+ * directorio se reconstruye recorriendo las cabeceras de los segmentos, sin pasar
+ * por Postgres. Reindexar una submission añade un registro nuevo y deja el anterior
+ * como espacio muerto, que la compactación en segundo plano recupera fusionando los
+ * segmentos sellados poco ocupados en el segmento activo.
+ *
+ * Formato de registro (alineado a 8 bytes):
+ * longitud, marca de confirmación, submissionId, labId, userId, longitud de la
+ * clave, nº de huellas, nº de tokens, nº de ficheros, longitud de la tabla de
+ * rutas, clave UTF-8, tabla de rutas (longitud + UTF-8 por fichero), huellas,
+ * tokens, líneas y fichero de cada token.
+ */
+@Component
+public class PlagiarismCorpusStore {
+
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final int COMMITTED = 0x0D1C0DE2;
+    private static final int HEADER_SIZE = 52;
+    private static final double COMPACTION_LIVE_RATIO = 0.5;
+
+    private final Path directory;
+    private final int segmentSize;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final TreeMap<Integer, Segment> segments = new TreeMap<>();
+    // submissionId -> (id de segmento << 32 | offset)
+    private final Map<Long, Long> locations = new HashMap<>();
+    private final ScheduledExecutorService compactor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "plagiarism-corpus-compactor");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private Segment active;
+
+    public PlagiarismCorpusStore(@Value("${assessment.plagiarism.corpus-dir:${java.io.tmpdir}/odin-plagiarism-corpus}") String directory,
+                                 @Value("${assessment.plagiarism.corpus-segment-size:67108864}") int segmentSize,
+                                 @Value("${assessment.plagiarism.corpus-compaction-interval-ms:600000}") long compactionIntervalMs) {
+        if (segmentSize < HEADER_SIZE * 16) {
+            throw new IllegalArgumentException("assessment.plagiarism.corpus-segment-size demasiado pequeño");
+        }
+        this.directory = Path.of(directory);
+        this.segmentSize = segmentSize;
+        open();
+        if (compactionIntervalMs > 0) {
+            compactor.scheduleWithFixedDelay(this::compactInBackground, compactionIntervalMs, compactionIntervalMs,
+                TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Añade (o reemplaza) el registro de una submission. {@code lines[i]} es la línea
+     * de origen del token normalizado {@code tokens[i]} y {@code files[i]} el índice
+     * de su fichero en {@code paths}.
+     */
+    public void append(long submissionId, long labId, long userId, String key,
+                       long[] fingerprints, int[] tokens, int[] lines, int[] files, List<String> paths,
+                       int tokenCount) {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        byte[] pathTable = pathTable(paths);
+        int length = recordLength(keyBytes.length + pathTable.length, fingerprints.length, tokenCount);
+
+        lock.writeLock().lock();
+        try {
+            Segment segment = segmentFor(length);
+            int offset = segment.writePosition;
+            ByteBuffer buffer = segment.buffer;
+
+            buffer.putInt(offset, length);
+            buffer.putLong(offset + 8, submissionId);
+            buffer.putLong(offset + 16, labId);
+            buffer.putLong(offset + 24, userId);
+            buffer.putInt(offset + 32, keyBytes.length);
+            buffer.putInt(offset + 36, fingerprints.length);
+            buffer.putInt(offset + 40, tokenCount);
+            buffer.putInt(offset + 44, paths.size());
+            buffer.putInt(offset + 48, pathTable.length);
+            buffer.put(offset + HEADER_SIZE, keyBytes);
+            buffer.put(offset + HEADER_SIZE + keyBytes.length, pathTable);
+
+            int position = dataOffset(offset, HEADER_SIZE + keyBytes.length + pathTable.length);
+            for (long fingerprint : fingerprints) {
+                buffer.putLong(position, fingerprint);
+                position += Long.BYTES;
+            }
+            for (int i = 0; i < tokenCount; i++) {
+                buffer.putInt(position, tokens[i]);
+                position += Integer.BYTES;
+            }
+            for (int i = 0; i < tokenCount; i++) {
+                buffer.putInt(position, lines[i]);
+                position += Integer.BYTES;
+            }
+            for (int i = 0; i < tokenCount; i++) {
+                buffer.putInt(position, files[i]);
+                position += Integer.BYTES;
+            }
+            // La marca se escribe al final: un registro a medias se descarta al reabrir
+            buffer.putInt(offset + 4, COMMITTED);
+
+            segment.writePosition += length;
+            segment.liveBytes += length;
+            release(locations.put(submissionId, location(segment.id, offset)));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Vista del registro de una submission, o null si no está en el corpus
+     */
+    public CorpusEntry find(long submissionId) {
+        lock.readLock().lock();
+        try {
+            Long location = locations.get(submissionId);
+            return location != null ? read(segments.get(segmentId(location)), offset(location)) : null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public boolean contains(long submissionId) {
+        lock.readLock().lock();
+        try {
+            return locations.containsKey(submissionId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return locations.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Recorre los registros vivos (p. ej. para recargar el índice LSH al arrancar)
+     */
+    public void forEach(Consumer<CorpusEntry> consumer) {
+        List<CorpusEntry> entries = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (long location : locations.values()) {
+                entries.add(read(segments.get(segmentId(location)), offset(location)));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        entries.forEach(consumer);
+    }
+
+    /**
+     * Fusiona en el segmento activo los registros vivos de los segmentos sellados
+     * con poca ocupación y elimina sus ficheros
+     */
+    public void compact() {
+        lock.writeLock().lock();
+        try {
+            List<Segment> candidates = new ArrayList<>();
+            for (Segment segment : segments.values()) {
+                if (segment != active && segment.liveBytes < segment.writePosition * COMPACTION_LIVE_RATIO) {
+                    candidates.add(segment);
+                }
+            }
+            for (Segment segment : candidates) {
+                int offset = 0;
+                while (offset < segment.writePosition) {
+                    int length = segment.buffer.getInt(offset);
+                    long submissionId = segment.buffer.getLong(offset + 8);
+                    Long current = locations.get(submissionId);
+                    if (current != null && current == location(segment.id, offset)) {
+                        copyRecord(segment, offset, length, submissionId);
+                    }
+                    offset += length;
+                }
+                segments.remove(segment.id);
+                segment.close();
+                Files.deleteIfExists(segment.path);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error compactando el corpus de plagio", e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Una excepción que escape cancela las ejecuciones siguientes del planificador:
+     * un fallo de E/S solo se salta esta pasada
+     */
+    private void compactInBackground() {
+        try {
+            compact();
+        } catch (RuntimeException e) {
+            // Se reintenta en la siguiente pasada
+        }
+    }
+
+    @PreDestroy
+    void close() {
+        compactor.shutdownNow();
+        lock.writeLock().lock();
+        try {
+            for (Segment segment : segments.values()) {
+                segment.buffer.force();
+                segment.close();
+            }
+            segments.clear();
+            locations.clear();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error cerrando el corpus de plagio", e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void copyRecord(Segment source, int offset, int length, long submissionId) {
+        Segment target = segmentFor(length);
+        ByteBuffer slice = source.buffer.slice(offset, length);
+        target.buffer.put(target.writePosition, slice, 0, length);
+        locations.put(submissionId, location(target.id, target.writePosition));
+        target.writePosition += length;
+        target.liveBytes += length;
+    }
+
+    /**
+     * Reconstruye el directorio a partir de las cabeceras de los segmentos existentes
+     */
+    private void open() {
+        try {
+            Files.createDirectories(directory);
+            List<Path> files;
+            try (Stream<Path> stream = Files.list(directory)) {
+                files = stream
+                    .filter(path -> path.getFileName().toString().startsWith(SEGMENT_PREFIX))
+                    .filter(path -> path.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                    .toList();
+            }
+            for (Path path : files) {
+                String name = path.getFileName().toString();
+                int id = Integer.parseInt(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+                Segment segment = Segment.open(id, path, (int) Math.max(Files.size(path), segmentSize));
+                segments.put(id, segment);
+            }
+            for (Segment segment : segments.values()) {
+                scan(segment);
+            }
+            active = segments.isEmpty() ? newSegment(segmentSize) : segments.lastEntry().getValue();
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo abrir el corpus de plagio en " + directory, e);
+        }
+    }
+
+    private void scan(Segment segment) {
+        ByteBuffer buffer = segment.buffer;
+        int offset = 0;
+        while (offset + HEADER_SIZE <= buffer.capacity()) {
+            int length = buffer.getInt(offset);
+            int marker = buffer.getInt(offset + 4);
+            if (length < HEADER_SIZE || offset + length > buffer.capacity() || marker != COMMITTED) {
+                break;
+            }
+            segment.liveBytes += length;
+            release(locations.put(buffer.getLong(offset + 8), location(segment.id, offset)));
+            offset += length;
+        }
+        segment.writePosition = offset;
+    }
+
+    private Segment segmentFor(int length) {
+        if (active.writePosition + length <= active.buffer.capacity()) {
+            return active;
+        }
+        active = newSegment(Math.max(segmentSize, length));
+        return active;
+    }
+
+    private Segment newSegment(int size) {
+        int id = segments.isEmpty() ? 0 : segments.lastKey() + 1;
+        Path path = directory.resolve(String.format("%s%08d%s", SEGMENT_PREFIX, id, SEGMENT_SUFFIX));
+        try {
+            Segment segment = Segment.open(id, path, size);
+            segments.put(id, segment);
+            return segment;
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo crear el segmento " + path, e);
+        }
+    }
+
+    /**
+     * El registro anterior de una submission pasa a ser espacio muerto
+     */
+    private void release(Long previous) {
+        if (previous != null) {
+            Segment segment = segments.get(segmentId(previous));
+            segment.liveBytes -= segment.buffer.getInt(offset(previous));
+        }
+    }
+
+    private CorpusEntry read(Segment segment, int offset) {
+        ByteBuffer buffer = segment.buffer;
+        int keyLength = buffer.getInt(offset + 32);
+        int fingerprintCount = buffer.getInt(offset + 36);
+        int tokenCount = buffer.getInt(offset + 40);
+        int pathTableLength = buffer.getInt(offset + 48);
+
+        byte[] key = new byte[keyLength];
+        buffer.get(offset + HEADER_SIZE, key);
+        List<String> paths = new ArrayList<>(buffer.getInt(offset + 44));
+        int position = offset + HEADER_SIZE + keyLength;
+        int pathTableEnd = position + pathTableLength;
+        while (position < pathTableEnd) {
+            byte[] path = new byte[buffer.getInt(position)];
+            buffer.get(position + Integer.BYTES, path);
+            paths.add(new String(path, StandardCharsets.UTF_8));
+            position += Integer.BYTES + path.length;
+        }
+
+        int fingerprints = dataOffset(offset, HEADER_SIZE + keyLength + pathTableLength);
+        int tokens = fingerprints + fingerprintCount * Long.BYTES;
+        int lines = tokens + tokenCount * Integer.BYTES;
+        int files = lines + tokenCount * Integer.BYTES;
+
+        return new CorpusEntry(
+            buffer.getLong(offset + 8),
+            buffer.getLong(offset + 16),
+            buffer.getLong(offset + 24),
+            new String(key, StandardCharsets.UTF_8),
+            buffer.slice(fingerprints, fingerprintCount * Long.BYTES).asLongBuffer(),
+            buffer.slice(tokens, tokenCount * Integer.BYTES).asIntBuffer(),
+            buffer.slice(lines, tokenCount * Integer.BYTES).asIntBuffer(),
+            buffer.slice(files, tokenCount * Integer.BYTES).asIntBuffer(),
+            paths);
+    }
+
+    /**
+     * Rutas de los ficheros como longitud + UTF-8
+     */
+    private static byte[] pathTable(List<String> paths) {
+        List<byte[]> encoded = new ArrayList<>(paths.size());
+        int length = 0;
+        for (String path : paths) {
+            byte[] bytes = path.getBytes(StandardCharsets.UTF_8);
+            encoded.add(bytes);
+            length += Integer.BYTES + bytes.length;
+        }
+        ByteBuffer table = ByteBuffer.allocate(length);
+        for (byte[] bytes : encoded) {
+            table.putInt(bytes.length).put(bytes);
+        }
+        return table.array();
+    }
+
+    private static int recordLength(int variableLength, int fingerprintCount, int tokenCount) {
+        long length = align((long) HEADER_SIZE + variableLength) + (long) fingerprintCount * Long.BYTES
+            + 3L * tokenCount * Integer.BYTES;
+        long aligned = align(length);
+        if (aligned > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Registro demasiado grande para el corpus: " + aligned + " bytes");
+        }
+        return (int) aligned;
+    }
+
+    /**
+     * Inicio de las huellas, tras la cabecera y los campos de longitud variable
+     */
+    private static int dataOffset(int offset, int headerLength) {
+        return offset + (int) align(headerLength);
+    }
+
+    private static long align(long value) {
+        return (value + 7) & ~7L;
+    }
+
+    private static long location(int segmentId, int offset) {
+        return ((long) segmentId << 32) | (offset & 0xFFFFFFFFL);
+    }
+
+    private static int segmentId(long location) {
+        return (int) (location >>> 32);
+    }
+
+    private static int offset(long location) {
+        return (int) location;
+    }
+
+    /**
+     * Fichero de segmento mapeado completo en memoria
+     */
+    private static final class Segment {
+        private final int id;
+        private final Path path;
+        private final FileChannel channel;
+        private final MappedByteBuffer buffer;
+        private int writePosition;
+        private long liveBytes;
+
+        private Segment(int id, Path path, FileChannel channel, MappedByteBuffer buffer) {
+            this.id = id;
+            this.path = path;
+            this.channel = channel;
+            this.buffer = buffer;
+        }
+
+        static Segment open(int id, Path path, int size) throws IOException {
+            FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            return new Segment(id, path, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, size));
+        }
+
+        void close() throws IOException {
+            channel.close();
+        }
+    }
+
+    /**
+     * Registro de una submission; las huellas, tokens y líneas son vistas sobre el
+     * segmento mapeado, válidas mientras el proceso siga en marcha
+     */
+    public static final class CorpusEntry {
+        private final long submissionId;
+        private final long labId;
+        private final long userId;
+        private final String key;
+        private final LongBuffer fingerprints;
+        private final IntBuffer tokens;
+        private final IntBuffer lines;
+        private final IntBuffer files;
+        private final List<String> paths;
+
+        CorpusEntry(long submissionId, long labId, long userId, String key,
+                    LongBuffer fingerprints, IntBuffer tokens, IntBuffer lines,
+                    IntBuffer files, List<String> paths) {
+            this.submissionId = submissionId;
+            this.labId = labId;
+            this.userId = userId;
+            this.key = key;
+            this.fingerprints = fingerprints;
+            this.tokens = tokens;
+            this.lines = lines;
+            this.files = files;
+            this.paths = paths;
+        }
+
+        /**
+         * Ruta del fichero de un token
+         */
+        public String pathAt(int position) {
+            return paths.get(files.get(position));
+        }
+
+        public long getSubmissionId() { return submissionId; }
+        public long getLabId() { return labId; }
+        public long getUserId() { return userId; }
+        public String getKey() { return key; }
+        public LongBuffer getFingerprints() { return fingerprints; }
+        public IntBuffer getTokens() { return tokens; }
+        public IntBuffer getLines() { return lines; }
+        public List<String> getPaths() { return paths; }
+    }
+}
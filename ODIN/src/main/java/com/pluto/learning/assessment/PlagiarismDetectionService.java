@@ -1,9 +1,19 @@
 package com.pluto.learning.assessment;
 
 import com.pluto.learning.submissions.LabSubmission;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Predicate;
 
 /**
  * Servicio de detección de plagio
@@ -11,100 +21,339 @@ import java.util.ArrayList;
 @Service
 public class PlagiarismDetectionService {
     
+    private static final double STRUCTURAL_THRESHOLD = 0.8;
+    private static final int MAX_CANDIDATES = 5;
+    private static final int MAX_LSH_CANDIDATES = 20;
+    private static final int MAX_TILED_CANDIDATES = 3;
+    private static final double MIN_TILING_SIMILARITY = 0.2;
+    private static final int MAX_MATCHES_PER_CANDIDATE = 10;
+    
+    private final FingerprintIndexRepository fingerprintIndex;
+    private final MinHashLshIndex lshIndex;
+    private final PlagiarismCorpusStore corpusStore;
+    private final RepositorySnapshotLoader snapshotLoader;
+    private final AnalysisRuleCatalog rules;
+    private final WinnowingFingerprinter fingerprinter = new WinnowingFingerprinter();
+    private final GreedyStringTiling tiling = new GreedyStringTiling();
+    
+    public PlagiarismDetectionService(FingerprintIndexRepository fingerprintIndex,
+                                      MinHashLshIndex lshIndex,
+                                      PlagiarismCorpusStore corpusStore,
+                                      RepositorySnapshotLoader snapshotLoader,
+                                      AnalysisRuleCatalog rules) {
+        this.fingerprintIndex = fingerprintIndex;
+        this.lshIndex = lshIndex;
+        this.corpusStore = corpusStore;
+        this.snapshotLoader = snapshotLoader;
+        this.rules = rules;
+    }
+    
+    /**
+     * Recarga el índice LSH desde el corpus en disco tras un reinicio
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUpLshIndex() {
+        corpusStore.forEach(entry -> {
+            if (lshIndex.contains(entry.getKey())) {
+                return;
+            }
+            LongBuffer stored = entry.getFingerprints();
+            long[] fingerprints = new long[stored.limit()];
+            stored.get(0, fingerprints);
+            if (fingerprints.length > 0) {
+                lshIndex.register(entry.getKey(), entry.getSubmissionId(), entry.getUserId(),
+                    lshIndex.signature(fingerprints));
+            }
+        });
+    }
+    
     /**
      * Analiza una submission en busca de plagio
      */
-    public PlagiarismAnalysis analyzeSubmission(LabSubmission submission) {
+    public PlagiarismAnalysis analyzeSubmission(LabSubmission submission, RepositorySnapshot snapshot) {
         PlagiarismAnalysis analysis = new PlagiarismAnalysis();
         
-        String code = fetchCodeFromGitHub(submission.getGithubRepoUrl());
-        if (code == null || code.isEmpty()) {
+        if (snapshot.getJavaFiles().isEmpty()) {
             analysis.setPlagiarismDetected(false);
             analysis.setSimilarityPercentage(0.0);
             analysis.setAnalysisMethod("NO_CODE");
             return analysis;
         }
         
-        // Análisis de similitud estructural
-        double structuralSimilarity = analyzeStructuralSimilarity(code);
+        // Huellas winnowing de cada fichero (reutilizadas si no cambió desde el intento anterior)
+        long[] fingerprints = fingerprint(snapshot);
+        // La firma MinHash se calcula una sola vez por commit
+        long[] signature = lshIndex.findSignature(signatureKey(submission));
+        if (signature == null) {
+            signature = lshIndex.signature(fingerprints);
+        }
+        
+        // Candidatos por huellas y comparación exacta con Greedy String Tiling
+        List<FingerprintCandidate> candidates = findStructuralCandidates(submission, fingerprints, signature);
+        List<PlagiarismMatch> matches = new ArrayList<>();
+        double structuralSimilarity = analyzeStructuralSimilarity(snapshot, candidates, matches);
         
         // Análisis de patrones de código
-        double patternSimilarity = analyzeCodePatterns(code);
+        double patternSimilarity = analyzeCodePatterns(snapshot);
         
         // Análisis de comentarios y variables
-        double semanticSimilarity = analyzeSemanticSimilarity(code);
+        double semanticSimilarity = analyzeSemanticSimilarity(snapshot);
         
         // Cálculo de similitud total
         double totalSimilarity = (structuralSimilarity * 0.5) + 
                                 (patternSimilarity * 0.3) + 
                                 (semanticSimilarity * 0.2);
         
-        analysis.setSimilarityPercentage(totalSimilarity);
-        analysis.setPlagiarismDetected(totalSimilarity > 0.75); // 75% threshold
-        analysis.setAnalysisMethod("MULTI_FACTOR_ANALYSIS");
+        // Una coincidencia estructural alta es suficiente por sí sola
+        analysis.setSimilarityPercentage(Math.max(totalSimilarity, structuralSimilarity));
+        analysis.setPlagiarismDetected(totalSimilarity > 0.75 || structuralSimilarity >= STRUCTURAL_THRESHOLD);
+        analysis.setAnalysisMethod("WINNOWING_GST_MULTI_FACTOR_ANALYSIS");
+        analysis.setMatches(matches);
         
-        if (analysis.isPlagiarismDetected()) {
-            analysis.setMatches(findSimilarMatches(code, totalSimilarity));
-        }
+        // Registrar las huellas para comparar futuras submissions
+        indexFingerprints(submission, snapshot, fingerprints, signature);
         
         return analysis;
     }
     
     /**
-     * Mock method para obtener código desde GitHub
+     * Unión ordenada y sin duplicados de las huellas de cada fichero Java. Se calculan
+     * por fichero, y no sobre el flujo concatenado, para poder reutilizarlas entre
+     * intentos; solo se pierden los k-gramas que cruzan la frontera entre dos ficheros.
+     */
+    private long[] fingerprint(RepositorySnapshot snapshot) {
+        List<long[]> perFile = new ArrayList<>(snapshot.getJavaFiles().size());
+        int total = 0;
+        for (RepositorySnapshot.SourceFile file : snapshot.getJavaFiles()) {
+            long[] fileFingerprints = file.derived(fingerprinter, unchanged ->
+                fingerprinter.fingerprint(unchanged.tokens().normalized(), unchanged.tokens().normalizedSize()));
+            perFile.add(fileFingerprints);
+            total += fileFingerprints.length;
+        }
+        long[] merged = new long[total];
+        int position = 0;
+        for (long[] fileFingerprints : perFile) {
+            System.arraycopy(fileFingerprints, 0, merged, position, fileFingerprints.length);
+            position += fileFingerprints.length;
+        }
+        Arrays.sort(merged);
+        int distinct = 0;
+        for (int i = 0; i < merged.length; i++) {
+            if (i == 0 || merged[i] != merged[i - 1]) {
+                merged[distinct++] = merged[i];
+            }
+        }
+        return Arrays.copyOf(merged, distinct);
+    }
+    
+    /**
+     * Candidatos del índice invertido de huellas del laboratorio y, entre cohortes,
+     * los preseleccionados por LSH, ordenados por similitud de huellas
      */
-    private String fetchCodeFromGitHub(String githubUrl) {
-        // Mock implementation - en producción usaría GitHub API
-        return """
-            @RestController
-            public class TestController {
-                @Autowired
-                private TestService service;
-                
-                @GetMapping("/test")
-                public String test() {
-                    return "Hello World";
+    private List<FingerprintCandidate> findStructuralCandidates(LabSubmission submission,
+                                                                long[] fingerprints, long[] signature) {
+        if (fingerprints.length == 0 || submission.getLab() == null || submission.getUser() == null) {
+            return List.of();
+        }
+        long userId = submission.getUser().getId();
+        
+        List<FingerprintCandidate> candidates = new ArrayList<>(fingerprintIndex.findCandidates(
+            submission.getLab().getId(), userId, fingerprints, MAX_CANDIDATES));
+        
+        // Solo los candidatos LSH pasan a la comparación exacta, en el corpus en disco
+        // cuando está disponible y en Postgres en otro caso
+        List<Long> missing = new ArrayList<>();
+        for (LshCandidate lshCandidate : lshIndex.findCandidates(signature, userId, MAX_LSH_CANDIDATES)) {
+            long candidateId = lshCandidate.getSubmissionId();
+            if (submission.getId() != null && candidateId == submission.getId()) {
+                continue;
+            }
+            PlagiarismCorpusStore.CorpusEntry entry = corpusStore.find(candidateId);
+            if (entry == null) {
+                missing.add(candidateId);
+            } else {
+                int shared = countShared(fingerprints, entry.getFingerprints());
+                if (shared > 0) {
+                    candidates.add(new FingerprintCandidate(candidateId, shared, (double) shared / fingerprints.length));
                 }
             }
-            """;
+        }
+        candidates.addAll(fingerprintIndex.compareWith(missing, fingerprints));
+        
+        // Un mismo candidato puede llegar por ambas vías
+        Map<Long, FingerprintCandidate> unique = new LinkedHashMap<>();
+        for (FingerprintCandidate candidate : candidates) {
+            unique.merge(candidate.getSubmissionId(), candidate,
+                (a, b) -> a.getSimilarity() >= b.getSimilarity() ? a : b);
+        }
+        List<FingerprintCandidate> sorted = new ArrayList<>(unique.values());
+        sorted.sort(Comparator.comparingDouble(FingerprintCandidate::getSimilarity).reversed());
+        return sorted;
     }
     
     /**
-     * Analiza similitud estructural del código
+     * Similitud estructural: fracción de tokens de la submission cubierta por tiles de
+     * Greedy String Tiling con los mejores candidatos. Los candidatos que no se comparan
+     * con GST conservan la similitud estimada por huellas.
      */
-    private double analyzeStructuralSimilarity(String code) {
-        // Mock: analizar estructura de clases, métodos, etc.
+    private double analyzeStructuralSimilarity(RepositorySnapshot snapshot, List<FingerprintCandidate> candidates,
+                                               List<PlagiarismMatch> matches) {
+        double structuralSimilarity = 0.0;
+        int tiled = 0;
         
-        // Extraer estructura básica
-        long classCount = countOccurrences(code, "class ");
-        long methodCount = countOccurrences(code, "public ") + 
-                          countOccurrences(code, "private ") + 
-                          countOccurrences(code, "protected ");
-        long importCount = countOccurrences(code, "import ");
+        for (FingerprintCandidate candidate : candidates) {
+            if (tiled < MAX_TILED_CANDIDATES && candidate.getSimilarity() >= MIN_TILING_SIMILARITY) {
+                Optional<Double> similarity = tileCandidate(snapshot, candidate.getSubmissionId(), matches);
+                if (similarity.isPresent()) {
+                    tiled++;
+                    structuralSimilarity = Math.max(structuralSimilarity, similarity.get());
+                    continue;
+                }
+            }
+            structuralSimilarity = Math.max(structuralSimilarity, candidate.getSimilarity());
+        }
+        return structuralSimilarity;
+    }
+    
+    /**
+     * Compara con GST contra una submission previa y añade sus regiones coincidentes.
+     * Los tokens del candidato se leen sin copia del corpus en disco o, si no está
+     * allí, del snapshot en memoria. Nunca se descarga su repositorio: sin tokens el
+     * candidato conserva la similitud estimada por huellas.
+     */
+    private Optional<Double> tileCandidate(RepositorySnapshot snapshot, long candidateId, List<PlagiarismMatch> matches) {
+        if (snapshot.normalizedSize() == 0) {
+            return Optional.empty();
+        }
+        IntBuffer candidateTokens;
+        IntBuffer candidateLines;
+        String sourceFile;
+        RepositorySnapshot candidateSnapshot = null;
+        PlagiarismCorpusStore.CorpusEntry candidateEntry = null;
         
-        // Comparar con patrones conocidos (mock)
-        // En producción, esto compararía con una base de datos de submissions
+        PlagiarismCorpusStore.CorpusEntry entry = corpusStore.find(candidateId);
+        if (entry != null) {
+            candidateTokens = entry.getTokens();
+            candidateLines = entry.getLines();
+            sourceFile = entry.getKey();
+            candidateEntry = entry;
+        } else {
+            candidateSnapshot = snapshotLoader.cached(candidateId);
+            if (candidateSnapshot == null || candidateSnapshot.normalizedSize() == 0) {
+                return Optional.empty();
+            }
+            candidateTokens = IntBuffer.wrap(candidateSnapshot.normalized());
+            candidateLines = IntBuffer.wrap(candidateSnapshot.normalizedLines());
+            sourceFile = sourceOf(candidateSnapshot);
+        }
         
-        // Calcular hash estructural simple
-        String structuralHash = generateStructuralHash(code);
+        List<GreedyStringTiling.Tile> tiles = tiling.compare(IntBuffer.wrap(snapshot.normalized()), candidateTokens);
         
-        // Mock: simular comparación con base de datos
-        return Math.random() * 0.4; // Max 40% por estructura
+        int covered = 0;
+        for (GreedyStringTiling.Tile tile : tiles) {
+            covered += tile.getLength();
+        }
+        double similarity = (double) covered / snapshot.normalizedSize();
+        
+        for (int i = 0; i < tiles.size() && i < MAX_MATCHES_PER_CANDIDATE; i++) {
+            GreedyStringTiling.Tile tile = tiles.get(i);
+            int endA = tile.getStartA() + tile.getLength() - 1;
+            int endB = tile.getStartB() + tile.getLength() - 1;
+            PlagiarismMatch match = new PlagiarismMatch();
+            match.setFile(snapshot.fileAt(tile.getStartA()).getPath());
+            String candidatePath = candidateSnapshot != null
+                ? candidateSnapshot.fileAt(tile.getStartB()).getPath()
+                : candidateEntry.pathAt(tile.getStartB());
+            match.setSourceFile(sourceFile + ":" + candidatePath);
+            match.setMatchedSubmissionId(candidateId);
+            match.setStartLine(snapshot.lineAt(tile.getStartA()));
+            match.setEndLine(snapshot.lineAt(endA));
+            match.setMatchedStartLine(candidateLines.get(tile.getStartB()));
+            match.setMatchedEndLine(candidateLines.get(endB));
+            match.setSimilarity(similarity);
+            matches.add(match);
+        }
+        return Optional.of(similarity);
+    }
+    
+    /**
+     * Huellas compartidas entre un array ordenado y las huellas ordenadas del corpus
+     */
+    private int countShared(long[] fingerprints, LongBuffer stored) {
+        int i = 0;
+        int j = 0;
+        int shared = 0;
+        int limit = stored.limit();
+        while (i < fingerprints.length && j < limit) {
+            long other = stored.get(j);
+            if (fingerprints[i] < other) {
+                i++;
+            } else if (fingerprints[i] > other) {
+                j++;
+            } else {
+                shared++;
+                i++;
+                j++;
+            }
+        }
+        return shared;
+    }
+    
+    private String sourceOf(RepositorySnapshot snapshot) {
+        return snapshot.getCommitHash() != null
+            ? snapshot.getRepositoryUrl() + "@" + snapshot.getCommitHash()
+            : snapshot.getRepositoryUrl();
+    }
+    
+    private void indexFingerprints(LabSubmission submission, RepositorySnapshot snapshot,
+                                   long[] fingerprints, long[] signature) {
+        if (submission.getId() == null || submission.getLab() == null || submission.getUser() == null) {
+            return;
+        }
+        fingerprintIndex.index(submission.getId(), submission.getLab().getId(),
+            submission.getUser().getId(), fingerprints);
+        
+        // Huellas y tokens al corpus en disco para futuras comparaciones sin re-tokenizar
+        corpusStore.append(submission.getId(), submission.getLab().getId(), submission.getUser().getId(),
+            signatureKey(submission), fingerprints, snapshot.normalized(), snapshot.normalizedLines(),
+            snapshot.normalizedFiles(), javaPaths(snapshot), snapshot.normalizedSize());
+        
+        if (fingerprints.length > 0) {
+            lshIndex.register(signatureKey(submission), submission.getId(),
+                submission.getUser().getId(), signature);
+        }
+    }
+    
+    private static List<String> javaPaths(RepositorySnapshot snapshot) {
+        List<String> paths = new ArrayList<>(snapshot.getJavaFiles().size());
+        for (RepositorySnapshot.SourceFile file : snapshot.getJavaFiles()) {
+            paths.add(file.getPath());
+        }
+        return paths;
+    }
+    
+    /**
+     * Las firmas se calculan una sola vez por commit
+     */
+    private String signatureKey(LabSubmission submission) {
+        return submission.getCommitHash() != null
+            ? submission.getGithubRepoUrl() + "@" + submission.getCommitHash()
+            : "submission:" + submission.getId();
     }
     
     /**
      * Analiza patrones de código específicos
      */
-    private double analyzeCodePatterns(String code) {
+    private double analyzeCodePatterns(RepositorySnapshot snapshot) {
         // Detectar patrones comunes que podrían ser copiados
         
         double suspiciousPatterns = 0.0;
         
         // Patrones sospechosos
-        if (hasUnusualVariableNames(code)) suspiciousPatterns += 0.1;
-        if (hasIdenticalComments(code)) suspiciousPatterns += 0.2;
-        if (hasUnusualFormattingPatterns(code)) suspiciousPatterns += 0.1;
-        if (hasIdenticalAlgorithmicStructure(code)) suspiciousPatterns += 0.3;
+        if (anyFile(snapshot, this::hasUnusualVariableNames)) suspiciousPatterns += 0.1;
+        if (anyFile(snapshot, this::hasPendingWorkComments)) suspiciousPatterns += 0.2;
+        if (hasUnusualFormattingPatterns(snapshot)) suspiciousPatterns += 0.1;
+        if (hasIdenticalAlgorithmicStructure(snapshot)) suspiciousPatterns += 0.3;
         
         return Math.min(1.0, suspiciousPatterns);
     }
@@ -112,171 +361,107 @@ public class PlagiarismDetectionService {
     /**
      * Analiza similitud semántica
      */
-    private double analyzeSemanticSimilarity(String code) {
-        // Analizar nombres de variables, comentarios, strings
+    private double analyzeSemanticSimilarity(RepositorySnapshot snapshot) {
+        // Analizar nombres de variables, comentarios, strings directamente sobre los tokens
         
         double semanticScore = 0.0;
         
-        // Extraer elementos semánticos
-        List<String> variableNames = extractVariableNames(code);
-        List<String> comments = extractComments(code);
-        List<String> stringLiterals = extractStringLiterals(code);
-        
-        // Mock: comparar con base de datos semántica
-        if (hasCommonVariablePatterns(variableNames)) semanticScore += 0.2;
-        if (hasIdenticalComments(comments)) semanticScore += 0.3;
-        if (hasIdenticalStrings(stringLiterals)) semanticScore += 0.1;
+        if (anyFile(snapshot, this::hasCommonVariablePatterns)) semanticScore += 0.2;
+        if (anyFile(snapshot, this::hasIdenticalComments)) semanticScore += 0.3;
+        if (anyFile(snapshot, this::hasIdenticalStrings)) semanticScore += 0.1;
         
         return Math.min(1.0, semanticScore);
     }
     
-    /**
-     * Encuentra matches específicos de similitud
-     */
-    private List<PlagiarismMatch> findSimilarMatches(String code, double similarity) {
-        List<PlagiarismMatch> matches = new ArrayList<>();
-        
-        // Mock: crear matches ficticios
-        if (similarity > 0.75) {
-            PlagiarismMatch match = new PlagiarismMatch();
-            match.setSourceFile("previous_submission_123.java");
-            match.setStartLine(15);
-            match.setEndLine(45);
-            match.setSimilarity(similarity);
-            matches.add(match);
+    private boolean anyFile(RepositorySnapshot snapshot, Predicate<TokenBuffer> check) {
+        for (RepositorySnapshot.SourceFile file : snapshot.getJavaFiles()) {
+            if (check.test(file.tokens())) {
+                return true;
+            }
         }
-        
-        return matches;
+        return false;
     }
     
     // Métodos auxiliares
-    private long countOccurrences(String text, String pattern) {
-        return text.lines()
-            .mapToLong(line -> {
-                int count = 0;
-                int index = 0;
-                while ((index = line.indexOf(pattern, index)) != -1) {
-                    count++;
-                    index += pattern.length();
-                }
-                return count;
-            })
-            .sum();
-    }
-    
-    private String generateStructuralHash(String code) {
-        // Generar hash basado en estructura del código
-        StringBuilder structure = new StringBuilder();
-        
-        code.lines().forEach(line -> {
-            String trimmed = line.trim();
-            if (trimmed.startsWith("class ")) structure.append("CLASS;");
-            else if (trimmed.startsWith("public ")) structure.append("PUBLIC;");
-            else if (trimmed.startsWith("private ")) structure.append("PRIVATE;");
-            else if (trimmed.contains("if (")) structure.append("IF;");
-            else if (trimmed.contains("for (")) structure.append("FOR;");
-            else if (trimmed.contains("while (")) structure.append("WHILE;");
-        });
-        
-        return Integer.toString(structure.toString().hashCode());
-    }
-    
-    private boolean hasUnusualVariableNames(String code) {
+    private boolean hasUnusualVariableNames(TokenBuffer tokens) {
         // Detectar nombres de variables muy específicos o inusuales
-        return code.contains("temp123") || 
-               code.contains("myVar") || 
-               code.contains("variable1");
+        for (int i = 0; i < tokens.size(); i++) {
+            if (tokens.type(i) == JavaLexer.IDENTIFIER &&
+                (tokens.textEquals(i, "temp123") ||
+                 tokens.textEquals(i, "myVar") ||
+                 tokens.textEquals(i, "variable1"))) {
+                return true;
+            }
+        }
+        return false;
     }
     
-    private boolean hasIdenticalComments(String code) {
-        // Detectar comentarios idénticos
-        List<String> comments = extractComments(code);
-        return comments.stream()
-            .anyMatch(comment -> comment.length() > 20 && 
-                     comment.contains("TODO") || 
-                     comment.contains("FIXME"));
+    private boolean hasPendingWorkComments(TokenBuffer tokens) {
+        // Detectar comentarios TODO/FIXME heredados
+        for (int i = 0; i < tokens.size(); i++) {
+            if (tokens.type(i) == JavaLexer.COMMENT &&
+                ((tokens.end(i) - tokens.start(i) > 20 && tokens.textContains(i, "TODO")) ||
+                 tokens.textContains(i, "FIXME"))) {
+                return true;
+            }
+        }
+        return false;
     }
     
-    private boolean hasUnusualFormattingPatterns(String code) {
+    private boolean hasUnusualFormattingPatterns(RepositorySnapshot snapshot) {
         // Detectar patrones de formato inusuales
-        return code.contains("    ") && !code.contains("\t"); // Espacios vs tabs
+        AnalysisRuleCatalog.RuleMatches matches = rules.scan(snapshot);
+        return matches.has(AnalysisRuleCatalog.SPACE_INDENTATION) && !matches.has(AnalysisRuleCatalog.TAB); // Espacios vs tabs
     }
     
-    private boolean hasIdenticalAlgorithmicStructure(String code) {
+    private boolean hasIdenticalAlgorithmicStructure(RepositorySnapshot snapshot) {
         // Detectar estructuras algorítmicas idénticas
-        return code.contains("for (int i = 0; i < arr.length; i++)") ||
-               code.contains("while (condition == true)");
+        return rules.scan(snapshot).has(AnalysisRuleCatalog.TEMPLATE_LOOPS);
     }
     
-    private List<String> extractVariableNames(String code) {
-        List<String> variables = new ArrayList<>();
-        
-        // Extraer declaraciones de variables (regex simple)
-        code.lines().forEach(line -> {
-            if (line.contains(" = ") && !line.trim().startsWith("//")) {
-                String[] parts = line.split(" = ");
-                if (parts.length > 0) {
-                    String declaration = parts[0].trim();
-                    String[] declarationParts = declaration.split(" ");
-                    if (declarationParts.length >= 2) {
-                        variables.add(declarationParts[declarationParts.length - 1]);
-                    }
-                }
+    private boolean hasCommonVariablePatterns(TokenBuffer tokens) {
+        // Variables declaradas: <tipo> <nombre> =
+        int assign = JavaLexer.operator('=');
+        for (int i = 1; i + 1 < tokens.size(); i++) {
+            if (tokens.type(i) == JavaLexer.IDENTIFIER &&
+                tokens.is(i + 1, JavaLexer.OPERATOR, assign) &&
+                isTypeEnd(tokens, i - 1) &&
+                (tokens.textEquals(i, "temp") ||
+                 tokens.textEquals(i, "result") ||
+                 tokens.textEquals(i, "data"))) {
+                return true;
             }
-        });
-        
-        return variables;
+        }
+        return false;
     }
     
-    private List<String> extractComments(String code) {
-        List<String> comments = new ArrayList<>();
-        
-        code.lines().forEach(line -> {
-            String trimmed = line.trim();
-            if (trimmed.startsWith("//")) {
-                comments.add(trimmed.substring(2).trim());
-            } else if (trimmed.startsWith("/*")) {
-                comments.add(trimmed);
-            }
-        });
-        
-        return comments;
+    private boolean isTypeEnd(TokenBuffer tokens, int index) {
+        int type = tokens.type(index);
+        return type == JavaLexer.IDENTIFIER ||
+               type == JavaLexer.KEYWORD ||
+               tokens.is(index, JavaLexer.OPERATOR, JavaLexer.operator('>')) ||
+               tokens.is(index, JavaLexer.OPERATOR, JavaLexer.operator(']'));
     }
     
-    private List<String> extractStringLiterals(String code) {
-        List<String> strings = new ArrayList<>();
-        
-        // Extraer strings entre comillas
-        int start = 0;
-        while ((start = code.indexOf("\"", start)) != -1) {
-            int end = code.indexOf("\"", start + 1);
-            if (end != -1) {
-                strings.add(code.substring(start + 1, end));
-                start = end + 1;
-            } else {
-                break;
+    private boolean hasIdenticalComments(TokenBuffer tokens) {
+        for (int i = 0; i < tokens.size(); i++) {
+            if (tokens.type(i) == JavaLexer.COMMENT &&
+                (tokens.textContains(i, "copied from") ||
+                 tokens.textContains(i, "source:"))) {
+                return true;
             }
         }
-        
-        return strings;
+        return false;
     }
     
-    private boolean hasCommonVariablePatterns(List<String> variables) {
-        return variables.stream()
-            .anyMatch(var -> var.equals("temp") || 
-                           var.equals("result") || 
-                           var.equals("data"));
-    }
-    
-    private boolean hasIdenticalComments(List<String> comments) {
-        return comments.stream()
-            .anyMatch(comment -> comment.contains("copied from") || 
-                               comment.contains("source:"));
-    }
-    
-    private boolean hasIdenticalStrings(List<String> strings) {
-        return strings.stream()
-            .anyMatch(str -> str.contains("Hello World") || 
-                           str.contains("Test message"));
+    private boolean hasIdenticalStrings(TokenBuffer tokens) {
+        for (int i = 0; i < tokens.size(); i++) {
+            if (tokens.type(i) == JavaLexer.STRING &&
+                (tokens.textContains(i, "Hello World") ||
+                 tokens.textContains(i, "Test message"))) {
+                return true;
+            }
+        }
+        return false;
     }
 }
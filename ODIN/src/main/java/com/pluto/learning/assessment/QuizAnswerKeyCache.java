@@ -0,0 +1,109 @@
+package com.pluto.learning.assessment;
+
+import com.pluto.learning.assessments.AnswerKey;
+import com.pluto.learning.assessments.Quiz;
+import com.pluto.learning.assessments.QuizQuestion;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Claves de respuesta compiladas de cada quiz, por (quiz, versión).
+ *
+ * La versión se deriva del contenido persistido: la última modificación del quiz y de
+ * sus preguntas (auditoría JPA) y el número de preguntas, así que editar, añadir o
+ * borrar una pregunta cambia la versión y la siguiente corrección recompila las
+ * claves. Solo se guarda la última versión de cada quiz.
+ */
+@Component
+public class QuizAnswerKeyCache {
+
+    private final Map<Long, CompiledQuiz> quizzes = new ConcurrentHashMap<>();
+    private final Counter compilations;
+
+    public QuizAnswerKeyCache(MeterRegistry meterRegistry) {
+        this.compilations = Counter.builder("assessment.quiz.answer-keys.compiled")
+            .description("Quizzes cuyas claves de respuesta se han compilado").register(meterRegistry);
+    }
+
+    /**
+     * Claves compiladas de la versión actual del quiz
+     */
+    public CompiledQuiz get(Quiz quiz) {
+        long version = version(quiz);
+        if (quiz.getId() == null) {
+            return compile(quiz, version);
+        }
+        CompiledQuiz cached = quizzes.get(quiz.getId());
+        if (cached != null && cached.version == version) {
+            return cached;
+        }
+        CompiledQuiz compiled = compile(quiz, version);
+        quizzes.put(quiz.getId(), compiled);
+        return compiled;
+    }
+
+    /**
+     * Descarta las claves del quiz, p. ej. tras editarlo sin pasar por JPA
+     */
+    public void invalidate(Long quizId) {
+        quizzes.remove(quizId);
+    }
+
+    private CompiledQuiz compile(Quiz quiz, long version) {
+        Map<Long, AnswerKey> keys = new HashMap<>();
+        for (QuizQuestion question : questions(quiz)) {
+            if (question.getId() != null) {
+                keys.put(question.getId(), question.compileAnswerKey());
+            }
+        }
+        compilations.increment();
+        return new CompiledQuiz(version, keys);
+    }
+
+    static long version(Quiz quiz) {
+        List<QuizQuestion> questions = questions(quiz);
+        long version = 31 * epochNanos(quiz.getUpdatedAt()) + questions.size();
+        long latest = 0;
+        for (QuizQuestion question : questions) {
+            latest = Math.max(latest, epochNanos(question.getUpdatedAt()));
+        }
+        return 31 * version + latest;
+    }
+
+    private static List<QuizQuestion> questions(Quiz quiz) {
+        return quiz.getQuestions() != null ? quiz.getQuestions() : List.of();
+    }
+
+    private static long epochNanos(LocalDateTime time) {
+        return time == null ? 0 : time.toEpochSecond(ZoneOffset.UTC) * 1_000_000_000L + time.getNano();
+    }
+
+    /**
+     * Claves inmutables de una versión de un quiz
+     */
+    public static final class CompiledQuiz {
+        private final long version;
+        private final Map<Long, AnswerKey> keys;
+
+        private CompiledQuiz(long version, Map<Long, AnswerKey> keys) {
+            this.version = version;
+            this.keys = Map.copyOf(keys);
+        }
+
+        /**
+         * Corrige la respuesta a una pregunta; las preguntas desconocidas nunca son correctas
+         */
+        public boolean isCorrect(Long questionId, String answer) {
+            AnswerKey key = questionId != null ? keys.get(questionId) : null;
+            return key != null && key.matches(answer);
+        }
+    }
+}
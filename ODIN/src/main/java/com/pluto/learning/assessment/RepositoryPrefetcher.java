@@ -0,0 +1,135 @@
+package com.pluto.learning.assessment;
+
+import com.pluto.learning.submissions.SubmissionService.SubmissionEvaluationEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Descarga especulativa del repositorio de una submission en cuanto se crea.
+ *
+ * Al recibir el evento de {@link com.pluto.learning.submissions.SubmissionService}
+ * materializa el commit en el {@link GitMirrorCache} con un pool pequeño de hilos de
+ * baja prioridad, de modo que cuando la evaluación empieza el clone o fetch ya está
+ * hecho. Hay como mucho una descarga pendiente por repositorio: los intentos que
+ * llegan mientras espera solo actualizan el commit a descargar. Si la cola está
+ * llena la descarga se descarta y la hará la propia evaluación.
+ */
+@Component
+public class RepositoryPrefetcher {
+
+    private final GitMirrorCache gitMirrorCache;
+    private final boolean enabled;
+    private final ThreadPoolExecutor executor;
+    // Repositorio -> commit más reciente pendiente de descargar
+    private final Map<String, Request> pending = new ConcurrentHashMap<>();
+    private final Counter completed;
+    private final Counter failed;
+    private final Counter coalesced;
+    private final Counter dropped;
+
+    public RepositoryPrefetcher(GitMirrorCache gitMirrorCache,
+                                MeterRegistry meterRegistry,
+                                @Value("${assessment.prefetch.enabled:true}") boolean enabled,
+                                @Value("${assessment.prefetch.parallelism:2}") int parallelism,
+                                @Value("${assessment.prefetch.queue-capacity:100}") int queueCapacity) {
+        if (parallelism < 1 || queueCapacity < 1) {
+            throw new IllegalArgumentException("La configuración de assessment.prefetch debe ser positiva");
+        }
+        this.gitMirrorCache = gitMirrorCache;
+        this.enabled = enabled;
+
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(parallelism, parallelism, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queueCapacity),
+            runnable -> {
+                Thread thread = new Thread(runnable, "repository-prefetch-" + counter.incrementAndGet());
+                thread.setDaemon(true);
+                thread.setPriority(Thread.MIN_PRIORITY);
+                return thread;
+            },
+            new ThreadPoolExecutor.AbortPolicy());
+
+        this.completed = counter(meterRegistry, "completed");
+        this.failed = counter(meterRegistry, "failed");
+        this.coalesced = counter(meterRegistry, "coalesced");
+        this.dropped = counter(meterRegistry, "dropped");
+        Gauge.builder("assessment.prefetch.pending", pending, Map::size)
+            .description("Repositorios pendientes de descarga especulativa")
+            .register(meterRegistry);
+    }
+
+    @EventListener
+    public void onSubmissionCreated(SubmissionEvaluationEvent event) {
+        prefetch(event.getGithubRepoUrl(), event.getCommitHash());
+    }
+
+    /**
+     * Encola la descarga del commit (o de la rama por defecto si es null) sin esperar
+     */
+    public void prefetch(String repositoryUrl, String commitHash) {
+        if (!enabled || repositoryUrl == null || repositoryUrl.isBlank()) {
+            return;
+        }
+        Request request = new Request(repositoryUrl, commitHash);
+        if (pending.put(repositoryUrl, request) != null) {
+            // La descarga ya encolada recogerá este commit
+            coalesced.increment();
+            return;
+        }
+        try {
+            executor.execute(() -> run(repositoryUrl));
+        } catch (RejectedExecutionException e) {
+            pending.remove(repositoryUrl, request);
+            dropped.increment();
+        }
+    }
+
+    private void run(String repositoryUrl) {
+        Request request = pending.remove(repositoryUrl);
+        if (request == null) {
+            return;
+        }
+        try {
+            gitMirrorCache.withCheckout(request.repositoryUrl, request.commitHash, worktree -> null);
+            completed.increment();
+        } catch (RuntimeException e) {
+            // Es solo un adelanto: la evaluación repetirá la descarga y reportará el error
+            failed.increment();
+        }
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("assessment.prefetch")
+            .tag("result", result)
+            .description("Descargas especulativas de repositorios")
+            .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private static final class Request {
+        private final String repositoryUrl;
+        private final String commitHash;
+
+        Request(String repositoryUrl, String commitHash) {
+            this.repositoryUrl = repositoryUrl;
+            this.commitHash = commitHash;
+        }
+    }
+}
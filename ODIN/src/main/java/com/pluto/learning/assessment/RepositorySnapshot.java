@@ -0,0 +1,280 @@
+package com.pluto.learning.assessment;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Copia en memoria del repositorio de una submission, descargada y analizada una
+ * sola vez por evaluación y compartida por todos los analizadores.
+ *
+ * Cada fichero Java se tokeniza una vez en su propio {@link TokenBuffer}; además se
+ * precalculan el índice de líneas de cada fichero, el número de apariciones de cada
+ * anotación y el flujo normalizado de todo el repositorio (con fichero y línea de
+ * cada posición) que usa la detección de plagio.
+ *
+ * Entre intentos sucesivos de una misma submission, los ficheros cuyo contenido no
+ * cambia se reutilizan tal cual del snapshot anterior: no se vuelven a tokenizar y
+ * conservan los resultados por fichero ya calculados ({@link SourceFile#derived}).
+ */
+public final class RepositorySnapshot {
+
+    private final String repositoryUrl;
+    private final String commitHash;
+    private final List<SourceFile> files;
+    private final List<SourceFile> javaFiles;
+    private final Map<String, Integer> annotationCounts;
+    private final int totalLines;
+    private final int reusedFiles;
+
+    // Flujo normalizado del repositorio completo
+    private final int[] normalized;
+    private final int[] normalizedFiles;
+    private final int[] normalizedLines;
+
+    private volatile AnalysisRuleCatalog.RuleMatches ruleMatches;
+    private volatile JavaMetricsAnalyzer.RepositoryMetrics metrics;
+
+    private RepositorySnapshot(String repositoryUrl, String commitHash, List<SourceFile> files, int reusedFiles) {
+        this.repositoryUrl = repositoryUrl;
+        this.reusedFiles = reusedFiles;
+        this.commitHash = commitHash;
+        this.files = Collections.unmodifiableList(files);
+
+        List<SourceFile> java = new ArrayList<>();
+        Map<String, Integer> annotations = new HashMap<>();
+        int lines = 0;
+        int normalizedSize = 0;
+        for (SourceFile file : files) {
+            lines += file.getLineCount();
+            if (file.tokens != null) {
+                java.add(file);
+                normalizedSize += file.tokens.normalizedSize();
+                for (int i = 0; i < file.tokens.size(); i++) {
+                    if (file.tokens.type(i) == JavaLexer.ANNOTATION) {
+                        annotations.merge(file.tokens.text(i), 1, Integer::sum);
+                    }
+                }
+            }
+        }
+        this.javaFiles = Collections.unmodifiableList(java);
+        this.annotationCounts = annotations;
+        this.totalLines = lines;
+
+        this.normalized = new int[normalizedSize];
+        this.normalizedFiles = new int[normalizedSize];
+        this.normalizedLines = new int[normalizedSize];
+        int position = 0;
+        for (int f = 0; f < javaFiles.size(); f++) {
+            TokenBuffer tokens = javaFiles.get(f).tokens;
+            int size = tokens.normalizedSize();
+            System.arraycopy(tokens.normalized(), 0, normalized, position, size);
+            Arrays.fill(normalizedFiles, position, position + size, f);
+            for (int i = 0; i < size; i++) {
+                normalizedLines[position + i] = tokens.line(tokens.normalizedTokenIndex(i));
+            }
+            position += size;
+        }
+    }
+
+    /**
+     * Construye la copia a partir del contenido de cada fichero (ruta -> contenido)
+     */
+    static RepositorySnapshot parse(String repositoryUrl, String commitHash, Map<String, String> contents) {
+        return parse(repositoryUrl, commitHash, contents, null);
+    }
+
+    /**
+     * Como {@link #parse(String, String, Map)}, reutilizando de {@code previous} (si no
+     * es null) los ficheros con la misma ruta y el mismo contenido
+     */
+    static RepositorySnapshot parse(String repositoryUrl, String commitHash, Map<String, String> contents,
+                                    RepositorySnapshot previous) {
+        Map<String, SourceFile> previousFiles = new HashMap<>();
+        if (previous != null) {
+            for (SourceFile file : previous.files) {
+                previousFiles.put(file.path, file);
+            }
+        }
+        List<String> paths = new ArrayList<>(contents.keySet());
+        Collections.sort(paths);
+
+        List<SourceFile> files = new ArrayList<>(paths.size());
+        int reused = 0;
+        for (String path : paths) {
+            String content = contents.get(path);
+            SourceFile unchanged = previousFiles.get(path);
+            if (unchanged != null && unchanged.content.equals(content)) {
+                files.add(unchanged);
+                reused++;
+                continue;
+            }
+            TokenBuffer tokens = path.endsWith(".java")
+                ? JavaLexer.tokenize(content, TokenBuffer.forSource(content))
+                : null;
+            files.add(new SourceFile(path, content, tokens));
+        }
+        return new RepositorySnapshot(repositoryUrl, commitHash, files, reused);
+    }
+
+    public String getRepositoryUrl() { return repositoryUrl; }
+    public String getCommitHash() { return commitHash; }
+    public List<SourceFile> getFiles() { return files; }
+    public List<SourceFile> getJavaFiles() { return javaFiles; }
+    public int getTotalLines() { return totalLines; }
+
+    /**
+     * Ficheros reutilizados sin cambios del intento anterior
+     */
+    public int getReusedFileCount() { return reusedFiles; }
+
+    public boolean isEmpty() {
+        return files.isEmpty();
+    }
+
+    /**
+     * Número de apariciones de una anotación (sin '@') en todos los ficheros Java
+     */
+    public int annotationCount(String name) {
+        return annotationCounts.getOrDefault(name, 0);
+    }
+
+    /**
+     * Apariciones de las reglas del catálogo, calculadas en la primera consulta
+     */
+    AnalysisRuleCatalog.RuleMatches ruleMatches(AnalysisRuleCatalog catalog) {
+        AnalysisRuleCatalog.RuleMatches matches = ruleMatches;
+        if (matches == null) {
+            synchronized (this) {
+                matches = ruleMatches;
+                if (matches == null) {
+                    matches = catalog.compute(files);
+                    ruleMatches = matches;
+                }
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Métricas de los ficheros Java, calculadas en la primera consulta
+     */
+    JavaMetricsAnalyzer.RepositoryMetrics metrics(JavaMetricsAnalyzer analyzer) {
+        JavaMetricsAnalyzer.RepositoryMetrics result = metrics;
+        if (result == null) {
+            synchronized (this) {
+                result = metrics;
+                if (result == null) {
+                    result = analyzer.compute(javaFiles);
+                    metrics = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    int[] normalized() { return normalized; }
+    int normalizedSize() { return normalized.length; }
+    int[] normalizedLines() { return normalizedLines; }
+    int[] normalizedFiles() { return normalizedFiles; }
+
+    /**
+     * Fichero Java al que pertenece una posición del flujo normalizado
+     */
+    SourceFile fileAt(int normalizedPosition) {
+        return javaFiles.get(normalizedFiles[normalizedPosition]);
+    }
+
+    /**
+     * Índice en {@link #getJavaFiles()} del fichero de una posición del flujo normalizado
+     */
+    int fileIndexAt(int normalizedPosition) {
+        return normalizedFiles[normalizedPosition];
+    }
+
+    /**
+     * Línea (dentro de su fichero) de una posición del flujo normalizado
+     */
+    int lineAt(int normalizedPosition) {
+        return normalizedLines[normalizedPosition];
+    }
+
+    /**
+     * Fichero del repositorio con su índice de líneas y, si es Java, sus tokens
+     */
+    public static final class SourceFile {
+        private final String path;
+        private final String content;
+        private final TokenBuffer tokens;
+        private final int[] lineStarts;
+        // Resultados por fichero de cada analizador, que sobreviven entre intentos
+        private final Map<Object, Object> derived = new ConcurrentHashMap<>();
+
+        SourceFile(String path, String content, TokenBuffer tokens) {
+            this.path = path;
+            this.content = content;
+            this.tokens = tokens;
+            this.lineStarts = lineStarts(content);
+        }
+
+        public String getPath() { return path; }
+        public String getContent() { return content; }
+        public int getLineCount() { return lineStarts.length; }
+
+        public boolean isTest() {
+            return path.contains("/test/") || path.endsWith("Test.java") || path.endsWith("Tests.java");
+        }
+
+        /**
+         * Tokens del fichero, o null si no es un fichero Java
+         */
+        TokenBuffer tokens() { return tokens; }
+
+        /**
+         * Resultado de {@code analyzer} para este fichero, calculado la primera vez.
+         * Como el contenido es inmutable, el resultado es válido mientras el fichero
+         * se reutilice en intentos posteriores.
+         */
+        @SuppressWarnings("unchecked")
+        <T> T derived(Object analyzer, Function<SourceFile, T> compute) {
+            return (T) derived.computeIfAbsent(analyzer, key -> compute.apply(this));
+        }
+
+        /**
+         * Línea (desde 1) que contiene el offset indicado
+         */
+        public int lineOf(int offset) {
+            int index = Arrays.binarySearch(lineStarts, offset);
+            return index >= 0 ? index + 1 : -index - 1;
+        }
+
+        /**
+         * Offset del primer carácter de una línea (desde 1)
+         */
+        public int lineStart(int line) {
+            return lineStarts[line - 1];
+        }
+
+        private static int[] lineStarts(String content) {
+            int count = 1;
+            for (int i = 0; i < content.length(); i++) {
+                if (content.charAt(i) == '\n') {
+                    count++;
+                }
+            }
+            int[] starts = new int[count];
+            int line = 1;
+            for (int i = 0; i < content.length(); i++) {
+                if (content.charAt(i) == '\n') {
+                    starts[line++] = i + 1;
+                }
+            }
+            return starts;
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.pluto.learning.assessment;
+
+import com.pluto.learning.submissions.LabSubmission;
+import com.pluto.learning.submissions.SubmissionRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Descarga el repositorio de una submission y lo convierte en un {@link RepositorySnapshot}.
+ *
+ * Guarda en memoria los últimos {@code max-snapshots} snapshots por submission: al
+ * evaluar el intento N+1 de un (laboratorio, usuario) se hace un diff por fichero
+ * contra el intento N y los ficheros sin cambios reutilizan sus tokens y análisis.
+ *
+ * La caché es local al proceso y no se persiste: tras un reinicio, en otra instancia
+ * o si el intento N ya salió del LRU, el intento N+1 se analiza completo (el
+ * resultado es el mismo, solo cambia el coste).
+ */
+@Component
+public class RepositorySnapshotLoader {
+
+    private static final long MAX_FILE_BYTES = 1024 * 1024;
+    private static final Set<String> EXTENSIONS = Set.of(
+        ".java", ".properties", ".yml", ".yaml", ".xml", ".gradle", ".kts", ".md", ".sql");
+    private static final Set<String> IGNORED_DIRECTORIES = Set.of(
+        ".git", "target", "build", "out", "node_modules", ".gradle", ".idea");
+
+    private final GitMirrorCache gitMirrorCache;
+    private final SubmissionRepository submissionRepository;
+    private final int maxSnapshots;
+    private final Map<Long, RepositorySnapshot> recent = new LinkedHashMap<>(64, 0.75f, true);
+
+    public RepositorySnapshotLoader(GitMirrorCache gitMirrorCache,
+                                    SubmissionRepository submissionRepository,
+                                    @Value("${assessment.analysis.incremental.max-snapshots:100}") int maxSnapshots) {
+        this.gitMirrorCache = gitMirrorCache;
+        this.submissionRepository = submissionRepository;
+        this.maxSnapshots = maxSnapshots;
+    }
+
+    /**
+     * Descarga y analiza el repositorio de la submission (una vez por evaluación)
+     */
+    public RepositorySnapshot load(LabSubmission submission) {
+        Map<String, String> files = gitMirrorCache.withCheckout(
+            submission.getGithubRepoUrl(), submission.getCommitHash(), this::readFiles);
+        RepositorySnapshot snapshot = RepositorySnapshot.parse(
+            submission.getGithubRepoUrl(), submission.getCommitHash(), files, previousAttempt(submission));
+        remember(submission.getId(), snapshot);
+        return snapshot;
+    }
+
+    /**
+     * Snapshot de una submission si sigue en memoria, o null; nunca lo descarga
+     */
+    public RepositorySnapshot cached(long submissionId) {
+        synchronized (recent) {
+            return recent.get(submissionId);
+        }
+    }
+
+    /**
+     * Snapshot del intento anterior del mismo (laboratorio, usuario) si sigue en memoria
+     */
+    private RepositorySnapshot previousAttempt(LabSubmission submission) {
+        if (maxSnapshots <= 0 || submission.getLab() == null || submission.getUser() == null
+                || submission.getAttemptNumber() == null) {
+            return null;
+        }
+        Long previousId = submissionRepository.findPreviousAttemptId(
+            submission.getLab(), submission.getUser(), submission.getAttemptNumber());
+        if (previousId == null) {
+            return null;
+        }
+        synchronized (recent) {
+            return recent.get(previousId);
+        }
+    }
+
+    private void remember(Long submissionId, RepositorySnapshot snapshot) {
+        if (maxSnapshots <= 0 || submissionId == null) {
+            return;
+        }
+        synchronized (recent) {
+            recent.put(submissionId, snapshot);
+            if (recent.size() > maxSnapshots) {
+                recent.remove(recent.keySet().iterator().next());
+            }
+        }
+    }
+
+    /**
+     * Lee los ficheros de texto relevantes del worktree (ruta relativa -> contenido)
+     */
+    private Map<String, String> readFiles(Path root) {
+        Map<String, String> files = new HashMap<>();
+        try (Stream<Path> paths = Files.walk(root)) {
+            List<Path> candidates = paths
+                .filter(Files::isRegularFile)
+                .filter(path -> !isIgnored(root.relativize(path)))
+                .filter(this::hasRelevantExtension)
+                .toList();
+            for (Path path : candidates) {
+                if (Files.size(path) <= MAX_FILE_BYTES) {
+                    String relative = root.relativize(path).toString().replace('\\', '/');
+                    files.put(relative, new String(Files.readAllBytes(path), StandardCharsets.UTF_8));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo leer el repositorio en " + root, e);
+        }
+        return files;
+    }
+
+    private boolean isIgnored(Path relative) {
+        for (Path part : relative) {
+            if (IGNORED_DIRECTORIES.contains(part.toString())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean hasRelevantExtension(Path path) {
+        String name = path.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        return dot >= 0 && EXTENSIONS.contains(name.substring(dot)) || name.equals("README");
+    }
+}
@@ -1,5 +1,8 @@
 package com.pluto.learning.assessment;
 
+import java.util.List;
+import java.util.Map;
+
 
 
 /**
@@ -10,6 +13,7 @@ class CodeQualityScore {
     private double codeCoverage;
     private int complexity;
     private double duplication;
+    private List<CodeClone> clones = List.of();
     private int bugs;
     private int vulnerabilities;
     private int codeSmells;
@@ -26,6 +30,9 @@ class CodeQualityScore {
     public double getDuplication() { return duplication; }
     public void setDuplication(double duplication) { this.duplication = duplication; }
     
+    public List<CodeClone> getClones() { return clones; }
+    public void setClones(List<CodeClone> clones) { this.clones = clones; }
+    
     public int getBugs() { return bugs; }
     public void setBugs(int bugs) { this.bugs = bugs; }
     
@@ -131,3 +138,84 @@ class OperabilityScore {
         this.documentationQuality = documentationQuality; 
     }
 }
+
+/**
+ * Score de rendimiento bajo carga (solo laboratorios con prueba de carga)
+ */
+class PerformanceScore {
+    private int score;
+    private long requests;
+    private double p50Millis;
+    private double p99Millis;
+    private double maxMillis;
+    private double throughput;
+    private double errorRate;
+    private int targetP99Millis;
+    private int targetThroughput;
+    private String error;
+    
+    public int getScore() { return score; }
+    public void setScore(int score) { this.score = score; }
+    
+    public long getRequests() { return requests; }
+    public void setRequests(long requests) { this.requests = requests; }
+    
+    public double getP50Millis() { return p50Millis; }
+    public void setP50Millis(double p50Millis) { this.p50Millis = p50Millis; }
+    
+    public double getP99Millis() { return p99Millis; }
+    public void setP99Millis(double p99Millis) { this.p99Millis = p99Millis; }
+    
+    public double getMaxMillis() { return maxMillis; }
+    public void setMaxMillis(double maxMillis) { this.maxMillis = maxMillis; }
+    
+    public double getThroughput() { return throughput; }
+    public void setThroughput(double throughput) { this.throughput = throughput; }
+    
+    public double getErrorRate() { return errorRate; }
+    public void setErrorRate(double errorRate) { this.errorRate = errorRate; }
+    
+    public int getTargetP99Millis() { return targetP99Millis; }
+    public void setTargetP99Millis(int targetP99Millis) { this.targetP99Millis = targetP99Millis; }
+    
+    public int getTargetThroughput() { return targetThroughput; }
+    public void setTargetThroughput(int targetThroughput) { this.targetThroughput = targetThroughput; }
+    
+    // Motivo por el que no se pudo medir (p. ej. el servicio no arrancó)
+    public String getError() { return error; }
+    public void setError(String error) { this.error = error; }
+}
+
+/**
+ * Score de microbenchmark JMH relativo a la solución de referencia
+ */
+class BenchmarkScore {
+    private int score;
+    // ops/s del alumno / ops/s de la referencia (media geométrica entre benchmarks)
+    private double relativeThroughput;
+    private Map<String, Double> opsPerSecond = Map.of();
+    private Map<String, Double> referenceOpsPerSecond = Map.of();
+    private String cpuSet;
+    private String error;
+    
+    public int getScore() { return score; }
+    public void setScore(int score) { this.score = score; }
+    
+    public double getRelativeThroughput() { return relativeThroughput; }
+    public void setRelativeThroughput(double relativeThroughput) { this.relativeThroughput = relativeThroughput; }
+    
+    public Map<String, Double> getOpsPerSecond() { return opsPerSecond; }
+    public void setOpsPerSecond(Map<String, Double> opsPerSecond) { this.opsPerSecond = opsPerSecond; }
+    
+    public Map<String, Double> getReferenceOpsPerSecond() { return referenceOpsPerSecond; }
+    public void setReferenceOpsPerSecond(Map<String, Double> referenceOpsPerSecond) { 
+        this.referenceOpsPerSecond = referenceOpsPerSecond; 
+    }
+    
+    public String getCpuSet() { return cpuSet; }
+    public void setCpuSet(String cpuSet) { this.cpuSet = cpuSet; }
+    
+    // Motivo por el que no se pudo medir (p. ej. no compila con el harness)
+    public String getError() { return error; }
+    public void setError(String error) { this.error = error; }
+}
@@ -0,0 +1,36 @@
+package com.pluto.learning.assessment;
+
+import java.util.Arrays;
+
+/**
+ * Pares por encima del umbral calculados en un tile de la matriz, en arrays primitivos
+ */
+final class SimilarityTileResult {
+
+    private long[] submissionsA = new long[16];
+    private long[] submissionsB = new long[16];
+    private int[] shared = new int[16];
+    private double[] similarities = new double[16];
+    private int size;
+
+    void add(long submissionA, long submissionB, int sharedFingerprints, double similarity) {
+        if (size == submissionsA.length) {
+            int capacity = size * 2;
+            submissionsA = Arrays.copyOf(submissionsA, capacity);
+            submissionsB = Arrays.copyOf(submissionsB, capacity);
+            shared = Arrays.copyOf(shared, capacity);
+            similarities = Arrays.copyOf(similarities, capacity);
+        }
+        submissionsA[size] = submissionA;
+        submissionsB[size] = submissionB;
+        shared[size] = sharedFingerprints;
+        similarities[size] = similarity;
+        size++;
+    }
+
+    int size() { return size; }
+    long submissionA(int index) { return submissionsA[index]; }
+    long submissionB(int index) { return submissionsB[index]; }
+    int sharedFingerprints(int index) { return shared[index]; }
+    double similarity(int index) { return similarities[index]; }
+}
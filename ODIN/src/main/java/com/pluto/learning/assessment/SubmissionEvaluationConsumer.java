@@ -0,0 +1,311 @@
+package com.pluto.learning.assessment;
+
+import com.pluto.learning.submissions.LabSubmission;
+import com.pluto.learning.submissions.SubmissionRepository;
+import com.pluto.learning.submissions.SubmissionService;
+import com.pluto.learning.submissions.SubmissionService.SubmissionEvaluationEvent;
+import jakarta.annotation.PreDestroy;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.listener.AcknowledgingMessageListener;
+import org.springframework.kafka.listener.ConcurrentMessageListenerContainer;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+import org.springframework.stereotype.Component;
+import org.springframework.util.backoff.FixedBackOff;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Consumidor del topic {@value #TOPIC}: evalúa en segundo plano las submissions que
+ * publica {@link SubmissionService} al crearse.
+ *
+ * Los hilos consumidores ({@code concurrency}) solo despachan cada evento al
+ * {@link FairEvaluationScheduler}. Cuando el trabajo en curso (en cola o evaluándose)
+ * alcanza {@code max-in-flight} se pausan las particiones del contenedor y se
+ * reanudan al bajar a la mitad, de modo que una ráfaga de envíos no acumula eventos
+ * en memoria ni supera {@code max.poll.interval.ms}.
+ *
+ * Las evaluaciones terminan en cualquier orden, pero el offset de una partición
+ * solo avanza sobre el prefijo de eventos terminados: un evento cuenta como
+ * terminado cuando {@link SubmissionService#updateAutomatedScore} ha persistido el
+ * resultado, o cuando la submission queda en revisión manual tras
+ * {@code max-attempts} fallos (aunque ese último paso falle). Si el proceso cae
+ * antes, el evento se vuelve a entregar (entrega al menos una vez).
+ */
+@Component
+public class SubmissionEvaluationConsumer {
+
+    static final String TOPIC = "submission-evaluation";
+    static final Duration RETRY_DELAY = Duration.ofSeconds(1);
+
+    private final Map<String, Object> consumerConfig;
+    private final String topic;
+    private final AdvancedAssessmentEngine assessmentEngine;
+    private final SubmissionService submissionService;
+    private final SubmissionRepository submissionRepository;
+    private final boolean enabled;
+    private final String groupId;
+    private final int concurrency;
+    private final int maxInFlight;
+    private final int maxAttempts;
+    private final FairEvaluationScheduler scheduler;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Map<TopicPartition, PartitionProgress> progress = new ConcurrentHashMap<>();
+
+    private volatile ConcurrentMessageListenerContainer<String, SubmissionEvaluationEvent> container;
+
+    public SubmissionEvaluationConsumer(KafkaProperties kafkaProperties,
+                                        AdvancedAssessmentEngine assessmentEngine,
+                                        SubmissionService submissionService,
+                                        SubmissionRepository submissionRepository,
+                                        FairEvaluationScheduler scheduler,
+                                        @Value("${assessment.evaluation.consumer.enabled:true}") boolean enabled,
+                                        @Value("${assessment.evaluation.consumer.group-id:submission-evaluator}") String groupId,
+                                        @Value("${assessment.evaluation.consumer.concurrency:2}") int concurrency,
+                                        @Value("${assessment.evaluation.consumer.max-in-flight:8}") int maxInFlight,
+                                        @Value("${assessment.evaluation.consumer.max-poll-records:4}") int maxPollRecords,
+                                        @Value("${assessment.evaluation.consumer.max-attempts:3}") int maxAttempts) {
+        this(kafkaProperties.buildConsumerProperties(null), TOPIC, assessmentEngine, submissionService, submissionRepository,
+            scheduler, enabled, groupId, concurrency, maxInFlight, maxPollRecords, maxAttempts);
+    }
+
+    SubmissionEvaluationConsumer(Map<String, Object> consumerConfig,
+                                 String topic,
+                                 AdvancedAssessmentEngine assessmentEngine,
+                                 SubmissionService submissionService,
+                                 SubmissionRepository submissionRepository,
+                                 FairEvaluationScheduler scheduler,
+                                 boolean enabled, String groupId, int concurrency,
+                                 int maxInFlight, int maxPollRecords, int maxAttempts) {
+        if (concurrency < 1 || maxInFlight < 1 || maxPollRecords < 1 || maxAttempts < 1) {
+            throw new IllegalArgumentException("La configuración de assessment.evaluation.consumer debe ser positiva");
+        }
+        this.consumerConfig = consumerConfig(consumerConfig, maxPollRecords);
+        this.topic = topic;
+        this.assessmentEngine = assessmentEngine;
+        this.submissionService = submissionService;
+        this.submissionRepository = submissionRepository;
+        this.scheduler = scheduler;
+        this.enabled = enabled;
+        this.groupId = groupId;
+        this.concurrency = concurrency;
+        this.maxInFlight = maxInFlight;
+        this.maxAttempts = maxAttempts;
+
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (enabled) {
+            start();
+        }
+    }
+
+    synchronized void start() {
+        if (container != null) {
+            return;
+        }
+        ContainerProperties properties = new ContainerProperties(topic);
+        properties.setGroupId(groupId);
+        properties.setAckMode(ContainerProperties.AckMode.MANUAL);
+        properties.setMessageListener((AcknowledgingMessageListener<String, SubmissionEvaluationEvent>) this::dispatch);
+
+        container = new ConcurrentMessageListenerContainer<>(
+            new DefaultKafkaConsumerFactory<>(consumerConfig), properties);
+        container.setConcurrency(concurrency);
+        // Eventos que no se pueden deserializar: se descartan sin reintentos
+        container.setCommonErrorHandler(new DefaultErrorHandler(new FixedBackOff(0L, 0L)));
+        container.start();
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        if (container != null) {
+            container.stop();
+            container = null;
+        }
+    }
+
+    /**
+     * Evaluaciones en cola o en curso
+     */
+    public int inFlight() {
+        return inFlight.get();
+    }
+
+    boolean isPaused() {
+        ConcurrentMessageListenerContainer<?, ?> current = container;
+        return current != null && current.isPauseRequested();
+    }
+
+    /**
+     * Se ejecuta en el hilo consumidor: no evalúa, solo encola y aplica backpressure.
+     * Si la submission no se puede leer o el planificador rechaza la tarea, el evento
+     * se vuelve a entregar tras {@link #RETRY_DELAY} (el contenedor pausa el consumo
+     * mientras tanto) en lugar de evaluarlo en este hilo.
+     */
+    private void dispatch(ConsumerRecord<String, SubmissionEvaluationEvent> record, Acknowledgment ack) {
+        PartitionProgress partition = progress.computeIfAbsent(
+            new TopicPartition(record.topic(), record.partition()), key -> new PartitionProgress());
+        partition.received(record.offset(), ack);
+        Long submissionId = record.value() != null ? record.value().getSubmissionId() : null;
+        if (submissionId == null) {
+            partition.completed(record.offset());
+            return;
+        }
+        Optional<LabSubmission> submission;
+        try {
+            submission = submissionRepository.findById(submissionId);
+        } catch (RuntimeException e) {
+            retryLater(partition, record, ack);
+            return;
+        }
+        if (submission.isEmpty()) {
+            // Borrada desde que se publicó el evento
+            partition.completed(record.offset());
+            return;
+        }
+        if (inFlight.incrementAndGet() >= maxInFlight) {
+            pause();
+        }
+        Runnable task = () -> {
+            try {
+                evaluate(submissionId);
+            } finally {
+                // También si falla el paso a revisión manual: un offset sin completar bloquea la partición
+                partition.completed(record.offset());
+                finished();
+            }
+        };
+        try {
+            scheduler.execute(submission.get(), task);
+        } catch (RejectedExecutionException e) {
+            // Planificador lleno por otras fuentes o detenido
+            finished();
+            retryLater(partition, record, ack);
+        }
+    }
+
+    private void retryLater(PartitionProgress partition, ConsumerRecord<?, ?> record, Acknowledgment ack) {
+        partition.abandoned(record.offset());
+        // Vuelve a buscar este registro y los siguientes del poll tras la espera
+        ack.nack(RETRY_DELAY);
+    }
+
+    private void finished() {
+        if (inFlight.decrementAndGet() <= maxInFlight / 2) {
+            resume();
+        }
+    }
+
+    private void evaluate(Long submissionId) {
+        RuntimeException lastError = null;
+        for (int attempt = 1; attempt <= maxAttempts; attempt++) {
+            Optional<LabSubmission> submission = submissionRepository.findById(submissionId);
+            if (submission.isEmpty()) {
+                // Borrada desde que se publicó el evento
+                return;
+            }
+            try {
+                AssessmentResult result = assessmentEngine.evaluateSubmission(submission.get());
+                submissionService.updateAutomatedScore(submissionId, result.getFinalScore(),
+                    testSummary(result), result.getFeedback());
+                return;
+            } catch (RuntimeException e) {
+                lastError = e;
+            }
+        }
+        submissionService.markEvaluationFailed(submissionId,
+            "La evaluación automática falló tras " + maxAttempts + " intentos: " + lastError.getMessage());
+    }
+
+    private static String testSummary(AssessmentResult result) {
+        FunctionalityScore functionality = result.getFunctionalityScore();
+        if (functionality == null) {
+            return null;
+        }
+        return String.format("%d/%d tests passed, coverage %.1f%%",
+            functionality.getTestsPassed(), functionality.getTestsTotal(), functionality.getTestCoverage() * 100);
+    }
+
+    private void pause() {
+        ConcurrentMessageListenerContainer<?, ?> current = container;
+        if (current != null && !current.isPauseRequested()) {
+            current.pause();
+        }
+    }
+
+    private void resume() {
+        ConcurrentMessageListenerContainer<?, ?> current = container;
+        if (current != null && current.isPauseRequested()) {
+            current.resume();
+        }
+    }
+
+    /**
+     * Offsets recibidos de una partición y aún no confirmados, en orden
+     */
+    private static final class PartitionProgress {
+        private final TreeMap<Long, Acknowledgment> pending = new TreeMap<>();
+        private final Set<Long> completed = new HashSet<>();
+
+        synchronized void received(long offset, Acknowledgment ack) {
+            pending.put(offset, ack);
+        }
+
+        /**
+         * El offset se volverá a entregar: deja de contar para el prefijo
+         */
+        synchronized void abandoned(long offset) {
+            pending.remove(offset);
+        }
+
+        /**
+         * Marca el offset como terminado y confirma el prefijo contiguo de terminados;
+         * basta con confirmar el último porque el commit cubre todos los anteriores
+         */
+        synchronized void completed(long offset) {
+            completed.add(offset);
+            Acknowledgment last = null;
+            while (!pending.isEmpty() && completed.remove(pending.firstKey())) {
+                last = pending.pollFirstEntry().getValue();
+            }
+            if (last != null) {
+                last.acknowledge();
+            }
+        }
+    }
+
+    private static Map<String, Object> consumerConfig(Map<String, Object> base, int maxPollRecords) {
+        Map<String, Object> config = new HashMap<>(base);
+        config.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        config.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, maxPollRecords);
+        config.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, ErrorHandlingDeserializer.class);
+        config.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ErrorHandlingDeserializer.class);
+        config.put(ErrorHandlingDeserializer.KEY_DESERIALIZER_CLASS, StringDeserializer.class);
+        config.put(ErrorHandlingDeserializer.VALUE_DESERIALIZER_CLASS, JsonDeserializer.class);
+        config.put(JsonDeserializer.VALUE_DEFAULT_TYPE, SubmissionEvaluationEvent.class.getName());
+        config.putIfAbsent(JsonDeserializer.TRUSTED_PACKAGES, "com.pluto.learning.*");
+        return config;
+    }
+}
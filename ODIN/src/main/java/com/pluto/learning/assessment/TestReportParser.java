@@ -0,0 +1,231 @@
+package com.pluto.learning.assessment;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingJsonFactory;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lectura en streaming (StAX) de los informes que deja la build de una submission:
+ * JUnit XML de Surefire/Gradle, el XML de JaCoCo y el {@code mutations.xml} de PIT. No se carga ningún DOM, así que
+ * el coste en memoria no depende del tamaño del informe, y las DTD y entidades
+ * externas están desactivadas porque los ficheros los genera código del alumno.
+ * Los resultados JSON de JMH, que son pequeños (una entrada por benchmark), sí se
+ * leen como árbol.
+ */
+final class TestReportParser {
+
+    // Nombres de tests fallidos que se conservan para el feedback
+    static final int MAX_FAILED_TESTS = 50;
+
+    private static final XMLInputFactory FACTORY = newFactory();
+    private static final JsonFactory JSON = new MappingJsonFactory();
+
+    private TestReportParser() {
+    }
+
+    /**
+     * Acumula los casos de un fichero JUnit XML ({@code <testsuite>} o {@code <testsuites>})
+     */
+    static void parseJUnit(Path report, JUnitSummary summary) {
+        read(report, reader -> {
+            String testCase = null;
+            boolean failed = false;
+            boolean skipped = false;
+            while (reader.hasNext()) {
+                int event = reader.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    switch (reader.getLocalName()) {
+                        case "testcase" -> {
+                            String className = reader.getAttributeValue(null, "classname");
+                            String name = reader.getAttributeValue(null, "name");
+                            testCase = className != null ? className + "." + name : name;
+                            failed = false;
+                            skipped = false;
+                        }
+                        case "failure", "error" -> failed = testCase != null;
+                        case "skipped" -> skipped = testCase != null;
+                        default -> { }
+                    }
+                } else if (event == XMLStreamConstants.END_ELEMENT && "testcase".equals(reader.getLocalName())) {
+                    summary.add(testCase, failed, skipped);
+                    testCase = null;
+                }
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Cobertura de líneas (0-1) del informe JaCoCo, o -1 si no tiene contador de líneas.
+     * Solo cuentan los {@code <counter>} hijos directos de {@code <report>}, que son
+     * los totales del informe.
+     */
+    static double parseJacocoLineCoverage(Path report) {
+        return read(report, reader -> {
+            int depth = 0;
+            while (reader.hasNext()) {
+                int event = reader.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    depth++;
+                    if (depth == 2 && "counter".equals(reader.getLocalName())
+                            && "LINE".equals(reader.getAttributeValue(null, "type"))) {
+                        long missed = Long.parseLong(reader.getAttributeValue(null, "missed"));
+                        long covered = Long.parseLong(reader.getAttributeValue(null, "covered"));
+                        return missed + covered > 0 ? (double) covered / (missed + covered) : 0.0;
+                    }
+                } else if (event == XMLStreamConstants.END_ELEMENT) {
+                    depth--;
+                }
+            }
+            return -1.0;
+        });
+    }
+
+    /**
+     * Cuenta los mutantes de un {@code mutations.xml} de PIT. Los no viables (no
+     * compilan o no cargan) no cuentan para la puntuación.
+     */
+    static MutationSummary parsePitMutations(Path report) {
+        return read(report, reader -> {
+            MutationSummary summary = new MutationSummary();
+            while (reader.hasNext()) {
+                if (reader.next() == XMLStreamConstants.START_ELEMENT && "mutation".equals(reader.getLocalName())) {
+                    String status = reader.getAttributeValue(null, "status");
+                    if (!"NON_VIABLE".equals(status)) {
+                        summary.add(Boolean.parseBoolean(reader.getAttributeValue(null, "detected")),
+                            "NO_COVERAGE".equals(status));
+                    }
+                }
+            }
+            return summary;
+        });
+    }
+
+    /**
+     * Throughput (ops/s) de cada benchmark de un informe JSON de JMH ejecutado en modo
+     * {@code thrpt} con unidad de tiempo segundos
+     */
+    static Map<String, Double> parseJmhThroughput(Path report) {
+        try (JsonParser parser = JSON.createParser(report.toFile())) {
+            Map<String, Double> results = new LinkedHashMap<>();
+            JsonNode root = parser.readValueAsTree();
+            if (root == null || !root.isArray()) {
+                throw new IllegalArgumentException("Informe mal formado: " + report.getFileName());
+            }
+            for (JsonNode run : root) {
+                JsonNode score = run.path("primaryMetric").path("score");
+                if (run.hasNonNull("benchmark") && score.isNumber()) {
+                    results.put(run.get("benchmark").asText(), score.asDouble());
+                }
+            }
+            return results;
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Informe mal formado: " + report.getFileName(), e);
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo leer el informe " + report, e);
+        }
+    }
+
+    private static <T> T read(Path report, ReaderFunction<T> function) {
+        try (InputStream input = Files.newInputStream(report)) {
+            XMLStreamReader reader = FACTORY.createXMLStreamReader(input);
+            try {
+                return function.apply(reader);
+            } finally {
+                reader.close();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo leer el informe " + report, e);
+        } catch (XMLStreamException | NumberFormatException e) {
+            throw new IllegalArgumentException("Informe mal formado: " + report.getFileName(), e);
+        }
+    }
+
+    private static XMLInputFactory newFactory() {
+        XMLInputFactory factory = XMLInputFactory.newFactory();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        return factory;
+    }
+
+    @FunctionalInterface
+    private interface ReaderFunction<T> {
+        T apply(XMLStreamReader reader) throws XMLStreamException;
+    }
+
+    /**
+     * Totales de todos los ficheros JUnit de una ejecución
+     */
+    static final class JUnitSummary {
+        private int total;
+        private int failed;
+        private int skipped;
+        private final List<String> failedTests = new ArrayList<>();
+
+        void add(String testCase, boolean failed, boolean skipped) {
+            total++;
+            if (failed) {
+                this.failed++;
+                if (failedTests.size() < MAX_FAILED_TESTS) {
+                    failedTests.add(testCase);
+                }
+            } else if (skipped) {
+                this.skipped++;
+            }
+        }
+
+        int total() { return total; }
+        int failed() { return failed; }
+        int skipped() { return skipped; }
+
+        /**
+         * Los tests deshabilitados cuentan en el total pero no como superados
+         */
+        int passed() { return total - failed - skipped; }
+
+        List<String> failedTests() { return failedTests; }
+    }
+
+    /**
+     * Totales de un análisis de mutación
+     */
+    static final class MutationSummary {
+        private int total;
+        private int killed;
+        private int noCoverage;
+
+        void add(boolean detected, boolean uncovered) {
+            total++;
+            if (detected) {
+                killed++;
+            } else if (uncovered) {
+                noCoverage++;
+            }
+        }
+
+        int total() { return total; }
+        int killed() { return killed; }
+        int noCoverage() { return noCoverage; }
+
+        /**
+         * Fracción de mutantes detectados por algún test (0-1)
+         */
+        double score() { return total > 0 ? (double) killed / total : 0.0; }
+    }
+}
@@ -0,0 +1,971 @@
+package com.pluto.learning.assessment;
+
+import com.pluto.learning.assessments.Lab;
+import com.pluto.learning.assessments.LabRepository;
+import com.pluto.learning.submissions.LabSubmission;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Pool local de ejecución de tests de las submissions en procesos aislados.
+ *
+ * Cada ejecución copia el commit (desde {@link GitMirrorCache}) a un directorio de
+ * trabajo propio y lanza la build detectada (Maven o Gradle) con JaCoCo. El proceso
+ * hereda un entorno vacío (solo PATH, JAVA_HOME e idioma), con HOME apuntando al
+ * directorio de trabajo, para que el código del alumno no vea credenciales del
+ * servicio. Los límites son: tiempo de CPU por proceso ({@code ulimit -t}), heap de
+ * cada JVM ({@code JAVA_TOOL_OPTIONS=-Xmx}) y un timeout de reloj que mata el árbol
+ * de procesos completo.
+ *
+ * No hay aislamiento de red ni de sistema de ficheros más allá del directorio de
+ * trabajo, así que los scripts de build del alumno se ejecutan con el usuario del
+ * servicio. Por eso el sandbox está desactivado por defecto
+ * ({@code assessment.sandbox.enabled}) y solo debe activarse si el servicio corre con
+ * un usuario sin privilegios o dentro de un contenedor.
+ *
+ * Las dependencias de cada laboratorio se siembran una sola vez en
+ * {@code cache-dir/lab-<id>} con una build de confianza de la plantilla del
+ * laboratorio; después la semilla se deja en solo lectura y las builds de los alumnos
+ * solo la leen (Maven como {@code maven.repo.local.tail}, Gradle como
+ * {@code GRADLE_RO_DEP_CACHE}). Lo que falte se descarga a una caché privada de cada
+ * ejecución que se borra al terminar, de modo que una build no puede dejar artefactos
+ * que acaben en la de otro alumno.
+ *
+ * Antes de cada build se borran los directorios {@code target/} y {@code build/} que
+ * vengan en el commit, y solo se leen los informes de las rutas de salida estándar
+ * escritos durante la ejecución.
+ *
+ * Opcionalmente ({@code mutation.enabled}), si todos los tests pasan se lanza PIT
+ * sobre el mismo directorio ya compilado: genera mutantes de bytecode de las clases
+ * principales, ejecuta para cada uno solo los tests que cubren la línea mutada (mapa
+ * de cobertura por test) y corta en el primer test que lo mata, repartiendo los
+ * mutantes entre {@code mutation.threads} procesos. El historial de PIT se guarda por
+ * (laboratorio, usuario) fuera de la semilla, así que en el siguiente intento las clases sin cambios
+ * reutilizan sus resultados. En Maven los proyectos JUnit 5 deben declarar
+ * {@code pitest-junit5-plugin} en su pom; en Gradle lo añade el init script.
+ *
+ * Para las pruebas de carga, {@link #withRunningService} arranca el servicio con los
+ * mismos límites y lo mantiene vivo mientras dura la prueba; {@link #runBenchmark}
+ * mide con JMH el harness de benchmark del laboratorio.
+ */
+@Component
+public class TestSandboxPool {
+
+    static final String MAVEN_COMMAND = "mvn -B -q -Dmaven.repo.local={cache}/m2 -Dmaven.repo.local.tail={seed}/m2"
+        + " -Dmaven.test.failure.ignore=true"
+        + " org.jacoco:jacoco-maven-plugin:0.8.12:prepare-agent test org.jacoco:jacoco-maven-plugin:0.8.12:report";
+    static final String GRADLE_COMMAND = "gradle --no-daemon --build-cache -q --continue -I {cache}/jacoco.init.gradle test";
+    static final String MAVEN_MUTATION_COMMAND = "mvn -B -q -Dmaven.repo.local={cache}/m2 -Dmaven.repo.local.tail={seed}/m2"
+        + " org.pitest:pitest-maven:1.17.0:mutationCoverage -DoutputFormats=XML -DtimestampedReports=false"
+        + " -DfailWhenNoMutations=false -Dthreads={threads} -DhistoryInputFile={history} -DhistoryOutputFile={history}";
+    static final String GRADLE_MUTATION_COMMAND = "gradle --no-daemon -q -I {cache}/pitest.init.gradle pitest"
+        + " -Podin.mutation.threads={threads} -Podin.mutation.history={history}";
+    static final String MAVEN_SERVICE_COMMAND = "mvn -B -q -Dmaven.repo.local={cache}/m2 -Dmaven.repo.local.tail={seed}/m2 -DskipTests"
+        + " spring-boot:run -Dspring-boot.run.arguments=--server.port={port}";
+    static final String GRADLE_SERVICE_COMMAND = "gradle --no-daemon --build-cache -q bootRun --args=--server.port={port}";
+    static final String MAVEN_BENCHMARK_COMMAND = "mvn -B -q -Dmaven.repo.local={cache}/m2 -Dmaven.repo.local.tail={seed}/m2"
+        + " -DskipTests test-compile"
+        + " dependency:build-classpath -Dmdep.includeScope=test -Dmdep.outputFile=.jmh-classpath";
+    static final String GRADLE_BENCHMARK_COMMAND = "gradle --no-daemon -q -I {cache}/jmh.init.gradle jmh"
+        + " -Podin.jmh.include={include} -Podin.jmh.forks={forks} -Podin.jmh.warmup={warmup}"
+        + " -Podin.jmh.iterations={iterations} -Podin.jmh.results={results}";
+
+    // Aplica JaCoCo a cualquier proyecto Java y hace que los tests fallidos no corten la build
+    private static final String GRADLE_INIT_SCRIPT = """
+        allprojects {
+            plugins.withType(JavaPlugin).configureEach {
+                apply plugin: 'jacoco'
+                tasks.withType(Test).configureEach {
+                    ignoreFailures = true
+                    finalizedBy 'jacocoTestReport'
+                }
+                tasks.named('jacocoTestReport') {
+                    reports { xml.required = true }
+                }
+            }
+        }
+        """;
+    // Aplica PIT a cualquier proyecto Java con JUnit 5 y salida XML en una ruta fija
+    private static final String GRADLE_MUTATION_INIT_SCRIPT = """
+        initscript {
+            repositories { gradlePluginPortal() }
+            dependencies { classpath 'info.solidsoft.gradle.pitest:gradle-pitest-plugin:1.15.0' }
+        }
+        allprojects {
+            plugins.withType(JavaPlugin).configureEach {
+                apply plugin: info.solidsoft.gradle.pitest.PitestPlugin
+                pitest {
+                    junit5PluginVersion = '1.2.1'
+                    outputFormats = ['XML']
+                    timestampedReports = false
+                    failWhenNoMutations = false
+                    threads = (findProperty('odin.mutation.threads') ?: '1') as Integer
+                    historyInputLocation = file(findProperty('odin.mutation.history'))
+                    historyOutputLocation = file(findProperty('odin.mutation.history'))
+                }
+            }
+        }
+        """;
+    // Aplica el plugin JMH con la configuración fija de la evaluación (throughput en ops/s)
+    private static final String GRADLE_BENCHMARK_INIT_SCRIPT = """
+        initscript {
+            repositories { gradlePluginPortal() }
+            dependencies { classpath 'me.champeau.jmh:jmh-gradle-plugin:0.7.2' }
+        }
+        allprojects {
+            plugins.withType(JavaPlugin).configureEach {
+                apply plugin: me.champeau.jmh.JMHPlugin
+                jmh {
+                    includes = [findProperty('odin.jmh.include')]
+                    fork = findProperty('odin.jmh.forks') as Integer
+                    warmupIterations = findProperty('odin.jmh.warmup') as Integer
+                    iterations = findProperty('odin.jmh.iterations') as Integer
+                    warmup = '1s'
+                    timeOnIteration = '1s'
+                    benchmarkMode = ['thrpt']
+                    timeUnit = 's'
+                    resultFormat = 'JSON'
+                    resultsFile = file(findProperty('odin.jmh.results'))
+                }
+            }
+        }
+        """;
+    private static final int LOG_TAIL_BYTES = 4096;
+    // Informes válidos, relativos al directorio de un módulo con fichero de build
+    private static final Pattern JUNIT_REPORT = Pattern.compile(
+        "target/surefire-reports/TEST-[^/]+\\.xml|build/test-results/[^/]+/TEST-[^/]+\\.xml");
+    private static final Pattern JACOCO_REPORT = Pattern.compile(
+        "target/site/jacoco/jacoco\\.xml|build/reports/jacoco/[^/]+/jacocoTestReport\\.xml");
+    private static final Pattern PIT_REPORT = Pattern.compile(
+        "target/pit-reports/mutations\\.xml|build/reports/pitest/mutations\\.xml");
+
+    private final GitMirrorCache gitMirrorCache;
+    private final LabRepository labRepository;
+    private final boolean enabled;
+    private final Path workDir;
+    private final Path cacheDir;
+    private final long timeoutSeconds;
+    private final long cpuSeconds;
+    private final int memoryMb;
+    private final boolean keepWorkDirs;
+    private final String mavenCommand;
+    private final String gradleCommand;
+    private final boolean mutationEnabled;
+    private final int mutationThreads;
+    private final long mutationTimeoutSeconds;
+    private final String mavenMutationCommand;
+    private final String gradleMutationCommand;
+    private final long serviceStartupSeconds;
+    private final String mavenServiceCommand;
+    private final String gradleServiceCommand;
+    private final String mavenBenchmarkCommand;
+    private final String gradleBenchmarkCommand;
+    private final int parallelism;
+    private final ThreadPoolExecutor executor;
+    // Un hueco por ejecución del pool; las medidas exclusivas los toman todos
+    private final Semaphore slots;
+    private final Map<String, Object> seedLocks = new ConcurrentHashMap<>();
+
+    public TestSandboxPool(GitMirrorCache gitMirrorCache,
+                           LabRepository labRepository,
+                           MeterRegistry meterRegistry,
+                           @Value("${assessment.sandbox.enabled:false}") boolean enabled,
+                           @Value("${assessment.sandbox.parallelism:0}") int parallelism,
+                           @Value("${assessment.sandbox.work-dir:${java.io.tmpdir}/odin-sandbox}") String workDir,
+                           @Value("${assessment.sandbox.cache-dir:${java.io.tmpdir}/odin-build-cache}") String cacheDir,
+                           @Value("${assessment.sandbox.timeout-seconds:300}") long timeoutSeconds,
+                           @Value("${assessment.sandbox.cpu-seconds:600}") long cpuSeconds,
+                           @Value("${assessment.sandbox.memory-mb:1024}") int memoryMb,
+                           @Value("${assessment.sandbox.keep-work-dirs:false}") boolean keepWorkDirs,
+                           @Value("${assessment.sandbox.maven-command:" + MAVEN_COMMAND + "}") String mavenCommand,
+                           @Value("${assessment.sandbox.gradle-command:" + GRADLE_COMMAND + "}") String gradleCommand,
+                           @Value("${assessment.sandbox.mutation.enabled:false}") boolean mutationEnabled,
+                           @Value("${assessment.sandbox.mutation.threads:2}") int mutationThreads,
+                           @Value("${assessment.sandbox.mutation.timeout-seconds:600}") long mutationTimeoutSeconds,
+                           @Value("${assessment.sandbox.mutation.maven-command:" + MAVEN_MUTATION_COMMAND + "}") String mavenMutationCommand,
+                           @Value("${assessment.sandbox.mutation.gradle-command:" + GRADLE_MUTATION_COMMAND + "}") String gradleMutationCommand,
+                           @Value("${assessment.sandbox.service.startup-timeout-seconds:300}") long serviceStartupSeconds,
+                           @Value("${assessment.sandbox.service.maven-command:" + MAVEN_SERVICE_COMMAND + "}") String mavenServiceCommand,
+                           @Value("${assessment.sandbox.service.gradle-command:" + GRADLE_SERVICE_COMMAND + "}") String gradleServiceCommand,
+                           @Value("${assessment.sandbox.benchmark.maven-command:" + MAVEN_BENCHMARK_COMMAND + "}") String mavenBenchmarkCommand,
+                           @Value("${assessment.sandbox.benchmark.gradle-command:" + GRADLE_BENCHMARK_COMMAND + "}") String gradleBenchmarkCommand) {
+        if (timeoutSeconds < 1 || cpuSeconds < 1 || memoryMb < 1 || mutationThreads < 1 || mutationTimeoutSeconds < 1
+                || serviceStartupSeconds < 1) {
+            throw new IllegalArgumentException("Los límites de assessment.sandbox deben ser positivos");
+        }
+        this.gitMirrorCache = gitMirrorCache;
+        this.labRepository = labRepository;
+        this.enabled = enabled;
+        this.workDir = Path.of(workDir);
+        this.cacheDir = Path.of(cacheDir);
+        this.timeoutSeconds = timeoutSeconds;
+        this.cpuSeconds = cpuSeconds;
+        this.memoryMb = memoryMb;
+        this.keepWorkDirs = keepWorkDirs;
+        this.mavenCommand = mavenCommand;
+        this.gradleCommand = gradleCommand;
+        this.mutationEnabled = mutationEnabled;
+        this.mutationThreads = mutationThreads;
+        this.mutationTimeoutSeconds = mutationTimeoutSeconds;
+        this.mavenMutationCommand = mavenMutationCommand;
+        this.gradleMutationCommand = gradleMutationCommand;
+        this.serviceStartupSeconds = serviceStartupSeconds;
+        this.mavenServiceCommand = mavenServiceCommand;
+        this.gradleServiceCommand = gradleServiceCommand;
+        this.mavenBenchmarkCommand = mavenBenchmarkCommand;
+        this.gradleBenchmarkCommand = gradleBenchmarkCommand;
+        // Cada build ya usa varios hilos: por defecto una ejecución por cada dos núcleos
+        this.parallelism = parallelism > 0 ? parallelism : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+
+        this.slots = new Semaphore(this.parallelism, true);
+
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(this.parallelism, this.parallelism, 0L, TimeUnit.MILLISECONDS,
+            new LinkedBlockingQueue<>(),
+            runnable -> {
+                Thread thread = new Thread(runnable, "test-sandbox-" + counter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+
+        Gauge.builder("assessment.sandbox.queue.depth", executor, pool -> pool.getQueue().size())
+            .description("Ejecuciones de tests esperando un hueco en el sandbox").register(meterRegistry);
+        Gauge.builder("assessment.sandbox.active", executor, ThreadPoolExecutor::getActiveCount)
+            .description("Ejecuciones de tests en curso").register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Límite de reloj de una ejecución de {@link #run}: build y, si está activo, PIT.
+     * La primera de cada laboratorio puede pagar además la siembra de la caché, que
+     * tiene los mismos límites.
+     */
+    public long maxRunSeconds() {
+        long run = timeoutSeconds + (mutationEnabled ? mutationTimeoutSeconds : 0);
+        return 2 * run;
+    }
+
+    /**
+     * Ejecuciones esperando un hueco libre
+     */
+    public int queueDepth() {
+        return executor.getQueue().size();
+    }
+
+    /**
+     * Ejecuta la build y los tests del commit de la submission y devuelve sus
+     * resultados; bloquea hasta que termina. Si el hilo se interrumpe (p. ej. por el
+     * timeout de la etapa) se cancela la ejecución y se mata el proceso.
+     */
+    public TestExecutionResult run(LabSubmission submission) {
+        return await(executor.submit(holdingSlot(() -> execute(submission))), "de tests");
+    }
+
+    /**
+     * Arranca el servicio del commit de la submission en un puerto local libre, espera
+     * a que responda por HTTP y aplica {@code client} a su URL base; al terminar se
+     * mata el árbol de procesos. Ocupa un hueco del pool durante toda la prueba para
+     * que la medida no compita por CPU con otras builds. Si el servicio no llega a
+     * arrancar se lanza {@link IllegalStateException} con el motivo y el final del log.
+     */
+    public <T> T withRunningService(LabSubmission submission, Function<URI, T> client) {
+        return await(executor.submit(holdingSlot(() -> serve(submission, client))), "del servicio");
+    }
+
+    /**
+     * Ejecuta {@code task} en el hilo que llama con todos los huecos del pool tomados,
+     * para que ninguna build ni servicio del sandbox compita por CPU con ella. Espera a
+     * que terminen las ejecuciones en curso; las nuevas esperan a que acabe.
+     */
+    public <T> T exclusively(Supplier<T> task) {
+        try {
+            slots.acquire(parallelism);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Espera del sandbox interrumpida", e);
+        }
+        try {
+            return task.get();
+        } finally {
+            slots.release(parallelism);
+        }
+    }
+
+    private <T> Callable<T> holdingSlot(Callable<T> task) {
+        return () -> {
+            slots.acquire();
+            try {
+                return task.call();
+            } finally {
+                slots.release();
+            }
+        };
+    }
+
+    /**
+     * Compila el commit de la submission con el harness JMH del laboratorio y lo
+     * ejecuta fijado a {@code cpuSet} ({@code taskset -c}; vacío para no fijarlo).
+     * Devuelve las ops/s de cada benchmark. Se ejecuta en el hilo que llama y no en
+     * el pool: quien llama se encarga de no lanzar dos medidas en el mismo conjunto de
+     * CPUs y de aislarla de las builds (p. ej. con {@link #exclusively}). Si la build o
+     * la medida fallan se lanza {@link IllegalStateException}.
+     *
+     * En Maven el harness va a {@code src/test/java} y el pom del laboratorio debe
+     * declarar {@code jmh-core} y {@code jmh-generator-annprocess} en scope test; en
+     * Gradle va a {@code src/jmh/java} y el init script aplica el plugin JMH.
+     */
+    public Map<String, Double> runBenchmark(LabSubmission submission, BenchmarkHarness harness, String cpuSet) {
+        Path directory = null;
+        try {
+            directory = checkout(submission);
+            Path seed = seededCache(submission);
+            Path cache = privateCache(directory);
+            Path results = directory.resolve(".jmh-results.json");
+            Path log = directory.resolve(".sandbox-benchmark.log");
+            List<String> command;
+            if (isMaven(directory)) {
+                writeHarness(directory.resolve("src/test/java"), harness);
+                Integer exitCode = runProcess(template(mavenBenchmarkCommand, cache, seed, Map.of()),
+                    directory, cache, seed, log, timeoutSeconds);
+                checkExit(exitCode, "Benchmark build", log);
+                String classpath = Files.readString(directory.resolve(".jmh-classpath"), StandardCharsets.UTF_8).strip();
+                command = new ArrayList<>(List.of("java", "-cp",
+                    String.join(File.pathSeparator, "target/test-classes", "target/classes", classpath),
+                    "org.openjdk.jmh.Main", harness.include(),
+                    "-f", String.valueOf(harness.forks()),
+                    "-wi", String.valueOf(harness.warmupIterations()), "-w", "1s",
+                    "-i", String.valueOf(harness.iterations()), "-r", "1s",
+                    "-bm", "thrpt", "-tu", "s", "-rf", "json", "-rff", results.toString()));
+            } else if (Files.exists(directory.resolve("build.gradle")) || Files.exists(directory.resolve("build.gradle.kts"))) {
+                writeHarness(directory.resolve("src/jmh/java"), harness);
+                writeOnce(cache.resolve("jmh.init.gradle"), GRADLE_BENCHMARK_INIT_SCRIPT);
+                command = template(gradleBenchmarkCommand, cache, seed, Map.of(
+                    "{include}", harness.include(),
+                    "{forks}", String.valueOf(harness.forks()),
+                    "{warmup}", String.valueOf(harness.warmupIterations()),
+                    "{iterations}", String.valueOf(harness.iterations()),
+                    "{results}", results.toString()));
+            } else {
+                throw new IllegalStateException("No build file (pom.xml or build.gradle) found");
+            }
+
+            if (cpuSet != null && !cpuSet.isBlank()) {
+                command.addAll(0, List.of("taskset", "-c", cpuSet.strip()));
+            }
+            checkExit(runProcess(command, directory, cache, seed, log, timeoutSeconds), "Benchmark", log);
+            Map<String, Double> throughput = Files.exists(results)
+                ? TestReportParser.parseJmhThroughput(results)
+                : Map.of();
+            if (throughput.isEmpty()) {
+                throw new IllegalStateException("Benchmark produced no results\n" + tail(log));
+            }
+            return throughput;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error preparando el benchmark", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Ejecución del benchmark interrumpida", e);
+        } finally {
+            if (directory != null && !keepWorkDirs) {
+                delete(directory.getParent());
+            }
+        }
+    }
+
+    private static void writeHarness(Path sourceRoot, BenchmarkHarness harness) throws IOException {
+        Path file = sourceRoot.resolve(harness.relativePath());
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, harness.source(), StandardCharsets.UTF_8);
+    }
+
+    private void checkExit(Integer exitCode, String step, Path log) throws IOException {
+        if (exitCode == null) {
+            throw new IllegalStateException(step + " timed out after " + timeoutSeconds + " s");
+        }
+        if (exitCode != 0) {
+            throw new IllegalStateException(step + " failed with exit code " + exitCode + "\n" + tail(log));
+        }
+    }
+
+    /**
+     * Parte la plantilla de comando en argumentos y sustituye los marcadores en cada uno
+     */
+    private static List<String> template(String template, Path cache, Path seed, Map<String, String> values) {
+        List<String> command = new ArrayList<>();
+        for (String part : template.trim().split("\\s+")) {
+            String argument = part.replace("{cache}", cache.toString()).replace("{seed}", seed.toString());
+            for (Map.Entry<String, String> value : values.entrySet()) {
+                argument = argument.replace(value.getKey(), value.getValue());
+            }
+            command.add(argument);
+        }
+        return command;
+    }
+
+    private static <T> T await(Future<T> future, String what) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Ejecución " + what + " interrumpida", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Error en la ejecución " + what, e.getCause());
+        }
+    }
+
+    private <T> T serve(LabSubmission submission, Function<URI, T> client) throws IOException, InterruptedException {
+        Path directory = checkout(submission);
+        Process process = null;
+        try {
+            Path seed = seededCache(submission);
+            Path cache = privateCache(directory);
+            int port = freePort();
+            List<String> command = serviceCommand(directory, cache, seed, port);
+            if (command == null) {
+                throw new IllegalStateException("No build file (pom.xml or build.gradle) found");
+            }
+            Path log = directory.resolve(".sandbox-service.log");
+            process = start(command, directory, cache, seed, log);
+            URI baseUri = URI.create("http://127.0.0.1:" + port);
+            awaitReady(process, baseUri, log);
+            return client.apply(baseUri);
+        } finally {
+            if (process != null) {
+                kill(process);
+            }
+            if (!keepWorkDirs) {
+                delete(directory.getParent());
+            }
+        }
+    }
+
+    /**
+     * Espera a que el servicio conteste cualquier respuesta HTTP en su puerto
+     */
+    private void awaitReady(Process process, URI baseUri, Path log) throws IOException, InterruptedException {
+        HttpClient http = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(1)).build();
+        HttpRequest probe = HttpRequest.newBuilder(baseUri.resolve("/")).timeout(Duration.ofSeconds(2)).build();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(serviceStartupSeconds);
+        while (System.nanoTime() < deadline) {
+            if (!process.isAlive()) {
+                throw new IllegalStateException("Service exited with code " + process.exitValue()
+                    + " before accepting requests\n" + tail(log));
+            }
+            try {
+                http.send(probe, HttpResponse.BodyHandlers.discarding());
+                return;
+            } catch (IOException e) {
+                Thread.sleep(500);
+            }
+        }
+        throw new IllegalStateException("Service did not start within " + serviceStartupSeconds + " s\n" + tail(log));
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    /**
+     * Copia el commit de la submission a un directorio de trabajo nuevo
+     * ({@code <run>/project}, junto a la caché privada {@code <run>/cache}) y borra las
+     * salidas de build que vinieran en el commit
+     */
+    private Path checkout(LabSubmission submission) throws IOException {
+        Path directory = workDir.resolve((submission.getId() != null ? submission.getId() : "submission")
+            + "-" + UUID.randomUUID()).resolve("project");
+        gitMirrorCache.withCheckout(submission.getGithubRepoUrl(), submission.getCommitHash(), worktree -> {
+            copyTree(worktree, directory);
+            return null;
+        });
+        deleteBuildOutputs(directory);
+        Files.createDirectories(privateCache(directory));
+        return directory;
+    }
+
+    private static Path privateCache(Path directory) {
+        return directory.resolveSibling("cache");
+    }
+
+    /**
+     * Semilla de dependencias del laboratorio; la primera vez la llena con una build de
+     * la plantilla del laboratorio y la deja en solo lectura
+     */
+    private Path seededCache(LabSubmission submission) throws IOException, InterruptedException {
+        String name = labName(submission);
+        Path seed = cacheDir.resolve(name);
+        Path marker = seed.resolve(".seeded");
+        if (Files.exists(marker)) {
+            return seed;
+        }
+        synchronized (seedLocks.computeIfAbsent(name, key -> new Object())) {
+            if (!Files.exists(marker)) {
+                Files.createDirectories(seed);
+                // La submission llega sin sesión: el lab se vuelve a cargar en vez de leer el proxy
+                Lab lab = submission.getLab() != null && submission.getLab().getId() != null
+                    ? labRepository.findById(submission.getLab().getId()).orElse(null)
+                    : null;
+                String template = lab != null ? lab.getGithubTemplateUrl() : null;
+                if (template != null && !template.isBlank()) {
+                    warmUp(lab, template, seed);
+                }
+                Files.writeString(marker, "", StandardCharsets.UTF_8);
+            }
+        }
+        return seed;
+    }
+
+    /**
+     * Build de confianza de la plantilla del laboratorio con la semilla como caché
+     * escribible. Su resultado no importa (las plantillas suelen tener tests en rojo),
+     * solo las dependencias que descarga.
+     */
+    private void warmUp(Lab lab, String templateUrl, Path seed) throws IOException, InterruptedException {
+        LabSubmission template = new LabSubmission();
+        template.setLab(lab);
+        template.setGithubRepoUrl(templateUrl);
+        Path directory = checkout(template);
+        try {
+            List<String> command = buildCommand(directory, seed, seed);
+            if (command != null) {
+                runProcess(command, directory, seed, seed, directory.resolve(".sandbox-seed.log"), timeoutSeconds);
+            }
+            if (command != null && mutationEnabled) {
+                Path history = Files.createFile(directory.resolve(".pit-history.bin"));
+                runProcess(mutationCommand(directory, seed, seed, history), directory, seed, seed,
+                    directory.resolve(".sandbox-seed-mutation.log"), mutationTimeoutSeconds);
+            }
+        } finally {
+            delete(directory.getParent());
+        }
+        try (Stream<Path> files = Files.walk(seed)) {
+            files.filter(Files::isRegularFile).forEach(file -> file.toFile().setWritable(false, false));
+        }
+    }
+
+    private TestExecutionResult execute(LabSubmission submission) throws IOException, InterruptedException {
+        Path directory = checkout(submission);
+        try {
+            Path seed = seededCache(submission);
+            Path cache = privateCache(directory);
+            List<String> command = buildCommand(directory, cache, seed);
+            if (command == null) {
+                return failure("No build file (pom.xml or build.gradle) found");
+            }
+
+            Path log = directory.resolve(".sandbox-build.log");
+            long started = startOfSecond();
+            Integer exitCode = runProcess(command, directory, cache, seed, log, timeoutSeconds);
+
+            TestExecutionResult result = collectReports(directory, started);
+            Map<String, Object> details = result.getTestDetails();
+            details.put("buildTool", isMaven(directory) ? "maven" : "gradle");
+            details.put("exitCode", exitCode);
+            if (exitCode == null) {
+                details.put("error", "Timeout after " + timeoutSeconds + " s");
+                result.getFailedTests().add(0, "Build timed out after " + timeoutSeconds + " s");
+            } else if (exitCode != 0) {
+                details.put("buildLog", tail(log));
+                if (result.getTotalTests() == 0) {
+                    result.getFailedTests().add(0, "Build failed with exit code " + exitCode);
+                }
+            } else if (mutationEnabled && result.getTotalTests() > 0 && result.getPassedTests() == result.getTotalTests()) {
+                // PIT necesita una suite en verde para saber qué mata cada mutante
+                analyzeMutations(submission, directory, cache, seed, result);
+            }
+            return result;
+        } finally {
+            if (!keepWorkDirs) {
+                delete(directory.getParent());
+            }
+        }
+    }
+
+    /**
+     * Lanza PIT sobre el directorio ya compilado y añade la puntuación de mutación
+     */
+    private void analyzeMutations(LabSubmission submission, Path directory, Path cache, Path seed,
+                                  TestExecutionResult result) throws IOException, InterruptedException {
+        Path history = mutationHistory(submission, directory);
+        boolean reused = Files.size(history) > 0;
+        List<String> command = mutationCommand(directory, cache, seed, history);
+
+        Path log = directory.resolve(".sandbox-mutation.log");
+        long started = startOfSecond();
+        Integer exitCode = runProcess(command, directory, cache, seed, log, mutationTimeoutSeconds);
+        Map<String, Object> mutation = new LinkedHashMap<>();
+        result.getTestDetails().put("mutation", mutation);
+        Path report = findReports(directory, PIT_REPORT, started).stream().findFirst().orElse(null);
+        if (exitCode == null || exitCode != 0 || report == null) {
+            mutation.put("error", exitCode == null
+                ? "Timeout after " + mutationTimeoutSeconds + " s"
+                : "Mutation analysis failed with exit code " + exitCode);
+            mutation.put("log", tail(log));
+            return;
+        }
+        TestReportParser.MutationSummary summary = TestReportParser.parsePitMutations(report);
+        result.setMutationScore(summary.score());
+        result.setMutantsKilled(summary.killed());
+        result.setMutantsTotal(summary.total());
+        mutation.put("killed", summary.killed());
+        mutation.put("total", summary.total());
+        mutation.put("noCoverage", summary.noCoverage());
+        mutation.put("incremental", reused);
+
+        Path shared = sharedMutationHistory(submission);
+        if (shared != null) {
+            Files.createDirectories(shared.getParent());
+            Path temporary = shared.resolveSibling(shared.getFileName() + "." + UUID.randomUUID());
+            Files.copy(history, temporary);
+            Files.move(temporary, shared, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+    }
+
+    /**
+     * Copia local del historial de PIT del (laboratorio, usuario), o vacía si no hay.
+     * PIT trabaja sobre la copia para que dos intentos simultáneos no se pisen.
+     */
+    private List<String> mutationCommand(Path directory, Path cache, Path seed, Path history) throws IOException {
+        String template;
+        if (isMaven(directory)) {
+            template = mavenMutationCommand;
+        } else {
+            template = gradleMutationCommand;
+            writeOnce(cache.resolve("pitest.init.gradle"), GRADLE_MUTATION_INIT_SCRIPT);
+        }
+        return template(template, cache, seed, Map.of(
+            "{threads}", String.valueOf(mutationThreads),
+            "{history}", history.toString()));
+    }
+
+    private Path mutationHistory(LabSubmission submission, Path directory) throws IOException {
+        Path history = directory.resolve(".pit-history.bin");
+        Path shared = sharedMutationHistory(submission);
+        if (shared != null && Files.exists(shared)) {
+            Files.copy(shared, history, StandardCopyOption.REPLACE_EXISTING);
+        } else {
+            Files.createFile(history);
+        }
+        return history;
+    }
+
+    // Fuera de la semilla: ninguna build recibe su ruta
+    private Path sharedMutationHistory(LabSubmission submission) {
+        return submission.getUser() != null && submission.getUser().getId() != null
+            ? cacheDir.resolve("pit-history").resolve(labName(submission))
+                .resolve("user-" + submission.getUser().getId() + ".bin")
+            : null;
+    }
+
+    /**
+     * Ejecuta el comando con los límites del sandbox; devuelve su código de salida o
+     * null si agotó el timeout y se mató
+     */
+    private Integer runProcess(List<String> command, Path directory, Path cache, Path seed, Path log, long timeout)
+            throws IOException, InterruptedException {
+        Process process = start(command, directory, cache, seed, log);
+        boolean finished;
+        try {
+            finished = process.waitFor(timeout, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            kill(process);
+            throw e;
+        }
+        if (!finished) {
+            kill(process);
+            return null;
+        }
+        return process.exitValue();
+    }
+
+    private Process start(List<String> command, Path directory, Path cache, Path seed, Path log) throws IOException {
+        ProcessBuilder builder = new ProcessBuilder(limited(command))
+            .directory(directory.toFile())
+            .redirectErrorStream(true)
+            .redirectOutput(log.toFile());
+        isolate(builder.environment(), directory, cache, seed);
+        return builder.start();
+    }
+
+    /**
+     * Lee los informes JUnit y el de JaCoCo que haya escrito la build desde {@code started}
+     */
+    private TestExecutionResult collectReports(Path directory, long started) throws IOException {
+        TestReportParser.JUnitSummary summary = new TestReportParser.JUnitSummary();
+        for (Path file : findReports(directory, JUNIT_REPORT, started)) {
+            TestReportParser.parseJUnit(file, summary);
+        }
+        List<Path> coverageReports = findReports(directory, JACOCO_REPORT, started);
+        double coverage = coverageReports.isEmpty() ? -1.0 : TestReportParser.parseJacocoLineCoverage(coverageReports.get(0));
+        TestExecutionResult result = new TestExecutionResult();
+        result.setTotalTests(summary.total());
+        result.setPassedTests(summary.passed());
+        result.setCoverage(Math.max(0.0, coverage));
+        result.setFailedTests(new ArrayList<>(summary.failedTests()));
+        Map<String, Object> details = new LinkedHashMap<>();
+        details.put("failed", summary.failed());
+        details.put("skipped", summary.skipped());
+        details.put("coverageReport", coverage >= 0);
+        result.setTestDetails(details);
+        return result;
+    }
+
+    /**
+     * Comando de la build del proyecto, o null si no se reconoce ninguna
+     */
+    private List<String> buildCommand(Path directory, Path cache, Path seed) throws IOException {
+        String template;
+        if (isMaven(directory)) {
+            template = mavenCommand;
+        } else if (Files.exists(directory.resolve("build.gradle")) || Files.exists(directory.resolve("build.gradle.kts"))) {
+            template = gradleCommand;
+            writeOnce(cache.resolve("jacoco.init.gradle"), GRADLE_INIT_SCRIPT);
+        } else {
+            return null;
+        }
+        return template(template, cache, seed, Map.of());
+    }
+
+    /**
+     * Comando que compila y arranca el servicio Spring Boot del proyecto en {@code port},
+     * o null si no se reconoce ninguna build
+     */
+    private List<String> serviceCommand(Path directory, Path cache, Path seed, int port) {
+        String template;
+        if (isMaven(directory)) {
+            template = mavenServiceCommand;
+        } else if (Files.exists(directory.resolve("build.gradle")) || Files.exists(directory.resolve("build.gradle.kts"))) {
+            template = gradleServiceCommand;
+        } else {
+            return null;
+        }
+        return template(template, cache, seed, Map.of("{port}", String.valueOf(port)));
+    }
+
+    private static boolean isMaven(Path directory) {
+        return Files.exists(directory.resolve("pom.xml"));
+    }
+
+    private static boolean isModule(Path directory) {
+        return isMaven(directory) || Files.exists(directory.resolve("build.gradle"))
+            || Files.exists(directory.resolve("build.gradle.kts"));
+    }
+
+    /**
+     * Escribe un fichero compartido de la caché del laboratorio si aún no existe, de
+     * forma atómica para que las builds concurrentes nunca lo lean a medias
+     */
+    private static void writeOnce(Path file, String content) throws IOException {
+        if (!Files.exists(file)) {
+            Path temporary = file.resolveSibling(file.getFileName() + "." + UUID.randomUUID());
+            Files.writeString(temporary, content, StandardCharsets.UTF_8);
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+    }
+
+    /**
+     * Informes en las rutas de salida estándar de algún módulo, modificados desde {@code started}
+     */
+    private static List<Path> findReports(Path directory, Pattern report, long started) throws IOException {
+        List<Path> reports = new ArrayList<>();
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.filter(Files::isRegularFile).sorted().toList()) {
+                String output = outputPath(directory, file);
+                if (output != null && report.matcher(output).matches()
+                        && Files.getLastModifiedTime(file).toMillis() >= started) {
+                    reports.add(file);
+                }
+            }
+        }
+        return reports;
+    }
+
+    /**
+     * Ruta del fichero desde el {@code target/} o {@code build/} del módulo que lo
+     * contiene, o null si no está en uno
+     */
+    private static String outputPath(Path directory, Path file) {
+        Path relative = directory.relativize(file);
+        for (int i = 0; i < relative.getNameCount() - 1; i++) {
+            String name = relative.getName(i).toString();
+            Path module = i == 0 ? directory : directory.resolve(relative.subpath(0, i));
+            if ((name.equals("target") || name.equals("build")) && isModule(module)) {
+                return relative.subpath(i, relative.getNameCount()).toString().replace('\\', '/');
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Borra los {@code target/} y {@code build/} de los módulos: un commit podría traer
+     * informes preparados
+     */
+    private static void deleteBuildOutputs(Path directory) throws IOException {
+        List<Path> outputs;
+        try (Stream<Path> paths = Files.walk(directory)) {
+            outputs = paths.filter(path -> Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS))
+                .filter(path -> path.getFileName().toString().equals("target")
+                    || path.getFileName().toString().equals("build"))
+                .filter(path -> isModule(path.getParent()))
+                .toList();
+        }
+        outputs.forEach(TestSandboxPool::delete);
+    }
+
+    // Algunos sistemas de ficheros guardan la fecha de modificación con resolución de segundos
+    private static long startOfSecond() {
+        return System.currentTimeMillis() / 1000 * 1000;
+    }
+
+    /**
+     * Envuelve el comando para aplicar el límite de CPU a la build y a sus hijos
+     */
+    private List<String> limited(List<String> command) {
+        List<String> wrapped = new ArrayList<>(Arrays.asList(
+            "sh", "-c", "ulimit -t " + cpuSeconds + " && exec \"$@\"", "sandbox"));
+        wrapped.addAll(command);
+        return wrapped;
+    }
+
+    private void isolate(Map<String, String> environment, Path directory, Path cache, Path seed) {
+        Map<String, String> inherited = new LinkedHashMap<>(environment);
+        environment.clear();
+        for (String name : List.of("PATH", "JAVA_HOME", "LANG", "LC_ALL", "TZ")) {
+            if (inherited.containsKey(name)) {
+                environment.put(name, inherited.get(name));
+            }
+        }
+        environment.put("HOME", directory.toString());
+        environment.put("GRADLE_USER_HOME", cache.resolve("gradle").toString());
+        if (!cache.equals(seed)) {
+            environment.put("GRADLE_RO_DEP_CACHE", seed.resolve("gradle").resolve("caches").toString());
+        }
+        // La heredan todas las JVM del árbol, incluidas las que lanzan los tests
+        environment.put("JAVA_TOOL_OPTIONS", "-Xmx" + memoryMb + "m");
+    }
+
+    private static String labName(LabSubmission submission) {
+        return submission.getLab() != null && submission.getLab().getId() != null
+            ? "lab-" + submission.getLab().getId()
+            : "shared";
+    }
+
+    private static void kill(Process process) {
+        process.descendants().forEach(ProcessHandle::destroyForcibly);
+        process.destroyForcibly();
+        try {
+            process.waitFor(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static TestExecutionResult failure(String reason) {
+        TestExecutionResult result = new TestExecutionResult();
+        result.setFailedTests(new ArrayList<>(List.of(reason)));
+        result.setTestDetails(new LinkedHashMap<>(Map.of("error", reason)));
+        return result;
+    }
+
+    private static String tail(Path log) throws IOException {
+        if (!Files.exists(log)) {
+            return "";
+        }
+        try (RandomAccessFile file = new RandomAccessFile(log.toFile(), "r")) {
+            long start = Math.max(0, file.length() - LOG_TAIL_BYTES);
+            byte[] bytes = new byte[(int) (file.length() - start)];
+            file.seek(start);
+            file.readFully(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+
+    private static void copyTree(Path source, Path target) {
+        try (Stream<Path> paths = Files.walk(source)) {
+            for (Path path : paths.toList()) {
+                Path relative = source.relativize(path);
+                if (!relative.toString().isEmpty() && relative.getName(0).toString().equals(".git")) {
+                    continue;
+                }
+                Path destination = target.resolve(relative.toString());
+                // Los enlaces simbólicos no se copian: podrían apuntar fuera del repositorio
+                if (Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS)) {
+                    Files.createDirectories(destination);
+                } else if (Files.isRegularFile(path, LinkOption.NOFOLLOW_LINKS)) {
+                    Files.copy(path, destination, StandardCopyOption.COPY_ATTRIBUTES);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo preparar el directorio de trabajo " + target, e);
+        }
+    }
+
+    private static void delete(Path directory) {
+        if (!Files.exists(directory)) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path path : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(path);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo borrar el directorio de trabajo " + directory, e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,229 @@
+package com.pluto.learning.assessment;
+
+import java.util.Arrays;
+
+/**
+ * Buffer reutilizable de tokens producido por {@link JavaLexer}.
+ *
+ * Los tokens se guardan en arrays de enteros paralelos (tipo, valor, inicio, fin,
+ * línea) que sobreviven entre análisis: {@link #reset(String)} solo reinicia los
+ * contadores. El texto de un token se consulta sobre el código fuente original sin
+ * crear substrings.
+ */
+final class TokenBuffer {
+
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int MIN_CAPACITY = 16;
+    // Código Java típico: un token cada 4-6 caracteres contando espacios y sangría
+    private static final int CHARS_PER_TOKEN = 4;
+
+    private String source = "";
+    private int size;
+    private int[] types;
+    private int[] values;
+    private int[] starts;
+    private int[] ends;
+    private int[] lines;
+
+    // Interning de identificadores: slot -> índice del primer token (+1), 0 = vacío
+    private int[] identifierTable;
+    private int identifierCount;
+
+    // Flujo normalizado (sin comentarios, identificadores y literales colapsados)
+    private int[] normalized = new int[0];
+    private int normalizedSize = -1;
+    private int[] normalizedTokenIndex = new int[0];
+
+    TokenBuffer() {
+        this(INITIAL_CAPACITY);
+    }
+
+    /**
+     * Buffer con capacidad inicial para {@code expectedTokens} tokens; crece si no basta
+     */
+    TokenBuffer(int expectedTokens) {
+        int capacity = Math.max(MIN_CAPACITY, expectedTokens);
+        types = new int[capacity];
+        values = new int[capacity];
+        starts = new int[capacity];
+        ends = new int[capacity];
+        lines = new int[capacity];
+        // Potencia de dos
+        identifierTable = new int[Integer.highestOneBit(capacity)];
+    }
+
+    /**
+     * Buffer dimensionado según la longitud del código, para los que se conservan
+     * por fichero (un buffer de tamaño fijo desperdicia memoria en ficheros pequeños)
+     */
+    static TokenBuffer forSource(String source) {
+        return new TokenBuffer(source.length() / CHARS_PER_TOKEN);
+    }
+
+    void reset(String source) {
+        this.source = source;
+        this.size = 0;
+        this.identifierCount = 0;
+        this.normalizedSize = -1;
+        Arrays.fill(identifierTable, 0);
+    }
+
+    void add(int type, int value, int start, int end, int line) {
+        if (size == types.length) {
+            grow();
+        }
+        types[size] = type;
+        values[size] = value;
+        starts[size] = start;
+        ends[size] = end;
+        lines[size] = line;
+        size++;
+    }
+
+    /**
+     * Devuelve el id del identificador [start, end), asignando ids en orden de aparición.
+     * Dos identificadores con el mismo texto comparten id dentro del mismo buffer.
+     */
+    int internIdentifier(int start, int end) {
+        if ((identifierCount + 1) * 2 > identifierTable.length) {
+            rehashIdentifiers();
+        }
+        int mask = identifierTable.length - 1;
+        int slot = hash(start, end) & mask;
+        while (identifierTable[slot] != 0) {
+            int token = identifierTable[slot] - 1;
+            if (regionEquals(starts[token], ends[token], start, end)) {
+                return values[token];
+            }
+            slot = (slot + 1) & mask;
+        }
+        // El token que se añadirá a continuación será la primera aparición
+        identifierTable[slot] = size + 1;
+        return identifierCount++;
+    }
+
+    String source() { return source; }
+    int size() { return size; }
+    int type(int index) { return types[index]; }
+    int value(int index) { return values[index]; }
+    int start(int index) { return starts[index]; }
+    int end(int index) { return ends[index]; }
+    int line(int index) { return lines[index]; }
+    int identifierCount() { return identifierCount; }
+
+    boolean is(int index, int type, int value) {
+        return types[index] == type && values[index] == value;
+    }
+
+    boolean textEquals(int index, String text) {
+        int length = ends[index] - starts[index];
+        return length == text.length() && source.regionMatches(starts[index], text, 0, length);
+    }
+
+    boolean textContains(int index, String text) {
+        int limit = ends[index] - text.length();
+        for (int i = starts[index]; i <= limit; i++) {
+            if (source.regionMatches(i, text, 0, text.length())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    String text(int index) {
+        return source.substring(starts[index], ends[index]);
+    }
+
+    /**
+     * Cuenta los tokens de un tipo cuyo texto coincide exactamente
+     */
+    int count(int type, String text) {
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            if (types[i] == type && textEquals(i, text)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Flujo de tokens normalizado para comparación estructural: se omiten los
+     * comentarios y todos los identificadores/literales se reducen a un mismo código,
+     * de modo que renombrar variables no altera la secuencia
+     */
+    int[] normalized() {
+        ensureNormalized();
+        return normalized;
+    }
+
+    int normalizedSize() {
+        ensureNormalized();
+        return normalizedSize;
+    }
+
+    /**
+     * Índice del token original correspondiente a una posición del flujo normalizado
+     */
+    int normalizedTokenIndex(int position) {
+        ensureNormalized();
+        return normalizedTokenIndex[position];
+    }
+
+    private void ensureNormalized() {
+        if (normalizedSize >= 0) {
+            return;
+        }
+        if (normalized.length < size) {
+            normalized = new int[size];
+            normalizedTokenIndex = new int[size];
+        }
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            int code = JavaLexer.normalizedCode(types[i], values[i]);
+            if (code != JavaLexer.SKIP) {
+                normalizedTokenIndex[count] = i;
+                normalized[count++] = code;
+            }
+        }
+        normalizedSize = count;
+    }
+
+    private void grow() {
+        int capacity = types.length * 2;
+        types = Arrays.copyOf(types, capacity);
+        values = Arrays.copyOf(values, capacity);
+        starts = Arrays.copyOf(starts, capacity);
+        ends = Arrays.copyOf(ends, capacity);
+        lines = Arrays.copyOf(lines, capacity);
+    }
+
+    private void rehashIdentifiers() {
+        int[] old = identifierTable;
+        identifierTable = new int[old.length * 2];
+        int mask = identifierTable.length - 1;
+        for (int entry : old) {
+            if (entry != 0) {
+                int token = entry - 1;
+                int slot = hash(starts[token], ends[token]) & mask;
+                while (identifierTable[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                identifierTable[slot] = entry;
+            }
+        }
+    }
+
+    private int hash(int start, int end) {
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + source.charAt(i);
+        }
+        return hash ^ (hash >>> 16);
+    }
+
+    private boolean regionEquals(int startA, int endA, int startB, int endB) {
+        int length = endA - startA;
+        return length == endB - startB && source.regionMatches(startA, source, startB, length);
+    }
+}
@@ -0,0 +1,109 @@
+package com.pluto.learning.assessment;
+
+import java.util.Arrays;
+
+/**
+ * Huellas de código mediante winnowing (estilo MOSS).
+ *
+ * Calcula hashes Karp-Rabin de todos los k-gramas de una secuencia de tokens
+ * normalizados y selecciona el mínimo de cada ventana de {@code window} hashes.
+ * Cualquier fragmento común de al menos {@code k + window - 1} tokens comparte
+ * al menos una huella.
+ */
+final class WinnowingFingerprinter {
+
+    static final int DEFAULT_K = 12;
+    static final int DEFAULT_WINDOW = 8;
+
+    private static final long BASE = 1_000_003L;
+
+    private final int k;
+    private final int window;
+    private final long highestPower;
+
+    WinnowingFingerprinter() {
+        this(DEFAULT_K, DEFAULT_WINDOW);
+    }
+
+    WinnowingFingerprinter(int k, int window) {
+        if (k < 1 || window < 1) {
+            throw new IllegalArgumentException("k y window deben ser positivos");
+        }
+        this.k = k;
+        this.window = window;
+
+        long power = 1;
+        for (int i = 1; i < k; i++) {
+            power *= BASE;
+        }
+        this.highestPower = power;
+    }
+
+    /**
+     * Devuelve las huellas seleccionadas, ordenadas y sin duplicados
+     */
+    long[] fingerprint(int[] tokens, int length) {
+        int kgramCount = length - k + 1;
+        if (kgramCount <= 0) {
+            return new long[0];
+        }
+
+        long[] hashes = new long[kgramCount];
+        long hash = 0;
+        for (int i = 0; i < k; i++) {
+            hash = hash * BASE + mix(tokens[i]);
+        }
+        hashes[0] = hash;
+        for (int i = 1; i < kgramCount; i++) {
+            hash = (hash - mix(tokens[i - 1]) * highestPower) * BASE + mix(tokens[i + k - 1]);
+            hashes[i] = hash;
+        }
+
+        return winnow(hashes);
+    }
+
+    /**
+     * Selecciona el mínimo (el más a la derecha en caso de empate) de cada ventana
+     * usando una cola monótona, en tiempo lineal
+     */
+    private long[] winnow(long[] hashes) {
+        int n = hashes.length;
+        int effectiveWindow = Math.min(window, n);
+
+        int[] deque = new int[n];
+        int head = 0;
+        int tail = 0;
+        long[] selected = new long[n];
+        int selectedCount = 0;
+        int lastSelected = -1;
+
+        for (int i = 0; i < n; i++) {
+            while (tail > head && hashes[deque[tail - 1]] >= hashes[i]) {
+                tail--;
+            }
+            deque[tail++] = i;
+            if (deque[head] <= i - effectiveWindow) {
+                head++;
+            }
+            if (i >= effectiveWindow - 1 && deque[head] != lastSelected) {
+                lastSelected = deque[head];
+                selected[selectedCount++] = hashes[lastSelected];
+            }
+        }
+
+        long[] fingerprints = Arrays.copyOf(selected, selectedCount);
+        Arrays.sort(fingerprints);
+        int distinct = 0;
+        for (int i = 0; i < fingerprints.length; i++) {
+            if (i == 0 || fingerprints[i] != fingerprints[i - 1]) {
+                fingerprints[distinct++] = fingerprints[i];
+            }
+        }
+        return Arrays.copyOf(fingerprints, distinct);
+    }
+
+    private static long mix(int token) {
+        long z = token * 0x9E3779B97F4A7C15L;
+        return z ^ (z >>> 31);
+    }
+}
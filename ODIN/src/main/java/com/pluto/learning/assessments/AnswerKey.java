@@ -0,0 +1,220 @@
+package com.pluto.learning.assessments;
+
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Clave de respuesta de una pregunta compilada una sola vez.
+ *
+ * Al compilar se normaliza {@code correctAnswersJson} según el tipo de pregunta
+ * (texto en minúsculas, conjunto de opciones correctas o código normalizado), de modo
+ * que {@link #matches(String)} compara la respuesta del alumno recorriéndola en su
+ * sitio, sin crear cadenas intermedias ni usar expresiones regulares. Es inmutable y
+ * se puede compartir entre hilos.
+ */
+public final class AnswerKey {
+
+    private static final AnswerKey NONE = new AnswerKey(null, "", new String[0]);
+
+    private final QuizQuestion.QuestionType type;
+    // Respuesta normalizada: minúsculas (TRUE_FALSE, TEXT_INPUT), recortada (SINGLE_CHOICE) o código normalizado
+    private final String normalized;
+    // Opciones correctas de MULTIPLE_CHOICE, sin duplicados
+    private final String[] options;
+
+    private AnswerKey(QuizQuestion.QuestionType type, String normalized, String[] options) {
+        this.type = type;
+        this.normalized = normalized;
+        this.options = options;
+    }
+
+    public static AnswerKey compile(QuizQuestion.QuestionType type, String correctAnswersJson) {
+        if (type == null || correctAnswersJson == null || correctAnswersJson.isBlank()) {
+            return NONE;
+        }
+        return switch (type) {
+            case TRUE_FALSE, TEXT_INPUT -> new AnswerKey(type, correctAnswersJson.strip().toLowerCase(Locale.ROOT), null);
+            case SINGLE_CHOICE -> new AnswerKey(type, correctAnswersJson.strip(), null);
+            case MULTIPLE_CHOICE -> new AnswerKey(type, "", parseOptions(correctAnswersJson));
+            case CODE_SNIPPET -> new AnswerKey(type, normalizeCode(correctAnswersJson), null);
+        };
+    }
+
+    /**
+     * Indica si la respuesta es correcta. Una respuesta vacía nunca lo es.
+     *
+     * En MULTIPLE_CHOICE la respuesta puede ser una opción o una lista (array JSON o
+     * separada por comas) y es correcta si marca exactamente las opciones correctas,
+     * en cualquier orden.
+     * En TEXT_INPUT basta con que una de las dos contenga a la otra.
+     */
+    public boolean matches(String answer) {
+        if (type == null || answer == null) {
+            return false;
+        }
+        int start = 0;
+        int end = answer.length();
+        while (start < end && answer.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && answer.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        if (start == end) {
+            return false;
+        }
+        int length = end - start;
+        return switch (type) {
+            case TRUE_FALSE -> length == normalized.length()
+                && answer.regionMatches(true, start, normalized, 0, length);
+            case SINGLE_CHOICE -> length == normalized.length()
+                && answer.regionMatches(start, normalized, 0, length);
+            case TEXT_INPUT -> containsIgnoreCase(normalized, 0, normalized.length(), answer, start, end)
+                || containsIgnoreCase(answer, start, end, normalized, 0, normalized.length());
+            case MULTIPLE_CHOICE -> options.length > 0 && sameOptions(answer, start, end);
+            case CODE_SNIPPET -> codeEquals(answer, start, end);
+        };
+    }
+
+    /**
+     * El conjunto de opciones marcadas (sin duplicados) es exactamente el de la clave
+     */
+    private boolean sameOptions(String answer, int start, int end) {
+        // Opciones de la clave ya marcadas; sin asignaciones salvo con más de 64 opciones
+        long selectedMask = 0;
+        boolean[] selected = options.length > Long.SIZE ? new boolean[options.length] : null;
+        int distinct = 0;
+        int i = start;
+        while (i < end) {
+            while (i < end && isOptionSeparator(answer.charAt(i))) {
+                i++;
+            }
+            int tokenStart = i;
+            while (i < end && answer.charAt(i) != ',' && answer.charAt(i) != ']') {
+                i++;
+            }
+            int tokenEnd = i;
+            while (tokenEnd > tokenStart && isOptionSeparator(answer.charAt(tokenEnd - 1))) {
+                tokenEnd--;
+            }
+            if (tokenEnd > tokenStart) {
+                int option = indexOf(answer, tokenStart, tokenEnd - tokenStart);
+                if (option < 0) {
+                    return false;
+                }
+                boolean seen = selected != null ? selected[option] : (selectedMask & (1L << option)) != 0;
+                if (!seen) {
+                    if (selected != null) {
+                        selected[option] = true;
+                    } else {
+                        selectedMask |= 1L << option;
+                    }
+                    distinct++;
+                }
+            }
+        }
+        return distinct == options.length;
+    }
+
+    private int indexOf(String answer, int start, int length) {
+        for (int k = 0; k < options.length; k++) {
+            String option = options[k];
+            if (option.length() == length && answer.regionMatches(start, option, 0, length)) {
+                return k;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Compara la respuesta con el código de la clave normalizándola al vuelo
+     */
+    private boolean codeEquals(String answer, int start, int end) {
+        int k = 0;
+        char previous = 0;
+        boolean pendingSpace = false;
+        for (int i = start; i < end; i++) {
+            char c = answer.charAt(i);
+            if (isCodeSpace(c)) {
+                pendingSpace = previous != 0;
+                continue;
+            }
+            if (pendingSpace && !isCodePunctuation(previous) && !isCodePunctuation(c)) {
+                if (k >= normalized.length() || normalized.charAt(k++) != ' ') {
+                    return false;
+                }
+            }
+            if (k >= normalized.length() || normalized.charAt(k++) != c) {
+                return false;
+            }
+            previous = c;
+            pendingSpace = false;
+        }
+        return k == normalized.length();
+    }
+
+    /**
+     * Espacios colapsados a uno y sin espacios alrededor de {@code {}();,}
+     */
+    static String normalizeCode(String code) {
+        StringBuilder normalized = new StringBuilder(code.length());
+        char previous = 0;
+        boolean pendingSpace = false;
+        for (int i = 0; i < code.length(); i++) {
+            char c = code.charAt(i);
+            if (isCodeSpace(c)) {
+                pendingSpace = previous != 0;
+                continue;
+            }
+            if (pendingSpace && !isCodePunctuation(previous) && !isCodePunctuation(c)) {
+                normalized.append(' ');
+            }
+            normalized.append(c);
+            previous = c;
+            pendingSpace = false;
+        }
+        return normalized.toString();
+    }
+
+    private static String[] parseOptions(String correctAnswersJson) {
+        Set<String> options = new LinkedHashSet<>();
+        for (String token : correctAnswersJson.split("[,\\[\\]]")) {
+            int start = 0;
+            int end = token.length();
+            while (start < end && isOptionSeparator(token.charAt(start))) {
+                start++;
+            }
+            while (end > start && isOptionSeparator(token.charAt(end - 1))) {
+                end--;
+            }
+            if (end > start) {
+                options.add(token.substring(start, end));
+            }
+        }
+        return options.toArray(new String[0]);
+    }
+
+    private static boolean containsIgnoreCase(String text, int start, int end, String part, int partStart, int partEnd) {
+        int length = partEnd - partStart;
+        for (int i = start; i <= end - length; i++) {
+            if (text.regionMatches(true, i, part, partStart, length)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isOptionSeparator(char c) {
+        return c <= ' ' || c == '"' || c == '[' || c == ']' || c == ',';
+    }
+
+    // Mismos caracteres que \s en las expresiones regulares de Java
+    private static boolean isCodeSpace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    private static boolean isCodePunctuation(char c) {
+        return c == '{' || c == '}' || c == '(' || c == ')' || c == ';' || c == ',';
+    }
+}
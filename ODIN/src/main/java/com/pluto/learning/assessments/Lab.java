@@ -50,6 +50,29 @@ public class Lab {
     @Column(name = "time_limit_hours")
     private Integer timeLimitHours;
     
+    @Column(name = "deadline")
+    private LocalDateTime deadline;
+    
+    // Escenario HTTP de la prueba de carga (una petición por línea: MÉTODO ruta [cuerpo JSON])
+    @Column(name = "load_test_scenario", columnDefinition = "TEXT")
+    private String loadTestScenario;
+    
+    @Min(1)
+    @Column(name = "load_test_target_rps")
+    private Integer loadTestTargetRps;
+    
+    @Min(1)
+    @Column(name = "load_test_p99_ms")
+    private Integer loadTestP99Ms;
+    
+    // Clase JMH con los @Benchmark que miden la implementación del alumno
+    @Column(name = "benchmark_harness", columnDefinition = "TEXT")
+    private String benchmarkHarness;
+    
+    // Commit del repositorio plantilla con la solución de referencia
+    @Column(name = "benchmark_reference_commit", length = 100)
+    private String benchmarkReferenceCommit;
+    
     @Min(0)
     @Column(name = "points", nullable = false)
     private Integer points = 100;
@@ -159,6 +182,54 @@ public class Lab {
         this.timeLimitHours = timeLimitHours;
     }
     
+    public LocalDateTime getDeadline() {
+        return deadline;
+    }
+    
+    public void setDeadline(LocalDateTime deadline) {
+        this.deadline = deadline;
+    }
+    
+    public String getLoadTestScenario() {
+        return loadTestScenario;
+    }
+    
+    public void setLoadTestScenario(String loadTestScenario) {
+        this.loadTestScenario = loadTestScenario;
+    }
+    
+    public Integer getLoadTestTargetRps() {
+        return loadTestTargetRps;
+    }
+    
+    public void setLoadTestTargetRps(Integer loadTestTargetRps) {
+        this.loadTestTargetRps = loadTestTargetRps;
+    }
+    
+    public Integer getLoadTestP99Ms() {
+        return loadTestP99Ms;
+    }
+    
+    public void setLoadTestP99Ms(Integer loadTestP99Ms) {
+        this.loadTestP99Ms = loadTestP99Ms;
+    }
+    
+    public String getBenchmarkHarness() {
+        return benchmarkHarness;
+    }
+    
+    public void setBenchmarkHarness(String benchmarkHarness) {
+        this.benchmarkHarness = benchmarkHarness;
+    }
+    
+    public String getBenchmarkReferenceCommit() {
+        return benchmarkReferenceCommit;
+    }
+    
+    public void setBenchmarkReferenceCommit(String benchmarkReferenceCommit) {
+        this.benchmarkReferenceCommit = benchmarkReferenceCommit;
+    }
+    
     public Integer getPoints() {
         return points;
     }
@@ -6,7 +6,9 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface LabRepository extends JpaRepository<Lab, Long> {
@@ -54,4 +56,16 @@ public interface LabRepository extends JpaRepository<Lab, Long> {
      */
     @Query("SELECT COALESCE(SUM(l.points), 0) FROM Lab l WHERE l.module.skill = :skill AND l.active = true")
     int sumPointsBySkill(@Param("skill") com.pluto.learning.content.Skill skill);
+    
+    /**
+     * Fecha de última modificación del laboratorio, sin cargar la entidad
+     */
+    @Query("SELECT l.updatedAt FROM Lab l WHERE l.id = :id")
+    Optional<LocalDateTime> findUpdatedAtById(@Param("id") Long id);
+    
+    /**
+     * Fecha límite de entrega del laboratorio, sin cargar la entidad
+     */
+    @Query("SELECT l.deadline FROM Lab l WHERE l.id = :id")
+    Optional<LocalDateTime> findDeadlineById(@Param("id") Long id);
 }
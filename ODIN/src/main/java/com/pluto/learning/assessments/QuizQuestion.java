@@ -151,55 +151,16 @@ public class QuizQuestion {
     }
     
     /**
-     * Verifica si la respuesta del usuario es correcta
+     * Verifica si la respuesta del usuario es correcta. Compila la clave en cada
+     * llamada: para corregir quizzes completos usar las claves ya compiladas de
+     * {@code QuizAnswerKeyCache}.
      */
     public boolean isAnswerCorrect(String userAnswer) {
-        if (userAnswer == null || userAnswer.trim().isEmpty()) {
-            return false;
-        }
-        
-        if (correctAnswersJson == null || correctAnswersJson.trim().isEmpty()) {
-            return false;
-        }
-        
-        // Análisis básico para diferentes tipos de preguntas
-        switch (questionType) {
-            case TRUE_FALSE:
-                return correctAnswersJson.toLowerCase().trim().equals(userAnswer.toLowerCase().trim());
-                
-            case SINGLE_CHOICE:
-                return correctAnswersJson.trim().equals(userAnswer.trim());
-                
-            case MULTIPLE_CHOICE:
-                // Para multiple choice, el JSON puede contener múltiples respuestas
-                // Implementación simplificada - en producción usaría JSON parser
-                return correctAnswersJson.contains(userAnswer.trim());
-                
-            case TEXT_INPUT:
-                // Comparación flexible para texto
-                String correctText = correctAnswersJson.toLowerCase().trim();
-                String userText = userAnswer.toLowerCase().trim();
-                return correctText.equals(userText) || 
-                       correctText.contains(userText) || 
-                       userText.contains(correctText);
-                
-            case CODE_SNIPPET:
-                // Para código, comparación más estricta pero eliminando espacios extra
-                return normalizeCode(correctAnswersJson).equals(normalizeCode(userAnswer));
-                
-            default:
-                return false;
-        }
+        return compileAnswerKey().matches(userAnswer);
     }
     
-    /**
-     * Normaliza código para comparación
-     */
-    private String normalizeCode(String code) {
-        if (code == null) return "";
-        return code.trim()
-                  .replaceAll("\\s+", " ")  // Multiple spaces to single space
-                  .replaceAll("\\s*([{}();,])\\s*", "$1"); // Remove spaces around punctuation
+    public AnswerKey compileAnswerKey() {
+        return AnswerKey.compile(questionType, correctAnswersJson);
     }
     
     public LocalDateTime getCreatedAt() {
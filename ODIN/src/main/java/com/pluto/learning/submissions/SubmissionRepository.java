@@ -54,6 +54,12 @@ public interface SubmissionRepository extends JpaRepository<LabSubmission, Long>
     @Query("SELECT s FROM LabSubmission s WHERE s.lab = :lab AND s.user = :user ORDER BY s.attemptNumber DESC LIMIT 1")
     LabSubmission findLatestSubmissionByLabAndUser(@Param("lab") Lab lab, @Param("user") User user);
     
+    /**
+     * Id del intento inmediatamente anterior de un usuario en un laboratorio, o null
+     */
+    @Query("SELECT s.id FROM LabSubmission s WHERE s.lab = :lab AND s.user = :user AND s.attemptNumber < :attemptNumber ORDER BY s.attemptNumber DESC LIMIT 1")
+    Long findPreviousAttemptId(@Param("lab") Lab lab, @Param("user") User user, @Param("attemptNumber") Integer attemptNumber);
+    
     /**
      * Obtener envíos aprobados por usuario
      */
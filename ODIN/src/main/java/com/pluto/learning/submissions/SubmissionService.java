@@ -4,10 +4,15 @@ import com.pluto.learning.assessments.Lab;
 import com.pluto.learning.auth.User;
 import com.pluto.learning.submissions.dto.CreateSubmissionRequest;
 import com.pluto.learning.submissions.dto.SubmissionResponse;
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -19,11 +24,14 @@ public class SubmissionService {
     
     private final SubmissionRepository submissionRepository;
     private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final ApplicationEventPublisher eventPublisher;
     
     @Autowired
-    public SubmissionService(SubmissionRepository submissionRepository, KafkaTemplate<String, Object> kafkaTemplate) {
+    public SubmissionService(SubmissionRepository submissionRepository, KafkaTemplate<String, Object> kafkaTemplate,
+                             ApplicationEventPublisher eventPublisher) {
         this.submissionRepository = submissionRepository;
         this.kafkaTemplate = kafkaTemplate;
+        this.eventPublisher = eventPublisher;
     }
     
     /**
@@ -98,6 +106,19 @@ public class SubmissionService {
         return mapToResponse(submission);
     }
     
+    /**
+     * Deja la submission pendiente de revisión manual cuando la evaluación automática
+     * no ha podido completarse
+     */
+    public void markEvaluationFailed(Long submissionId, String logs) {
+        LabSubmission submission = submissionRepository.findById(submissionId)
+            .orElseThrow(() -> new IllegalArgumentException("Submission no encontrada"));
+        
+        submission.setExecutionLogs(logs);
+        submission.setStatus(LabSubmission.SubmissionStatus.REVIEW_PENDING);
+        submissionRepository.save(submission);
+    }
+    
     /**
      * Actualizar puntuación manual por instructor
      */
@@ -148,7 +169,24 @@ public class SubmissionService {
             submission.getLab().getEvaluationType()
         );
         
-        kafkaTemplate.send("submission-evaluation", event);
+        // A Kafka solo tras el commit: un consumidor rápido no debe leer el evento antes
+        // de que la submission exista y darla por borrada
+        afterCommit(() -> kafkaTemplate.send("submission-evaluation", event));
+        // También en local: permite adelantar la descarga del repositorio mientras el evento espera en Kafka
+        eventPublisher.publishEvent(event);
+    }
+    
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
     }
     
     private void calculateFinalScore(LabSubmission submission) {
@@ -222,7 +260,12 @@ public class SubmissionService {
         private final String branchName;
         private final Lab.EvaluationType evaluationType;
         
-        public SubmissionEvaluationEvent(Long submissionId, String githubRepoUrl, String commitHash, String branchName, Lab.EvaluationType evaluationType) {
+        @JsonCreator
+        public SubmissionEvaluationEvent(@JsonProperty("submissionId") Long submissionId,
+                                         @JsonProperty("githubRepoUrl") String githubRepoUrl,
+                                         @JsonProperty("commitHash") String commitHash,
+                                         @JsonProperty("branchName") String branchName,
+                                         @JsonProperty("evaluationType") Lab.EvaluationType evaluationType) {
             this.submissionId = submissionId;
             this.githubRepoUrl = githubRepoUrl;
             this.commitHash = commitHash;
@@ -1,12 +1,14 @@
 package com.pluto.learning.submissions.dto;
 
 import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Pattern;
 import jakarta.validation.constraints.Size;
 
 public class CreateSubmissionRequest {
     
     @NotBlank(message = "La URL del repositorio de GitHub es requerida")
     @Size(max = 500, message = "La URL no puede exceder 500 caracteres")
+    @Pattern(regexp = "https://[^\\s]+", message = "La URL del repositorio debe ser https://")
     private String githubRepoUrl;
     
     @Size(max = 40, message = "El hash del commit no puede exceder 40 caracteres")
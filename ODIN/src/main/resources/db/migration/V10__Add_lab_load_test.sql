@@ -0,0 +1,4 @@
+-- Load-test grading of performance-focused labs: scripted HTTP scenario and targets
+ALTER TABLE labs ADD COLUMN load_test_scenario TEXT;
+ALTER TABLE labs ADD COLUMN load_test_target_rps INTEGER;
+ALTER TABLE labs ADD COLUMN load_test_p99_ms INTEGER;
@@ -0,0 +1,3 @@
+-- JMH benchmark grading: harness source and reference solution commit in the lab template repository
+ALTER TABLE labs ADD COLUMN benchmark_harness TEXT;
+ALTER TABLE labs ADD COLUMN benchmark_reference_commit VARCHAR(100);
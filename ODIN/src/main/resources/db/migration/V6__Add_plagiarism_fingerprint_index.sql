@@ -0,0 +1,12 @@
+-- Add inverted index of winnowing fingerprints (fingerprint -> submissions)
+CREATE TABLE submission_fingerprints (
+    fingerprint BIGINT NOT NULL,
+    submission_id BIGINT NOT NULL,
+    lab_id BIGINT NOT NULL,
+    user_id BIGINT NOT NULL,
+    PRIMARY KEY (submission_id, fingerprint),
+    FOREIGN KEY (submission_id) REFERENCES lab_submissions(id) ON DELETE CASCADE
+);
+
+-- Lookups always go through (lab, fingerprint)
+CREATE INDEX idx_submission_fingerprints_lab_fingerprint ON submission_fingerprints(lab_id, fingerprint);
@@ -0,0 +1,39 @@
+-- Lab-wide all-pairs similarity jobs (resumable, persisted tile by tile)
+CREATE TABLE lab_similarity_jobs (
+    id BIGSERIAL PRIMARY KEY,
+    lab_id BIGINT NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    tile_size INTEGER NOT NULL,
+    max_submission_id BIGINT NOT NULL,
+    submission_count INTEGER NOT NULL,
+    total_tiles INTEGER NOT NULL,
+    completed_tiles INTEGER NOT NULL DEFAULT 0,
+    error_message TEXT,
+    started_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    finished_at TIMESTAMP,
+    FOREIGN KEY (lab_id) REFERENCES labs(id)
+);
+
+CREATE INDEX idx_lab_similarity_jobs_lab ON lab_similarity_jobs(lab_id, id);
+
+-- Completed tiles of the pair matrix, used to resume interrupted jobs
+CREATE TABLE lab_similarity_tiles (
+    job_id BIGINT NOT NULL,
+    tile_row INTEGER NOT NULL,
+    tile_col INTEGER NOT NULL,
+    PRIMARY KEY (job_id, tile_row, tile_col),
+    FOREIGN KEY (job_id) REFERENCES lab_similarity_jobs(id) ON DELETE CASCADE
+);
+
+-- Pairs above the persistence threshold (submission_a < submission_b)
+CREATE TABLE lab_similarity_pairs (
+    job_id BIGINT NOT NULL,
+    submission_a BIGINT NOT NULL,
+    submission_b BIGINT NOT NULL,
+    shared_fingerprints INTEGER NOT NULL,
+    similarity DOUBLE PRECISION NOT NULL,
+    PRIMARY KEY (job_id, submission_a, submission_b),
+    FOREIGN KEY (job_id) REFERENCES lab_similarity_jobs(id) ON DELETE CASCADE
+);
+
+CREATE INDEX idx_lab_similarity_pairs_job_similarity ON lab_similarity_pairs(job_id, similarity DESC);
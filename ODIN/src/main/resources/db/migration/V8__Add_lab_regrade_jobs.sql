@@ -0,0 +1,21 @@
+-- Lab-wide re-grade jobs after a rubric change (resumable from last_submission_id)
+CREATE TABLE lab_regrade_jobs (
+    id BIGSERIAL PRIMARY KEY,
+    lab_id BIGINT NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    max_submission_id BIGINT NOT NULL,
+    total_submissions INTEGER NOT NULL,
+    last_submission_id BIGINT NOT NULL DEFAULT 0,
+    processed_submissions INTEGER NOT NULL DEFAULT 0,
+    failed_submissions INTEGER NOT NULL DEFAULT 0,
+    changed_scores INTEGER NOT NULL DEFAULT 0,
+    error_message TEXT,
+    started_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    finished_at TIMESTAMP,
+    FOREIGN KEY (lab_id) REFERENCES labs(id)
+);
+
+CREATE INDEX idx_lab_regrade_jobs_lab ON lab_regrade_jobs(lab_id, id);
+
+-- Keyset cursor over the submissions of a lab
+CREATE INDEX idx_lab_submissions_lab_id ON lab_submissions(lab_id, id);
@@ -0,0 +1,2 @@
+-- Submission deadline of a lab (used to prioritise evaluations close to it)
+ALTER TABLE labs ADD COLUMN deadline TIMESTAMP;
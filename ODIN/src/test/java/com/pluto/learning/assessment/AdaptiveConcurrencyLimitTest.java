@@ -0,0 +1,47 @@
+package com.pluto.learning.assessment;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests del límite de concurrencia por gradiente de latencia
+ */
+class AdaptiveConcurrencyLimitTest {
+
+    private static final long BASELINE = TimeUnit.SECONDS.toNanos(10);
+
+    @Test
+    void growsWhileLatencyStaysAtBaseline() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(4, 1, 16, 1.5);
+        for (int i = 0; i < 100; i++) {
+            limit.onSample(BASELINE, limit.limit());
+        }
+        assertEquals(16, limit.limit());
+    }
+
+    @Test
+    void shrinksWhenLatencyRisesAboveTolerance() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(12, 1, 16, 1.5);
+        for (int i = 0; i < 50; i++) {
+            limit.onSample(BASELINE, 12);
+        }
+        int before = limit.limit();
+        for (int i = 0; i < 20; i++) {
+            limit.onSample(BASELINE * 4, limit.limit());
+        }
+        assertTrue(limit.limit() < before / 2, "límite " + limit.limit() + " desde " + before);
+        assertTrue(limit.limit() >= 1);
+    }
+
+    @Test
+    void ignoresSamplesWhenMostOfTheLimitIsIdle() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(8, 1, 16, 1.5);
+        for (int i = 0; i < 50; i++) {
+            limit.onSample(BASELINE, 1);
+        }
+        assertEquals(8, limit.limit());
+    }
+}
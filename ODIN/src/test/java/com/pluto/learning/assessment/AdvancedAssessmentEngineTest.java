@@ -0,0 +1,122 @@
+package com.pluto.learning.assessment;
+
+import com.pluto.learning.assessments.LabRepository;
+import com.pluto.learning.submissions.LabSubmission;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests del grafo de etapas de evaluación con los analizadores simulados
+ */
+class AdvancedAssessmentEngineTest {
+
+    private final RepositorySnapshotLoader snapshotLoader = mock(RepositorySnapshotLoader.class);
+    private final CodeAnalysisService codeAnalysis = mock(CodeAnalysisService.class);
+    private final LabSubmission submission = new LabSubmission();
+
+    AdvancedAssessmentEngineTest() {
+        when(snapshotLoader.load(any())).thenReturn(RepositorySnapshot.parse("https://example.com/lab.git", null, Map.of()));
+        when(codeAnalysis.runAutomatedTests(any(), any())).thenAnswer(invocation -> tests(10, 10, 0));
+        when(codeAnalysis.analyzeCode(any())).thenReturn(new CodeAnalysisReport());
+        when(codeAnalysis.analyzeArchitecture(any())).thenReturn(architecture());
+        when(codeAnalysis.analyzeResilience(any())).thenReturn(new ResilienceAnalysis());
+        when(codeAnalysis.analyzeOperability(any())).thenReturn(new OperabilityAnalysis());
+    }
+
+    @Test
+    void recordsATimedOutOptionalStageAsIncomplete() {
+        when(codeAnalysis.analyzeArchitecture(any())).thenAnswer(invocation -> {
+            Thread.sleep(30_000);
+            return architecture();
+        });
+        MockEnvironment environment = new MockEnvironment()
+            .withProperty("assessment.evaluation.timeout-seconds.architecture", "1");
+
+        long start = System.nanoTime();
+        AssessmentResult result = engine(environment).evaluateSubmission(submission);
+
+        assertTrue(System.nanoTime() - start < 10_000_000_000L);
+        assertEquals(Map.of(AdvancedAssessmentEngine.STAGE_ARCHITECTURE, "timeout"), result.getIncompleteStages());
+        assertNotNull(result.getFunctionalityScore());
+        assertNotNull(result.getCodeQualityScore());
+        assertNull(result.getArchitectureScore());
+    }
+
+    @Test
+    void doesNotCountTimeWaitingForAPermitAgainstTheStageTimeout() {
+        // Con un solo permiso las ocho etapas de 300 ms se ejecutan en serie (~2,4 s)
+        when(codeAnalysis.runAutomatedTests(any(), any())).thenAnswer(invocation -> {
+            Thread.sleep(300);
+            return tests(10, 10, 0);
+        });
+        when(codeAnalysis.analyzeCode(any())).thenAnswer(invocation -> {
+            Thread.sleep(300);
+            return new CodeAnalysisReport();
+        });
+        when(codeAnalysis.analyzeArchitecture(any())).thenAnswer(invocation -> {
+            Thread.sleep(300);
+            return architecture();
+        });
+        when(codeAnalysis.analyzeResilience(any())).thenAnswer(invocation -> {
+            Thread.sleep(300);
+            return new ResilienceAnalysis();
+        });
+        when(codeAnalysis.analyzeOperability(any())).thenAnswer(invocation -> {
+            Thread.sleep(300);
+            return new OperabilityAnalysis();
+        });
+        MockEnvironment environment = new MockEnvironment().withProperty("assessment.evaluation.parallelism", "1");
+        for (String stage : new String[] {"functionality", "code-quality", "architecture", "resilience", "operability"}) {
+            environment.setProperty("assessment.evaluation.timeout-seconds." + stage, "1");
+        }
+
+        AssessmentResult result = engine(environment).evaluateSubmission(submission);
+
+        assertEquals(Map.of(), result.getIncompleteStages());
+    }
+
+    @Test
+    void scoresFunctionalityWithoutTestsOrEndpoints() {
+        // Build fallida: sin tests ni endpoints el score es 0 y no NaN
+        assertEquals(0, AdvancedAssessmentEngine.functionalityScore(tests(0, 0, 0)));
+        // Laboratorio sin API REST: el peso de los endpoints se reparte
+        TestExecutionResult green = tests(10, 10, 0);
+        green.setCoverage(1.0);
+        assertEquals(100, AdvancedAssessmentEngine.functionalityScore(green));
+        TestExecutionResult withEndpoints = tests(10, 10, 4);
+        withEndpoints.setCoverage(1.0);
+        withEndpoints.setWorkingEndpoints(2);
+        assertEquals(95, AdvancedAssessmentEngine.functionalityScore(withEndpoints));
+    }
+
+    private AdvancedAssessmentEngine engine(MockEnvironment environment) {
+        EvaluationResultCache resultCache = new EvaluationResultCache(mock(LabRepository.class),
+            new SimpleMeterRegistry(), false, "1", 10, 60);
+        return new AdvancedAssessmentEngine(snapshotLoader, codeAnalysis, mock(PlagiarismDetectionService.class),
+            mock(PerformanceAnalyzer.class), mock(LoadTestGrader.class), mock(BenchmarkGrader.class),
+            mock(QuizAnswerKeyCache.class), mock(FeedbackGenerator.class), resultCache, environment);
+    }
+
+    private static ArchitectureAnalysis architecture() {
+        ArchitectureAnalysis analysis = new ArchitectureAnalysis();
+        analysis.setDesignPatterns(List.of());
+        return analysis;
+    }
+
+    private static TestExecutionResult tests(int passed, int total, int endpoints) {
+        TestExecutionResult result = new TestExecutionResult();
+        result.setPassedTests(passed);
+        result.setTotalTests(total);
+        result.setTotalEndpoints(endpoints);
+        return result;
+    }
+}
@@ -0,0 +1,59 @@
+package com.pluto.learning.assessment;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests del recuento de patrones con el autómata Aho–Corasick
+ */
+class AhoCorasickMatcherTest {
+
+    @Test
+    void countsOverlappingAndNestedPatterns() {
+        AhoCorasickMatcher matcher = new AhoCorasickMatcher(List.of("he", "she", "his", "hers", "aa"));
+        int[] counts = new int[matcher.patternCount()];
+
+        matcher.scan("ushers", counts);
+        assertArrayEquals(new int[] {1, 1, 0, 1, 0}, counts);
+
+        // Los recuentos se acumulan entre textos
+        matcher.scan("aaaa his", counts);
+        assertArrayEquals(new int[] {1, 1, 1, 1, 3}, counts);
+    }
+
+    @Test
+    void matchesTheNaiveCountOnRandomText() {
+        List<String> patterns = List.of("ab", "abc", "bca", "c", "cab", "ñab", "aaa");
+        AhoCorasickMatcher matcher = new AhoCorasickMatcher(patterns);
+        SplittableRandom random = new SplittableRandom(42);
+        StringBuilder text = new StringBuilder();
+        String alphabet = "abcñx";
+        for (int i = 0; i < 2000; i++) {
+            text.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+
+        int[] counts = new int[patterns.size()];
+        matcher.scan(text, counts);
+
+        for (int p = 0; p < patterns.size(); p++) {
+            assertEquals(naiveCount(text.toString(), patterns.get(p)), counts[p], patterns.get(p));
+        }
+    }
+
+    @Test
+    void rejectsEmptyPatterns() {
+        assertThrows(IllegalArgumentException.class, () -> new AhoCorasickMatcher(List.of("a", "")));
+    }
+
+    private static int naiveCount(String text, String pattern) {
+        int count = 0;
+        for (int i = text.indexOf(pattern); i >= 0; i = text.indexOf(pattern, i + 1)) {
+            count++;
+        }
+        return count;
+    }
+}
@@ -0,0 +1,108 @@
+package com.pluto.learning.assessment;
+
+import com.pluto.learning.assessment.AsyncEvaluationService.Evaluation;
+import com.pluto.learning.assessment.AsyncEvaluationService.Status;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests del historial y los streams SSE de las evaluaciones asíncronas
+ */
+class AsyncEvaluationServiceTest {
+
+    @Test
+    void lateSubscribersReceiveTheWholeHistory() {
+        Evaluation evaluation = new Evaluation("e-1", 1L, 2L);
+        evaluation.publish(AsyncEvaluationService.EVENT_STATUS, Map.of("status", "RUNNING"), Status.RUNNING);
+        evaluation.publish(AsyncEvaluationService.EVENT_STAGE, Map.of("stage", "build"), null);
+
+        RecordingEmitter live = new RecordingEmitter(null);
+        evaluation.subscribe(live);
+        assertEquals(List.of("status", "stage"), live.events);
+        assertFalse(live.completed);
+
+        evaluation.publish(AsyncEvaluationService.EVENT_COMPLETED, Map.of("score", 80), Status.COMPLETED);
+        assertEquals(List.of("status", "stage", "completed"), live.events);
+        assertTrue(live.completed);
+
+        RecordingEmitter late = new RecordingEmitter(null);
+        evaluation.subscribe(late);
+        assertEquals(List.of("status", "stage", "completed"), late.events);
+        assertTrue(late.completed);
+    }
+
+    @Test
+    void slowClientDoesNotBlockPublishingOrOtherReaders() throws Exception {
+        Evaluation evaluation = new Evaluation("e-2", 1L, 2L);
+        evaluation.publish(AsyncEvaluationService.EVENT_STATUS, Map.of("status", "RUNNING"), Status.RUNNING);
+
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingEmitter slow = new RecordingEmitter(release);
+        CompletableFuture<Void> replay = CompletableFuture.runAsync(() -> evaluation.subscribe(slow));
+        assertTrue(slow.sending.await(10, TimeUnit.SECONDS));
+
+        // Con el cliente lento bloqueado en el envío, la evaluación sigue avanzando
+        CompletableFuture.runAsync(() -> {
+            evaluation.publish(AsyncEvaluationService.EVENT_STAGE, Map.of("stage", "build"), null);
+            evaluation.publish(AsyncEvaluationService.EVENT_COMPLETED, Map.of("score", 80), Status.COMPLETED);
+        }).get(10, TimeUnit.SECONDS);
+        assertEquals(1, evaluation.getStages().size());
+        assertEquals(Status.COMPLETED, evaluation.getStatus());
+
+        release.countDown();
+        replay.get(10, TimeUnit.SECONDS);
+        assertEquals(List.of("status", "stage", "completed"), slow.events);
+        assertTrue(slow.completed);
+    }
+
+    /**
+     * Emisor que anota el nombre de cada evento; con {@code release} bloquea el primer envío
+     */
+    private static final class RecordingEmitter extends SseEmitter {
+        private static final Pattern EVENT_NAME = Pattern.compile("event:(\\w+)");
+
+        private final List<String> events = new CopyOnWriteArrayList<>();
+        private final CountDownLatch sending = new CountDownLatch(1);
+        private final CountDownLatch release;
+        private volatile boolean completed;
+
+        RecordingEmitter(CountDownLatch release) {
+            this.release = release;
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            sending.countDown();
+            if (release != null) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException(e);
+                }
+            }
+            StringBuilder text = new StringBuilder();
+            builder.build().forEach(part -> text.append(part.getData()));
+            Matcher matcher = EVENT_NAME.matcher(text);
+            assertTrue(matcher.find(), text::toString);
+            events.add(matcher.group(1));
+        }
+
+        @Override
+        public void complete() {
+            completed = true;
+        }
+    }
+}
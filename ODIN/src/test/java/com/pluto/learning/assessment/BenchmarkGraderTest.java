@@ -0,0 +1,141 @@
+package com.pluto.learning.assessment;
+
+import com.pluto.learning.assessments.Lab;
+import com.pluto.learning.assessments.LabRepository;
+import com.pluto.learning.submissions.LabSubmission;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests de la evaluación por benchmark con el sandbox simulado
+ */
+class BenchmarkGraderTest {
+
+    private static final String HARNESS = """
+        package com.example;
+
+        public class SortBenchmark {
+            @Benchmark
+            public int[] sort() { return Sorter.sort(DATA); }
+        }
+        """;
+
+    private final TestSandboxPool sandbox = mock(TestSandboxPool.class);
+    private final LabRepository labRepository = mock(LabRepository.class);
+    private final Lab lab = new Lab();
+
+    @BeforeEach
+    void setUp() {
+        lab.setId(1L);
+        lab.setGithubTemplateUrl("https://example.com/template.git");
+        lab.setBenchmarkHarness(HARNESS);
+        lab.setBenchmarkReferenceCommit("abc123");
+        when(sandbox.isEnabled()).thenReturn(true);
+        when(sandbox.exclusively(any())).thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(0).get());
+        when(labRepository.findById(1L)).thenReturn(Optional.of(lab));
+    }
+
+    @Test
+    void scoresRelativeToAReferenceMeasuredRightBeforeTheSubmission() {
+        when(sandbox.runBenchmark(commit("abc123"), any(), eq("")))
+            .thenReturn(Map.of("sort", 1000.0, "search", 100.0));
+        when(sandbox.runBenchmark(commit("student"), any(), eq("")))
+            .thenReturn(Map.of("sort", 250.0, "search", 100.0));
+        BenchmarkGrader grader = grader("");
+
+        BenchmarkScore first = grader.grade(submission());
+        BenchmarkScore second = grader.grade(submission());
+
+        // Media geométrica de 0,25 y 1
+        assertEquals(0.5, first.getRelativeThroughput(), 1e-9);
+        assertEquals(50, first.getScore());
+        assertEquals(50, second.getScore());
+        InOrder order = inOrder(sandbox);
+        for (int i = 0; i < 2; i++) {
+            order.verify(sandbox).exclusively(any());
+            order.verify(sandbox).runBenchmark(commit("abc123"), any(), eq(""));
+            order.verify(sandbox).runBenchmark(commit("student"), any(), eq(""));
+        }
+    }
+
+    @Test
+    void holdsTheWholeSandboxUnlessTheCpuSetsAreIsolated() {
+        when(sandbox.runBenchmark(any(), any(), eq("2-3"))).thenReturn(Map.of("sort", 1000.0));
+
+        assertEquals(100, grader("2-3").grade(submission()).getScore());
+        verify(sandbox, times(1)).exclusively(any());
+
+        BenchmarkGrader isolated = new BenchmarkGrader(sandbox, labRepository, new SimpleMeterRegistry(),
+            true, "2-3", true, 1, 1, 1);
+        assertEquals(100, isolated.grade(submission()).getScore());
+        verify(sandbox, times(1)).exclusively(any());
+        verify(sandbox, times(4)).runBenchmark(any(), any(), eq("2-3"));
+    }
+
+    @Test
+    void runsOneMeasurementAtATimePerCpuSet() {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        when(sandbox.runBenchmark(any(), any(), eq("0-1"))).thenAnswer(invocation -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            Thread.sleep(50);
+            running.decrementAndGet();
+            return Map.of("sort", 1000.0);
+        });
+        BenchmarkGrader grader = grader("0-1");
+
+        CompletableFuture<BenchmarkScore> first = CompletableFuture.supplyAsync(() -> grader.grade(submission()));
+        CompletableFuture<BenchmarkScore> second = CompletableFuture.supplyAsync(() -> grader.grade(submission()));
+
+        assertEquals(100, first.join().getScore());
+        assertEquals("0-1", second.join().getCpuSet());
+        assertEquals(1, maxRunning.get());
+    }
+
+    @Test
+    void recordsSubmissionsThatDoNotBuildWithZeroScore() {
+        when(sandbox.runBenchmark(commit("abc123"), any(), any()))
+            .thenReturn(Map.of("sort", 1000.0));
+        when(sandbox.runBenchmark(commit("student"), any(), any()))
+            .thenThrow(new IllegalStateException("Benchmark build failed with exit code 1"));
+
+        BenchmarkScore score = grader("").grade(submission());
+
+        assertEquals(0, score.getScore());
+        assertTrue(score.getError().startsWith("Benchmark build failed"));
+    }
+
+    private BenchmarkGrader grader(String cpuSets) {
+        return new BenchmarkGrader(sandbox, labRepository, new SimpleMeterRegistry(), true, cpuSets, false, 1, 1, 1);
+    }
+
+    private static LabSubmission commit(String hash) {
+        return argThat(submission -> submission != null && hash.equals(submission.getCommitHash()));
+    }
+
+    private LabSubmission submission() {
+        LabSubmission submission = new LabSubmission();
+        submission.setLab(lab);
+        submission.setGithubRepoUrl("https://example.com/student.git");
+        submission.setCommitHash("student");
+        return submission;
+    }
+}
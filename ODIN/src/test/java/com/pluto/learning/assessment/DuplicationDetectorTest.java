@@ -0,0 +1,102 @@
+package com.pluto.learning.assessment;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests de la detección de código duplicado sobre el flujo normalizado
+ */
+class DuplicationDetectorTest {
+
+    private static final String ORIGINAL = """
+        class Orders {
+            int total(int[] prices, int discount) {
+                int sum = 0;
+                for (int i = 0; i < prices.length; i++) {
+                    sum += prices[i];
+                }
+                return sum - discount;
+            }
+        }
+        """;
+
+    // Mismo método con otros nombres y literales
+    private static final String RENAMED = """
+        class Invoices {
+            void log() { System.out.println("x"); }
+
+            int amount(int[] values, int rebate) {
+                int acc = 10;
+                for (int j = 0; j < values.length; j++) {
+                    acc += values[j];
+                }
+                return acc - rebate;
+            }
+        }
+        """;
+
+    @Test
+    void findsRenamedClonesAcrossFiles() {
+        RepositorySnapshot snapshot = RepositorySnapshot.parse("repo", "c1", Map.of(
+            "src/A.java", ORIGINAL,
+            "src/B.java", RENAMED));
+
+        DuplicationDetector.Result result = new DuplicationDetector(20).detect(snapshot);
+
+        assertEquals(1, result.clones().size());
+        CodeClone clone = result.clones().get(0);
+        assertEquals("src/B.java", clone.getFile());
+        assertEquals("src/A.java", clone.getOriginalFile());
+        assertEquals(4, clone.getStartLine());
+        assertEquals(2, clone.getOriginalStartLine());
+        assertTrue(clone.getTokens() >= 40, () -> "tokens " + clone.getTokens());
+        assertTrue(result.duplicatedLines() >= 12, () -> "lines " + result.duplicatedLines());
+        assertTrue(result.percentage() > 0 && result.percentage() < 100);
+    }
+
+    private static final String OTHER = """
+        class Parser {
+            String next(String input, char separator) {
+                StringBuilder out = new StringBuilder();
+                while (!input.isEmpty() && input.charAt(0) != separator) {
+                    out.append(input.charAt(0));
+                    input = input.substring(1);
+                }
+                return out.toString();
+            }
+        }
+        """;
+
+    @Test
+    void clonesOfConsecutiveFilesStopAtTheFileBoundary() {
+        // C.java es la concatenación de A.java y B.java
+        RepositorySnapshot snapshot = RepositorySnapshot.parse("repo", "c1", Map.of(
+            "src/A.java", ORIGINAL,
+            "src/B.java", OTHER,
+            "src/C.java", ORIGINAL + OTHER));
+
+        DuplicationDetector.Result result = new DuplicationDetector(20).detect(snapshot);
+
+        assertEquals(2, result.clones().size());
+        for (CodeClone clone : result.clones()) {
+            assertEquals("src/C.java", clone.getFile());
+            String original = clone.getOriginalFile().equals("src/A.java") ? ORIGINAL : OTHER;
+            assertEquals(1, clone.getOriginalStartLine());
+            assertEquals(original.split("\n").length, clone.getOriginalEndLine());
+        }
+        assertNotEquals(result.clones().get(0).getOriginalFile(), result.clones().get(1).getOriginalFile());
+    }
+
+    @Test
+    void reportsNothingBelowTheWindowOrWithoutRepeats() {
+        RepositorySnapshot snapshot = RepositorySnapshot.parse("repo", "c1", Map.of("src/A.java", ORIGINAL));
+
+        assertTrue(new DuplicationDetector(20).detect(snapshot).clones().isEmpty());
+        assertEquals(0.0, new DuplicationDetector(20).detect(snapshot).percentage());
+        assertTrue(new DuplicationDetector(10_000).detect(snapshot).clones().isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> new DuplicationDetector(0));
+    }
+}
@@ -0,0 +1,140 @@
+package com.pluto.learning.assessment;
+
+import com.pluto.learning.assessments.Lab;
+import com.pluto.learning.assessments.LabRepository;
+import com.pluto.learning.auth.User;
+import com.pluto.learning.submissions.LabSubmission;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests de la caché de resultados por commit
+ */
+class EvaluationResultCacheTest {
+
+    private static final String COMMIT = "3f786850e387550fdab836ed7e6dc881de23001b";
+
+    private final LabRepository labRepository = mock(LabRepository.class);
+    private final EvaluationResultCache cache =
+        new EvaluationResultCache(labRepository, new SimpleMeterRegistry(), true, "1", 100, 60);
+    private final AtomicInteger evaluations = new AtomicInteger();
+
+    EvaluationResultCacheTest() {
+        when(labRepository.findUpdatedAtById(anyLong())).thenReturn(Optional.of(LocalDateTime.of(2024, 1, 1, 0, 0)));
+    }
+
+    @Test
+    void reusesResultForSameCommitAndBindsItToTheNewSubmission() {
+        LabSubmission first = submission(1L, 7L, "https://github.com/alumno/lab.git", COMMIT);
+        LabSubmission resubmitted = submission(2L, 7L, "https://github.com/Alumno/lab/", COMMIT.toUpperCase());
+
+        AssessmentResult original = cache.getOrEvaluate(first, (stage, error) -> { }, this::evaluate);
+        AssessmentResult reused = cache.getOrEvaluate(resubmitted, (stage, error) -> { }, this::evaluate);
+
+        assertEquals(1, evaluations.get());
+        assertSame(resubmitted, reused.getSubmission());
+        assertEquals(original.getFinalScore(), reused.getFinalScore());
+        assertEquals(1L, reused.getMetrics().get("cachedFromSubmission"));
+    }
+
+    @Test
+    void doesNotShareResultsBetweenUsersOrMovingBranches() {
+        cache.getOrEvaluate(submission(1L, 7L, "https://github.com/a/lab", COMMIT), (stage, error) -> { }, this::evaluate);
+        cache.getOrEvaluate(submission(2L, 8L, "https://github.com/a/lab", COMMIT), (stage, error) -> { }, this::evaluate);
+        cache.getOrEvaluate(submission(3L, 7L, "https://github.com/a/lab", "main"), (stage, error) -> { }, this::evaluate);
+        cache.getOrEvaluate(submission(4L, 7L, "https://github.com/a/lab", "main"), (stage, error) -> { }, this::evaluate);
+
+        assertEquals(4, evaluations.get());
+    }
+
+    @Test
+    void coalescesConcurrentEvaluationsOfTheSameCommit() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> followerStages = new CopyOnWriteArrayList<>();
+
+        CompletableFuture<AssessmentResult> leader = CompletableFuture.supplyAsync(() ->
+            cache.getOrEvaluate(submission(1L, 7L, "https://github.com/a/lab", COMMIT), (stage, error) -> { },
+                (submission, listener) -> {
+                    listener.stageCompleted(AdvancedAssessmentEngine.STAGE_SNAPSHOT, null);
+                    started.countDown();
+                    await(release);
+                    listener.stageCompleted(AdvancedAssessmentEngine.STAGE_FUNCTIONALITY, null);
+                    return evaluate(submission, listener);
+                }));
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+
+        CompletableFuture<AssessmentResult> follower = CompletableFuture.supplyAsync(() ->
+            cache.getOrEvaluate(submission(2L, 7L, "https://github.com/a/lab", COMMIT),
+                (stage, error) -> followerStages.add(stage), this::evaluate));
+        Thread.sleep(200);
+        release.countDown();
+
+        assertEquals(2L, follower.get(10, TimeUnit.SECONDS).getSubmission().getId());
+        assertEquals(1L, leader.get(10, TimeUnit.SECONDS).getSubmission().getId());
+        assertEquals(1, evaluations.get());
+        assertEquals(List.of(AdvancedAssessmentEngine.STAGE_SNAPSHOT, AdvancedAssessmentEngine.STAGE_FUNCTIONALITY),
+            followerStages);
+    }
+
+    @Test
+    void doesNotCachePartialResults() {
+        LabSubmission submission = submission(1L, 7L, "https://github.com/a/lab", COMMIT);
+        AdvancedAssessmentEngine.StageListener ignored = (stage, error) -> { };
+
+        cache.getOrEvaluate(submission, ignored, (s, listener) -> {
+            AssessmentResult result = evaluate(s, listener);
+            result.addIncompleteStage(AdvancedAssessmentEngine.STAGE_PLAGIARISM, "timeout");
+            return result;
+        });
+        cache.getOrEvaluate(submission, ignored, this::evaluate);
+
+        assertEquals(2, evaluations.get());
+    }
+
+    private AssessmentResult evaluate(LabSubmission submission, AdvancedAssessmentEngine.StageListener listener) {
+        evaluations.incrementAndGet();
+        AssessmentResult result = new AssessmentResult(submission);
+        FunctionalityScore functionality = new FunctionalityScore();
+        functionality.setScore(90);
+        result.setFunctionalityScore(functionality);
+        result.calculateFinalScore();
+        return result;
+    }
+
+    private static LabSubmission submission(Long id, Long userId, String repository, String commit) {
+        Lab lab = new Lab();
+        lab.setId(3L);
+        User user = new User();
+        user.setId(userId);
+        LabSubmission submission = new LabSubmission();
+        submission.setId(id);
+        submission.setLab(lab);
+        submission.setUser(user);
+        submission.setGithubRepoUrl(repository);
+        submission.setCommitHash(commit);
+        return submission;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.pluto.learning.assessment;
+
+import com.pluto.learning.assessments.Lab;
+import com.pluto.learning.assessments.LabRepository;
+import com.pluto.learning.auth.User;
+import com.pluto.learning.submissions.LabSubmission;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests del planificador de evaluaciones justo por usuario y laboratorio
+ */
+class FairEvaluationSchedulerTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2024, 6, 1, 12, 0);
+
+    private final LabRepository labRepository = mock(LabRepository.class);
+    private final List<String> order = new CopyOnWriteArrayList<>();
+    private FairEvaluationScheduler scheduler;
+
+    @AfterEach
+    void tearDown() {
+        scheduler.shutdown();
+    }
+
+    @Test
+    void interleavesUsersInsteadOfServingAttemptsInArrivalOrder() throws Exception {
+        scheduler = scheduler(1, 2);
+        CountDownLatch release = block(submission(1L, 99L));
+
+        for (int attempt = 1; attempt <= 4; attempt++) {
+            scheduler.execute(submission(1L, 7L), record("a" + attempt));
+        }
+        scheduler.execute(submission(1L, 8L), record("b1"));
+        release.countDown();
+
+        awaitOrder(5);
+        assertEquals(List.of("a1", "b1", "a2", "a3", "a4"), order);
+    }
+
+    @Test
+    void favoursLabsCloseToTheirDeadline() throws Exception {
+        scheduler = scheduler(1, 10);
+        CountDownLatch release = block(submission(9L, 99L));
+
+        for (int i = 1; i <= 4; i++) {
+            scheduler.execute(submission(1L, 10L + i), record("relaxed" + i));
+            scheduler.execute(submission(2L, 20L + i), record("urgent" + i));
+        }
+        release.countDown();
+
+        awaitOrder(8);
+        // Peso ~3.9 frente a 1: el laboratorio urgente se despacha primero casi siempre
+        assertEquals(List.of("relaxed1", "urgent1", "urgent2", "urgent3", "urgent4"), order.subList(0, 5));
+    }
+
+    @Test
+    void capsConcurrentEvaluationsPerUser() throws Exception {
+        scheduler = scheduler(4, 1);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(3);
+        for (int i = 0; i < 3; i++) {
+            scheduler.execute(submission(1L, 7L), () -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                sleep(100);
+                running.decrementAndGet();
+                done.countDown();
+            });
+        }
+
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertEquals(1, maxRunning.get());
+    }
+
+    private FairEvaluationScheduler scheduler(int workers, int maxPerUser) {
+        when(labRepository.findDeadlineById(anyLong())).thenAnswer(invocation ->
+            invocation.getArgument(0).equals(2L) ? Optional.of(NOW.plusHours(1)) : Optional.empty());
+        Clock clock = Clock.fixed(NOW.toInstant(ZoneOffset.UTC), ZoneOffset.UTC);
+        return new FairEvaluationScheduler(labRepository, new SimpleMeterRegistry(), clock,
+            AdaptiveConcurrencyLimit.fixed(workers), 100, maxPerUser, Duration.ofHours(24), 3.0);
+    }
+
+    /**
+     * Ocupa el único hilo hasta que se libere el latch devuelto
+     */
+    private CountDownLatch block(LabSubmission submission) throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        scheduler.execute(submission, () -> {
+            started.countDown();
+            await(release);
+        });
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+        return release;
+    }
+
+    private Runnable record(String name) {
+        return () -> order.add(name);
+    }
+
+    private void awaitOrder(int size) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (order.size() < size && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+        assertEquals(size, order.size());
+    }
+
+    private static LabSubmission submission(Long labId, Long userId) {
+        Lab lab = new Lab();
+        lab.setId(labId);
+        User user = new User();
+        user.setId(userId);
+        LabSubmission submission = new LabSubmission();
+        submission.setLab(lab);
+        submission.setUser(user);
+        return submission;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
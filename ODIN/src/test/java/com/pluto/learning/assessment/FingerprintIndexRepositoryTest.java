@@ -0,0 +1,95 @@
+package com.pluto.learning.assessment;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.EnableTransactionManagement;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests del índice invertido de huellas sobre H2
+ */
+class FingerprintIndexRepositoryTest {
+
+    private final AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext(Config.class);
+    private final FingerprintIndexRepository repository = context.getBean(FingerprintIndexRepository.class);
+    private final NamedParameterJdbcTemplate jdbc = context.getBean(NamedParameterJdbcTemplate.class);
+
+    FingerprintIndexRepositoryTest() {
+        // Como V6, sin la clave ajena a lab_submissions
+        jdbc.getJdbcTemplate().execute("CREATE TABLE submission_fingerprints (" +
+            "fingerprint BIGINT NOT NULL, submission_id BIGINT NOT NULL, lab_id BIGINT NOT NULL, " +
+            "user_id BIGINT NOT NULL, PRIMARY KEY (submission_id, fingerprint))");
+    }
+
+    @AfterEach
+    void close() {
+        context.close();
+    }
+
+    @Test
+    void keepsThePreviousFingerprintsWhenReindexingFails() {
+        repository.index(1L, 10L, 100L, new long[] {1, 2, 3});
+
+        // Huella repetida: la inserción viola la clave primaria después del borrado
+        assertThrows(DataIntegrityViolationException.class,
+            () -> repository.index(1L, 10L, 100L, new long[] {4, 4}));
+
+        assertEquals(List.of(1L, 2L, 3L), jdbc.getJdbcTemplate().queryForList(
+            "SELECT fingerprint FROM submission_fingerprints WHERE submission_id = 1 ORDER BY fingerprint", Long.class));
+    }
+
+    @Test
+    void ranksOtherUsersSubmissionsOfTheLabBySharedFingerprints() {
+        repository.index(1L, 10L, 100L, new long[] {1, 2, 3, 4});
+        repository.index(2L, 10L, 200L, new long[] {1, 2, 9});
+        repository.index(3L, 10L, 300L, new long[] {1, 2, 3});
+        repository.index(4L, 20L, 400L, new long[] {1, 2, 3, 4});
+        repository.index(2L, 10L, 200L, new long[] {1});
+
+        List<FingerprintCandidate> candidates = repository.findCandidates(10L, 100L, new long[] {1, 2, 3, 4}, 5);
+
+        assertEquals(List.of(3L, 2L), candidates.stream().map(FingerprintCandidate::getSubmissionId).toList());
+        assertEquals(0.75, candidates.get(0).getSimilarity());
+        assertEquals(1, candidates.get(1).getSharedFingerprints());
+        assertEquals(List.of(4L), repository.compareWith(List.of(4L), new long[] {4, 5}).stream()
+            .map(FingerprintCandidate::getSubmissionId).toList());
+    }
+
+    @Configuration
+    @EnableTransactionManagement
+    static class Config {
+
+        @Bean
+        DataSource dataSource() {
+            return new EmbeddedDatabaseBuilder().setType(EmbeddedDatabaseType.H2).generateUniqueName(true).build();
+        }
+
+        @Bean
+        PlatformTransactionManager transactionManager(DataSource dataSource) {
+            return new DataSourceTransactionManager(dataSource);
+        }
+
+        @Bean
+        NamedParameterJdbcTemplate jdbcTemplate(DataSource dataSource) {
+            return new NamedParameterJdbcTemplate(dataSource);
+        }
+
+        @Bean
+        FingerprintIndexRepository fingerprintIndexRepository(NamedParameterJdbcTemplate jdbcTemplate) {
+            return new FingerprintIndexRepository(jdbcTemplate);
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.pluto.learning.assessment;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests de la caché de repositorios contra repositorios locales file://
+ */
+class GitMirrorCacheTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Path origin;
+    private String originUrl;
+
+    @BeforeEach
+    void createOrigin() throws Exception {
+        origin = tempDir.resolve("origin");
+        Files.createDirectories(origin);
+        git(origin, "init", "--quiet");
+        originUrl = origin.toUri().toString();
+    }
+
+    @Test
+    void checksOutRequestedCommitsFromMirror() throws Exception {
+        String first = commit("Main.java", "class Main { int v = 1; }");
+        String second = commit("Main.java", "class Main { int v = 2; }");
+
+        GitMirrorCache cache = new GitMirrorCache(tempDir.resolve("cache").toString(), Long.MAX_VALUE, 60, true);
+
+        assertEquals("class Main { int v = 1; }", read(cache, first));
+        assertEquals("class Main { int v = 2; }", read(cache, second));
+        // Sin commit se usa la cabeza de la rama por defecto
+        assertEquals("class Main { int v = 2; }",
+            cache.withCheckout(originUrl, null, dir -> readUnchecked(dir.resolve("Main.java"))));
+    }
+
+    @Test
+    void fetchesNewCommitsIncrementally() throws Exception {
+        String first = commit("Main.java", "class Main { int v = 1; }");
+        GitMirrorCache cache = new GitMirrorCache(tempDir.resolve("cache").toString(), Long.MAX_VALUE, 60, true);
+        assertEquals("class Main { int v = 1; }", read(cache, first));
+
+        // Nuevo intento sobre el mismo repositorio
+        String second = commit("Main.java", "class Main { int v = 2; }");
+        assertEquals("class Main { int v = 2; }", read(cache, second));
+        assertEquals("class Main { int v = 1; }", read(cache, first));
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedWorktreesOverLimit() throws Exception {
+        List<String> commits = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            commits.add(commit("Main.java", "class Main { String v = \"" + "x".repeat(20_000) + i + "\"; }"));
+        }
+        Path cacheDir = tempDir.resolve("cache");
+        GitMirrorCache unbounded = new GitMirrorCache(cacheDir.toString(), Long.MAX_VALUE, 60, true);
+        read(unbounded, commits.get(0));
+        long oneCheckout = unbounded.size();
+
+        GitMirrorCache cache = new GitMirrorCache(cacheDir.toString(), oneCheckout + 30_000, 60, true);
+        for (String commit : commits) {
+            read(cache, commit);
+        }
+
+        assertTrue(cache.size() <= oneCheckout + 30_000);
+        assertFalse(Files.exists(worktreeOf(cacheDir, commits.get(0))));
+        assertTrue(Files.exists(worktreeOf(cacheDir, commits.get(3))));
+        // Un worktree desalojado se vuelve a materializar desde el mirror
+        assertTrue(read(cache, commits.get(0)).endsWith("0\"; }"));
+    }
+
+    @Test
+    void rejectsUnknownCommit() {
+        GitMirrorCache cache = new GitMirrorCache(tempDir.resolve("cache").toString(), Long.MAX_VALUE, 60, true);
+        assertThrows(IllegalStateException.class, () -> {
+            commit("Main.java", "class Main {}");
+            read(cache, "0123456789abcdef0123456789abcdef01234567");
+        });
+    }
+
+    @Test
+    void acceptsOnlyHttpsUrlsByDefault() {
+        GitMirrorCache cache = new GitMirrorCache(tempDir.resolve("cache").toString(), Long.MAX_VALUE, 60, false);
+        for (String url : List.of(originUrl, origin.toString(), "--upload-pack=touch /tmp/pwned",
+                                  "ext::sh -c touch% /tmp/pwned", "ssh://host/repo.git", "https:///repo.git")) {
+            assertThrows(IllegalArgumentException.class,
+                () -> cache.withCheckout(url, null, dir -> dir), url);
+        }
+        cache.validateUrl("https://github.com/student/lab.git");
+    }
+
+    private Path worktreeOf(Path cacheDir, String commit) throws IOException {
+        try (var repositories = Files.list(cacheDir.resolve("worktrees"))) {
+            return repositories.findFirst().orElseThrow().resolve(commit);
+        }
+    }
+
+    private String read(GitMirrorCache cache, String commit) {
+        return cache.withCheckout(originUrl, commit, dir -> readUnchecked(dir.resolve("Main.java")));
+    }
+
+    private static String readUnchecked(Path path) {
+        try {
+            return Files.readString(path, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private String commit(String file, String content) throws Exception {
+        Files.writeString(origin.resolve(file), content, StandardCharsets.UTF_8);
+        git(origin, "add", file);
+        git(origin, "-c", "user.name=Test", "-c", "user.email=test@example.com",
+            "commit", "--quiet", "-m", "update " + file);
+        return git(origin, "rev-parse", "HEAD").trim();
+    }
+
+    private static String git(Path directory, String... args) throws Exception {
+        List<String> command = new ArrayList<>(List.of("git", "-C", directory.toString()));
+        command.addAll(List.of(args));
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        String output = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+        assertEquals(0, process.waitFor(), output);
+        return output;
+    }
+}
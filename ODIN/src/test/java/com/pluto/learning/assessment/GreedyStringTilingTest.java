@@ -0,0 +1,76 @@
+package com.pluto.learning.assessment;
+
+import com.pluto.learning.assessment.GreedyStringTiling.Tile;
+import org.junit.jupiter.api.Test;
+
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests de los tiles calculados por Greedy String Tiling
+ */
+class GreedyStringTilingTest {
+
+    @Test
+    void findsMaximalTilesLongestFirst() {
+        int[] a = IntStream.range(0, 60).toArray();
+        // b = 5 ajenos + a[10, 40) + 3 ajenos + a[45, 57) + a[0, 5)
+        int[] b = concat(junk(1000, 5), range(10, 40), junk(2000, 3), range(45, 57), range(0, 5));
+
+        List<Tile> tiles = new GreedyStringTiling(9).compare(a, a.length, b, b.length);
+
+        assertEquals(2, tiles.size());
+        assertTile(tiles.get(0), 10, 5, 30);
+        assertTile(tiles.get(1), 45, 38, 12);
+    }
+
+    @Test
+    void tilesDoNotOverlap() {
+        int[] a = IntStream.range(0, 20).toArray();
+        // El mismo fragmento aparece dos veces en b, pero solo una en a
+        int[] b = concat(range(0, 20), junk(1000, 4), range(0, 20));
+
+        List<Tile> tiles = new GreedyStringTiling(9).compare(a, a.length, b, b.length);
+
+        assertEquals(1, tiles.size());
+        assertEquals(20, tiles.get(0).getLength());
+        assertEquals(0, tiles.get(0).getStartA());
+    }
+
+    @Test
+    void comparesOnlyTheGivenPrefixOfMappedBuffers() {
+        int[] a = IntStream.range(0, 40).toArray();
+        int[] b = concat(range(0, 40), junk(1000, 10));
+        IntBuffer prefixA = IntBuffer.wrap(a, 0, 15).slice();
+
+        List<Tile> tiles = new GreedyStringTiling(9).compare(prefixA, IntBuffer.wrap(b));
+
+        assertEquals(1, tiles.size());
+        assertTile(tiles.get(0), 0, 0, 15);
+        assertEquals(0, prefixA.position());
+        assertTrue(new GreedyStringTiling(9).compare(a, 8, b, b.length).isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> new GreedyStringTiling(0));
+    }
+
+    private static void assertTile(Tile tile, int startA, int startB, int length) {
+        assertEquals(startA, tile.getStartA());
+        assertEquals(startB, tile.getStartB());
+        assertEquals(length, tile.getLength());
+    }
+
+    private static int[] range(int from, int to) {
+        return IntStream.range(from, to).toArray();
+    }
+
+    private static int[] junk(int base, int count) {
+        return IntStream.range(base, base + count).toArray();
+    }
+
+    private static int[] concat(int[]... parts) {
+        return Arrays.stream(parts).flatMapToInt(Arrays::stream).toArray();
+    }
+}
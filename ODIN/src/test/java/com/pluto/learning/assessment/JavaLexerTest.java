@@ -0,0 +1,57 @@
+package com.pluto.learning.assessment;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests del analizador léxico y del dimensionado de {@link TokenBuffer}
+ */
+class JavaLexerTest {
+
+    @Test
+    void signFollowsExponentOnlyInTheMatchingLiteral() {
+        // En hexadecimal la E es un dígito: 0xE + 1
+        assertEquals(List.of("NUMBER 0xE", "OPERATOR +", "NUMBER 1"), tokens("0xE+1"));
+        assertEquals(List.of("NUMBER 0XE", "OPERATOR -", "NUMBER 2"), tokens("0XE-2"));
+        assertEquals(List.of("NUMBER 1e+10"), tokens("1e+10"));
+        assertEquals(List.of("NUMBER 1.5E-3f"), tokens("1.5E-3f"));
+        assertEquals(List.of("NUMBER 0x1.8p-3"), tokens("0x1.8p-3"));
+        assertEquals(List.of("NUMBER .5e-1"), tokens(".5e-1"));
+    }
+
+    @Test
+    void undersizedBufferGrowsToTheSameTokens() {
+        StringBuilder source = new StringBuilder("class Sample {\n");
+        for (int i = 0; i < 300; i++) {
+            source.append("    int field").append(i).append(" = ").append(i).append(" + 0x1F;\n");
+        }
+        source.append("}\n");
+        String code = source.toString();
+
+        TokenBuffer small = JavaLexer.tokenize(code, new TokenBuffer(1));
+        TokenBuffer sized = JavaLexer.tokenize(code, TokenBuffer.forSource(code));
+        TokenBuffer standard = JavaLexer.tokenize(code, new TokenBuffer());
+
+        assertEquals(tokens(standard), tokens(small));
+        assertEquals(tokens(standard), tokens(sized));
+        assertEquals(standard.identifierCount(), small.identifierCount());
+        assertEquals(standard.normalizedSize(), small.normalizedSize());
+    }
+
+    private static List<String> tokens(String source) {
+        return tokens(JavaLexer.tokenize(source, new TokenBuffer()));
+    }
+
+    private static List<String> tokens(TokenBuffer buffer) {
+        String[] names = {"", "KEYWORD", "IDENTIFIER", "NUMBER", "STRING", "CHAR", "OPERATOR", "COMMENT", "ANNOTATION"};
+        List<String> tokens = new ArrayList<>();
+        for (int i = 0; i < buffer.size(); i++) {
+            tokens.add(names[buffer.type(i)] + " " + buffer.text(i));
+        }
+        return tokens;
+    }
+}
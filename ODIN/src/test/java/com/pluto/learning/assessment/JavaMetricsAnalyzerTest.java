@@ -0,0 +1,79 @@
+package com.pluto.learning.assessment;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests de las métricas por método calculadas sobre los tokens
+ */
+class JavaMetricsAnalyzerTest {
+
+    @Test
+    void measuresMethodsWithAnnotationArguments() {
+        List<JavaMetricsAnalyzer.MethodMetrics> methods = measure("""
+            @RestController
+            @RequestMapping(value = "/orders")
+            public class OrderController {
+                private final Map<String, Integer> totals = new HashMap<>();
+
+                @GetMapping(value = "/{id}", produces = "application/json")
+                @Transactional(readOnly = true)
+                public Order find(@PathVariable(name = "id") Long id, boolean strict) {
+                    if (id == null || id < 0) {
+                        return null;
+                    }
+                    return strict ? repository.get(id) : repository.find(id);
+                }
+
+                @Scheduled(fixedRate = 1000)
+                void refresh() {
+                    for (String key : totals.keySet()) {
+                        while (pending(key)) {
+                            if (key.isEmpty()) {
+                                totals.remove(key);
+                            }
+                        }
+                    }
+                }
+            }
+            """);
+
+        assertEquals(List.of("find", "refresh"), methods.stream().map(JavaMetricsAnalyzer.MethodMetrics::getName).toList());
+        JavaMetricsAnalyzer.MethodMetrics find = methods.get(0);
+        // 1 + if + || + ?:
+        assertEquals(4, find.getComplexity());
+        assertEquals(2, find.getParameters());
+        assertEquals(8, find.getStartLine());
+        assertEquals(6, find.getLength());
+        JavaMetricsAnalyzer.MethodMetrics refresh = methods.get(1);
+        assertEquals(4, refresh.getComplexity());
+        assertEquals(3, refresh.getNestingDepth());
+    }
+
+    @Test
+    void ignoresInitializersLambdasAndAnonymousClasses() {
+        List<JavaMetricsAnalyzer.MethodMetrics> methods = measure("""
+            class Handlers {
+                static final Runnable TASK = () -> { if (ready) run(); };
+                static { if (DEBUG) log(); }
+
+                Comparator<String> order() {
+                    return new Comparator<String>() {
+                        public int compare(String a, String b) { return a.length() - b.length(); }
+                    };
+                }
+            }
+            """);
+
+        assertEquals(List.of("order", "compare"), methods.stream()
+            .map(JavaMetricsAnalyzer.MethodMetrics::getName).sorted((a, b) -> b.compareTo(a)).toList());
+    }
+
+    private static List<JavaMetricsAnalyzer.MethodMetrics> measure(String source) {
+        TokenBuffer tokens = JavaLexer.tokenize(source, new TokenBuffer());
+        return JavaMetricsAnalyzer.measure(tokens, (int) source.lines().count()).methods();
+    }
+}
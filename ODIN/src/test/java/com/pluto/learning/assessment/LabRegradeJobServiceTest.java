@@ -0,0 +1,108 @@
+package com.pluto.learning.assessment;
+
+import com.pluto.learning.submissions.LabSubmission;
+import com.pluto.learning.submissions.SubmissionRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests del trabajo de re-evaluación por lotes
+ */
+class LabRegradeJobServiceTest {
+
+    private final LabRegradeRepository repository = mock(LabRegradeRepository.class);
+    private final SubmissionRepository submissionRepository = mock(SubmissionRepository.class);
+    private final AdvancedAssessmentEngine engine = mock(AdvancedAssessmentEngine.class);
+    private final LabRegradeJobService service =
+        new LabRegradeJobService(repository, submissionRepository, engine, new SimpleMeterRegistry(), 2, 2);
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    void resumesFromCheckpointAndPersistsEachBatch() throws Exception {
+        // Trabajo interrumpido tras persistir hasta la submission 10
+        when(repository.findLatestJob(3L)).thenReturn(Optional.of(new LabRegradeJob(
+            5L, 3L, LabRegradeJob.Status.RUNNING, 20L, 5, 10L, 2, 0, 1, null)));
+        when(repository.findRegradableIdsAfter(3L, 10L, 20L, 2)).thenReturn(List.of(11L, 12L));
+        when(repository.findRegradableIdsAfter(3L, 12L, 20L, 2)).thenReturn(List.of(15L));
+        when(repository.findRegradableIdsAfter(3L, 15L, 20L, 2)).thenReturn(List.of());
+        when(submissionRepository.findAllById(anyIterable())).thenAnswer(invocation -> {
+            Iterable<Long> ids = invocation.getArgument(0);
+            List<LabSubmission> submissions = new ArrayList<>();
+            ids.forEach(id -> submissions.add(submission(id)));
+            return submissions;
+        });
+        when(engine.evaluateSubmission(any(LabSubmission.class))).thenAnswer(invocation -> {
+            LabSubmission submission = invocation.getArgument(0);
+            if (submission.getId() == 12L) {
+                throw new IllegalStateException("repositorio borrado");
+            }
+            AssessmentResult result = new AssessmentResult(submission);
+            result.calculateFinalScore();
+            return result;
+        });
+
+        LabRegradeJob job = service.start(3L, false);
+        for (int i = 0; i < 100 && !job.isFinished(); i++) {
+            Thread.sleep(50);
+        }
+
+        assertEquals(LabRegradeJob.Status.COMPLETED, job.getStatus());
+        assertEquals(15L, job.getLastSubmissionId());
+        assertEquals(5, job.getProcessedSubmissions());
+        assertEquals(1, job.getFailedSubmissions());
+        verify(repository, never()).findRegradableIdsAfter(eq(3L), eq(0L), anyLong(), anyInt());
+        verify(repository).saveBatch(eq(5L), argThat(scores -> scores.size() == 1), eq(12L), eq(2), eq(1), anyInt());
+        verify(repository).saveBatch(eq(5L), argThat(scores -> scores.size() == 1), eq(15L), eq(1), eq(0), anyInt());
+        verify(repository).updateStatus(5L, LabRegradeJob.Status.COMPLETED, null);
+    }
+
+    @Test
+    void keepsThePreviousScoreWhenAStageTimesOut() throws Exception {
+        when(repository.findLatestJob(3L)).thenReturn(Optional.of(new LabRegradeJob(
+            5L, 3L, LabRegradeJob.Status.RUNNING, 20L, 2, 0L, 0, 0, 0, null)));
+        when(repository.findRegradableIdsAfter(3L, 0L, 20L, 2)).thenReturn(List.of(11L, 12L));
+        when(repository.findRegradableIdsAfter(3L, 12L, 20L, 2)).thenReturn(List.of());
+        when(submissionRepository.findAllById(anyIterable()))
+            .thenReturn(List.of(submission(11L), submission(12L)));
+        when(engine.evaluateSubmission(any(LabSubmission.class))).thenAnswer(invocation -> {
+            LabSubmission submission = invocation.getArgument(0);
+            AssessmentResult result = new AssessmentResult(submission);
+            if (submission.getId() == 12L) {
+                result.addIncompleteStage("functionality", "timed out");
+            }
+            result.calculateFinalScore();
+            return result;
+        });
+
+        LabRegradeJob job = service.start(3L, false);
+        for (int i = 0; i < 100 && !job.isFinished(); i++) {
+            Thread.sleep(50);
+        }
+
+        assertEquals(LabRegradeJob.Status.COMPLETED, job.getStatus());
+        assertEquals(1, job.getFailedSubmissions());
+        verify(repository).saveBatch(eq(5L),
+            argThat(scores -> scores.size() == 1),
+            eq(12L), eq(2), eq(1), anyInt());
+    }
+
+    private static LabSubmission submission(Long id) {
+        LabSubmission submission = new LabSubmission();
+        submission.setId(id);
+        submission.setAutomatedScore(100);
+        return submission;
+    }
+}
@@ -0,0 +1,82 @@
+package com.pluto.learning.assessment;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests de la matriz de similitud por tiles de un laboratorio
+ */
+class LabSimilarityJobServiceTest {
+
+    private final LabSimilarityRepository repository = mock(LabSimilarityRepository.class);
+    private final LabSimilarityJobService service =
+        new LabSimilarityJobService(repository, new SimpleMeterRegistry(), 2, 0.1, 2);
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    void resumesSkippingTilesAlreadyPersisted() throws Exception {
+        long[] submissionIds = {11L, 12L, 13L, 14L, 15L};
+        // 5 submissions en tiles de 2: 3 × 3 tiles, 6 en la mitad superior
+        when(repository.findLatestJob(3L)).thenReturn(Optional.of(new LabSimilarityJob(
+            7L, 3L, LabSimilarityJob.Status.RUNNING, 2, 15L, 5, 6, 2, null)));
+        when(repository.findLatestSubmissionIds(3L, 15L)).thenReturn(submissionIds);
+        when(repository.loadFingerprints(submissionIds)).thenReturn(new long[][] {
+            {1, 2, 3, 4}, {1, 2, 3, 4}, {5, 6}, {1, 2, 9, 10}, {}});
+        when(repository.findCompletedTiles(7L, 3)).thenReturn(Set.of(0, 1));
+        List<String> saved = new CopyOnWriteArrayList<>();
+        doAnswer(invocation -> saved.add(invocation.getArgument(1) + "," + invocation.getArgument(2)))
+            .when(repository).saveTile(eq(7L), anyInt(), anyInt(), any());
+
+        LabSimilarityJob job = service.start(3L, false);
+        for (int i = 0; i < 100 && !job.isFinished(); i++) {
+            Thread.sleep(50);
+        }
+
+        assertEquals(LabSimilarityJob.Status.COMPLETED, job.getStatus());
+        assertEquals(Set.of("0,2", "1,1", "1,2", "2,2"), Set.copyOf(saved));
+        assertEquals(6, job.getCompletedTiles());
+        verify(repository, never()).createJob(anyLong(), anyInt(), anyLong(), anyInt(), anyInt());
+        verify(repository).updateStatus(7L, LabSimilarityJob.Status.COMPLETED, null);
+    }
+
+    @Test
+    void computesUpperTrianglePairsAboveTheThreshold() {
+        long[] submissionIds = {11L, 12L, 13L, 14L};
+        long[][] fingerprints = {{1, 2, 3, 4}, {1, 2, 3, 4}, {4, 5}, {9}};
+
+        SimilarityTileResult diagonal = service.computeTile(submissionIds, fingerprints, 0, 0, 2);
+        assertEquals(1, diagonal.size());
+        assertEquals(11L, diagonal.submissionA(0));
+        assertEquals(12L, diagonal.submissionB(0));
+        assertEquals(4, diagonal.sharedFingerprints(0));
+        assertEquals(1.0, diagonal.similarity(0));
+
+        // {4, 5} comparte la mitad de sus huellas con las dos primeras; {9} ninguna
+        SimilarityTileResult offDiagonal = service.computeTile(submissionIds, fingerprints, 0, 1, 2);
+        assertEquals(2, offDiagonal.size());
+        for (int i = 0; i < offDiagonal.size(); i++) {
+            assertEquals(13L, offDiagonal.submissionB(i));
+            assertEquals(0.5, offDiagonal.similarity(i));
+        }
+    }
+
+    @Test
+    void countsSharedFingerprintsOfSortedArrays() {
+        assertEquals(2, LabSimilarityJobService.countShared(new long[] {-5, 1, 3, 8}, new long[] {-5, 2, 3, 9}));
+        assertEquals(0, LabSimilarityJobService.countShared(new long[] {}, new long[] {1}));
+    }
+}
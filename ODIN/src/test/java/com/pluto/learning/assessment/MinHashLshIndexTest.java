@@ -0,0 +1,61 @@
+package com.pluto.learning.assessment;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests de las firmas MinHash y la preselección por bandas LSH
+ */
+class MinHashLshIndexTest {
+
+    private final MinHashLshIndex index = new MinHashLshIndex();
+    private final SplittableRandom random = new SplittableRandom(42);
+
+    @Test
+    void findsNearDuplicatesAmongUnrelatedSubmissions() {
+        long[] original = randomFingerprints(400);
+        for (long id = 1; id <= 2000; id++) {
+            index.register("commit-" + id, id, id, index.signature(randomFingerprints(400)));
+        }
+        // Copia con un 10 % de huellas cambiadas (Jaccard ~0,82)
+        long[] copy = original.clone();
+        for (int i = 0; i < copy.length; i += 10) {
+            copy[i] = random.nextLong();
+        }
+        index.register("copy", 5000L, 50L, index.signature(copy));
+
+        List<LshCandidate> candidates = index.findCandidates(index.signature(original), 7L, 20);
+
+        assertFalse(candidates.isEmpty());
+        assertEquals(5000L, candidates.get(0).getSubmissionId());
+        assertEquals(0.82, candidates.get(0).getEstimatedSimilarity(), 0.15);
+        // Las bandas descartan casi todo el corpus no relacionado
+        assertTrue(candidates.size() < 20, () -> candidates.size() + " candidatos");
+    }
+
+    @Test
+    void excludesTheSameUserAndRegistersEachCommitOnce() {
+        long[] signature = index.signature(randomFingerprints(100));
+        index.register("abc", 1L, 10L, signature);
+        index.register("abc", 2L, 20L, index.signature(randomFingerprints(100)));
+
+        assertEquals(1, index.size());
+        assertTrue(index.contains("abc"));
+        assertArrayEquals(signature, index.findSignature("abc"));
+        assertNull(index.findSignature("def"));
+        assertTrue(index.findCandidates(signature, 10L, 5).isEmpty());
+        assertEquals(1L, index.findCandidates(signature, 99L, 5).get(0).getSubmissionId());
+    }
+
+    private long[] randomFingerprints(int count) {
+        long[] fingerprints = new long[count];
+        for (int i = 0; i < count; i++) {
+            fingerprints[i] = random.nextLong();
+        }
+        return fingerprints;
+    }
+}
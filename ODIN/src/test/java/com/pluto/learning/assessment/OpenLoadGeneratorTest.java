@@ -0,0 +1,90 @@
+package com.pluto.learning.assessment;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests del generador de carga contra un servidor HTTP local
+ */
+class OpenLoadGeneratorTest {
+
+    private HttpServer server;
+    private ExecutorService handlers;
+
+    @AfterEach
+    void stop() {
+        if (server != null) {
+            server.stop(0);
+            handlers.shutdownNow();
+        }
+    }
+
+    @Test
+    void measuresErrorsAndThroughputOfTheScenarioMix() throws Exception {
+        URI baseUri = start(0);
+        LoadTestScenario scenario = LoadTestScenario.parse("""
+            # tres lecturas por cada escritura fallida
+            GET /ok
+            GET /ok
+            GET /ok
+            POST /fail {"item": 1}
+            """);
+
+        OpenLoadGenerator.Report report = new OpenLoadGenerator(Duration.ofSeconds(5), 1000)
+            .run(baseUri, scenario, 100, Duration.ofSeconds(1), Duration.ofSeconds(1));
+
+        // El calentamiento se envía pero no cuenta
+        assertEquals(100, report.requests());
+        assertEquals(0.25, report.errorRate(), 1e-9);
+        assertEquals(75, report.throughput(), 1e-9);
+    }
+
+    @Test
+    void countsQueueingDelayOfASaturatedService() throws Exception {
+        // Un único hilo a 20 ms por petición atiende 50 req/s: a 100 req/s se forma cola
+        URI baseUri = start(20);
+
+        OpenLoadGenerator.Report report = new OpenLoadGenerator(Duration.ofSeconds(5), 1000)
+            .run(baseUri, LoadTestScenario.parse("GET /ok"), 100, Duration.ZERO, Duration.ofSeconds(1));
+
+        assertEquals(0, report.errors());
+        // Las últimas peticiones esperan ~0,5 s aunque el servicio tarde 20 ms en cada una
+        assertTrue(report.percentileMillis(99) > 300, "p99 " + report.percentileMillis(99));
+        assertTrue(report.percentileMillis(50) > 100, "p50 " + report.percentileMillis(50));
+    }
+
+    @Test
+    void scoresAgainstLabTargets() {
+        assertEquals(100, LoadTestGrader.score(80, 200, 0.0, 100, 200));
+        // p99 al doble del objetivo, mitad de throughput y 1% de errores
+        assertEquals(25 + 15 + 16, LoadTestGrader.score(200, 100, 0.01, 100, 200));
+        assertEquals(0, LoadTestGrader.score(Double.MAX_VALUE, 0, 1.0, 100, 200));
+    }
+
+    private URI start(long delayMillis) throws Exception {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            try {
+                Thread.sleep(delayMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.getRequestBody().readAllBytes();
+            exchange.sendResponseHeaders(exchange.getRequestURI().getPath().equals("/fail") ? 500 : 200, -1);
+            exchange.close();
+        });
+        handlers = delayMillis > 0 ? Executors.newSingleThreadExecutor() : Executors.newCachedThreadPool();
+        server.setExecutor(handlers);
+        server.start();
+        return URI.create("http://127.0.0.1:" + server.getAddress().getPort());
+    }
+}
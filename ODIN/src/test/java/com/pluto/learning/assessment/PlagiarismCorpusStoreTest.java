@@ -0,0 +1,119 @@
+package com.pluto.learning.assessment;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests del corpus de plagio en segmentos mapeados
+ */
+class PlagiarismCorpusStoreTest {
+
+    private static final int SEGMENT_SIZE = 4096;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void keepsTheSourceFileOfEveryToken() {
+        PlagiarismCorpusStore store = open();
+        store.append(1L, 10L, 100L, "https://example.com/a.git@abc", new long[] {3, 7},
+            new int[] {5, 6, 7, 8}, new int[] {1, 2, 1, 4}, new int[] {0, 0, 1, 1},
+            List.of("src/A.java", "src/Bé.java"), 4);
+
+        PlagiarismCorpusStore.CorpusEntry entry = store.find(1L);
+        assertEquals("https://example.com/a.git@abc", entry.getKey());
+        assertEquals(List.of("src/A.java", "src/Bé.java"), entry.getPaths());
+        assertEquals("src/A.java", entry.pathAt(1));
+        assertEquals("src/Bé.java", entry.pathAt(2));
+        assertEquals(7, entry.getTokens().get(2));
+        assertEquals(4, entry.getLines().get(3));
+        assertEquals(7L, entry.getFingerprints().get(1));
+        store.close();
+    }
+
+    @Test
+    void reopensAfterACrashDiscardingTheUnconfirmedRecord() throws IOException {
+        PlagiarismCorpusStore store = open();
+        append(store, 1L, 11);
+        append(store, 2L, 22);
+        append(store, 1L, 33);
+        store.close();
+
+        // Simula una caída a mitad de escribir el tercer registro: sin marca de confirmación
+        Path segment;
+        try (Stream<Path> files = Files.list(directory)) {
+            segment = files.findFirst().orElseThrow();
+        }
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(Integer.BYTES * 2).order(ByteOrder.BIG_ENDIAN);
+            channel.read(header, 0);
+            int first = header.getInt(0);
+            header.clear();
+            channel.read(header, first);
+            int second = header.getInt(0);
+            channel.write(ByteBuffer.allocate(Integer.BYTES), first + second + Integer.BYTES);
+        }
+
+        PlagiarismCorpusStore reopened = open();
+        assertEquals(2, reopened.size());
+        assertEquals(11, reopened.find(1L).getTokens().get(0));
+        assertEquals(22, reopened.find(2L).getTokens().get(0));
+        // El siguiente registro reutiliza el espacio del descartado
+        append(reopened, 3L, 44);
+        assertEquals(44, reopened.find(3L).getTokens().get(0));
+        assertEquals("File.java", reopened.find(3L).pathAt(0));
+        reopened.close();
+    }
+
+    @Test
+    void compactionMovesLiveRecordsAndDeletesSparseSegments() throws IOException {
+        PlagiarismCorpusStore store = open();
+        // Registros de 1280 bytes: tres por segmento de 4 KB; el primero queda vacío al reemplazarlos
+        for (long id = 1; id <= 6; id++) {
+            store.append(id, 10L, id, "submission:" + id, new long[0], new int[100], new int[100], new int[100],
+                List.of("File.java"), 100);
+        }
+        for (long id = 1; id <= 3; id++) {
+            append(store, id, (int) id);
+        }
+        assertEquals(3, segments());
+
+        store.compact();
+
+        assertEquals(2, segments());
+        assertEquals(6, store.size());
+        for (long id = 1; id <= 3; id++) {
+            assertEquals(id, store.find(id).getTokens().get(0));
+        }
+        assertEquals(100, store.find(6L).getTokens().limit());
+        store.close();
+        assertEquals(6, open().size());
+    }
+
+    private long segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.count();
+        }
+    }
+
+    private PlagiarismCorpusStore open() {
+        return new PlagiarismCorpusStore(directory.toString(), SEGMENT_SIZE, 0);
+    }
+
+    private static void append(PlagiarismCorpusStore store, long submissionId, int token) {
+        store.append(submissionId, 10L, submissionId * 100, "submission:" + submissionId, new long[] {token},
+            new int[] {token}, new int[] {1}, new int[] {0}, List.of("File.java"), 1);
+    }
+}
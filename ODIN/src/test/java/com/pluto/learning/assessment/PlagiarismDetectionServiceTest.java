@@ -0,0 +1,113 @@
+package com.pluto.learning.assessment;
+
+import com.pluto.learning.assessments.Lab;
+import com.pluto.learning.auth.User;
+import com.pluto.learning.submissions.LabSubmission;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests de la comparación exacta (GST) con los candidatos de plagio
+ */
+class PlagiarismDetectionServiceTest {
+
+    private static final String SOURCE = """
+        package shop;
+
+        public class Cart {
+            private final List<Item> items = new ArrayList<>();
+
+            public int total() {
+                int sum = 0;
+                for (Item item : items) {
+                    if (item.price() > 0) {
+                        sum += item.price() * item.quantity();
+                    }
+                }
+                return sum;
+            }
+        }
+        """;
+
+    @TempDir
+    Path corpusDir;
+
+    private final FingerprintIndexRepository fingerprintIndex = mock(FingerprintIndexRepository.class);
+    private final RepositorySnapshotLoader snapshotLoader = mock(RepositorySnapshotLoader.class);
+    private PlagiarismCorpusStore corpusStore;
+
+    @AfterEach
+    void close() {
+        corpusStore.close();
+    }
+
+    @Test
+    void keepsTheFingerprintEstimateForCandidatesThatAreNotAvailableLocally() {
+        PlagiarismDetectionService service = service();
+        when(fingerprintIndex.findCandidates(eq(5L), eq(10L), any(), anyInt()))
+            .thenReturn(List.of(new FingerprintCandidate(99L, 9, 0.9)));
+
+        PlagiarismAnalysis analysis = service.analyzeSubmission(submission(1L, 10L), snapshot("a.git"));
+
+        verify(snapshotLoader).cached(99L);
+        verify(snapshotLoader, never()).load(any());
+        assertTrue(analysis.getMatches().isEmpty());
+        assertEquals(0.9, analysis.getSimilarityPercentage(), 1e-9);
+    }
+
+    @Test
+    void tilesCandidatesFromTheSnapshotCacheAndTheCorpus() {
+        PlagiarismDetectionService service = service();
+        when(fingerprintIndex.findCandidates(eq(5L), eq(10L), any(), anyInt()))
+            .thenReturn(List.of(new FingerprintCandidate(99L, 9, 0.9)));
+        when(snapshotLoader.cached(99L)).thenReturn(snapshot("b.git"));
+
+        PlagiarismAnalysis cached = service.analyzeSubmission(submission(1L, 10L), snapshot("a.git"));
+
+        assertEquals(1.0, cached.getSimilarityPercentage(), 1e-9);
+        assertEquals("https://example.com/b.git@c1:src/main/java/shop/Cart.java",
+            cached.getMatches().get(0).getSourceFile());
+        assertEquals(99L, cached.getMatches().get(0).getMatchedSubmissionId());
+
+        // Una vez indexado, el candidato se lee del corpus con su fichero de origen
+        service.analyzeSubmission(submission(99L, 20L), snapshot("b.git"));
+        when(snapshotLoader.cached(99L)).thenReturn(null);
+        PlagiarismAnalysis stored = service.analyzeSubmission(submission(2L, 10L), snapshot("a.git"));
+
+        assertEquals("https://example.com/99.git@c99:src/main/java/shop/Cart.java",
+            stored.getMatches().get(0).getSourceFile());
+        assertEquals(cached.getMatches().get(0).getMatchedStartLine(), stored.getMatches().get(0).getMatchedStartLine());
+        verify(snapshotLoader, never()).load(any());
+    }
+
+    private PlagiarismDetectionService service() {
+        corpusStore = new PlagiarismCorpusStore(corpusDir.toString(), 1 << 16, 0);
+        return new PlagiarismDetectionService(fingerprintIndex, new MinHashLshIndex(), corpusStore,
+            snapshotLoader, new AnalysisRuleCatalog(Map.of()));
+    }
+
+    private static RepositorySnapshot snapshot(String repository) {
+        return RepositorySnapshot.parse("https://example.com/" + repository, "c1",
+            Map.of("src/main/java/shop/Cart.java", SOURCE));
+    }
+
+    private static LabSubmission submission(long id, long userId) {
+        Lab lab = new Lab();
+        lab.setId(5L);
+        User user = new User();
+        user.setId(userId);
+        LabSubmission submission = new LabSubmission(lab, user, "https://example.com/" + id + ".git");
+        submission.setId(id);
+        submission.setCommitHash("c" + id);
+        return submission;
+    }
+}
@@ -0,0 +1,103 @@
+package com.pluto.learning.assessment;
+
+import com.pluto.learning.assessments.AnswerKey;
+import com.pluto.learning.assessments.Quiz;
+import com.pluto.learning.assessments.QuizQuestion;
+import com.pluto.learning.assessments.QuizQuestion.QuestionType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests de las claves de respuesta compiladas y su caché por versión de quiz
+ */
+class QuizAnswerKeyCacheTest {
+
+    private static final LocalDateTime EDITED = LocalDateTime.of(2024, 6, 1, 12, 0);
+
+    @Test
+    void gradesEachQuestionType() {
+        assertTrue(key(QuestionType.TRUE_FALSE, "true").matches(" TRUE "));
+        assertFalse(key(QuestionType.TRUE_FALSE, "true").matches("false"));
+        assertTrue(key(QuestionType.SINGLE_CHOICE, "B").matches("B\n"));
+        assertFalse(key(QuestionType.SINGLE_CHOICE, "B").matches("b"));
+        assertTrue(key(QuestionType.TEXT_INPUT, "Dependency Injection").matches("dependency injection"));
+        assertTrue(key(QuestionType.TEXT_INPUT, "Kafka").matches("Apache Kafka"));
+        assertFalse(key(QuestionType.TEXT_INPUT, "Kafka").matches(""));
+
+        AnswerKey multiple = key(QuestionType.MULTIPLE_CHOICE, "[\"AB\", \"C\"]");
+        assertTrue(multiple.matches("[\"AB\",\"C\"]"));
+        assertTrue(multiple.matches("C, AB"));
+        assertTrue(multiple.matches("C, AB, C"));
+        // Solo una parte de las correctas no basta
+        assertFalse(multiple.matches("C"));
+        // Antes bastaba con ser subcadena del JSON
+        assertFalse(multiple.matches("A"));
+        assertFalse(multiple.matches("AB, C, D"));
+        assertFalse(multiple.matches("[]"));
+        assertTrue(key(QuestionType.MULTIPLE_CHOICE, "B").matches("[\"B\"]"));
+    }
+
+    @Test
+    void comparesCodeLikeTheRegexNormalization() {
+        String reference = "public int sum(int a, int b) {\n    return a + b;\n}";
+        List<String> answers = List.of(
+            "public int sum( int a , int b ){ return a + b ; }",
+            "  public   int sum(int a,int b){\treturn a+b;}",
+            "public int sum(int a, int b) { return a  +  b; }",
+            "publicint sum(int a, int b) { return a + b; }",
+            "public int sum(int a, int b) { return a + b; } ;");
+        AnswerKey key = key(QuestionType.CODE_SNIPPET, reference);
+        for (String answer : answers) {
+            assertEquals(regexNormalize(reference).equals(regexNormalize(answer)), key.matches(answer), answer);
+        }
+        assertTrue(key.matches(answers.get(0)));
+    }
+
+    @Test
+    void recompilesOnlyWhenTheQuizChanges() {
+        QuizAnswerKeyCache cache = new QuizAnswerKeyCache(new SimpleMeterRegistry());
+        Quiz quiz = new Quiz();
+        quiz.setId(1L);
+        QuizQuestion question = question(quiz, 10L, QuestionType.SINGLE_CHOICE, "A");
+        quiz.setQuestions(new ArrayList<>(List.of(question)));
+
+        QuizAnswerKeyCache.CompiledQuiz first = cache.get(quiz);
+        assertSame(first, cache.get(quiz));
+        assertTrue(first.isCorrect(10L, "A"));
+        assertFalse(first.isCorrect(99L, "A"));
+
+        question.setCorrectAnswersJson("B");
+        question.setUpdatedAt(EDITED.plusMinutes(5));
+        QuizAnswerKeyCache.CompiledQuiz edited = cache.get(quiz);
+        assertNotSame(first, edited);
+        assertTrue(edited.isCorrect(10L, "B"));
+
+        quiz.getQuestions().add(question(quiz, 11L, QuestionType.TRUE_FALSE, "false"));
+        assertTrue(cache.get(quiz).isCorrect(11L, "False"));
+    }
+
+    private static QuizQuestion question(Quiz quiz, Long id, QuestionType type, String answer) {
+        QuizQuestion question = new QuizQuestion(quiz, "?", type, 1);
+        question.setId(id);
+        question.setCorrectAnswersJson(answer);
+        question.setUpdatedAt(EDITED);
+        return question;
+    }
+
+    private static AnswerKey key(QuestionType type, String answer) {
+        return AnswerKey.compile(type, answer);
+    }
+
+    // Normalización original de QuizQuestion
+    private static String regexNormalize(String code) {
+        return code.trim()
+            .replaceAll("\\s+", " ")
+            .replaceAll("\\s*([{}();,])\\s*", "$1");
+    }
+}
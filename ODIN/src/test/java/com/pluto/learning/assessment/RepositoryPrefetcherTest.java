@@ -0,0 +1,61 @@
+package com.pluto.learning.assessment;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests de la descarga especulativa de repositorios
+ */
+class RepositoryPrefetcherTest {
+
+    private final GitMirrorCache gitMirrorCache = mock(GitMirrorCache.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final RepositoryPrefetcher prefetcher = new RepositoryPrefetcher(gitMirrorCache, meterRegistry, true, 1, 10);
+
+    @AfterEach
+    void tearDown() {
+        prefetcher.shutdown();
+    }
+
+    @Test
+    void coalescesAttemptsOfTheSameRepositoryIntoOneFetchOfTheLatestCommit() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(gitMirrorCache.withCheckout(eq("file:///busy"), any(), any())).thenAnswer(invocation -> {
+            started.countDown();
+            release.await(10, TimeUnit.SECONDS);
+            return null;
+        });
+        prefetcher.prefetch("file:///busy", null);
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+
+        prefetcher.prefetch("file:///lab", "aaaaaaa");
+        prefetcher.prefetch("file:///lab", "bbbbbbb");
+        prefetcher.prefetch("file:///lab", "ccccccc");
+        release.countDown();
+
+        verify(gitMirrorCache, timeout(10_000)).withCheckout(eq("file:///lab"), eq("ccccccc"), any());
+        verify(gitMirrorCache, never()).withCheckout(eq("file:///lab"), eq("aaaaaaa"), any());
+        verify(gitMirrorCache, never()).withCheckout(eq("file:///lab"), eq("bbbbbbb"), any());
+        assertEquals(2.0, meterRegistry.counter("assessment.prefetch", "result", "coalesced").count());
+    }
+
+    @Test
+    void keepsPrefetchingAfterAFailedFetch() {
+        when(gitMirrorCache.withCheckout(eq("file:///missing"), any(), any())).thenThrow(new IllegalStateException("sin red"));
+
+        prefetcher.prefetch("file:///missing", null);
+        prefetcher.prefetch("file:///lab", "aaaaaaa");
+
+        verify(gitMirrorCache, timeout(10_000)).withCheckout(eq("file:///lab"), eq("aaaaaaa"), any());
+        assertEquals(1.0, meterRegistry.counter("assessment.prefetch", "result", "failed").count());
+    }
+}
@@ -0,0 +1,52 @@
+package com.pluto.learning.assessment;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests de la reutilización de ficheros entre intentos sucesivos
+ */
+class RepositorySnapshotTest {
+
+    private static final String URL = "https://example.com/lab.git";
+
+    @Test
+    void reusesOnlyFilesWithTheSamePathAndContent() {
+        RepositorySnapshot first = RepositorySnapshot.parse(URL, "c1", Map.of(
+            "src/main/java/App.java", "class App { int run() { return 1; } }",
+            "src/main/java/Util.java", "class Util { }",
+            "README.md", "# Lab"));
+        assertEquals(0, first.getReusedFileCount());
+
+        RepositorySnapshot second = RepositorySnapshot.parse(URL, "c2", Map.of(
+            "src/main/java/App.java", "class App { int run() { return 2; } }",
+            "src/main/java/Util.java", "class Util { }",
+            "src/main/java/Other.java", "class Util { }",
+            "README.md", "# Lab"), first);
+
+        assertEquals(2, second.getReusedFileCount());
+        assertSame(file(first, "src/main/java/Util.java"), file(second, "src/main/java/Util.java"));
+        assertSame(file(first, "README.md"), file(second, "README.md"));
+        assertNotSame(file(first, "src/main/java/App.java"), file(second, "src/main/java/App.java"));
+        assertEquals(3, second.getJavaFiles().size());
+    }
+
+    @Test
+    void analyzesEverythingWithoutAPreviousSnapshot() {
+        Map<String, String> contents = Map.of("src/main/java/App.java", "class App { }");
+        RepositorySnapshot first = RepositorySnapshot.parse(URL, "c1", contents);
+
+        assertEquals(0, RepositorySnapshot.parse(URL, "c2", contents, null).getReusedFileCount());
+        assertEquals(1, RepositorySnapshot.parse(URL, "c2", contents, first).getReusedFileCount());
+    }
+
+    private static RepositorySnapshot.SourceFile file(RepositorySnapshot snapshot, String path) {
+        return snapshot.getFiles().stream()
+            .filter(file -> file.getPath().equals(path))
+            .findFirst()
+            .orElseThrow();
+    }
+}
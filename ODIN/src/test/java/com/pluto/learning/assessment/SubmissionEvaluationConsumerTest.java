@@ -0,0 +1,229 @@
+package com.pluto.learning.assessment;
+
+import com.pluto.learning.assessments.Lab;
+import com.pluto.learning.assessments.LabRepository;
+import com.pluto.learning.submissions.LabSubmission;
+import com.pluto.learning.submissions.SubmissionRepository;
+import com.pluto.learning.submissions.SubmissionService;
+import com.pluto.learning.submissions.SubmissionService.SubmissionEvaluationEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.kafka.test.utils.KafkaTestUtils;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests del consumidor de evaluaciones contra un broker Kafka embebido
+ */
+@EmbeddedKafka(partitions = 2, topics = {"evaluation-commit", "evaluation-backpressure", "evaluation-failure", "evaluation-review-error",
+    "evaluation-rejected"})
+class SubmissionEvaluationConsumerTest {
+
+    private final EmbeddedKafkaBroker broker;
+    private final AdvancedAssessmentEngine engine = mock(AdvancedAssessmentEngine.class);
+    private final SubmissionService submissionService = mock(SubmissionService.class);
+    private final SubmissionRepository submissionRepository = mock(SubmissionRepository.class);
+    private FairEvaluationScheduler scheduler;
+    private SubmissionEvaluationConsumer consumer;
+
+    SubmissionEvaluationConsumerTest(EmbeddedKafkaBroker broker) {
+        this.broker = broker;
+        when(submissionRepository.findById(anyLong()))
+            .thenAnswer(invocation -> Optional.of(mock(LabSubmission.class)));
+    }
+
+    @AfterEach
+    void stopConsumer() {
+        if (consumer != null) {
+            consumer.stop();
+        }
+        if (scheduler != null) {
+            scheduler.shutdown();
+        }
+    }
+
+    @Test
+    void commitsOffsetsOnlyAfterScoreIsPersisted() throws Exception {
+        when(engine.evaluateSubmission(any())).thenAnswer(invocation -> result(invocation.getArgument(0)));
+        consumer = consumer("evaluation-commit", 4, 8, 3);
+        consumer.start();
+
+        for (long id = 1; id <= 5; id++) {
+            send("evaluation-commit", id);
+        }
+
+        verify(submissionService, timeout(30_000).times(5))
+            .updateAutomatedScore(anyLong(), eq(80), anyString(), any());
+        await(() -> committed("evaluation-commit") == 5);
+    }
+
+    @Test
+    void pausesPartitionsWhileEvaluatorPoolIsSaturated() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        when(engine.evaluateSubmission(any())).thenAnswer(invocation -> {
+            release.await();
+            return result(invocation.getArgument(0));
+        });
+        consumer = consumer("evaluation-backpressure", 1, 2, 1);
+        consumer.start();
+
+        for (long id = 1; id <= 6; id++) {
+            send("evaluation-backpressure", id);
+        }
+
+        await(consumer::isPaused);
+        assertTrue(consumer.inFlight() >= 2);
+        verify(submissionService, never()).updateAutomatedScore(anyLong(), any(), any(), any());
+        assertEquals(0, committed("evaluation-backpressure"));
+
+        release.countDown();
+        verify(submissionService, timeout(30_000).times(6))
+            .updateAutomatedScore(anyLong(), any(), any(), any());
+        await(() -> committed("evaluation-backpressure") == 6);
+        assertFalse(consumer.isPaused());
+        assertEquals(0, consumer.inFlight());
+    }
+
+    @Test
+    void sendsSubmissionToManualReviewAfterRepeatedFailures() throws Exception {
+        when(engine.evaluateSubmission(any())).thenThrow(new IllegalStateException("La etapa snapshot no se completó"));
+        consumer = consumer("evaluation-failure", 2, 4, 3);
+        consumer.start();
+
+        send("evaluation-failure", 42L);
+
+        verify(submissionService, timeout(30_000)).markEvaluationFailed(eq(42L), contains("3 intentos"));
+        verify(engine, times(3)).evaluateSubmission(any());
+        verify(submissionService, never()).updateAutomatedScore(anyLong(), any(), any(), any());
+        await(() -> committed("evaluation-failure") == 1);
+    }
+
+    @Test
+    void commitsOffsetEvenWhenManualReviewCannotBeRecorded() throws Exception {
+        when(engine.evaluateSubmission(any())).thenThrow(new IllegalStateException("La etapa snapshot no se completó"));
+        doThrow(new IllegalStateException("Base de datos no disponible"))
+            .when(submissionService).markEvaluationFailed(eq(7L), anyString());
+        consumer = consumer("evaluation-review-error", 2, 4, 1);
+        consumer.start();
+
+        send("evaluation-review-error", 7L);
+        send("evaluation-review-error", 8L);
+
+        verify(submissionService, timeout(30_000)).markEvaluationFailed(eq(8L), anyString());
+        await(() -> committed("evaluation-review-error") == 2);
+        assertEquals(0, consumer.inFlight());
+    }
+
+    @Test
+    void redeliversEventsRejectedByAFullSchedulerInsteadOfEvaluatingInline() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        Set<String> threads = ConcurrentHashMap.newKeySet();
+        when(engine.evaluateSubmission(any())).thenAnswer(invocation -> {
+            threads.add(Thread.currentThread().getName());
+            release.await();
+            return result(invocation.getArgument(0));
+        });
+        // Un worker y una tarea en cola: el tercer evento se rechaza hasta que haya hueco
+        consumer = consumer("evaluation-rejected", 1, 1, 8, 1);
+        consumer.start();
+
+        for (long id = 1; id <= 4; id++) {
+            send("evaluation-rejected", id);
+        }
+
+        verify(engine, timeout(30_000)).evaluateSubmission(any());
+        Thread.sleep(3 * SubmissionEvaluationConsumer.RETRY_DELAY.toMillis());
+        verify(engine, times(1)).evaluateSubmission(any());
+
+        release.countDown();
+        verify(submissionService, timeout(30_000).times(4))
+            .updateAutomatedScore(anyLong(), any(), any(), any());
+        await(() -> committed("evaluation-rejected") == 4);
+        assertEquals(0, consumer.inFlight());
+        assertTrue(threads.stream().allMatch(name -> name.startsWith("evaluation-scheduler-")), threads::toString);
+    }
+
+    private SubmissionEvaluationConsumer consumer(String topic, int workers, int maxInFlight, int maxAttempts) {
+        return consumer(topic, workers, 100, maxInFlight, maxAttempts);
+    }
+
+    private SubmissionEvaluationConsumer consumer(String topic, int workers, int queueCapacity,
+                                                  int maxInFlight, int maxAttempts) {
+        Map<String, Object> config = Map.of(
+            ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, broker.getBrokersAsString(),
+            ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        scheduler = new FairEvaluationScheduler(mock(LabRepository.class), new SimpleMeterRegistry(),
+            Clock.systemUTC(), AdaptiveConcurrencyLimit.fixed(workers), queueCapacity, 1, Duration.ofHours(24), 3.0);
+        return new SubmissionEvaluationConsumer(config, topic, engine, submissionService, submissionRepository,
+            scheduler, true, topic + "-group", 1, maxInFlight, 2, maxAttempts);
+    }
+
+    private void send(String topic, long submissionId) throws Exception {
+        Map<String, Object> config = Map.of(
+            ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, broker.getBrokersAsString(),
+            ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class,
+            ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class);
+        KafkaTemplate<String, Object> template = new KafkaTemplate<>(new DefaultKafkaProducerFactory<>(config));
+        template.send(topic, new SubmissionEvaluationEvent(
+            submissionId, "file:///repo", null, "main", Lab.EvaluationType.AUTOMATED)).get(10, TimeUnit.SECONDS);
+        template.destroy();
+    }
+
+    private long committed(String topic) {
+        long total = 0;
+        try {
+            for (int partition = 0; partition < 2; partition++) {
+                OffsetAndMetadata offset =
+                    KafkaTestUtils.getCurrentOffset(broker.getBrokersAsString(), topic + "-group", topic, partition);
+                total += offset != null ? offset.offset() : 0L;
+            }
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+        return total;
+    }
+
+    private static AssessmentResult result(LabSubmission submission) {
+        AssessmentResult result = new AssessmentResult(submission);
+        FunctionalityScore functionality = new FunctionalityScore();
+        functionality.setTestsPassed(8);
+        functionality.setTestsTotal(10);
+        functionality.setScore(200);
+        result.setFunctionalityScore(functionality);
+        result.calculateFinalScore();
+        result.setFeedback("ok");
+        return result;
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                fail("La condición no se cumplió en 30 s");
+            }
+            Thread.sleep(50);
+        }
+    }
+}
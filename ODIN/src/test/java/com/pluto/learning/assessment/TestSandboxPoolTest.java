@@ -0,0 +1,299 @@
+package com.pluto.learning.assessment;
+
+import com.pluto.learning.assessments.Lab;
+import com.pluto.learning.assessments.LabRepository;
+import com.pluto.learning.auth.User;
+import com.pluto.learning.submissions.LabSubmission;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.hibernate.LazyInitializationException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermission;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests del sandbox de ejecución con un script que simula la build y deja informes
+ * JUnit y JaCoCo como lo haría Gradle
+ */
+class TestSandboxPoolTest {
+
+    private static final String JUNIT_REPORT = """
+        <?xml version="1.0" encoding="UTF-8"?>
+        <testsuite name="com.example.CalculatorTest" tests="3" failures="1" errors="0" skipped="1">
+          <testcase classname="com.example.CalculatorTest" name="adds"/>
+          <testcase classname="com.example.CalculatorTest" name="divides">
+            <failure message="expected: 2 but was: 3">AssertionFailedError</failure>
+          </testcase>
+          <testcase classname="com.example.CalculatorTest" name="pending"><skipped/></testcase>
+        </testsuite>
+        """;
+    private static final String JACOCO_REPORT = """
+        <?xml version="1.0" encoding="UTF-8" standalone="yes"?>
+        <!DOCTYPE report PUBLIC "-//JACOCO//DTD Report 1.1//EN" "report.dtd">
+        <report name="lab">
+          <package name="com/example">
+            <class name="com/example/Calculator">
+              <counter type="LINE" missed="9" covered="1"/>
+            </class>
+            <counter type="LINE" missed="9" covered="1"/>
+          </package>
+          <counter type="INSTRUCTION" missed="10" covered="30"/>
+          <counter type="LINE" missed="2" covered="8"/>
+        </report>
+        """;
+    private static final String PIT_REPORT = """
+        <?xml version="1.0" encoding="UTF-8"?>
+        <mutations>
+          <mutation detected='true' status='KILLED' numberOfTestsRun='1'><mutatedClass>com.example.Calculator</mutatedClass></mutation>
+          <mutation detected='true' status='TIMED_OUT' numberOfTestsRun='1'><mutatedClass>com.example.Calculator</mutatedClass></mutation>
+          <mutation detected='false' status='SURVIVED' numberOfTestsRun='2'><mutatedClass>com.example.Calculator</mutatedClass></mutation>
+          <mutation detected='false' status='NO_COVERAGE' numberOfTestsRun='0'><mutatedClass>com.example.Parser</mutatedClass></mutation>
+          <mutation detected='false' status='NON_VIABLE' numberOfTestsRun='0'><mutatedClass>com.example.Parser</mutatedClass></mutation>
+        </mutations>
+        """;
+
+    @TempDir
+    Path tempDir;
+
+    private Path origin;
+    private final LabRepository labRepository = mock(LabRepository.class);
+
+    @BeforeEach
+    void createOrigin() throws Exception {
+        origin = tempDir.resolve("origin");
+        Files.createDirectories(origin);
+        git(origin, "init", "--quiet");
+    }
+
+    @Test
+    void runsBuildAndParsesJUnitAndJacocoReports() throws Exception {
+        write("build.gradle", "// proyecto del alumno\n");
+        write("build.sh", """
+            mkdir -p build/test-results/test build/reports/jacoco/test
+            cat > build/test-results/test/TEST-com.example.CalculatorTest.xml <<'XML'
+            %sXML
+            cat > build/reports/jacoco/test/jacocoTestReport.xml <<'XML'
+            %sXML
+            exit 1
+            """.formatted(JUNIT_REPORT, JACOCO_REPORT));
+        String commit = commit();
+
+        TestExecutionResult result = pool(60).run(submission(commit));
+
+        assertEquals(3, result.getTotalTests());
+        assertEquals(1, result.getPassedTests());
+        assertEquals(0.8, result.getCoverage(), 1e-9);
+        assertEquals(List.of("com.example.CalculatorTest.divides"), result.getFailedTests());
+        assertEquals(1, result.getTestDetails().get("exitCode"));
+        assertEquals(1, result.getTestDetails().get("skipped"));
+    }
+
+    @Test
+    void scoresMutantsOfGreenBuildsAndKeepsHistoryBetweenAttempts() throws Exception {
+        write("build.gradle", "");
+        write("build.sh", """
+            mkdir -p build/test-results/test
+            cat > build/test-results/test/TEST-com.example.CalculatorTest.xml <<'XML'
+            <testsuite name="com.example.CalculatorTest"><testcase classname="com.example.CalculatorTest" name="adds"/></testsuite>
+            XML
+            """);
+        write("mutate.sh", """
+            mkdir -p build/reports/pitest
+            cat > build/reports/pitest/mutations.xml <<'XML'
+            %sXML
+            echo "com.example.Calculator" >> "$1"
+            """.formatted(PIT_REPORT));
+        String commit = commit();
+        TestSandboxPool pool = pool(60, true);
+
+        TestExecutionResult first = pool.run(submission(commit));
+        TestExecutionResult second = pool.run(submission(commit));
+
+        assertEquals(4, first.getMutantsTotal());
+        assertEquals(2, first.getMutantsKilled());
+        assertEquals(0.5, first.getMutationScore(), 1e-9);
+        assertEquals(false, ((Map<?, ?>) first.getTestDetails().get("mutation")).get("incremental"));
+        assertEquals(1, ((Map<?, ?>) first.getTestDetails().get("mutation")).get("noCoverage"));
+        // El segundo intento parte del historial que dejó el primero
+        assertEquals(true, ((Map<?, ?>) second.getTestDetails().get("mutation")).get("incremental"));
+    }
+
+    @Test
+    void ignoresReportsCommittedWithTheSubmission() throws Exception {
+        write("build.gradle", "");
+        Files.createDirectories(origin.resolve("build/test-results/test"));
+        write("build/test-results/test/TEST-com.example.CalculatorTest.xml", JUNIT_REPORT);
+        write("build.sh", "exit 0\n");
+        String commit = commit();
+
+        TestExecutionResult result = pool(60).run(submission(commit));
+
+        assertEquals(0, result.getTotalTests());
+    }
+
+    @Test
+    void seedsDependenciesOnceFromTheLabTemplateAndKeepsThemReadOnly() throws Exception {
+        Path log = tempDir.resolve("builds.log");
+        write("build.gradle", "");
+        write("build.sh", """
+            echo "$GRADLE_USER_HOME|$GRADLE_RO_DEP_CACHE" >> %s
+            mkdir -p "$GRADLE_USER_HOME/caches/modules-2"
+            echo jar > "$GRADLE_USER_HOME/caches/modules-2/junit.jar"
+            """.formatted(log));
+        String commit = commit();
+        TestSandboxPool pool = pool(60);
+
+        Lab lab = new Lab();
+        lab.setId(1L);
+        lab.setGithubTemplateUrl(origin.toUri().toString());
+        when(labRepository.findById(1L)).thenReturn(Optional.of(lab));
+        // Como el proxy LAZY de una submission cargada fuera de transacción
+        Lab detached = mock(Lab.class);
+        when(detached.getId()).thenReturn(1L);
+        when(detached.getGithubTemplateUrl()).thenThrow(new LazyInitializationException("could not initialize proxy - no Session"));
+        LabSubmission first = submission(commit);
+        first.setLab(detached);
+        pool.run(first);
+        pool.run(first);
+
+        Path seed = tempDir.resolve("cache/lab-1");
+        List<String> builds = Files.readAllLines(log);
+        // Una build de la plantilla y dos del alumno
+        assertEquals(3, builds.size());
+        assertEquals(seed.resolve("gradle") + "|", builds.get(0));
+        assertTrue(builds.get(1).endsWith("|" + seed.resolve("gradle/caches")));
+        assertFalse(builds.get(1).startsWith(seed.toString()));
+        assertFalse(Files.getPosixFilePermissions(seed.resolve("gradle/caches/modules-2/junit.jar"))
+            .contains(PosixFilePermission.OWNER_WRITE));
+    }
+
+    @Test
+    void killsBuildsThatExceedTheTimeout() throws Exception {
+        write("build.gradle", "");
+        write("build.sh", "sleep 60\n");
+        String commit = commit();
+
+        long start = System.nanoTime();
+        TestExecutionResult result = pool(1).run(submission(commit));
+
+        assertTrue(System.nanoTime() - start < 30_000_000_000L);
+        assertEquals(0, result.getTotalTests());
+        assertTrue(result.getFailedTests().get(0).contains("timed out"));
+    }
+
+    @Test
+    void exclusiveMeasurementsWaitForRunningBuildsAndHoldBackNewOnes() throws Exception {
+        Path builds = tempDir.resolve("builds.log");
+        write("build.gradle", "");
+        write("build.sh", "echo start >> '" + builds + "'\nsleep 1\necho end >> '" + builds + "'\n");
+        String commit = commit();
+        TestSandboxPool pool = pool(60);
+
+        CompletableFuture<TestExecutionResult> running = CompletableFuture.supplyAsync(() -> pool.run(submission(commit)));
+        while (!Files.exists(builds)) {
+            Thread.sleep(20);
+        }
+        List<String> seenByMeasurement = pool.exclusively(() -> lines(builds));
+        assertEquals(List.of("start", "end"), seenByMeasurement);
+        running.join();
+
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Void> measurement = CompletableFuture.runAsync(() -> pool.exclusively(() -> {
+            try {
+                return release.await(30, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        }));
+        Thread.sleep(200);
+        CompletableFuture<TestExecutionResult> queued = CompletableFuture.supplyAsync(() -> pool.run(submission(commit)));
+        Thread.sleep(1000);
+        assertEquals(2, lines(builds).size());
+        release.countDown();
+        measurement.join();
+        queued.join();
+        assertEquals(4, lines(builds).size());
+        pool.shutdown();
+    }
+
+    private static List<String> lines(Path file) {
+        try {
+            return Files.readAllLines(file);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Test
+    void reportsMissingBuildFile() throws Exception {
+        write("Main.java", "class Main {}");
+        String commit = commit();
+
+        TestExecutionResult result = pool(60).run(submission(commit));
+
+        assertEquals(0, result.getTotalTests());
+        assertTrue(result.getFailedTests().get(0).startsWith("No build file"));
+    }
+
+    private TestSandboxPool pool(long timeoutSeconds) {
+        return pool(timeoutSeconds, false);
+    }
+
+    private TestSandboxPool pool(long timeoutSeconds, boolean mutation) {
+        GitMirrorCache gitMirrorCache = new GitMirrorCache(tempDir.resolve("git").toString(), Long.MAX_VALUE, 60, true);
+        return new TestSandboxPool(gitMirrorCache, labRepository, new SimpleMeterRegistry(), true, 1,
+            tempDir.resolve("work").toString(), tempDir.resolve("cache").toString(),
+            timeoutSeconds, 60, 256, false, "sh build.sh", "sh build.sh",
+            mutation, 2, 60, "sh mutate.sh {history}", "sh mutate.sh {history}",
+            60, "sh serve.sh {port}", "sh serve.sh {port}", "sh bench.sh", "sh bench.sh {results}");
+    }
+
+    private LabSubmission submission(String commit) {
+        Lab lab = new Lab();
+        lab.setId(1L);
+        User user = new User();
+        user.setId(7L);
+        LabSubmission submission = new LabSubmission();
+        submission.setId(10L);
+        submission.setLab(lab);
+        submission.setUser(user);
+        submission.setGithubRepoUrl(origin.toUri().toString());
+        submission.setCommitHash(commit);
+        return submission;
+    }
+
+    private void write(String file, String content) throws Exception {
+        Files.writeString(origin.resolve(file), content, StandardCharsets.UTF_8);
+    }
+
+    private String commit() throws Exception {
+        git(origin, "add", "-A");
+        git(origin, "-c", "user.name=Test", "-c", "user.email=test@example.com",
+            "commit", "--quiet", "-m", "submission");
+        return git(origin, "rev-parse", "HEAD").trim();
+    }
+
+    private static String git(Path directory, String... args) throws Exception {
+        List<String> command = new ArrayList<>(List.of("git", "-C", directory.toString()));
+        command.addAll(List.of(args));
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        String output = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+        assertEquals(0, process.waitFor(), output);
+        return output;
+    }
+}
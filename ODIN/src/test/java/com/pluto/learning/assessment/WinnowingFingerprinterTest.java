@@ -0,0 +1,82 @@
+package com.pluto.learning.assessment;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests de la selección de huellas por winnowing
+ */
+class WinnowingFingerprinterTest {
+
+    private static final int K = 5;
+    private static final int WINDOW = 4;
+
+    @Test
+    void selectsTheMinimumHashOfEveryWindow() {
+        int[] tokens = randomTokens(200, 40, 1);
+        WinnowingFingerprinter single = new WinnowingFingerprinter(K, 1);
+
+        // Hash de cada k-grama calculado por separado, sin hash rodante
+        long[] hashes = new long[tokens.length - K + 1];
+        for (int i = 0; i < hashes.length; i++) {
+            long[] kgram = single.fingerprint(Arrays.copyOfRange(tokens, i, i + K), K);
+            assertEquals(1, kgram.length);
+            hashes[i] = kgram[0];
+        }
+        TreeSet<Long> expected = new TreeSet<>();
+        for (int i = 0; i + WINDOW <= hashes.length; i++) {
+            long min = Long.MAX_VALUE;
+            for (int j = i; j < i + WINDOW; j++) {
+                min = Math.min(min, hashes[j]);
+            }
+            expected.add(min);
+        }
+
+        long[] fingerprints = new WinnowingFingerprinter(K, WINDOW).fingerprint(tokens, tokens.length);
+        assertArrayEquals(expected.stream().mapToLong(Long::longValue).toArray(), fingerprints);
+    }
+
+    @Test
+    void sharedFragmentsOfGuaranteedLengthShareAFingerprint() {
+        WinnowingFingerprinter fingerprinter = new WinnowingFingerprinter(K, WINDOW);
+        int guaranteed = K + WINDOW - 1;
+        for (int seed = 0; seed < 50; seed++) {
+            int[] a = randomTokens(120, 1000, seed);
+            int[] b = randomTokens(120, 1000, seed + 1000);
+            System.arraycopy(a, 30, b, 70, guaranteed);
+
+            long[] fingerprintsA = fingerprinter.fingerprint(a, a.length);
+            long[] fingerprintsB = fingerprinter.fingerprint(b, b.length);
+            assertTrue(Arrays.stream(fingerprintsA).anyMatch(f -> Arrays.binarySearch(fingerprintsB, f) >= 0),
+                "seed " + seed);
+        }
+    }
+
+    @Test
+    void handlesShortInputsAndRejectsInvalidParameters() {
+        WinnowingFingerprinter fingerprinter = new WinnowingFingerprinter(K, WINDOW);
+        assertEquals(0, fingerprinter.fingerprint(new int[] {1, 2, 3, 4}, 4).length);
+        // Menos k-gramas que la ventana: se toma el mínimo de todos
+        assertEquals(1, fingerprinter.fingerprint(new int[] {1, 2, 3, 4, 5, 6}, 6).length);
+        // Solo cuenta el prefijo indicado
+        int[] tokens = randomTokens(50, 10, 7);
+        assertArrayEquals(fingerprinter.fingerprint(Arrays.copyOf(tokens, 20), 20), fingerprinter.fingerprint(tokens, 20));
+
+        assertThrows(IllegalArgumentException.class, () -> new WinnowingFingerprinter(0, 4));
+        assertThrows(IllegalArgumentException.class, () -> new WinnowingFingerprinter(5, 0));
+    }
+
+    private static int[] randomTokens(int length, int alphabet, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        int[] tokens = new int[length];
+        for (int i = 0; i < length; i++) {
+            tokens[i] = random.nextInt(alphabet);
+        }
+        return tokens;
+    }
+}
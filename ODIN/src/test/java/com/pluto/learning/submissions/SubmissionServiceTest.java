@@ -0,0 +1,77 @@
+package com.pluto.learning.submissions;
+
+import com.pluto.learning.assessments.Lab;
+import com.pluto.learning.auth.User;
+import com.pluto.learning.submissions.SubmissionService.SubmissionEvaluationEvent;
+import com.pluto.learning.submissions.dto.CreateSubmissionRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests de la publicación del evento de evaluación al crear una submission
+ */
+class SubmissionServiceTest {
+
+    @SuppressWarnings("unchecked")
+    private final KafkaTemplate<String, Object> kafkaTemplate = mock(KafkaTemplate.class);
+    private final SubmissionRepository submissionRepository = mock(SubmissionRepository.class);
+    private final ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+    private final SubmissionService service = new SubmissionService(submissionRepository, kafkaTemplate, eventPublisher);
+
+    @AfterEach
+    void clearSynchronization() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void publishesToKafkaOnlyAfterTheInsertCommits() {
+        when(submissionRepository.save(any())).thenAnswer(invocation -> {
+            LabSubmission submission = invocation.getArgument(0);
+            submission.setId(42L);
+            return submission;
+        });
+        TransactionSynchronizationManager.initSynchronization();
+
+        service.createSubmission(new CreateSubmissionRequest("https://example.com/lab.git", "c1", "main"), lab(), user());
+
+        // El prefetch local sí sale enseguida
+        verify(eventPublisher).publishEvent(any(SubmissionEvaluationEvent.class));
+        verifyNoInteractions(kafkaTemplate);
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        verify(kafkaTemplate).send(eq("submission-evaluation"),
+            argThat(event -> ((SubmissionEvaluationEvent) event).getSubmissionId() == 42L));
+    }
+
+    @Test
+    void publishesImmediatelyOutsideATransaction() {
+        when(submissionRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        service.createSubmission(new CreateSubmissionRequest("https://example.com/lab.git", "c1", "main"), lab(), user());
+
+        verify(kafkaTemplate).send(eq("submission-evaluation"), any(SubmissionEvaluationEvent.class));
+    }
+
+    private static Lab lab() {
+        Lab lab = new Lab();
+        lab.setId(1L);
+        lab.setMaxAttempts(3);
+        lab.setEvaluationType(Lab.EvaluationType.AUTOMATED);
+        return lab;
+    }
+
+    private static User user() {
+        User user = new User();
+        user.setId(7L);
+        return user;
+    }
+}